@@ -47,3 +47,8 @@ dependencies {
     androidTestImplementation("com.github.adobe:aepsdk-testutils-android:$mavenTestUtilsVersion")
     androidTestImplementation(project(":test-utils"))
 }
+
+tasks.withType<Test>().configureEach {
+    // benchmarks are skipped unless the tests run with -Pconsent.benchmarks
+    systemProperty("consent.benchmarks", project.hasProperty("consent.benchmarks"))
+}
@@ -180,7 +180,7 @@ public class ConsentPublicAPITests {
 	@Test
 	public void testUpdateAPI_NullData() throws InterruptedException {
 		// test
-		Consent.update(null);
+		Consent.update((Map<String, Object>) null);
 
 		// verify no consent update event dispatched
 		List<Event> dispatchedEvents = getDispatchedEventsWith(EventType.CONSENT, EventSource.UPDATE_CONSENT);
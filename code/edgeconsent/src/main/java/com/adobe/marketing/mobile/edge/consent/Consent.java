@@ -14,6 +14,7 @@ package com.adobe.marketing.mobile.edge.consent;
 import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.adobe.marketing.mobile.AdobeCallback;
 import com.adobe.marketing.mobile.AdobeCallbackWithError;
 import com.adobe.marketing.mobile.AdobeError;
@@ -23,7 +24,9 @@ import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.Extension;
 import com.adobe.marketing.mobile.MobileCore;
 import com.adobe.marketing.mobile.services.Log;
+import java.io.File;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class Consent {
@@ -49,6 +52,12 @@ public class Consent {
 	 *
 	 * <p>Input example: {"consents": {"collect": {"val": "y"}}}
 	 *
+	 * <p>The consents expire if an {@code expiry} is set, in milliseconds since epoch, either for
+	 * all the given consents or per top level consent key. Expired consents fall back to the
+	 * default consents.
+	 *
+	 * <p>Input example: {"consents": {"collect": {"val": "y"}}, "expiry": {"collect": 1767225600000}}
+	 *
 	 * @param consents A {@link Map} of consents to be merged with the existing consents
 	 */
 	public static void update(@NonNull final Map<String, Object> consents) {
@@ -65,19 +74,112 @@ public class Consent {
 		)
 			.setEventData(consents)
 			.build();
+		GetConsentsRequests.getInstance().invalidate();
+		MobileCore.dispatchEvent(event);
+	}
+
+	/**
+	 * Merges the existing consents with the given typed consents update.
+	 *
+	 * <p>The update is validated when it is built, so the Consent extension ingests it without
+	 * validating or copying it again.
+	 *
+	 * <p>Input example: {@code new ConsentUpdate.Builder().setCollect("y").build()}
+	 *
+	 * @param consentUpdate The {@link ConsentUpdate} to be merged with the existing consents
+	 */
+	public static void update(@NonNull final ConsentUpdate consentUpdate) {
+		if (consentUpdate == null || consentUpdate.isEmpty()) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Null/Empty consent update passed to update API. Ignoring the API call.");
+			return;
+		}
+
+		// create and dispatch an consent fragments update event
+		final Event event = new Event.Builder(
+			ConsentConstants.EventNames.CONSENT_UPDATE_REQUEST,
+			EventType.CONSENT,
+			EventSource.UPDATE_CONSENT
+		)
+			.setEventData(consentUpdate.toEventData())
+			.build();
+		ConsentUpdate.markValidatedEvent(event.getUniqueIdentifier());
+		GetConsentsRequests.getInstance().invalidate();
 		MobileCore.dispatchEvent(event);
 	}
 
+	/**
+	 * Merges the existing consents with each of the given consents, in order, as a single update.
+	 * Duplicate keys will take the value of the last consents passed in the API which contain
+	 * them.
+	 *
+	 * <p>The consents are combined before being sent to the Consent extension, so the whole batch
+	 * is merged, persisted, shared and sent to Edge Network once, as if {@link #update(Map)} was
+	 * called with the combined consents. The {@code expiry} of each consents applies to the keys
+	 * it sets, the last expiry set for a key is kept.
+	 *
+	 * <p>Input example: [{"consents": {"collect": {"val": "y"}}}, {"consents": {"adID": {"val": "n"}}}]
+	 *
+	 * @param consentsList A {@link List} of consents {@link Map}s to be merged with the existing
+	 *     consents, in order
+	 */
+	public static void updateAll(@NonNull final List<Map<String, Object>> consentsList) {
+		if (consentsList == null || consentsList.isEmpty()) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Null/Empty consents list passed to updateAll API. Ignoring the API call.");
+			return;
+		}
+
+		final Consents combinedConsents = new Consents(new HashMap<String, Object>());
+
+		for (final Map<String, Object> consents : consentsList) {
+			final Consents newConsents = new Consents(consents);
+			combinedConsents.merge(newConsents);
+			combinedConsents.overrideExpiries(newConsents);
+		}
+
+		if (combinedConsents.isEmpty()) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "No valid consents passed to updateAll API. Ignoring the API call.");
+			return;
+		}
+
+		update(combinedConsents.asUpdateEventData());
+	}
+
 	/**
 	 * Retrieves the current consent preferences stored in the Consent extension
 	 *
 	 * <p>Output example: {"consents": {"collect": {"val": "y"}}}
 	 *
+	 * <p>Calls made while another call is waiting for the Consent extension share its request, each
+	 * callback receives its own map of the consent preferences, which is only copied when the
+	 * callback modifies it.
+	 *
 	 * @param callback The {@link AdobeCallback} is invoked with the current consent preferences. If
 	 *     an {@link AdobeCallbackWithError} is provided, an {@link AdobeError} is returned when an
 	 *     unexpected error occurs or the request timed out
 	 */
 	public static void getConsents(@NonNull final AdobeCallback<Map<String, Object>> callback) {
+		getConsents(callback, 0);
+	}
+
+	/**
+	 * Retrieves the current consent preferences stored in the Consent extension, from the consent
+	 * preferences retrieved by a previous call if they are recent enough
+	 *
+	 * <p>The previously retrieved consent preferences are used without sending a request to the
+	 * Consent extension if they were retrieved at most {@code maxAgeMillis} ago, and no consent
+	 * update was requested nor applied since.
+	 *
+	 * @param callback The {@link AdobeCallback} is invoked with the current consent preferences. If
+	 *     an {@link AdobeCallbackWithError} is provided, an {@link AdobeError} is returned when an
+	 *     unexpected error occurs or the request timed out
+	 * @param maxAgeMillis The maximum age of the previously retrieved consent preferences, in
+	 *     milliseconds; 0 to always request the Consent extension
+	 * @see #getConsents(AdobeCallback)
+	 */
+	public static void getConsents(
+		@NonNull final AdobeCallback<Map<String, Object>> callback,
+		final long maxAgeMillis
+	) {
 		if (callback == null) {
 			Log.debug(
 				LOG_TAG,
@@ -87,6 +189,70 @@ public class Consent {
 			return;
 		}
 
+		final GetConsentsRequests requests = GetConsentsRequests.getInstance();
+		final Map<String, Object> snapshot = maxAgeMillis > 0 ? requests.getSnapshot(maxAgeMillis) : null;
+
+		if (snapshot != null) {
+			callback.call(new CopyOnWriteMap(snapshot));
+			return;
+		}
+
+		final GetConsentsRequests.Batch batch = requests.enqueue(callback);
+
+		if (batch == null) {
+			// the request in flight returns the current consents to this callback too
+			return;
+		}
+
+		// dispatch an consent callback response event
+		final Event event = new Event.Builder(
+			ConsentConstants.EventNames.GET_CONSENTS_REQUEST,
+			EventType.CONSENT,
+			EventSource.REQUEST_CONTENT
+		)
+			.build();
+
+		final AdobeCallbackWithError<Event> callbackWithError = new AdobeCallbackWithError<Event>() {
+			@Override
+			public void call(final Event event) {
+				if (event == null || event.getEventData() == null) {
+					requests.fail(batch, AdobeError.UNEXPECTED_ERROR);
+					return;
+				}
+
+				requests.complete(batch, event.getEventData());
+			}
+
+			@Override
+			public void fail(final AdobeError adobeError) {
+				requests.fail(batch, adobeError);
+				Log.error(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Failed to dispatch %s event: Error : %s.",
+					ConsentConstants.EventNames.GET_CONSENTS_REQUEST,
+					adobeError.getErrorName()
+				);
+			}
+		};
+		MobileCore.dispatchEventWithResponseCallback(event, CALLBACK_TIMEOUT_MILLIS, callbackWithError);
+	}
+
+	/**
+	 * Retrieves the current consent preferences stored in the Consent extension, as a {@link
+	 * ConsentsFuture}
+	 *
+	 * <p>The future completes with the consent preferences, or fails when an unexpected
+	 * error occurs or the request times out. Cancelling the future releases it right away, it is
+	 * not held until the request times out.
+	 *
+	 * @param timeoutMillis The timeout of the request, in milliseconds; the default timeout of
+	 *     {@link #getConsents(AdobeCallback)} is used if it is not positive
+	 * @return the {@link ConsentsFuture} of the current consent preferences
+	 */
+	@NonNull public static ConsentsFuture getConsentsAsync(final long timeoutMillis) {
+		final ConsentsFuture future = new ConsentsFuture();
+
 		// dispatch an consent callback response event
 		final Event event = new Event.Builder(
 			ConsentConstants.EventNames.GET_CONSENTS_REQUEST,
@@ -94,6 +260,54 @@ public class Consent {
 			EventSource.REQUEST_CONTENT
 		)
 			.build();
+		MobileCore.dispatchEventWithResponseCallback(
+			event,
+			timeoutMillis > 0 ? timeoutMillis : CALLBACK_TIMEOUT_MILLIS,
+			future.getResponseCallback()
+		);
+		return future;
+	}
+
+	/**
+	 * Retrieves a page of the history of the changes of the current consents, from the oldest to
+	 * the most recent change
+	 *
+	 * <p>Each change records the consents which changed with their new value as a JSON merge patch,
+	 * null if removed, its revision, timestamp in milliseconds since epoch and source: "api",
+	 * "edge", "defaults", "policy" or "expiry". The history keeps the last changes within the byte
+	 * budget set with the {@code consent.history.maxBytes} configuration. A change larger than the
+	 * budget is recorded with "truncated": true instead of its consents.
+	 *
+	 * <p>Output example: {"entries": [{"revision": 12, "timestamp": 1695492945000, "source": "api",
+	 * "consents": {"collect": {"val": "n"}}}], "nextRevision": 13}
+	 *
+	 * @param fromRevision The revision of the first change to retrieve, 0 for the oldest change;
+	 *     use the {@code nextRevision} of the previous page to retrieve the next page
+	 * @param limit The maximum number of changes to retrieve
+	 * @param callback The {@link AdobeCallback} is invoked with the page of changes. If an {@link
+	 *     AdobeCallbackWithError} is provided, an {@link AdobeError} is returned when an unexpected
+	 *     error occurs or the request timed out
+	 */
+	public static void getHistory(
+		final long fromRevision,
+		final int limit,
+		@NonNull final AdobeCallback<Map<String, Object>> callback
+	) {
+		if (callback == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unexpected null callback, provide a callback to retrieve consent history.");
+			return;
+		}
+
+		final Map<String, Object> requestData = new HashMap<>();
+		requestData.put(ConsentConstants.EventDataKey.FROM_REVISION, fromRevision);
+		requestData.put(ConsentConstants.EventDataKey.LIMIT, limit);
+		final Event event = new Event.Builder(
+			ConsentConstants.EventNames.GET_HISTORY_REQUEST,
+			EventType.CONSENT,
+			ConsentConstants.EventSources.HISTORY_REQUEST
+		)
+			.setEventData(requestData)
+			.build();
 
 		final AdobeCallbackWithError<Event> callbackWithError = new AdobeCallbackWithError<Event>() {
 			@Override
@@ -103,14 +317,19 @@ public class Consent {
 					return;
 				}
 
-				Map<String, Object> responseConsentsData = Utils.optDeepCopy(event.getEventData(), new HashMap<>());
-				callback.call(responseConsentsData);
+				callback.call(event.getEventData());
 			}
 
 			@Override
 			public void fail(final AdobeError adobeError) {
 				returnError(callback, adobeError);
-				Log.error(LOG_TAG, LOG_SOURCE, "Failed to dispatch %s event: Error : %s.", adobeError.getErrorName());
+				Log.error(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Failed to dispatch %s event: Error : %s.",
+					ConsentConstants.EventNames.GET_HISTORY_REQUEST,
+					adobeError.getErrorName()
+				);
 			}
 		};
 		MobileCore.dispatchEventWithResponseCallback(event, CALLBACK_TIMEOUT_MILLIS, callbackWithError);
@@ -123,17 +342,134 @@ public class Consent {
 	 * @param callback should not be null, should be instance of {@code AdobeCallbackWithError}
 	 * @param error the {@code AdobeError} returned back in the callback
 	 */
+	@SuppressWarnings("unchecked")
 	private static void returnError(final AdobeCallback<Map<String, Object>> callback, final AdobeError error) {
-		if (callback == null) {
+		if (callback instanceof AdobeCallbackWithError) {
+			((AdobeCallbackWithError<Map<String, Object>>) callback).fail(error);
+		}
+	}
+
+	/**
+	 * Retrieves the metrics recorded by the Consent extension since the application started
+	 *
+	 * <p>The metrics contain counters of the consent updates received, merged, dropped as duplicate
+	 * and throttled, of the ignored Edge consent:preferences handles, of the created shared states
+	 * and of the persistence writes, and the latency histograms of the event handlers, in
+	 * microseconds.
+	 *
+	 * <p>Output example: {"counters": {"updatesReceived": 3, ...}, "latencies":
+	 * {"handleConsentUpdate": {"count": 3, "totalMicros": 840, "maxMicros": 510, "buckets":
+	 * {"100": 0, "250": 1, ..., "inf": 0}}, ...}}
+	 *
+	 * @return a {@link Map} with the current metrics of the Consent extension
+	 */
+	@NonNull public static Map<String, Object> getMetrics() {
+		return ConsentMetrics.getInstance().snapshot();
+	}
+
+	/**
+	 * Sets the tracer called by the Consent extension around its hot paths, such as loading,
+	 * merging and persisting consents and creating the shared state
+	 *
+	 * <p>Tracing is disabled by default. Use a {@link RingBufferConsentTracer} to record the last
+	 * spans for export.
+	 *
+	 * @param tracer the {@link ConsentTracer} to call, or null to disable tracing
+	 */
+	public static void setTracer(@Nullable final ConsentTracer tracer) {
+		ConsentTracing.setTracer(tracer);
+	}
+
+	/**
+	 * Registers a listener called when the current consent at any of the given key paths changes,
+	 * with its old and new values. Changes of other consents do not call the listener.
+	 *
+	 * <p>Key paths are relative to the consents and separated by dots, for example {@code
+	 * "collect.val"}, {@code "marketing.email.val"} or {@code "marketing"} to be notified of any
+	 * marketing consent change. Invalid key paths are ignored.
+	 *
+	 * @param keyPaths the {@link List} of consent key paths to listen to
+	 * @param listener the {@link ConsentChangeListener} to call
+	 */
+	public static void registerListener(
+		@NonNull final List<String> keyPaths,
+		@NonNull final ConsentChangeListener listener
+	) {
+		if (keyPaths == null || keyPaths.isEmpty() || listener == null) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Null/Empty key paths or null listener passed to registerListener API. Ignoring the API call."
+			);
 			return;
 		}
 
-		final AdobeCallbackWithError<Map<String, Object>> adobeCallbackWithError = callback instanceof AdobeCallbackWithError
-			? (AdobeCallbackWithError<Map<String, Object>>) callback
-			: null;
+		ConsentChangeListeners.getInstance().register(keyPaths, listener);
+	}
 
-		if (adobeCallbackWithError != null) {
-			adobeCallbackWithError.fail(error);
+	/**
+	 * Unregisters a listener registered with {@link #registerListener(List,
+	 * ConsentChangeListener)}, from all its key paths.
+	 *
+	 * @param listener the {@link ConsentChangeListener} to unregister
+	 */
+	public static void unregisterListener(@NonNull final ConsentChangeListener listener) {
+		if (listener == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Null listener passed to unregisterListener API. Ignoring the API call.");
+			return;
 		}
+
+		ConsentChangeListeners.getInstance().unregister(listener);
+	}
+
+	/**
+	 * Persists the user consents in an append-only journal in the given directory, so each consent
+	 * update appends the change to the journal and syncs it to storage. The journal is compacted
+	 * into a snapshot of the consents once it grows past a size threshold. The user consents are
+	 * still saved in the data store of the extension on each update, where previous versions of
+	 * the SDK read them.
+	 *
+	 * <p>Must be called before registering the Consent extension, on every launch. On the first
+	 * launch the journal is seeded from the consents of the data store. On a launch without the
+	 * journal, its consents are moved back to the data store and its files are deleted. The
+	 * directory should not be a cache directory, as its files hold the user consents.
+	 *
+	 * @param directory the directory to keep the journal files in, created if needed
+	 */
+	public static void enableJournaledPersistence(@NonNull final File directory) {
+		if (directory == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to enable journaled persistence, the directory is null.");
+			return;
+		}
+
+		ConsentJournal.setDirectory(directory);
+	}
+
+	/**
+	 * Starts recording every event received by the Consent extension to the given file, one JSON
+	 * object per line with the event timestamp, identifier, name, type, source and data. Events
+	 * are appended to the file and any recording in progress is stopped.
+	 *
+	 * <p>Recorded logs can be replayed offline to reproduce the resulting shared states and
+	 * dispatched events. The event data contains the consents, so logs should only be recorded for
+	 * debugging.
+	 *
+	 * @param file the log {@link File} to append the events to
+	 * @return true if the recording started, false if the file could not be opened
+	 */
+	public static boolean startEventRecording(@NonNull final File file) {
+		if (file == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to start event recording, the file is null.");
+			return false;
+		}
+
+		return ConsentEventRecorder.start(file);
+	}
+
+	/**
+	 * Stops the event recording started with {@link #startEventRecording(File)}, if any.
+	 */
+	public static void stopEventRecording() {
+		ConsentEventRecorder.stop();
 	}
 }
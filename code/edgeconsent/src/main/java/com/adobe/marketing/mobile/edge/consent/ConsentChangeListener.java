@@ -0,0 +1,34 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Listener called by the Consent extension when the current consent at one of its key paths
+ * changes.
+ *
+ * <p>Register an implementation with {@link Consent#registerListener(java.util.List,
+ * ConsentChangeListener)}. The listener is called on the thread processing the consents, once per
+ * changed key path; implementations should return quickly.
+ */
+public interface ConsentChangeListener {
+	/**
+	 * Called when the current consent at the given key path changes.
+	 *
+	 * @param keyPath the registered key path which changed, for example {@code "collect.val"}
+	 * @param oldValue the previous value at {@code keyPath}, null if there was none
+	 * @param newValue the new value at {@code keyPath}, null if there is none
+	 */
+	void onConsentChanged(@NonNull String keyPath, @Nullable Object oldValue, @Nullable Object newValue);
+}
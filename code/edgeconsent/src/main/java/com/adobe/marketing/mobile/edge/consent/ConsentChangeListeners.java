@@ -0,0 +1,233 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the {@link ConsentChangeListener}s set through {@link
+ * Consent#registerListener(List, ConsentChangeListener)}.
+ *
+ * <p>Subscriptions are indexed by the top level consent key of their key path, so a change only
+ * resolves the key paths under the changed keys; changes of other keys only cost a lookup per
+ * changed key. Listeners are registered from any thread and notified on the extension thread.
+ */
+final class ConsentChangeListeners {
+
+	private static final String LOG_SOURCE = "ConsentChangeListeners";
+	private static final String KEY_PATH_SEPARATOR = "\\.";
+
+	private static final ConsentChangeListeners INSTANCE = new ConsentChangeListeners();
+
+	// subscriptions by top level consent key, replaced on each registration so notifications read it without locking
+	private volatile Map<String, List<Subscription>> subscriptionsByKey = Collections.emptyMap();
+
+	@VisibleForTesting
+	ConsentChangeListeners() {}
+
+	/**
+	 * @return the registry shared by the Consent APIs and the Consent extension
+	 */
+	static ConsentChangeListeners getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Registers the listener for changes of the given key paths. Invalid key paths are ignored, as
+	 * are key paths the listener is already registered for.
+	 *
+	 * @param keyPaths the key paths relative to the consents, separated by dots, for example
+	 *     {@code "collect.val"} or {@code "marketing"}
+	 * @param listener the {@link ConsentChangeListener} to notify
+	 * @return the number of key paths the listener was registered for
+	 */
+	synchronized int register(final Collection<String> keyPaths, final ConsentChangeListener listener) {
+		final Map<String, List<Subscription>> updatedSubscriptions = new HashMap<>(subscriptionsByKey);
+		int registered = 0;
+
+		for (final String keyPath : keyPaths) {
+			final String[] keys = keyPath != null ? keyPath.split(KEY_PATH_SEPARATOR, -1) : null;
+
+			if (!isValid(keys)) {
+				Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring invalid consent key path '%s'.", keyPath);
+				continue;
+			}
+
+			final List<Subscription> current = updatedSubscriptions.get(keys[0]);
+
+			if (current != null && contains(current, keyPath, listener)) {
+				continue;
+			}
+
+			final List<Subscription> subscriptions = current != null
+				? new ArrayList<>(current)
+				: new ArrayList<Subscription>(1);
+			subscriptions.add(new Subscription(keyPath, keys, listener));
+			updatedSubscriptions.put(keys[0], Collections.unmodifiableList(subscriptions));
+			registered++;
+		}
+
+		subscriptionsByKey = updatedSubscriptions;
+		return registered;
+	}
+
+	/**
+	 * Unregisters the listener from all its key paths.
+	 *
+	 * @param listener the {@link ConsentChangeListener} to unregister
+	 * @return true if the listener was registered
+	 */
+	synchronized boolean unregister(final ConsentChangeListener listener) {
+		final Map<String, List<Subscription>> updatedSubscriptions = new HashMap<>();
+		boolean isRemoved = false;
+
+		for (final Map.Entry<String, List<Subscription>> entry : subscriptionsByKey.entrySet()) {
+			final List<Subscription> subscriptions = new ArrayList<>(entry.getValue().size());
+
+			for (final Subscription subscription : entry.getValue()) {
+				if (subscription.listener == listener) {
+					isRemoved = true;
+				} else {
+					subscriptions.add(subscription);
+				}
+			}
+
+			if (!subscriptions.isEmpty()) {
+				updatedSubscriptions.put(entry.getKey(), Collections.unmodifiableList(subscriptions));
+			}
+		}
+
+		subscriptionsByKey = updatedSubscriptions;
+		return isRemoved;
+	}
+
+	/**
+	 * Notifies the listeners of the key paths under the updated keys which resolve to a different
+	 * value. Map values are copied, so listeners can keep them.
+	 *
+	 * @param updatedKeys the top level consent keys which may have changed
+	 * @param previousConsents the view of the consents before the change
+	 * @param currentConsents the view of the consents after the change
+	 */
+	void notifyChanges(
+		final Collection<String> updatedKeys,
+		final LayeredConsents previousConsents,
+		final LayeredConsents currentConsents
+	) {
+		final Map<String, List<Subscription>> currentSubscriptions = subscriptionsByKey;
+
+		if (currentSubscriptions.isEmpty()) {
+			return;
+		}
+
+		for (final String key : updatedKeys) {
+			final List<Subscription> subscriptions = currentSubscriptions.get(key);
+
+			if (subscriptions == null) {
+				continue;
+			}
+
+			for (final Subscription subscription : subscriptions) {
+				final Object oldValue = previousConsents.getValue(subscription.keys);
+				final Object newValue = currentConsents.getValue(subscription.keys);
+
+				if (oldValue == null ? newValue != null : !oldValue.equals(newValue)) {
+					notifyListener(subscription, copy(oldValue), copy(newValue));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all the registered listeners.
+	 */
+	@VisibleForTesting
+	synchronized void reset() {
+		subscriptionsByKey = Collections.emptyMap();
+	}
+
+	/**
+	 * Calls the listener of the subscription, so a listener which throws does not prevent the
+	 * other listeners from being notified nor fail the consents change.
+	 */
+	private static void notifyListener(final Subscription subscription, final Object oldValue, final Object newValue) {
+		try {
+			subscription.listener.onConsentChanged(subscription.keyPath, oldValue, newValue);
+		} catch (final Exception e) {
+			Log.warning(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Consent change listener of key path '%s' failed: %s",
+				subscription.keyPath,
+				e.getLocalizedMessage()
+			);
+		}
+	}
+
+	private static boolean isValid(final String[] keys) {
+		if (keys == null) {
+			return false;
+		}
+
+		for (final String key : keys) {
+			if (key.isEmpty()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean contains(
+		final List<Subscription> subscriptions,
+		final String keyPath,
+		final ConsentChangeListener listener
+	) {
+		for (final Subscription subscription : subscriptions) {
+			if (subscription.listener == listener && subscription.keyPath.equals(keyPath)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object copy(final Object value) {
+		return value instanceof Map ? Utils.optDeepCopy((Map<String, Object>) value, null) : value;
+	}
+
+	/**
+	 * A listener registered for one key path.
+	 */
+	private static final class Subscription {
+
+		private final String keyPath;
+		private final String[] keys;
+		private final ConsentChangeListener listener;
+
+		Subscription(final String keyPath, final String[] keys, final ConsentChangeListener listener) {
+			this.keyPath = keyPath;
+			this.keys = keys;
+			this.listener = listener;
+		}
+	}
+}
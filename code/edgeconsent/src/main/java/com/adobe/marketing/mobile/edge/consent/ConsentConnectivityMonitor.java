@@ -0,0 +1,123 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import com.adobe.marketing.mobile.services.AppContextService;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.ServiceProvider;
+
+/**
+ * Runs a task when the device connects to a network, while consent updates are queued offline.
+ *
+ * <p>The network callback is only registered between {@link #start()} and {@link #stop()}. The
+ * task runs once when the callback is registered while a network is available.
+ */
+final class ConsentConnectivityMonitor {
+
+	private static final String LOG_SOURCE = "ConsentConnectivityMonitor";
+
+	private final Runnable task;
+
+	// guarded by this
+	private ConnectivityManager connectivityManager;
+	private ConnectivityManager.NetworkCallback networkCallback;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param task the task to run when a network is available, called on a connectivity thread
+	 */
+	ConsentConnectivityMonitor(final Runnable task) {
+		this.task = task;
+	}
+
+	/**
+	 * Starts monitoring the network connectivity, if not already started.
+	 *
+	 * @return true if the connectivity is monitored
+	 */
+	synchronized boolean start() {
+		if (networkCallback != null) {
+			return true;
+		}
+
+		final ConnectivityManager manager = getConnectivityManager();
+
+		if (manager == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to monitor the network connectivity, no connectivity service.");
+			return false;
+		}
+
+		final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+			@Override
+			public void onAvailable(final Network network) {
+				task.run();
+			}
+		};
+
+		try {
+			manager.registerNetworkCallback(
+				new NetworkRequest.Builder().addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET).build(),
+				callback
+			);
+		} catch (final RuntimeException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to monitor the network connectivity: %s", e.getLocalizedMessage());
+			return false;
+		}
+
+		connectivityManager = manager;
+		networkCallback = callback;
+		return true;
+	}
+
+	/**
+	 * Stops monitoring the network connectivity, if started.
+	 */
+	synchronized void stop() {
+		if (networkCallback == null) {
+			return;
+		}
+
+		try {
+			connectivityManager.unregisterNetworkCallback(networkCallback);
+		} catch (final RuntimeException e) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Unable to stop monitoring the network connectivity: %s",
+				e.getLocalizedMessage()
+			);
+		}
+
+		connectivityManager = null;
+		networkCallback = null;
+	}
+
+	private static ConnectivityManager getConnectivityManager() {
+		final AppContextService appContextService = ServiceProvider.getInstance().getAppContextService();
+		final Context context = appContextService != null ? appContextService.getApplicationContext() : null;
+
+		if (context == null) {
+			return null;
+		}
+
+		final Object service = context.getSystemService(Context.CONNECTIVITY_SERVICE);
+		return service instanceof ConnectivityManager ? (ConnectivityManager) service : null;
+	}
+}
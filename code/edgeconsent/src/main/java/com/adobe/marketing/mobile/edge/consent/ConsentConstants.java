@@ -30,6 +30,11 @@ final class ConsentConstants {
 		static final String CONSENTS = "consents";
 		static final String METADATA = "metadata";
 		static final String PAYLOAD = "payload";
+		static final String EXPIRY = "expiry";
+		static final String FROM_REVISION = "fromRevision";
+		static final String LIMIT = "limit";
+		static final String ENTRIES = "entries";
+		static final String NEXT_REVISION = "nextRevision";
 
 		static final String TIME = "time";
 
@@ -39,11 +44,38 @@ final class ConsentConstants {
 	static final class DataStoreKey {
 
 		static final String DATASTORE_NAME = EXTENSION_NAME;
+		static final String HISTORY_DATASTORE_NAME = EXTENSION_NAME + ".history";
 		static final String CONSENT_PREFERENCES = "consent:preferences";
+		static final String CONSENT_PREFERENCES_SEALED = "consent:preferences.sealed";
+		static final String CONSENT_PREFERENCES_SHADOW = "consent:preferences.shadow";
+		static final String CONSENT_JOURNAL_DIRECTORY = "consent:journal.directory";
+		static final String CONSENT_DEFAULTS = "consent:defaults";
+		static final String CONSENT_DEFAULTS_FINGERPRINT = "consent:defaults.fingerprint";
+		static final String CONSENT_REGIONAL_DEFAULTS = "consent:defaults.regional";
+		static final String CONSENT_REGIONAL_DEFAULTS_FINGERPRINT = "consent:defaults.regional.fingerprint";
+		static final String CONSENT_POLICY = "consent:policy";
+		static final String CONSENT_POLICY_FINGERPRINT = "consent:policy.fingerprint";
+		static final String CONSENT_SHARED_STATE = "consent:sharedstate";
+		static final String CONSENT_SHARED_STATE_FINGERPRINT = "consent:sharedstate.fingerprint";
+		static final String EDGE_CONSENTS = "consent:edge";
+		static final String EDGE_CONFIRMED_FINGERPRINT = "consent:edge.confirmed.fingerprint";
+		static final String EDGE_PENDING_CONSENTS = "consent:edge.pending";
+		static final String CONSENT_HISTORY_SLOT_PREFIX = "consent:history.";
 
 		private DataStoreKey() {}
 	}
 
+	static final class EventSources {
+
+		static final String METRICS = "com.adobe.eventSource.metrics";
+		static final String EXPIRY = "com.adobe.eventSource.consentExpiry";
+		static final String HISTORY_REQUEST = "com.adobe.eventSource.consentHistoryRequest";
+		static final String HISTORY_RESPONSE = "com.adobe.eventSource.consentHistoryResponse";
+		static final String NETWORK_AVAILABLE = "com.adobe.eventSource.consentNetworkAvailable";
+
+		private EventSources() {}
+	}
+
 	static final class EventNames {
 
 		static final String EDGE_CONSENT_UPDATE = "Edge Consent Update Request";
@@ -51,6 +83,11 @@ final class ConsentConstants {
 		static final String GET_CONSENTS_REQUEST = "Get Consents Request";
 		static final String GET_CONSENTS_RESPONSE = "Get Consents Response";
 		static final String CONSENT_PREFERENCES_UPDATED = "Consent Preferences Updated";
+		static final String CONSENT_METRICS = "Consent Metrics";
+		static final String CONSENT_EXPIRY = "Consent Expiry";
+		static final String GET_HISTORY_REQUEST = "Get Consent History Request";
+		static final String GET_HISTORY_RESPONSE = "Get Consent History Response";
+		static final String CONSENT_NETWORK_AVAILABLE = "Consent Network Available";
 
 		private EventNames() {}
 	}
@@ -58,6 +95,11 @@ final class ConsentConstants {
 	static final class ConfigurationKey {
 
 		static final String DEFAULT_CONSENT = "consent.default";
+		static final String REGIONAL_DEFAULT_CONSENT = "consent.regionalDefault";
+		static final String POLICY_CONSENT = "consent.policy";
+		static final String METRICS_INTERVAL = "consent.metrics.interval"; // in seconds
+		static final String HISTORY_MAX_BYTES = "consent.history.maxBytes";
+		static final String COMPRESSION_THRESHOLD = "consent.persistence.compressionThreshold"; // in characters
 
 		private ConfigurationKey() {}
 	}
@@ -0,0 +1,188 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.util.JSONUtils;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Records the events received by the Consent extension to a log file, one JSON object per line,
+ * so they can be replayed offline.
+ *
+ * <p>Output example: {"ts":1695492945000,"id":"5c3f...","n":"Consent Update","t":
+ * "com.adobe.eventType.edgeConsent","s":"com.adobe.eventSource.updateConsent","d":{"consents":
+ * {"collect":{"val":"y"}}}}
+ */
+final class ConsentEventRecorder {
+
+	private static final String LOG_SOURCE = "ConsentEventRecorder";
+
+	// log line keys
+	static final String TIMESTAMP = "ts";
+	static final String ID = "id";
+	static final String NAME = "n";
+	static final String TYPE = "t";
+	static final String SOURCE = "s";
+	static final String DATA = "d";
+
+	private static volatile ConsentEventRecorder activeRecorder;
+
+	private final Writer writer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param writer the {@link Writer} the log lines are written to
+	 */
+	ConsentEventRecorder(final Writer writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Starts recording the events received by the Consent extension to the given file, replacing
+	 * any recording in progress. Events are appended to the file.
+	 *
+	 * @param file the log {@link File}
+	 * @return true if the file could be opened
+	 */
+	static boolean start(final File file) {
+		final ConsentEventRecorder recorder;
+
+		try {
+			recorder =
+				new ConsentEventRecorder(
+					new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))
+				);
+		} catch (final IOException e) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Unable to open the event log file %s: %s", file, e.getLocalizedMessage());
+			return false;
+		}
+
+		final ConsentEventRecorder previousRecorder = activeRecorder;
+		activeRecorder = recorder;
+
+		if (previousRecorder != null) {
+			previousRecorder.close();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stops the recording in progress, if any.
+	 */
+	static void stop() {
+		final ConsentEventRecorder recorder = activeRecorder;
+		activeRecorder = null;
+
+		if (recorder != null) {
+			recorder.close();
+		}
+	}
+
+	/**
+	 * Records the event if a recording is in progress.
+	 *
+	 * @param event the {@link Event} received by the Consent extension
+	 */
+	static void recordIfActive(final Event event) {
+		final ConsentEventRecorder recorder = activeRecorder;
+
+		if (recorder != null) {
+			recorder.record(event);
+		}
+	}
+
+	/**
+	 * Writes the event to the log. The line is flushed right away, so it is not lost if the
+	 * application is killed.
+	 *
+	 * @param event the {@link Event} to record
+	 */
+	synchronized void record(final Event event) {
+		try {
+			writer.write(toLogLine(event));
+			writer.write('\n');
+			writer.flush();
+		} catch (final IOException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to record event %s: %s", event.getName(), e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Closes the log.
+	 */
+	synchronized void close() {
+		try {
+			writer.close();
+		} catch (final IOException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to close the event log: %s", e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Serializes the event to a log line.
+	 *
+	 * @param event the {@link Event} to serialize
+	 * @return the JSON log line, without line separator
+	 */
+	static String toLogLine(final Event event) {
+		final JSONObject line = new JSONObject();
+
+		try {
+			line.put(TIMESTAMP, event.getTimestamp());
+			line.put(ID, event.getUniqueIdentifier());
+			line.put(NAME, event.getName());
+			line.put(TYPE, event.getType());
+			line.put(SOURCE, event.getSource());
+
+			if (event.getEventData() != null) {
+				line.put(DATA, new JSONObject(event.getEventData()));
+			}
+		} catch (final JSONException e) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Unable to serialize event %s: %s",
+				event.getName(),
+				e.getLocalizedMessage()
+			);
+		}
+
+		return line.toString();
+	}
+
+	/**
+	 * Parses the event data of a log line.
+	 *
+	 * @param line the JSON log line
+	 * @return the event data, or null if the event had no data
+	 * @throws JSONException if the line is not a valid log line
+	 */
+	static Map<String, Object> parseEventData(final JSONObject line) throws JSONException {
+		final JSONObject data = line.optJSONObject(DATA);
+		return data != null ? JSONUtils.toMap(data) : null;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single timer which runs a task when the earliest consent expires.
+ *
+ * <p>Only the earliest expiry is scheduled, the task reschedules the next one once the expired
+ * consents are removed, so the consents are never polled. The timer thread is only started when
+ * a consent expires.
+ */
+final class ConsentExpiryScheduler {
+
+	private static final String LOG_SOURCE = "ConsentExpiryScheduler";
+	private static final String THREAD_NAME = "ConsentExpiryScheduler";
+
+	private final Runnable task;
+
+	// guarded by this
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> scheduledTask;
+	private long scheduledExpiry;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param task the task to run when the scheduled expiry is reached, called on the timer thread
+	 */
+	ConsentExpiryScheduler(final Runnable task) {
+		this.task = task;
+	}
+
+	/**
+	 * Schedules the task at the provided expiry, replacing the expiry scheduled before if any. An
+	 * expiry in the past runs the task immediately.
+	 *
+	 * @param expiry the time to run the task at in milliseconds since epoch, 0 to cancel it
+	 */
+	synchronized void schedule(final long expiry) {
+		if (expiry <= 0) {
+			cancel();
+			return;
+		}
+
+		if (expiry == scheduledExpiry && scheduledTask != null && !scheduledTask.isDone()) {
+			return;
+		}
+
+		cancel();
+
+		if (executor == null) {
+			final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+				1,
+				runnable -> {
+					final Thread thread = new Thread(runnable, THREAD_NAME);
+					thread.setDaemon(true);
+					return thread;
+				}
+			);
+			timer.setRemoveOnCancelPolicy(true);
+			executor = timer;
+		}
+
+		final long delay = Math.max(expiry - System.currentTimeMillis(), 0);
+		Log.trace(LOG_TAG, LOG_SOURCE, "Scheduling the next consent expiry in %d ms.", delay);
+		scheduledExpiry = expiry;
+		scheduledTask = executor.schedule(task, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancels the scheduled task, if any.
+	 */
+	synchronized void cancel() {
+		if (scheduledTask != null) {
+			scheduledTask.cancel(false);
+			scheduledTask = null;
+		}
+
+		scheduledExpiry = 0;
+	}
+
+	/**
+	 * Cancels the scheduled task and stops the timer thread.
+	 */
+	synchronized void shutdown() {
+		cancel();
+
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * @return the scheduled expiry in milliseconds since epoch, 0 if none is scheduled
+	 */
+	@VisibleForTesting
+	synchronized long getScheduledExpiry() {
+		return scheduledExpiry;
+	}
+}
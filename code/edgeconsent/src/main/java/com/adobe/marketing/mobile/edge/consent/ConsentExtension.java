@@ -19,13 +19,17 @@ import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.Extension;
 import com.adobe.marketing.mobile.ExtensionApi;
+import com.adobe.marketing.mobile.ExtensionEventListener;
+import com.adobe.marketing.mobile.services.DeviceInforming;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.services.NamedCollection;
 import com.adobe.marketing.mobile.services.ServiceProvider;
 import com.adobe.marketing.mobile.util.DataReader;
+import com.adobe.marketing.mobile.util.MapUtils;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 class ConsentExtension extends Extension {
 
@@ -33,9 +37,25 @@ class ConsentExtension extends Extension {
 
 	private final ConsentManager consentManager;
 
+	private final ConsentMetrics metrics = ConsentMetrics.getInstance();
+
+	// runs when the earliest user opted consent expires
+	private final ConsentExpiryScheduler expiryScheduler = new ConsentExpiryScheduler(this::dispatchConsentExpiryEvent);
+
+	// runs when the device connects to a network while consent updates are queued offline
+	private final ConsentConnectivityMonitor connectivityMonitor = new ConsentConnectivityMonitor(
+		this::dispatchNetworkAvailableEvent
+	);
+
 	// The last time a consent update was processed from public API.
 	private long lastConsentUpdateTime = 0;
 
+	// The interval of the metrics events set through configuration, 0 if disabled.
+	private long metricsIntervalMs = 0;
+
+	// The timestamp of the event which triggered the last metrics event.
+	private long lastMetricsEventTime = 0;
+
 	/**
 	 * Constructor. It is called by the Mobile SDK when registering the extension and it initializes
 	 * the extension and registers event listeners.
@@ -45,10 +65,16 @@ class ConsentExtension extends Extension {
 	protected ConsentExtension(final ExtensionApi extensionApi) {
 		this(
 			extensionApi,
-			ServiceProvider
-				.getInstance()
-				.getDataStoreService()
-				.getNamedCollection(ConsentConstants.DataStoreKey.DATASTORE_NAME)
+			new ConsentManager(
+				ServiceProvider
+					.getInstance()
+					.getDataStoreService()
+					.getNamedCollection(ConsentConstants.DataStoreKey.DATASTORE_NAME),
+				ServiceProvider
+					.getInstance()
+					.getDataStoreService()
+					.getNamedCollection(ConsentConstants.DataStoreKey.HISTORY_DATASTORE_NAME)
+			)
 		);
 	}
 
@@ -117,6 +143,12 @@ class ConsentExtension extends Extension {
 	 *   <li>{@code EventType#CONSENT} and EventSource {@Code EventSource#UPDATE_CONSENT}
 	 *   <li>{@Code EventType#CONSENT} and EventSource {@Code EventSource#REQUEST_CONTENT}
 	 *   <li>{@Code EventType#CONFIGURATION} and EventSource {{@Code EventSource#RESPONSE_CONTENT}
+	 *   <li>{@Code EventType#EDGE} and EventSource {@Code EventSource#ERROR_RESPONSE_CONTENT}
+	 *   <li>{@Code EventType#CONSENT} and EventSource {@Code ConsentConstants.EventSources#EXPIRY}
+	 *   <li>{@Code EventType#CONSENT} and EventSource {@Code
+	 *       ConsentConstants.EventSources#HISTORY_REQUEST}
+	 *   <li>{@Code EventType#CONSENT} and EventSource {@Code
+	 *       ConsentConstants.EventSources#NETWORK_AVAILABLE}
 	 * </ul>
 	 *
 	 * <p>
@@ -127,28 +159,122 @@ class ConsentExtension extends Extension {
 			.registerEventListener(
 				EventType.EDGE,
 				EventSource.CONSENT_PREFERENCE,
-				this::handleEdgeConsentPreferenceHandle
+				timed(ConsentMetrics.HANDLE_EDGE_CONSENT_PREFERENCE_HANDLE, this::handleEdgeConsentPreferenceHandle)
+			);
+		getApi()
+			.registerEventListener(
+				EventType.CONSENT,
+				EventSource.UPDATE_CONSENT,
+				timed(ConsentMetrics.HANDLE_CONSENT_UPDATE, this::handleConsentUpdate)
+			);
+		getApi()
+			.registerEventListener(
+				EventType.CONSENT,
+				EventSource.REQUEST_CONTENT,
+				timed(ConsentMetrics.HANDLE_REQUEST_CONTENT, this::handleRequestContent)
 			);
-		getApi().registerEventListener(EventType.CONSENT, EventSource.UPDATE_CONSENT, this::handleConsentUpdate);
-		getApi().registerEventListener(EventType.CONSENT, EventSource.REQUEST_CONTENT, this::handleRequestContent);
 		getApi()
 			.registerEventListener(
 				EventType.CONFIGURATION,
 				EventSource.RESPONSE_CONTENT,
-				this::handleConfigurationResponse
+				timed(ConsentMetrics.HANDLE_CONFIGURATION_RESPONSE, this::handleConfigurationResponse)
+			);
+		getApi()
+			.registerEventListener(
+				EventType.EDGE,
+				EventSource.ERROR_RESPONSE_CONTENT,
+				timed(null, this::handleEdgeErrorResponse)
+			);
+		getApi()
+			.registerEventListener(
+				EventType.CONSENT,
+				ConsentConstants.EventSources.EXPIRY,
+				timed(null, this::handleConsentExpiry)
+			);
+		getApi()
+			.registerEventListener(
+				EventType.CONSENT,
+				ConsentConstants.EventSources.HISTORY_REQUEST,
+				timed(null, this::handleHistoryRequest)
+			);
+		getApi()
+			.registerEventListener(
+				EventType.CONSENT,
+				ConsentConstants.EventSources.NETWORK_AVAILABLE,
+				timed(null, this::handleNetworkAvailable)
 			);
 
 		handleInitialization();
 	}
 
-	/** Share the initial consents loaded from persistence to XDM shared state. */
+	/**
+	 * Stops the consent expiry timer and the network connectivity monitoring.
+	 */
+	@Override
+	protected void onUnregistered() {
+		expiryScheduler.shutdown();
+		connectivityMonitor.stop();
+	}
+
+	/**
+	 * Share the initial consents loaded from persistence to XDM shared state.
+	 *
+	 * <p>If any persisted consent expires, the consents which expired while the app was not running
+	 * are removed right away, before the initial consents are shared. If the shared state cached on
+	 * a previous launch was computed from the same persisted consents, it is published as is,
+	 * without loading and merging the individual consents. Otherwise the merged consents are shared
+	 * and cached for the next launch. Once shared, the expired consents and the consent updates
+	 * queued offline by a previous launch are sent to Edge when the device is online.
+	 */
 	void handleInitialization() {
-		// share the initial XDMSharedState onRegistered
-		final Consents currentConsents = consentManager.getCurrentConsents();
+		Consents expiredConsents = null;
 
-		if (!currentConsents.isEmpty()) {
+		if (consentManager.hasExpiries()) {
+			expiredConsents = consentManager.expireConsents(System.currentTimeMillis());
+			expiryScheduler.schedule(consentManager.getNextExpiry());
+		}
+
+		shareInitialConsents();
+
+		if (expiredConsents != null && !expiredConsents.isEmpty()) {
+			// the update sent to Edge includes the consent updates queued offline
+			sendExpiredConsentsToEdge(expiredConsents);
+		}
+
+		if (consentManager.hasPendingEdgeConsents()) {
+			if (isNetworkDisconnected()) {
+				connectivityMonitor.start();
+			} else {
+				flushPendingEdgeConsentsUpdate();
+			}
+		}
+	}
+
+	/**
+	 * Shares the initial consents, from the cached shared state if it is still valid.
+	 */
+	private void shareInitialConsents() {
+		final Map<String, Object> cachedSharedState = consentManager.loadSharedStateFromPersistence();
+
+		if (cachedSharedState != null) {
+			final Map<String, Object> cachedConsents = DataReader.optTypedMap(
+				Object.class,
+				cachedSharedState,
+				ConsentConstants.EventDataKey.CONSENTS,
+				null
+			);
+
+			if (!MapUtils.isNullOrEmpty(cachedConsents)) {
+				shareConsents(cachedSharedState, null);
+			}
+			return;
+		}
+
+		if (!consentManager.getCurrentConsentsView().isEmpty()) {
 			shareCurrentConsents(null);
 		}
+
+		consentManager.saveSharedStateToPersistence();
 	}
 
 	/**
@@ -156,11 +282,14 @@ class ConsentExtension extends Extension {
 	 * {@link EventSource#UPDATE_CONSENT}.
 	 *
 	 * <p>1. Reads the event data and extract new available consents in XDM Format. 2. Merge with
-	 * the existing consents. 3. Dispatch the merged consent to edge for processing.
+	 * the existing consents. 3. Dispatch the consents which changed from what Edge already knows to
+	 * edge for processing.
 	 *
 	 * @param event the {@link Event} to be processed
 	 */
 	void handleConsentUpdate(@NonNull final Event event) {
+		metrics.increment(ConsentMetrics.UPDATES_RECEIVED);
+
 		// bail out if event data is empty
 		final Map<String, Object> consentData = event.getEventData();
 
@@ -169,8 +298,10 @@ class ConsentExtension extends Extension {
 			return;
 		}
 
-		// bail out if no valid consents are found in eventData
-		final Consents newConsents = new Consents(consentData);
+		// bail out if no valid consents are found in eventData, consents built by ConsentUpdate are already validated
+		final Consents newConsents = ConsentUpdate.consumeValidatedEvent(event.getUniqueIdentifier())
+			? Consents.fromValidatedEventData(consentData)
+			: new Consents(consentData);
 
 		if (newConsents.isEmpty()) {
 			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to find valid data from consent update event. Dropping event.");
@@ -179,21 +310,117 @@ class ConsentExtension extends Extension {
 
 		final boolean outsideTimeout =
 			event.getTimestamp() > lastConsentUpdateTime + ConsentConstants.Defaults.IGNORE_CONSENT_UPDATE_INTERVAL_MS;
+
+		if (outsideTimeout && consentManager.isDuplicateOfConfirmedConsents(newConsents)) {
+			// The same preferences were already sent and confirmed by Edge, possibly in a previous session
+			consentManager.clearPendingEdgeConsents();
+			metrics.increment(ConsentMetrics.UPDATES_DROPPED_DUPLICATE);
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Consent update request did not change preferences already confirmed by Edge, dropping event."
+			);
+			return;
+		}
+
 		// set the timestamp and merge with existing consents
 		newConsents.setTimestamp(event.getTimestamp());
-		if (consentManager.mergeAndPersist(newConsents) || outsideTimeout) {
-			// share and dispatch the updated consents
-			shareCurrentConsents(event);
-			dispatchEdgeConsentUpdateEvent(newConsents); // dispatches only the newly updated consents
-			lastConsentUpdateTime = event.getTimestamp();
-		} else {
+		final boolean consentsChanged = consentManager.mergeAndPersist(
+			newConsents,
+			ConsentHistory.SOURCE_API,
+			event.getTimestamp()
+		);
+		expiryScheduler.schedule(consentManager.getNextExpiry());
+
+		if (consentsChanged) {
+			metrics.increment(ConsentMetrics.UPDATES_MERGED);
+		}
+
+		if (!consentsChanged && !outsideTimeout) {
 			// If the consent preferences have not changed and arrived too soon to the previously synced preferences, ignore event
+			metrics.increment(ConsentMetrics.UPDATES_THROTTLED);
 			Log.debug(
 				LOG_TAG,
 				LOG_SOURCE,
 				"Consent update request did not change preferences and is within %d ms of the previous update request, dropping event.",
 				ConsentConstants.Defaults.IGNORE_CONSENT_UPDATE_INTERVAL_MS
 			);
+			return;
+		}
+
+		// only the consents Edge does not know about yet are sent, unless Edge never confirmed the current consents
+		final Consents edgeConsentsUpdate = consentManager.getEdgeConsentsUpdate(newConsents);
+		final boolean isSyncedWithEdge = edgeConsentsUpdate.isEmpty() && consentManager.isConfirmedByEdge();
+
+		if (isSyncedWithEdge) {
+			// any update queued while offline was reverted, Edge already has its consents
+			consentManager.clearPendingEdgeConsents();
+		}
+
+		// share and dispatch the updated consents
+		shareCurrentConsents(event);
+
+		if (isSyncedWithEdge) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Edge already has the updated consents, not dispatching Edge Consent Update event."
+			);
+		} else if (isNetworkDisconnected()) {
+			// coalesce with the updates already queued, the final state is sent once Edge reports connectivity
+			consentManager.queueEdgeConsentsUpdate(newConsents);
+			connectivityMonitor.start();
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Device is offline, queued the consent update until Edge Network is reachable."
+			);
+		} else {
+			dispatchEdgeConsentUpdateEvent(edgeConsentsUpdate.isEmpty() ? newConsents : edgeConsentsUpdate);
+		}
+
+		lastConsentUpdateTime = event.getTimestamp();
+	}
+
+	/**
+	 * Handles the event with eventType {@link EventType#CONSENT} and EventSource {@link
+	 * ConsentConstants.EventSources#EXPIRY}, dispatched when the earliest user opted consent
+	 * expires.
+	 *
+	 * <p>1. Removes the expired consents, so they fall back to the default consents. 2. Creates a
+	 * single XDMSharedState for all the consents which expired at the same time. 3. Dispatches the
+	 * consents which changed from what Edge already knows to edge. 4. Schedules the next expiry.
+	 *
+	 * @param event the consent expiry {@link Event}
+	 */
+	void handleConsentExpiry(@NonNull final Event event) {
+		final Consents expiredConsents = consentManager.expireConsents(event.getTimestamp());
+
+		if (!expiredConsents.isEmpty()) {
+			shareCurrentConsents(event);
+			sendExpiredConsentsToEdge(expiredConsents);
+		}
+
+		expiryScheduler.schedule(consentManager.getNextExpiry());
+	}
+
+	/**
+	 * Sends the current values of the expired consents to Edge, along with the consent updates
+	 * queued offline, or queues them if the device is offline.
+	 *
+	 * @param expiredConsents the current values of the expired consents, see {@link
+	 *     ConsentManager#expireConsents(long)}
+	 */
+	private void sendExpiredConsentsToEdge(final Consents expiredConsents) {
+		final Consents edgeConsentsUpdate = consentManager.getEdgeConsentsUpdate(expiredConsents);
+
+		if (edgeConsentsUpdate.isEmpty()) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Edge already has the consents which expired, not dispatching them.");
+		} else if (isNetworkDisconnected()) {
+			consentManager.queueEdgeConsentsUpdate(edgeConsentsUpdate);
+			connectivityMonitor.start();
+		} else {
+			dispatchEdgeConsentUpdateEvent(edgeConsentsUpdate);
 		}
 	}
 
@@ -208,6 +435,9 @@ class ConsentExtension extends Extension {
 	 * @param event the Edge consent preferences response {@link Event} to be processed
 	 */
 	void handleEdgeConsentPreferenceHandle(@NonNull final Event event) {
+		// a response from Edge Network means the device is online again
+		flushPendingEdgeConsentsUpdate();
+
 		// bail out if event data is empty
 		final Map<String, Object> eventData = event.getEventData();
 
@@ -220,6 +450,7 @@ class ConsentExtension extends Extension {
 		);
 
 		if (payload == null || payload.isEmpty()) {
+			metrics.increment(ConsentMetrics.EDGE_HANDLES_IGNORED);
 			Log.debug(
 				LOG_TAG,
 				LOG_SOURCE,
@@ -232,6 +463,7 @@ class ConsentExtension extends Extension {
 		final Consents newConsents = new Consents(prepareConsentXDMMapWithPayload(payload.get(0)));
 
 		if (newConsents.isEmpty()) {
+			metrics.increment(ConsentMetrics.EDGE_HANDLES_IGNORED);
 			Log.debug(
 				LOG_TAG,
 				LOG_SOURCE,
@@ -245,17 +477,19 @@ class ConsentExtension extends Extension {
 		// or
 		// 2. same consent as current and with same timestamp
 		// then ignore this event and do not update the sharedState unnecessarily
-		final Consents currentConsent = consentManager.getCurrentConsents();
+		final LayeredConsents currentConsents = consentManager.getCurrentConsentsView();
 
-		if (newConsents.getTimestamp() == null || newConsents.getTimestamp().equals(currentConsent.getTimestamp())) {
+		if (newConsents.getTimestamp() == null || newConsents.getTimestamp().equals(currentConsents.getTimestamp())) {
 			// compare the consents ignoring the timestamp
-			if (newConsents.equalsIgnoreTimestamp(currentConsent)) {
+			if (newConsents.equalsIgnoreTimestamp(consentManager.getCurrentConsents())) {
+				metrics.increment(ConsentMetrics.EDGE_HANDLES_IGNORED);
 				Log.debug(
 					LOG_TAG,
 					LOG_SOURCE,
 					"Ignoring the consent:preferences handle event from Edge Network. There is" +
 					" no modification from existing consent data"
 				);
+				consentManager.recordConfirmedByEdge(newConsents);
 				return;
 			}
 		}
@@ -263,10 +497,36 @@ class ConsentExtension extends Extension {
 		// update the timestamp and share the updatedConsents as XDMSharedState and dispatch the
 		// consent response event
 		newConsents.setTimestamp(event.getTimestamp());
-		consentManager.mergeAndPersist(newConsents);
+		consentManager.mergeAndPersist(newConsents, ConsentHistory.SOURCE_EDGE, event.getTimestamp());
+		consentManager.recordConfirmedByEdge(newConsents);
+		expiryScheduler.schedule(consentManager.getNextExpiry());
 		shareCurrentConsents(event);
 	}
 
+	/**
+	 * Handles the event with eventType {@link EventType#EDGE} and EventSource {@link
+	 * EventSource#ERROR_RESPONSE_CONTENT}.
+	 *
+	 * <p>An error response means Edge Network was reached, so the consent updates queued while the
+	 * device was offline are sent.
+	 *
+	 * @param event the Edge error response {@link Event}
+	 */
+	void handleEdgeErrorResponse(@NonNull final Event event) {
+		flushPendingEdgeConsentsUpdate();
+	}
+
+	/**
+	 * Handles the event with eventType {@link EventType#CONSENT} and EventSource {@link
+	 * ConsentConstants.EventSources#NETWORK_AVAILABLE}, dispatched when the device connects to a
+	 * network while consent updates are queued, so they are sent.
+	 *
+	 * @param event the network available {@link Event}
+	 */
+	void handleNetworkAvailable(@NonNull final Event event) {
+		flushPendingEdgeConsentsUpdate();
+	}
+
 	/**
 	 * Handles the get consents request event and dispatches a response event of EventType {@link
 	 * EventType#CONSENT} and EventSource {@link EventSource#RESPONSE_CONTENT} with the current
@@ -282,7 +542,7 @@ class ConsentExtension extends Extension {
 			EventType.CONSENT,
 			EventSource.RESPONSE_CONTENT
 		)
-			.setEventData(consentManager.getCurrentConsents().asXDMMap())
+			.setEventData(consentManager.getCurrentXDMConsents())
 			.inResponseToEvent(event)
 			.build();
 
@@ -290,7 +550,34 @@ class ConsentExtension extends Extension {
 	}
 
 	/**
-	 * Handles the configuration response to read the default consents.
+	 * Handles the get consent history request event and dispatches a response event of EventType
+	 * {@link EventType#CONSENT} and EventSource {@link ConsentConstants.EventSources#HISTORY_RESPONSE}
+	 * with a page of the changes of the current consents.
+	 *
+	 * <p>The response contains the {@code entries} of the page, from the oldest to the most recent,
+	 * and the {@code nextRevision} to request the following page with.
+	 *
+	 * @param event the {@link Event} requesting the consent history, with the optional {@code
+	 *     fromRevision} and {@code limit} of the page
+	 */
+	void handleHistoryRequest(@NonNull final Event event) {
+		final Map<String, Object> requestData = event.getEventData();
+		final long fromRevision = DataReader.optLong(requestData, ConsentConstants.EventDataKey.FROM_REVISION, 0);
+		final int limit = DataReader.optInt(requestData, ConsentConstants.EventDataKey.LIMIT, ConsentHistory.CAPACITY);
+		final Event responseEvent = new Event.Builder(
+			ConsentConstants.EventNames.GET_HISTORY_RESPONSE,
+			EventType.CONSENT,
+			ConsentConstants.EventSources.HISTORY_RESPONSE
+		)
+			.setEventData(consentManager.getHistory(fromRevision, limit))
+			.inResponseToEvent(event)
+			.build();
+
+		getApi().dispatch(responseEvent);
+	}
+
+	/**
+	 * Handles the configuration response to read the default, regional default and policy consents.
 	 *
 	 * @param event an {@link Event} representing configuration response event
 	 */
@@ -307,6 +594,17 @@ class ConsentExtension extends Extension {
 			return;
 		}
 
+		metricsIntervalMs =
+			TimeUnit.SECONDS.toMillis(
+				DataReader.optLong(configData, ConsentConstants.ConfigurationKey.METRICS_INTERVAL, 0)
+			);
+		consentManager.setHistoryMaxBytes(
+			DataReader.optInt(configData, ConsentConstants.ConfigurationKey.HISTORY_MAX_BYTES, 0)
+		);
+		consentManager.setCompressionThreshold(
+			DataReader.optInt(configData, ConsentConstants.ConfigurationKey.COMPRESSION_THRESHOLD, 0)
+		);
+
 		final Map<String, Object> defaultConsentMap = DataReader.optTypedMap(
 			Object.class,
 			configData,
@@ -327,7 +625,37 @@ class ConsentExtension extends Extension {
 			// launch property. Then the defaults should be updated.
 		}
 
-		if (consentManager.updateDefaultConsents(new Consents(defaultConsentMap))) {
+		// a missing policy or regional default consent clears the corresponding layer, like the default consent
+		final Map<String, Object> regionalDefaultConsentMap = DataReader.optTypedMap(
+			Object.class,
+			configData,
+			ConsentConstants.ConfigurationKey.REGIONAL_DEFAULT_CONSENT,
+			null
+		);
+		final Map<String, Object> policyConsentMap = DataReader.optTypedMap(
+			Object.class,
+			configData,
+			ConsentConstants.ConfigurationKey.POLICY_CONSENT,
+			null
+		);
+
+		// update every configured layer before sharing, so a configuration change creates a single shared state
+		final long timestamp = event.getTimestamp();
+		boolean consentsChanged = consentManager.updateLayer(
+			ConsentManager.LAYER_DEFAULTS,
+			new Consents(defaultConsentMap),
+			timestamp
+		);
+		consentsChanged |=
+			consentManager.updateLayer(
+				ConsentManager.LAYER_REGIONAL_DEFAULTS,
+				new Consents(regionalDefaultConsentMap),
+				timestamp
+			);
+		consentsChanged |=
+			consentManager.updateLayer(ConsentManager.LAYER_POLICY, new Consents(policyConsentMap), timestamp);
+
+		if (consentsChanged) {
 			shareCurrentConsents(event);
 		}
 	}
@@ -343,10 +671,25 @@ class ConsentExtension extends Extension {
 	 *     the first call when extension initializes.
 	 */
 	private void shareCurrentConsents(final Event event) {
-		final Map<String, Object> xdmConsents = consentManager.getCurrentConsents().asXDMMap();
+		shareConsents(consentManager.getCurrentXDMConsents(), event);
+		consentManager.notifyChangeListeners();
+	}
 
+	/**
+	 * Creates an XDM Shared state with the provided XDM formatted consents and dispatches {@link
+	 * ConsentConstants.EventNames#CONSENT_PREFERENCES_UPDATED} event.
+	 *
+	 * @param xdmConsents the consents in XDM format
+	 * @param event the {@link Event} that triggered the consents update, can be null
+	 */
+	private void shareConsents(final Map<String, Object> xdmConsents, final Event event) {
 		// set the shared state
+		ConsentTracing.begin(ConsentTracer.SPAN_CREATE_SHARED_STATE);
 		getApi().createXDMSharedState(xdmConsents, event);
+		ConsentTracing.end(ConsentTracer.SPAN_CREATE_SHARED_STATE);
+		metrics.increment(ConsentMetrics.SHARED_STATES_CREATED);
+		// consents retrieved before may be stale, getConsents requests the new consents
+		GetConsentsRequests.getInstance().invalidate();
 
 		// create and dispatch an consent response event
 		Event responseEvent = new Event.Builder(
@@ -357,7 +700,9 @@ class ConsentExtension extends Extension {
 			.setEventData(xdmConsents)
 			.build();
 
+		ConsentTracing.begin(ConsentTracer.SPAN_DISPATCH);
 		getApi().dispatch(responseEvent);
+		ConsentTracing.end(ConsentTracer.SPAN_DISPATCH);
 	}
 
 	/**
@@ -381,9 +726,124 @@ class ConsentExtension extends Extension {
 			EventType.EDGE,
 			EventSource.UPDATE_CONSENT
 		)
-			.setEventData(consents.asXDMMap())
+			.setEventData(consents.asUnmodifiableXDMMap())
 			.build();
+		ConsentTracing.begin(ConsentTracer.SPAN_DISPATCH);
 		getApi().dispatch(edgeConsentUpdateEvent);
+		ConsentTracing.end(ConsentTracer.SPAN_DISPATCH);
+		consentManager.recordSentToEdge(consents);
+	}
+
+	/**
+	 * Dispatches a {@link ConsentConstants.EventNames#CONSENT_EXPIRY} event, so the expired
+	 * consents are removed on the extension thread. Called on the timer thread of the {@link
+	 * ConsentExpiryScheduler}.
+	 */
+	private void dispatchConsentExpiryEvent() {
+		final Event expiryEvent = new Event.Builder(
+			ConsentConstants.EventNames.CONSENT_EXPIRY,
+			EventType.CONSENT,
+			ConsentConstants.EventSources.EXPIRY
+		)
+			.build();
+		getApi().dispatch(expiryEvent);
+	}
+
+	/**
+	 * Dispatches a {@link ConsentConstants.EventNames#CONSENT_NETWORK_AVAILABLE} event, so the
+	 * queued consent updates are sent on the extension thread. Called on a connectivity thread of
+	 * the {@link ConsentConnectivityMonitor}.
+	 */
+	private void dispatchNetworkAvailableEvent() {
+		final Event networkAvailableEvent = new Event.Builder(
+			ConsentConstants.EventNames.CONSENT_NETWORK_AVAILABLE,
+			EventType.CONSENT,
+			ConsentConstants.EventSources.NETWORK_AVAILABLE
+		)
+			.build();
+		getApi().dispatch(networkAvailableEvent);
+	}
+
+	/**
+	 * Wraps the given event listener to record the received events with the {@link
+	 * ConsentEventRecorder} when active, record the processing time in the {@link ConsentMetrics}
+	 * and dispatch the metrics event when due.
+	 *
+	 * @param handler the handler name the processing time is recorded for, or null if not recorded
+	 * @param listener the {@link ExtensionEventListener} to wrap
+	 * @return the wrapping {@link ExtensionEventListener}
+	 */
+	private ExtensionEventListener timed(final String handler, final ExtensionEventListener listener) {
+		return event -> {
+			ConsentEventRecorder.recordIfActive(event);
+			final long start = System.nanoTime();
+			listener.hear(event);
+
+			if (handler != null) {
+				metrics.recordLatency(handler, System.nanoTime() - start);
+			}
+
+			dispatchMetricsEventIfDue(event);
+		};
+	}
+
+	/**
+	 * Dispatches a metrics event of EventType {@link EventType#CONSENT} with the current {@link
+	 * ConsentMetrics} if enabled through the {@code consent.metrics.interval} configuration and if
+	 * the interval elapsed since the last metrics event. Metrics events are only dispatched while
+	 * the extension processes events.
+	 *
+	 * @param event the {@link Event} just processed
+	 */
+	void dispatchMetricsEventIfDue(@NonNull final Event event) {
+		if (metricsIntervalMs <= 0 || event.getTimestamp() < lastMetricsEventTime + metricsIntervalMs) {
+			return;
+		}
+
+		lastMetricsEventTime = event.getTimestamp();
+		final Event metricsEvent = new Event.Builder(
+			ConsentConstants.EventNames.CONSENT_METRICS,
+			EventType.CONSENT,
+			ConsentConstants.EventSources.METRICS
+		)
+			.setEventData(metrics.snapshot())
+			.build();
+		getApi().dispatch(metricsEvent);
+	}
+
+	/**
+	 * Sends the consent updates queued while the device was offline as a single Edge Consent Update
+	 * event, containing only the last value of each consent which changed from what Edge knows.
+	 */
+	private void flushPendingEdgeConsentsUpdate() {
+		connectivityMonitor.stop();
+
+		if (!consentManager.hasPendingEdgeConsents()) {
+			return;
+		}
+
+		final Consents edgeConsentsUpdate = consentManager.getEdgeConsentsUpdate(new Consents(new HashMap<>()));
+
+		if (edgeConsentsUpdate.isEmpty()) {
+			consentManager.clearPendingEdgeConsents();
+			return;
+		}
+
+		Log.debug(LOG_TAG, LOG_SOURCE, "Edge Network is reachable, dispatching the queued consent update.");
+		dispatchEdgeConsentUpdateEvent(edgeConsentsUpdate);
+	}
+
+	/**
+	 * @return true if the device reports no network connection; an unknown status is considered
+	 *     connected
+	 */
+	private boolean isNetworkDisconnected() {
+		final DeviceInforming deviceInfoService = ServiceProvider.getInstance().getDeviceInfoService();
+
+		return (
+			deviceInfoService != null &&
+			deviceInfoService.getNetworkConnectionStatus() == DeviceInforming.ConnectionStatus.DISCONNECTED
+		);
 	}
 
 	/**
@@ -0,0 +1,307 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+
+/**
+ * Persisted history of the changes of the current consents, kept in a fixed capacity ring buffer
+ * within a byte budget.
+ *
+ * <p>Each entry records the consents which changed with their new values, null for removed
+ * consents, along with the source of the change, its revision and timestamp. Entries are
+ * serialized once when recorded and each one is persisted in its own slot of a collection separate
+ * from the consents, along with its revision and the revision of the oldest entry kept, so
+ * recording a change is a single write of the change. When the buffer is full or over its byte
+ * budget, the oldest entries are dropped; their slots are overwritten by later entries. An entry
+ * larger than the byte budget is recorded without its consents and marked as {@link #TRUNCATED},
+ * so no revision is missing.
+ *
+ * <p>Entry example: {"revision": 12, "timestamp": 1695492945000, "source": "api", "consents":
+ * {"collect": {"val": "n"}}}
+ */
+final class ConsentHistory {
+
+	private static final String LOG_SOURCE = "ConsentHistory";
+
+	// sources of the changes
+	static final String SOURCE_API = "api";
+	static final String SOURCE_EDGE = "edge";
+	static final String SOURCE_DEFAULTS = "defaults";
+	static final String SOURCE_POLICY = "policy";
+	static final String SOURCE_EXPIRY = "expiry";
+
+	// entry keys
+	static final String REVISION = "revision";
+	static final String TIMESTAMP = "timestamp";
+	static final String SOURCE = "source";
+	static final String TRUNCATED = "truncated";
+
+	static final int CAPACITY = 100;
+	static final int DEFAULT_MAX_BYTES = 16 * 1024;
+
+	// separator of the revisions and the entry in a slot: "<revision>:<first revision>:<entry>"
+	private static final char SLOT_SEPARATOR = ':';
+
+	private final NamedCollection namedCollection;
+
+	// serialized entries, the entry of a revision is held at index revision % CAPACITY
+	private final String[] entries = new String[CAPACITY];
+	private final int[] entryBytes = new int[CAPACITY];
+	private long firstRevision = 0;
+	private long nextRevision = 0;
+	private int totalBytes = 0;
+	private int maxBytes = DEFAULT_MAX_BYTES;
+	private boolean isLoaded = false;
+
+	/**
+	 * Constructor. The persisted entries are only read on first access.
+	 *
+	 * @param namedCollection used to persist the entries, dedicated to the history; the history is
+	 *     only kept in memory if null
+	 */
+	ConsentHistory(final NamedCollection namedCollection) {
+		this.namedCollection = namedCollection;
+	}
+
+	/**
+	 * Records a change of the current consents.
+	 *
+	 * @param source the source of the change, one of the {@code SOURCE_} constants
+	 * @param changedConsents the consents which changed with their new values, null for removed
+	 *     consents; not modified nor held
+	 * @param timestamp the time of the change in milliseconds since epoch, the timestamp of the
+	 *     event which triggered it
+	 * @return the revision of the recorded entry
+	 */
+	long record(final String source, final Map<String, Object> changedConsents, final long timestamp) {
+		ensureLoaded();
+
+		final Map<String, Object> entry = new HashMap<>(4);
+		entry.put(REVISION, nextRevision);
+		entry.put(TIMESTAMP, timestamp);
+		entry.put(SOURCE, source);
+		entry.put(ConsentConstants.EventDataKey.CONSENTS, changedConsents);
+		String json = ConsentsJson.write(entry);
+		int bytes = json.getBytes(StandardCharsets.UTF_8).length;
+
+		if (bytes > maxBytes) {
+			Log.warning(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Consent history entry of %d bytes exceeds the history budget of %d bytes, recording it truncated.",
+				bytes,
+				maxBytes
+			);
+			entry.remove(ConsentConstants.EventDataKey.CONSENTS);
+			entry.put(TRUNCATED, true);
+			json = ConsentsJson.write(entry);
+			bytes = json.getBytes(StandardCharsets.UTF_8).length;
+		}
+
+		// a truncated entry over the budget is kept alone
+		while (
+			firstRevision < nextRevision &&
+			(nextRevision - firstRevision >= CAPACITY || totalBytes + bytes > maxBytes)
+		) {
+			dropFirst();
+		}
+
+		final long revision = nextRevision;
+		final int index = indexOf(revision);
+		entries[index] = json;
+		entryBytes[index] = bytes;
+		totalBytes += bytes;
+		nextRevision++;
+
+		if (namedCollection != null) {
+			namedCollection.setString(
+				slotKey(revision),
+				String.valueOf(revision) + SLOT_SEPARATOR + firstRevision + SLOT_SEPARATOR + json
+			);
+		}
+
+		return revision;
+	}
+
+	/**
+	 * Reads a page of the history, from the oldest to the most recent entry.
+	 *
+	 * @param fromRevision the revision of the first entry to return; entries already dropped are
+	 *     skipped
+	 * @param limit the maximum number of entries to return
+	 * @return the page, with the {@link ConsentConstants.EventDataKey#ENTRIES}, each a {@link Map}
+	 *     with the {@link #REVISION}, {@link #TIMESTAMP}, {@link #SOURCE} and changed consents of
+	 *     the entry, or {@link #TRUNCATED} for an entry recorded without them, and the {@link
+	 *     ConsentConstants.EventDataKey#NEXT_REVISION} to read the next page from
+	 */
+	Map<String, Object> read(final long fromRevision, final int limit) {
+		ensureLoaded();
+
+		final long start = Math.max(fromRevision, firstRevision);
+		final long end = Math.min(nextRevision, start + Math.max(limit, 0));
+		final List<Map<String, Object>> page = new ArrayList<>((int) Math.max(end - start, 0));
+
+		for (long revision = start; revision < end; revision++) {
+			try {
+				page.add(ConsentsJson.read(entries[indexOf(revision)]));
+			} catch (final JSONException e) {
+				Log.debug(LOG_TAG, LOG_SOURCE, "Unable to read consent history entry %d.", revision);
+			}
+		}
+
+		final Map<String, Object> result = new HashMap<>(2);
+		result.put(ConsentConstants.EventDataKey.ENTRIES, page);
+		result.put(ConsentConstants.EventDataKey.NEXT_REVISION, Math.max(end, fromRevision));
+		return result;
+	}
+
+	/**
+	 * Sets the byte budget of the history, dropping the oldest entries until it is met. The dropped
+	 * entries are persisted until their slots are overwritten, the budget is applied again when
+	 * the persisted entries are read.
+	 *
+	 * @param bytes the maximum size of the serialized entries, {@link #DEFAULT_MAX_BYTES} if not
+	 *     positive
+	 */
+	void setMaxBytes(final int bytes) {
+		maxBytes = bytes > 0 ? bytes : DEFAULT_MAX_BYTES;
+
+		if (!isLoaded) {
+			// applied when the persisted entries are read
+			return;
+		}
+
+		while (totalBytes > maxBytes) {
+			dropFirst();
+		}
+	}
+
+	/**
+	 * Drops the oldest entry.
+	 */
+	private void dropFirst() {
+		final int index = indexOf(firstRevision);
+		totalBytes -= entryBytes[index];
+		entries[index] = null;
+		entryBytes[index] = 0;
+		firstRevision++;
+	}
+
+	/**
+	 * Reads the persisted entries, if not already done. The slot of the most recent entry holds the
+	 * revision of the oldest entry kept; a missing or overwritten slot ends the history after it.
+	 */
+	private void ensureLoaded() {
+		if (isLoaded) {
+			return;
+		}
+
+		isLoaded = true;
+
+		if (namedCollection == null) {
+			return;
+		}
+
+		final String[] slots = new String[CAPACITY];
+		long lastRevision = -1;
+		long lastFirstRevision = 0;
+
+		for (int index = 0; index < CAPACITY; index++) {
+			slots[index] = namedCollection.getString(slotKey(index), null);
+			final long revision = readRevision(slots[index], 0);
+
+			if (revision > lastRevision) {
+				lastRevision = revision;
+				lastFirstRevision = readRevision(slots[index], 1);
+			}
+		}
+
+		if (lastRevision < 0) {
+			return;
+		}
+
+		nextRevision = lastRevision + 1;
+		firstRevision = Math.max(Math.max(lastFirstRevision, 0), nextRevision - CAPACITY);
+
+		for (long revision = lastRevision; revision >= firstRevision; revision--) {
+			final String slot = slots[indexOf(revision)];
+
+			if (readRevision(slot, 0) != revision) {
+				firstRevision = revision + 1;
+				break;
+			}
+
+			final String json = slot.substring(slot.indexOf(SLOT_SEPARATOR, slot.indexOf(SLOT_SEPARATOR) + 1) + 1);
+			final int index = indexOf(revision);
+			entries[index] = json;
+			entryBytes[index] = json.getBytes(StandardCharsets.UTF_8).length;
+			totalBytes += entryBytes[index];
+		}
+
+		while (totalBytes > maxBytes) {
+			dropFirst();
+		}
+	}
+
+	/**
+	 * Reads one of the revisions at the start of a persisted slot.
+	 *
+	 * @param slot the persisted slot, can be null
+	 * @param position 0 for the revision of the entry, 1 for the revision of the oldest entry kept
+	 * @return the revision, -1 if the slot is missing or malformed
+	 */
+	private static long readRevision(final String slot, final int position) {
+		if (slot == null) {
+			return -1;
+		}
+
+		int start = 0;
+
+		for (int i = 0; i < position; i++) {
+			start = slot.indexOf(SLOT_SEPARATOR, start) + 1;
+
+			if (start == 0) {
+				return -1;
+			}
+		}
+
+		final int end = slot.indexOf(SLOT_SEPARATOR, start);
+
+		if (end <= start) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(slot.substring(start, end));
+		} catch (final NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static int indexOf(final long revision) {
+		return (int) (revision % CAPACITY);
+	}
+
+	private static String slotKey(final long revision) {
+		return ConsentConstants.DataStoreKey.CONSENT_HISTORY_SLOT_PREFIX + indexOf(revision);
+	}
+}
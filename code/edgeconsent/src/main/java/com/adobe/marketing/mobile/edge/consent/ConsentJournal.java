@@ -0,0 +1,535 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.services.Log;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+
+/**
+ * Append-only persistence of the user opted consents, made of a snapshot file and a journal file
+ * of the changes applied since the snapshot.
+ *
+ * <p>Each change appends a single record line to the journal and syncs it to storage, rather than
+ * rewriting all the consents. Once the journal grows past the larger of {@link
+ * #MIN_COMPACTION_BYTES} and the size of the snapshot, {@link #append(String)} reports that the
+ * consents are due to be compacted into a new snapshot, which truncates the journal. The snapshot
+ * has the format of the consents persisted under {@link
+ * ConsentConstants.DataStoreKey#CONSENT_PREFERENCES_SEALED}. The previous snapshot is kept as a
+ * backup, replayed instead of a corrupt snapshot.
+ *
+ * <p>A record holds the consents merged into the user opted consents along with their expiries,
+ * in the persisted format, and the {@link #REMOVED} top level keys if any, prefixed with the
+ * CRC32 checksum of the record. Replaying a record twice yields the same consents, so a journal
+ * left behind by an interrupted compaction can be replayed over the new snapshot. The journal is
+ * truncated before the first record which is corrupt or was interrupted while being appended, as
+ * the records after it cannot be replayed without it.
+ *
+ * <p>Record example: 5d1c0b2a:{"removed": ["collect"], "consents": {"metadata": {"time":
+ * "2023-09-23T18:15:45Z"}}}
+ */
+final class ConsentJournal {
+
+	private static final String LOG_SOURCE = "ConsentJournal";
+
+	static final String SNAPSHOT_FILE = "consent-preferences.json";
+	static final String JOURNAL_FILE = "consent-preferences.journal";
+	static final String SNAPSHOT_BACKUP_FILE = "consent-preferences.json.bak";
+	private static final String SNAPSHOT_TEMP_FILE = "consent-preferences.json.tmp";
+
+	// record key of the top level consent keys removed before merging the consents of the record
+	static final String REMOVED = "removed";
+
+	// separates the checksum of a record from the record
+	private static final char CHECKSUM_SEPARATOR = ':';
+
+	static final int MIN_COMPACTION_BYTES = 16 * 1024;
+
+	private static volatile File activeDirectory;
+
+	private final File directory;
+	private final File snapshotFile;
+	private final File backupFile;
+	private final File journalFile;
+
+	// contents of the snapshot file, null if there is none, and of the complete journal records
+	private String snapshot;
+	private int snapshotBytes;
+	private final StringBuilder records = new StringBuilder();
+	private int recordBytes;
+
+	// length above which the snapshot is compressed, disabled if not positive
+	private int compressionThreshold;
+
+	// fingerprint of the snapshot and records, null once they change
+	private String fingerprint;
+
+	/**
+	 * Sets the directory the user opted consents are journaled in, read when the Consent extension
+	 * is registered.
+	 *
+	 * @param directory the journal directory, null to persist the consents without journal
+	 */
+	static void setDirectory(final File directory) {
+		activeDirectory = directory;
+	}
+
+	/**
+	 * Opens the journal in the directory set with {@link #setDirectory(File)}, creating the
+	 * directory if needed.
+	 *
+	 * @return the journal, or null if no directory is set or it cannot be created
+	 */
+	static ConsentJournal open() {
+		final File directory = activeDirectory;
+
+		if (directory == null) {
+			return null;
+		}
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			Log.warning(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Unable to create the consent journal directory %s, consents are persisted without journal.",
+				directory
+			);
+			return null;
+		}
+
+		return new ConsentJournal(directory);
+	}
+
+	/**
+	 * Constructor - reads the snapshot and journal files of the provided directory.
+	 *
+	 * @param directory the existing journal directory
+	 */
+	ConsentJournal(final File directory) {
+		this.directory = directory;
+		this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+		this.backupFile = new File(directory, SNAPSHOT_BACKUP_FILE);
+		this.journalFile = new File(directory, JOURNAL_FILE);
+
+		snapshot = readFile(snapshotFile);
+		snapshotBytes = byteLength(snapshot);
+		final String journal = readFile(journalFile);
+
+		if (journal == null) {
+			return;
+		}
+
+		int end = 0;
+
+		for (int lineEnd = journal.indexOf('\n'); lineEnd >= 0; lineEnd = journal.indexOf('\n', end)) {
+			if (readRecord(journal.substring(end, lineEnd)) == null) {
+				break;
+			}
+
+			end = lineEnd + 1;
+		}
+
+		records.append(journal, 0, end);
+		recordBytes = byteLength(records.toString());
+
+		if (end < journal.length()) {
+			Log.warning(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Dropping %d of %d characters of the consent journal, from its first corrupt or interrupted record.",
+				journal.length() - end,
+				journal.length()
+			);
+
+			try {
+				writeFile(journalFile, records.toString());
+			} catch (final IOException e) {
+				Log.warning(LOG_TAG, LOG_SOURCE, "Unable to repair the consent journal: %s", e.getLocalizedMessage());
+			}
+		}
+	}
+
+	/**
+	 * @return the directory of the journal files
+	 */
+	File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return true if neither a snapshot nor records are persisted
+	 */
+	boolean isEmpty() {
+		return snapshot == null && records.length() == 0;
+	}
+
+	/**
+	 * Sets the length above which the snapshot is compressed on the next compaction.
+	 *
+	 * @param threshold the length in characters, compression is disabled if not positive
+	 * @see PersistenceEnvelope#seal(String, int)
+	 */
+	void setCompressionThreshold(final int threshold) {
+		compressionThreshold = threshold;
+	}
+
+	/**
+	 * Checks whether the persisted snapshot or records contain the provided text, without parsing
+	 * them. A compressed snapshot that cannot be inflated is assumed to contain the text.
+	 *
+	 * @param text the text to look for
+	 * @return true if the snapshot or any record contains {@code text}
+	 */
+	boolean contains(final String text) {
+		return (
+			(snapshot != null && PersistenceEnvelope.mayContain(snapshot, text)) || records.indexOf(text) >= 0
+		);
+	}
+
+	/**
+	 * Computes the fingerprint of the persisted snapshot and records, only hashing them again once
+	 * the journal is written.
+	 *
+	 * @return the fingerprint of the journal
+	 */
+	String fingerprint() {
+		if (fingerprint == null) {
+			final StringBuilder builder = new StringBuilder();
+
+			if (snapshot != null) {
+				builder.append(snapshot);
+			}
+
+			if (records.length() > 0) {
+				builder.append('\n').append(records);
+			}
+
+			fingerprint = Utils.fingerprint(builder.toString());
+		}
+
+		return fingerprint;
+	}
+
+	/**
+	 * Replays the records over the snapshot.
+	 *
+	 * <p>The records are replayed over the backup of the previous snapshot if the snapshot is
+	 * corrupt, or missing because a compaction was interrupted.
+	 *
+	 * @return the persisted consents, empty if nothing is persisted
+	 */
+	Consents replay() {
+		Consents consents = parseSnapshot(snapshot);
+
+		if (consents == null && (snapshot != null || backupFile.isFile())) {
+			Log.warning(
+				LOG_TAG,
+				LOG_SOURCE,
+				"The consent snapshot is corrupt or missing, replaying the journal over the previous snapshot."
+			);
+			consents = parseSnapshot(readFile(backupFile));
+		}
+
+		if (consents == null) {
+			consents = new Consents(new HashMap<>());
+		}
+
+		int start = 0;
+
+		// the records after an unreadable record would be replayed over a gap
+		for (int end = records.indexOf("\n"); end >= 0; end = records.indexOf("\n", start)) {
+			if (!apply(consents, readRecord(records.substring(start, end)))) {
+				break;
+			}
+
+			start = end + 1;
+		}
+
+		return consents;
+	}
+
+	/**
+	 * Appends a record to the journal and syncs it to storage.
+	 *
+	 * @param record the record, see {@link Consents#toJson()} and {@link #removalRecord(Collection,
+	 *     Consents)}
+	 * @return true if the consents with the record applied are due to be compacted, because the
+	 *     journal is over its threshold or the record could not be appended
+	 */
+	boolean append(final String record) {
+		final String line = Long.toHexString(PersistenceEnvelope.checksum(record)) + CHECKSUM_SEPARATOR + record + '\n';
+		final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+
+		try (FileOutputStream outputStream = new FileOutputStream(journalFile, true)) {
+			outputStream.write(bytes);
+			outputStream.getFD().sync();
+		} catch (final IOException e) {
+			Log.warning(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Unable to append to the consent journal, compacting the consents instead: %s",
+				e.getLocalizedMessage()
+			);
+			return true;
+		}
+
+		records.append(line);
+		recordBytes += bytes.length;
+		fingerprint = null;
+		countWrite(bytes.length);
+
+		return recordBytes > Math.max(MIN_COMPACTION_BYTES, snapshotBytes);
+	}
+
+	/**
+	 * Writes the provided consents to a new snapshot and truncates the journal.
+	 *
+	 * @param consents the user opted consents
+	 * @return true if the snapshot was written
+	 */
+	boolean compact(final Consents consents) {
+		return compact(consents.isEmpty() ? null : consents.toJson());
+	}
+
+	/**
+	 * Writes the provided snapshot and truncates the journal. The previous snapshot becomes the
+	 * backup and the new one is renamed in its place, so a failed compaction leaves the previous
+	 * snapshot and records in place.
+	 *
+	 * @param newSnapshot the JSON string of the consents, null to remove the snapshot and its backup
+	 * @return true if the snapshot was written
+	 */
+	boolean compact(final String newSnapshot) {
+		final String persistedSnapshot = newSnapshot != null
+			? PersistenceEnvelope.seal(newSnapshot, compressionThreshold)
+			: null;
+
+		try {
+			if (persistedSnapshot == null) {
+				delete(backupFile);
+				delete(snapshotFile);
+			} else {
+				final File tempFile = new File(directory, SNAPSHOT_TEMP_FILE);
+				writeFile(tempFile, persistedSnapshot);
+
+				if (snapshotFile.exists() && !snapshotFile.renameTo(backupFile)) {
+					throw new IOException("Unable to rename " + snapshotFile);
+				}
+
+				if (!tempFile.renameTo(snapshotFile)) {
+					throw new IOException("Unable to rename " + tempFile);
+				}
+			}
+
+			snapshot = persistedSnapshot;
+			snapshotBytes = byteLength(persistedSnapshot);
+			fingerprint = null;
+			countWrite(snapshotBytes);
+
+			if (records.length() > 0) {
+				writeFile(journalFile, "");
+				records.setLength(0);
+				recordBytes = 0;
+			}
+
+			return true;
+		} catch (final IOException e) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Unable to compact the consent journal: %s", e.getLocalizedMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Creates the record of the removal of top level consent keys.
+	 *
+	 * @param keys the removed top level consent keys
+	 * @param consents the user opted consents once the keys are removed, their metadata is
+	 *     included in the record
+	 * @return the record
+	 */
+	static String removalRecord(final Collection<String> keys, final Consents consents) {
+		final Map<String, Object> record = new HashMap<>(2);
+		record.put(REMOVED, new ArrayList<>(keys));
+		final Object metadata = consents.asUnmodifiableMap().get(ConsentConstants.EventDataKey.METADATA);
+
+		if (metadata != null) {
+			record.put(
+				ConsentConstants.EventDataKey.CONSENTS,
+				Collections.singletonMap(ConsentConstants.EventDataKey.METADATA, metadata)
+			);
+		}
+
+		return ConsentsJson.write(record);
+	}
+
+	/**
+	 * Deletes the snapshot, its backup and the journal files.
+	 *
+	 * @return true if no file is left
+	 */
+	boolean delete() {
+		try {
+			delete(journalFile);
+			delete(snapshotFile);
+			delete(backupFile);
+			delete(new File(directory, SNAPSHOT_TEMP_FILE));
+		} catch (final IOException e) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Unable to delete the consent journal: %s", e.getLocalizedMessage());
+			return false;
+		}
+
+		snapshot = null;
+		snapshotBytes = 0;
+		records.setLength(0);
+		recordBytes = 0;
+		fingerprint = null;
+		return true;
+	}
+
+	/**
+	 * Reads a record line of the journal, validating its checksum.
+	 *
+	 * @param line the record line, without line end
+	 * @return the record, or null if it is corrupt
+	 */
+	private static String readRecord(final String line) {
+		final int separator = line.indexOf(CHECKSUM_SEPARATOR);
+
+		if (separator <= 0) {
+			return null;
+		}
+
+		final String record = line.substring(separator + 1);
+
+		try {
+			return Long.parseLong(line.substring(0, separator), 16) == PersistenceEnvelope.checksum(record)
+				? record
+				: null;
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Applies a record to the provided consents.
+	 *
+	 * @param consents the consents to update
+	 * @param record the record to apply
+	 * @return false if the record cannot be parsed
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean apply(final Consents consents, final String record) {
+		final Map<String, Object> recordMap;
+
+		try {
+			recordMap = ConsentsJson.read(record);
+		} catch (final JSONException e) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Unable to read consent journal record: %s", e.getLocalizedMessage());
+			return false;
+		}
+
+		final Object removedKeys = recordMap.get(REMOVED);
+
+		if (removedKeys instanceof List) {
+			consents.remove((List<String>) removedKeys);
+		}
+
+		final Consents recordConsents = new Consents(recordMap);
+		consents.merge(recordConsents);
+		consents.mergeExpiries(recordConsents);
+		return true;
+	}
+
+	private static void countWrite(final int bytes) {
+		final ConsentMetrics metrics = ConsentMetrics.getInstance();
+		metrics.increment(ConsentMetrics.PERSISTENCE_WRITES);
+		metrics.add(ConsentMetrics.PERSISTENCE_BYTES_WRITTEN, bytes);
+	}
+
+	/**
+	 * Parses a persisted snapshot.
+	 *
+	 * @param persistedSnapshot the contents of a snapshot file
+	 * @return the consents of the snapshot, or null if there is none or it is corrupt
+	 */
+	private static Consents parseSnapshot(final String persistedSnapshot) {
+		final String jsonString = PersistenceEnvelope.open(persistedSnapshot);
+
+		if (jsonString == null) {
+			return null;
+		}
+
+		try {
+			return Consents.fromJson(jsonString);
+		} catch (final JSONException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to read the consent snapshot: %s", e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	private static void delete(final File file) throws IOException {
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Unable to delete " + file);
+		}
+	}
+
+	private static int byteLength(final String value) {
+		return value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0;
+	}
+
+	/**
+	 * Reads the provided file as UTF-8.
+	 *
+	 * @param file the file to read
+	 * @return the contents of the file, null if it does not exist or cannot be read
+	 */
+	private static String readFile(final File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try (InputStream inputStream = new FileInputStream(file)) {
+			final ByteArrayOutputStream contents = new ByteArrayOutputStream((int) file.length());
+			final byte[] buffer = new byte[4096];
+
+			for (int count = inputStream.read(buffer); count != -1; count = inputStream.read(buffer)) {
+				contents.write(buffer, 0, count);
+			}
+
+			return new String(contents.toByteArray(), StandardCharsets.UTF_8);
+		} catch (final IOException e) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Unable to read %s: %s", file, e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	private static void writeFile(final File file, final String contents) throws IOException {
+		try (FileOutputStream outputStream = new FileOutputStream(file, false)) {
+			outputStream.write(contents.getBytes(StandardCharsets.UTF_8));
+			outputStream.getFD().sync();
+		}
+	}
+}
@@ -16,55 +16,412 @@ import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
 import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.services.NamedCollection;
-import com.adobe.marketing.mobile.util.JSONUtils;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import org.json.JSONException;
-import org.json.JSONObject;
 
 final class ConsentManager {
 
+	// ranks of the consent layers, from the highest to the lowest precedence
+	static final int LAYER_POLICY = 0; // enforced consents from the consent.policy configuration
+	static final int LAYER_USER_OPTED = 1; // consents updated using PublicAPI or from Edge
+	static final int LAYER_REGIONAL_DEFAULTS = 2; // default consents from the consent.regionalDefault configuration
+	static final int LAYER_DEFAULTS = 3; // default consents from the consent.default configuration
+	static final int LAYER_COUNT = 4;
+
+	// persistence keys of the consents of each layer, and of the fingerprints of the configured layers
+	private static final String[] LAYER_KEYS = {
+		ConsentConstants.DataStoreKey.CONSENT_POLICY,
+		ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+		ConsentConstants.DataStoreKey.CONSENT_REGIONAL_DEFAULTS,
+		ConsentConstants.DataStoreKey.CONSENT_DEFAULTS,
+	};
+	private static final String[] LAYER_FINGERPRINT_KEYS = {
+		ConsentConstants.DataStoreKey.CONSENT_POLICY_FINGERPRINT,
+		null,
+		ConsentConstants.DataStoreKey.CONSENT_REGIONAL_DEFAULTS_FINGERPRINT,
+		ConsentConstants.DataStoreKey.CONSENT_DEFAULTS_FINGERPRINT,
+	};
+
 	private static final String LOG_SOURCE = "ConsentManager";
+	private static final String PERSISTED_EXPIRY = "\"" + ConsentConstants.EventDataKey.EXPIRY + "\":";
 	private final NamedCollection namedCollection;
-	private Consents userOptedConsents; // holds on to consents that are updated using PublicAPI or from Edge
+	private final ConsentChangeListeners changeListeners = ConsentChangeListeners.getInstance();
 
-	// Consent Response
+	// changes of the current consents, for auditing
+	private final ConsentHistory history;
 
-	// Package private for testing
-	@VisibleForTesting
-	Consents defaultConsents; // holds on to default consents obtained from configuration response
+	// append-only persistence of the user opted consents, null if they are persisted in namedCollection only
+	private ConsentJournal journal;
+
+	// consents of each layer, the user opted layer is never null once loaded
+	private final Consents[] layers = new Consents[LAYER_COUNT];
+
+	// fingerprints of the persisted consents of the configured layers
+	private final String[] layerFingerprints = new String[LAYER_COUNT];
+
+	// raw persisted forms of the consents of each layer, parsed lazily on first access
+	private final String[] persistedLayers = new String[LAYER_COUNT];
+
+	// fingerprints of the persisted consents of each layer, and the persisted consents they hash
+	private final String[] persistedLayerFingerprints = new String[LAYER_COUNT];
+	private final String[] fingerprintedLayers = new String[LAYER_COUNT];
+	private boolean isLoaded = false;
+
+	// consents known to Edge, built from the updates sent to Edge and the consent:preferences handles
+	private Consents edgeConsents;
+	private String persistedEdgeConsents;
+
+	// length above which the persisted consents are compressed, disabled if not positive
+	private int compressionThreshold;
+
+	// fingerprint of the current consents last confirmed by Edge
+	private String edgeConfirmedFingerprint;
+
+	// consent updates queued while the device was offline, coalesced per key
+	private Consents pendingEdgeConsents;
+	private String persistedPendingEdgeConsents;
+
+	// current consents, their XDM form and persisted JSON form, computed once per change of any layer
+	private LayeredConsents currentConsentsView;
+	private Consents currentConsents;
+	private Map<String, Object> currentXDMConsents;
+	private String currentConsentsJson;
+	private String currentConsentsFingerprint;
+
+	// last materialized current consents and their view, only the keys changed since are merged again
+	private LayeredConsents materializedConsentsView;
+	private Consents materializedConsents;
+
+	// keys changed since the listeners were last notified, and the view of the consents before these changes
+	private final Set<String> unnotifiedKeys = new HashSet<>();
+	private LayeredConsents unnotifiedConsents;
 
 	/**
-	 * Constructor - initializes the {@link #userOptedConsents} from data in persistence.
+	 * Constructor - reads the persisted consents of each layer.
+	 *
+	 * <p>The persisted data is only parsed on first access, so a matching cached shared state
+	 * can be published at boot without loading and merging the individual consents. The history
+	 * of the changes of the current consents is only kept in memory.
 	 *
 	 * @param namedCollection used for reading/writing consent preferences to persistence
+	 * @see #ConsentManager(NamedCollection, NamedCollection)
 	 */
 	ConsentManager(final NamedCollection namedCollection) {
+		this(namedCollection, null, ConsentJournal.open());
+	}
+
+	/**
+	 * Constructor - reads the persisted consents of each layer, the user opted consents from the
+	 * provided journal if any.
+	 *
+	 * <p>User opted consents persisted in {@code namedCollection} seed the snapshot of the journal
+	 * when it is first used, and are kept there for previous versions and launches without journal.
+	 *
+	 * @param namedCollection used for reading/writing consent preferences to persistence
+	 * @param journal used for reading/writing the user opted consents, null to persist them in
+	 *     {@code namedCollection}
+	 */
+	ConsentManager(final NamedCollection namedCollection, final ConsentJournal journal) {
+		this(namedCollection, null, journal);
+	}
+
+	/**
+	 * Constructor - reads the persisted consents of each layer, and the history of their changes
+	 * from its dedicated collection.
+	 *
+	 * @param namedCollection used for reading/writing consent preferences to persistence
+	 * @param historyCollection used for reading/writing the history of the changes of the current
+	 *     consents, null to only keep the history in memory
+	 */
+	ConsentManager(final NamedCollection namedCollection, final NamedCollection historyCollection) {
+		this(namedCollection, historyCollection, ConsentJournal.open());
+	}
+
+	/**
+	 * Constructor - reads the persisted consents of each layer, the user opted consents from the
+	 * provided journal if any.
+	 *
+	 * @param namedCollection used for reading/writing consent preferences to persistence
+	 * @param historyCollection used for reading/writing the history of the changes of the current
+	 *     consents, null to only keep the history in memory
+	 * @param journal used for reading/writing the user opted consents, null to persist them in
+	 *     {@code namedCollection}
+	 * @see #ConsentManager(NamedCollection, ConsentJournal)
+	 */
+	ConsentManager(
+		final NamedCollection namedCollection,
+		final NamedCollection historyCollection,
+		final ConsentJournal journal
+	) {
 		this.namedCollection = namedCollection;
-		userOptedConsents = loadConsentsFromPersistence();
+		this.history = new ConsentHistory(historyCollection);
 
-		// Initiate update consent with empty consent object if nothing is loaded from persistence
-		if (userOptedConsents == null) {
-			userOptedConsents = new Consents(new HashMap<>());
+		if (namedCollection == null) {
+			// the journal is not attached, as its state is tracked in namedCollection
+			Log.warning(LOG_TAG, LOG_SOURCE, "Unable to read consents due to unexpected null namedCollection.");
+			return;
 		}
+
+		for (int layer = 0; layer < LAYER_COUNT; layer++) {
+			persistedLayers[layer] = namedCollection.getString(LAYER_KEYS[layer], null);
+		}
+
+		// the plain copy read by previous versions is used if such a version updated the user opted consents
+		final String legacyConsents = namedCollection.getString(
+			ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
+			null
+		);
+
+		final boolean updatedByPreviousVersion =
+			legacyConsents != null && !PersistenceEnvelope.holds(persistedLayers[LAYER_USER_OPTED], legacyConsents);
+
+		if (updatedByPreviousVersion) {
+			persistedLayers[LAYER_USER_OPTED] = legacyConsents;
+		}
+
+		this.journal = attachJournal(journal, updatedByPreviousVersion);
+
+		persistedEdgeConsents = namedCollection.getString(ConsentConstants.DataStoreKey.EDGE_CONSENTS, null);
+		persistedPendingEdgeConsents =
+			namedCollection.getString(ConsentConstants.DataStoreKey.EDGE_PENDING_CONSENTS, null);
+		edgeConfirmedFingerprint =
+			namedCollection.getString(ConsentConstants.DataStoreKey.EDGE_CONFIRMED_FINGERPRINT, null);
 	}
 
 	/**
-	 * Merges the provided {@link Consents} with {@link #userOptedConsents} and persists them.
+	 * Reconciles the journal with the user opted consents persisted in {@code namedCollection},
+	 * which remain the copy read by previous versions and by launches without journal. They are
+	 * updated along with each record appended to the journal.
+	 *
+	 * <p>The journal is seeded from the persisted consents if it is empty, if it was not attached
+	 * on the previous launch, or if a previous version updated the persisted consents since. Without
+	 * journal, the consents of the journal attached on a previous launch are moved back to {@code
+	 * namedCollection} and its files are deleted.
+	 *
+	 * @param journal the journal to attach, null to persist the user opted consents without journal
+	 * @param updatedByPreviousVersion true if a previous version updated the persisted consents
+	 * @return the journal to use, null if the user opted consents are persisted without journal
+	 */
+	private ConsentJournal attachJournal(final ConsentJournal journal, final boolean updatedByPreviousVersion) {
+		final String attachedDirectory = namedCollection.getString(
+			ConsentConstants.DataStoreKey.CONSENT_JOURNAL_DIRECTORY,
+			null
+		);
+
+		if (journal == null) {
+			if (attachedDirectory != null) {
+				final ConsentJournal previousJournal = new ConsentJournal(new File(attachedDirectory));
+
+				// the consents persisted by a previous version are more recent than the journal
+				if (!updatedByPreviousVersion && !previousJournal.isEmpty()) {
+					saveConsentsToPersistence(previousJournal.replay());
+				}
+
+				namedCollection.remove(ConsentConstants.DataStoreKey.CONSENT_JOURNAL_DIRECTORY);
+				previousJournal.delete();
+			}
+
+			return null;
+		}
+
+		final String directory = journal.getDirectory().getPath();
+		final boolean isAttached = directory.equals(attachedDirectory);
+
+		if (!isAttached || updatedByPreviousVersion || journal.isEmpty()) {
+			final Consents persistedConsents = loadUserConsents();
+
+			if (
+				(persistedConsents != null || !journal.isEmpty()) &&
+				!journal.compact(persistedConsents != null ? persistedConsents.toJson() : null)
+			) {
+				Log.warning(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Unable to seed the consent journal, consents are persisted without journal."
+				);
+				namedCollection.remove(ConsentConstants.DataStoreKey.CONSENT_JOURNAL_DIRECTORY);
+				return null;
+			}
+		}
+
+		if (!isAttached) {
+			writeStringToPersistence(ConsentConstants.DataStoreKey.CONSENT_JOURNAL_DIRECTORY, directory);
+		}
+
+		return journal;
+	}
+
+	/**
+	 * Merges the provided {@link Consents} with the user opted consents and persists them.
+	 *
+	 * <p>Only the keys of {@code newConsents} are compared to detect a change of the current
+	 * consents, the other keys cannot change. The changes are notified to the {@link
+	 * ConsentChangeListener}s by {@link #notifyChangeListeners()}. The expiries of {@code
+	 * newConsents}, if any, are persisted along with the user opted consents.
 	 *
 	 * @param newConsents the newly obtained consents that needs to be merged with existing consents
 	 * @return true if `currentConsents` has been updated as a result of merging; ignores differences in timestamp values.
+	 * @see #mergeAndPersist(Consents, String, long)
 	 */
 	boolean mergeAndPersist(final Consents newConsents) {
-		// hold temp copy of current consents for comparison
-		final Consents currentConsents = getCurrentConsents();
+		return mergeAndPersist(newConsents, ConsentHistory.SOURCE_API, System.currentTimeMillis());
+	}
+
+	/**
+	 * Merges the provided {@link Consents} with the user opted consents and persists them, recording
+	 * the changes of the current consents in the history with the provided source.
+	 *
+	 * @param newConsents the newly obtained consents that needs to be merged with existing consents
+	 * @param source the source of the consents, {@link ConsentHistory#SOURCE_API} or {@link
+	 *     ConsentHistory#SOURCE_EDGE}
+	 * @param timestamp the timestamp of the event which provided the consents, in milliseconds
+	 *     since epoch, recorded in the history
+	 * @return true if `currentConsents` has been updated as a result of merging; ignores
+	 *     differences in timestamp values.
+	 */
+	boolean mergeAndPersist(final Consents newConsents, final String source, final long timestamp) {
+		ensureLoaded();
+
+		// hold the current values of the updated keys for comparison, the view is not affected by the merge
+		final Set<String> updatedKeys = newConsents.asUnmodifiableMap().keySet();
+		final LayeredConsents previousConsents = getCurrentConsentsView();
+		final Map<String, Object> previousValues = resolveValues(previousConsents, updatedKeys);
 
 		// merge and persist
-		userOptedConsents.merge(newConsents);
-		saveConsentsToPersistence(userOptedConsents);
+		ConsentTracing.begin(ConsentTracer.SPAN_MERGE);
+		layers[LAYER_USER_OPTED].merge(newConsents);
+		layers[LAYER_USER_OPTED].mergeExpiries(newConsents);
+		ConsentTracing.end(ConsentTracer.SPAN_MERGE);
+		invalidateCurrentConsents();
+
+		if (journal != null) {
+			appendToJournal(newConsents.toJson());
+		} else {
+			saveConsentsToPersistence(layers[LAYER_USER_OPTED]);
+		}
+
+		queueChangeNotification(updatedKeys, previousConsents);
 
 		// return true if currentConsents has been updated as a result of merging
-		return !currentConsents.equalsIgnoreTimestamp(getCurrentConsents());
+		return recordChanges(source, updatedKeys, previousValues, true, timestamp);
+	}
+
+	/**
+	 * Removes the user opted consents which expired at the provided time, so they fall back to the
+	 * consents of the lower layers, and persists the remaining consents along with their expiries.
+	 * The changes are notified to the {@link ConsentChangeListener}s by {@link
+	 * #notifyChangeListeners()}.
+	 *
+	 * @param timestamp the current time in milliseconds since epoch
+	 * @return the current values of the expired keys with the updated metadata, to be shared with
+	 *     Edge; empty if no consent expired
+	 */
+	Consents expireConsents(final long timestamp) {
+		ensureLoaded();
+
+		final LayeredConsents previousConsents = getCurrentConsentsView();
+		final Set<String> expiredKeys = layers[LAYER_USER_OPTED].removeExpired(timestamp);
+
+		if (expiredKeys.isEmpty()) {
+			return new Consents(new HashMap<>());
+		}
+
+		Log.debug(LOG_TAG, LOG_SOURCE, "Consents %s expired, falling back to the default consents.", expiredKeys);
+		layers[LAYER_USER_OPTED].setTimestamp(timestamp);
+		invalidateCurrentConsents();
+
+		if (journal != null) {
+			appendToJournal(ConsentJournal.removalRecord(expiredKeys, layers[LAYER_USER_OPTED]));
+		} else {
+			saveConsentsToPersistence(layers[LAYER_USER_OPTED]);
+		}
+
+		final Set<String> updatedKeys = new HashSet<>(expiredKeys);
+		updatedKeys.add(ConsentConstants.EventDataKey.METADATA);
+		queueChangeNotification(updatedKeys, previousConsents);
+		recordChanges(
+			ConsentHistory.SOURCE_EXPIRY,
+			expiredKeys,
+			resolveValues(previousConsents, expiredKeys),
+			true,
+			timestamp
+		);
+
+		final Map<String, Object> expiredConsents = resolveValues(getCurrentConsentsView(), updatedKeys);
+		return new Consents(
+			Collections.<String, Object>singletonMap(ConsentConstants.EventDataKey.CONSENTS, expiredConsents)
+		);
+	}
+
+	/**
+	 * @return the earliest expiry of the user opted consents in milliseconds since epoch, 0 if none
+	 *     expire
+	 */
+	long getNextExpiry() {
+		ensureLoaded();
+
+		return layers[LAYER_USER_OPTED].getNextExpiry();
+	}
+
+	/**
+	 * Checks whether the user opted consents have expiries, without parsing the persisted consents
+	 * if they are not loaded yet.
+	 *
+	 * @return true if any user opted consent expires
+	 */
+	boolean hasExpiries() {
+		if (isLoaded) {
+			return getNextExpiry() > 0;
+		}
+
+		if (journal != null) {
+			return journal.contains(PERSISTED_EXPIRY);
+		}
+
+		final String persistedConsents = persistedLayers[LAYER_USER_OPTED];
+		return persistedConsents != null && PersistenceEnvelope.mayContain(persistedConsents, PERSISTED_EXPIRY);
+	}
+
+	/**
+	 * Reads a page of the history of the changes of the current consents.
+	 *
+	 * @param fromRevision the revision of the first change to return
+	 * @param limit the maximum number of changes to return
+	 * @return the page of changes, from the oldest to the most recent
+	 * @see ConsentHistory#read(long, int)
+	 */
+	Map<String, Object> getHistory(final long fromRevision, final int limit) {
+		return history.read(fromRevision, limit);
+	}
+
+	/**
+	 * Sets the byte budget of the history of the changes of the current consents.
+	 *
+	 * @param maxBytes the maximum size of the history, the default size if not positive
+	 */
+	void setHistoryMaxBytes(final int maxBytes) {
+		history.setMaxBytes(maxBytes);
+	}
+
+	/**
+	 * Sets the length above which the persisted consents are compressed, applied on their next
+	 * write.
+	 *
+	 * @param threshold the length in characters, compression is disabled if not positive
+	 * @see PersistenceEnvelope#seal(String, int)
+	 */
+	void setCompressionThreshold(final int threshold) {
+		compressionThreshold = threshold;
+
+		if (journal != null) {
+			journal.setCompressionThreshold(threshold);
+		}
 	}
 
 	/**
@@ -73,68 +430,765 @@ final class ConsentManager {
 	 * @param newDefaultConsents the default consent obtained from configuration response event
 	 * @return true if `currentConsents` has been updated as a result of updating the default
 	 *     consents
+	 * @see #updateLayer(int, Consents, long)
 	 */
 	boolean updateDefaultConsents(final Consents newDefaultConsents) {
-		// hold temp copy of current consents for comparison
-		final Consents existingConsents = getCurrentConsents();
+		return updateLayer(LAYER_DEFAULTS, newDefaultConsents);
+	}
+
+	/**
+	 * Replaces the consents of a configured layer and persists them along with their fingerprint,
+	 * so they apply on the next launch before the configuration is available.
+	 *
+	 * <p>Only the keys of the previous and new consents of the layer are compared to detect a
+	 * change of the current consents, to be notified to the {@link ConsentChangeListener}s by
+	 * {@link #notifyChangeListeners()}, the other keys cannot change. The changes are recorded in
+	 * the history at the current time. The user opted layer cannot be replaced, use {@link
+	 * #mergeAndPersist(Consents)}.
+	 *
+	 * @param layer the rank of the layer, one of {@link #LAYER_POLICY}, {@link
+	 *     #LAYER_REGIONAL_DEFAULTS} or {@link #LAYER_DEFAULTS}
+	 * @param newConsents the new consents of the layer, null or empty to clear the layer
+	 * @return true if `currentConsents` has been updated as a result of updating the layer
+	 */
+	boolean updateLayer(final int layer, final Consents newConsents) {
+		return updateLayer(layer, newConsents, System.currentTimeMillis());
+	}
+
+	/**
+	 * Replaces the consents of a configured layer and persists them along with their fingerprint,
+	 * recording the changes of the current consents in the history at the provided time.
+	 *
+	 * @param layer the rank of the layer, one of {@link #LAYER_POLICY}, {@link
+	 *     #LAYER_REGIONAL_DEFAULTS} or {@link #LAYER_DEFAULTS}
+	 * @param newConsents the new consents of the layer, null or empty to clear the layer
+	 * @param timestamp the timestamp of the configuration event which provided the consents, in
+	 *     milliseconds since epoch
+	 * @return true if `currentConsents` has been updated as a result of updating the layer
+	 * @see #updateLayer(int, Consents)
+	 */
+	boolean updateLayer(final int layer, final Consents newConsents, final long timestamp) {
+		if (layer == LAYER_USER_OPTED) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Unable to replace the user opted consents, merge them instead.");
+			return false;
+		}
+
+		ensureLoaded();
+
+		// hold the current values of the keys of the layer for comparison
+		final Set<String> updatedKeys = new HashSet<>();
+		addKeys(updatedKeys, layers[layer]);
+		addKeys(updatedKeys, newConsents);
+		final LayeredConsents previousConsents = getCurrentConsentsView();
+		final Map<String, Object> previousValues = resolveValues(previousConsents, updatedKeys);
+
+		// update and persist
+		layers[layer] = newConsents;
+		invalidateCurrentConsents();
+		saveLayerToPersistence(layer, newConsents);
+		queueChangeNotification(updatedKeys, previousConsents);
 
-		// update the defaultConsents variable
-		defaultConsents = newDefaultConsents;
+		final String source = layer == LAYER_POLICY ? ConsentHistory.SOURCE_POLICY : ConsentHistory.SOURCE_DEFAULTS;
+		return recordChanges(source, updatedKeys, previousValues, false, timestamp);
+	}
+
+	/**
+	 * @param layer the rank of the layer, one of the {@code LAYER_} constants
+	 * @return the consents of the layer, can be null
+	 */
+	@VisibleForTesting
+	Consents getLayer(final int layer) {
+		ensureLoaded();
 
-		return !existingConsents.equals(getCurrentConsents());
+		return layers[layer];
 	}
 
 	/**
 	 * Getter method to retrieve the current consents.
 	 *
-	 * <p>The current consents is computed by overriding the {@link #userOptedConsents} over the
-	 * {@link #defaultConsents} The returned consent is never null. When there is no {@code
-	 * #userOptedConsents} or {@code #defaultConsents}, still an empty consent object is returned.
+	 * <p>The current consents is computed by overriding each layer over the layers of lower
+	 * precedence: the policy consents over the user opted consents, over the regional default
+	 * consents, over the default consents. The returned consent is never null. When no layer has
+	 * consents, still an empty consent object is returned.
+	 *
+	 * <p>The current consents are computed once and reused until a layer changes, so the returned
+	 * object must not be modified. After a change, only the top level keys which changed are merged
+	 * again. Only use them to serialize or compare the complete consents; use {@link
+	 * #getCurrentConsentsView()} to read values.
 	 *
 	 * @return the sharable complete current consents of this user
 	 */
 	Consents getCurrentConsents() {
-		// if defaults consents are not available, return userOptedConsents
-		if (defaultConsents == null || defaultConsents.isEmpty()) {
-			return new Consents(userOptedConsents);
+		if (currentConsents == null) {
+			final LayeredConsents view = getCurrentConsentsView();
+			currentConsents = view.materialize(materializedConsentsView, materializedConsents);
+			materializedConsentsView = view;
+			materializedConsents = currentConsents;
 		}
 
-		// if default consents are available. Merge the userOpted consents on top of it
-		final Consents currentConsents = new Consents(defaultConsents);
-		currentConsents.merge(userOptedConsents);
-
 		return currentConsents;
 	}
 
 	/**
-	 * Loads the requested consents from persistence. The jsonString from persistence is serialized
-	 * into {@link Consents} object and returned.
+	 * Getter method to retrieve a read-only view of the current consents, which resolves values
+	 * against the layers in order of precedence.
 	 *
-	 * @return {@link Consent} the previously persisted consents. Returns null if there was any
-	 *     {@link JSONException} while serializing JSONString to {@code Consents} object.
+	 * <p>Prefer the view over {@link #getCurrentConsents()} to read individual consents, it does
+	 * not merge the layers. The view is created once per change of the current consents.
+	 *
+	 * @return the {@link LayeredConsents} view of the current consents, never null
+	 */
+	LayeredConsents getCurrentConsentsView() {
+		ensureLoaded();
+
+		if (currentConsentsView == null) {
+			currentConsentsView = new LayeredConsents(layers);
+		}
+
+		return currentConsentsView;
+	}
+
+	/**
+	 * Getter method to retrieve the XDM representation of the current consents, shared by the XDM
+	 * shared state and the consent response events.
+	 *
+	 * <p>The map is computed once per change of the current consents and is not modifiable.
+	 *
+	 * @return {@link Map} representing the {@link #getCurrentConsents()} in XDM format
+	 */
+	Map<String, Object> getCurrentXDMConsents() {
+		if (currentXDMConsents == null) {
+			currentXDMConsents = getCurrentConsents().asUnmodifiableXDMMap();
+		}
+
+		return currentXDMConsents;
+	}
+
+	/**
+	 * Computes the part of the provided consents update that Edge does not know about yet.
+	 *
+	 * <p>The update, merged over the update queued while offline if any, is compared against the
+	 * consents sent to Edge and received from Edge through {@code consent:preferences} handles,
+	 * possibly in a previous session.
+	 *
+	 * @param consentsUpdate the consents update to be sent to Edge
+	 * @return the consents of {@code consentsUpdate} and of the queued update that changed from
+	 *     what Edge knows, with their metadata; empty if Edge already knows all of them
+	 * @see Consents#delta(Consents)
+	 */
+	Consents getEdgeConsentsUpdate(final Consents consentsUpdate) {
+		ensureLoaded();
+
+		if (pendingEdgeConsents.isEmpty()) {
+			return consentsUpdate.delta(edgeConsents);
+		}
+
+		final Consents update = new Consents(pendingEdgeConsents);
+		update.merge(consentsUpdate);
+		return update.delta(edgeConsents);
+	}
+
+	/**
+	 * Queues a consents update which could not be sent to Edge because the device is offline.
+	 *
+	 * <p>Queued updates are merged per consent key, so only the last value of each key and the
+	 * last update metadata are kept. The queue is persisted until it is sent with {@link
+	 * #recordSentToEdge(Consents)} or dropped with {@link #clearPendingEdgeConsents()}.
+	 *
+	 * @param consentsUpdate the consents update to be sent to Edge once the device is online
+	 */
+	void queueEdgeConsentsUpdate(final Consents consentsUpdate) {
+		ensureLoaded();
+
+		pendingEdgeConsents.merge(consentsUpdate);
+		persistedPendingEdgeConsents =
+			writeConsentsToPersistence(ConsentConstants.DataStoreKey.EDGE_PENDING_CONSENTS, pendingEdgeConsents);
+	}
+
+	/**
+	 * @return true if a consents update is queued for Edge
+	 * @see #queueEdgeConsentsUpdate(Consents)
+	 */
+	boolean hasPendingEdgeConsents() {
+		ensureLoaded();
+
+		return !pendingEdgeConsents.isEmpty();
+	}
+
+	/**
+	 * Drops the consents update queued for Edge, if any.
 	 */
-	private Consents loadConsentsFromPersistence() {
+	void clearPendingEdgeConsents() {
+		ensureLoaded();
+
+		if (pendingEdgeConsents.isEmpty()) {
+			return;
+		}
+
+		pendingEdgeConsents = new Consents(new HashMap<>());
+		persistedPendingEdgeConsents =
+			writeConsentsToPersistence(ConsentConstants.DataStoreKey.EDGE_PENDING_CONSENTS, pendingEdgeConsents);
+	}
+
+	/**
+	 * Checks whether Edge confirmed the current consents through a {@code consent:preferences}
+	 * handle, possibly in a previous session. Timestamps are ignored.
+	 *
+	 * @return true if the current consents are the last ones confirmed by Edge
+	 */
+	boolean isConfirmedByEdge() {
+		ensureLoaded();
+
+		return edgeConfirmedFingerprint != null && edgeConfirmedFingerprint.equals(getCurrentConsentsFingerprint());
+	}
+
+	/**
+	 * Checks whether the provided consents update is a duplicate of the consents confirmed by Edge:
+	 * it changes neither the user opted consents, their expiries, nor the consents Edge knows, and
+	 * Edge confirmed the current consents. Timestamps are ignored.
+	 *
+	 * <p>Checked before the update is merged, so a dropped duplicate leaves the persisted
+	 * consents and the shared state unchanged.
+	 *
+	 * @param consentsUpdate the consents update
+	 * @return true if {@code consentsUpdate} can be dropped
+	 */
+	boolean isDuplicateOfConfirmedConsents(final Consents consentsUpdate) {
+		ensureLoaded();
+
+		return (
+			!consentsUpdate.hasExpiries() &&
+			consentsUpdate.delta(layers[LAYER_USER_OPTED]).isEmpty() &&
+			getEdgeConsentsUpdate(consentsUpdate).isEmpty() &&
+			isConfirmedByEdge()
+		);
+	}
+
+	/**
+	 * Records the consents update sent to Edge. The update includes the queued update, if any,
+	 * which is dropped.
+	 *
+	 * @param consentsUpdate the consents update sent to Edge
+	 * @see #getEdgeConsentsUpdate(Consents)
+	 */
+	void recordSentToEdge(final Consents consentsUpdate) {
+		ensureLoaded();
+
+		edgeConsents.merge(consentsUpdate);
+		persistedEdgeConsents = writeConsentsToPersistence(ConsentConstants.DataStoreKey.EDGE_CONSENTS, edgeConsents);
+		clearPendingEdgeConsents();
+	}
+
+	/**
+	 * Records the consents received from Edge and marks the current consents as confirmed by Edge.
+	 * Call after processing a {@code consent:preferences} handle.
+	 *
+	 * @param confirmedConsents the consents received in the {@code consent:preferences} handle
+	 * @see #isConfirmedByEdge()
+	 */
+	void recordConfirmedByEdge(final Consents confirmedConsents) {
+		ensureLoaded();
+
+		if (!confirmedConsents.delta(edgeConsents).isEmpty()) {
+			edgeConsents.merge(confirmedConsents);
+			persistedEdgeConsents =
+				writeConsentsToPersistence(ConsentConstants.DataStoreKey.EDGE_CONSENTS, edgeConsents);
+		}
+
+		final String fingerprint = getCurrentConsentsFingerprint();
+
+		if (fingerprint.equals(edgeConfirmedFingerprint)) {
+			return;
+		}
+
+		edgeConfirmedFingerprint = fingerprint;
+		saveFingerprintToPersistence(ConsentConstants.DataStoreKey.EDGE_CONFIRMED_FINGERPRINT, fingerprint);
+	}
+
+	/**
+	 * Retrieves the XDM shared state cached by {@link #saveSharedStateToPersistence(Map)}.
+	 *
+	 * <p>The cache is only returned when it was computed from the same persisted consents of each
+	 * layer that are currently in persistence, in which case it is equal to the XDM
+	 * representation of {@link #getCurrentConsents()}.
+	 *
+	 * @return the cached XDM shared state, or null if there is no valid cache for the persisted
+	 *     consents
+	 */
+	Map<String, Object> loadSharedStateFromPersistence() {
 		if (namedCollection == null) {
-			Log.warning(
-				LOG_TAG,
-				LOG_SOURCE,
-				"loadConsentsFromPersistence failed due to unexpected null namedCollection."
-			);
 			return null;
 		}
 
-		final String jsonString = namedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null);
+		final String cachedFingerprint = namedCollection.getString(
+			ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE_FINGERPRINT,
+			null
+		);
+
+		if (cachedFingerprint == null || !cachedFingerprint.equals(sharedStateInputsFingerprint())) {
+			return null;
+		}
+
+		final String jsonString = namedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE, null);
 
 		if (jsonString == null) {
-			Log.trace(LOG_TAG, LOG_SOURCE, "No previous consents were stored in persistence. Current consent is null.");
+			return null;
+		}
+
+		try {
+			return ConsentsJson.read(PersistenceEnvelope.open(jsonString));
+		} catch (JSONException exception) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to read the cached consents shared state from persistence.");
+			return null;
+		}
+	}
+
+	/**
+	 * Caches the XDM shared state of the {@link #getCurrentConsents()} in persistence, along with
+	 * the fingerprint of the persisted consents it was computed from.
+	 *
+	 * <p>Only called at boot when the cache is stale, so consent updates do not write a second
+	 * copy of the consents. The current consents are serialized once per change.
+	 */
+	void saveSharedStateToPersistence() {
+		if (namedCollection == null) {
+			return;
+		}
+
+		ConsentTracing.begin(ConsentTracer.SPAN_PERSIST);
+
+		try {
+			if (currentConsentsJson == null) {
+				currentConsentsJson = PersistenceEnvelope.seal(getCurrentConsents().toJson(), compressionThreshold);
+			}
+
+			writeStringToPersistence(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE, currentConsentsJson);
+			writeStringToPersistence(
+				ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE_FINGERPRINT,
+				sharedStateInputsFingerprint()
+			);
+		} finally {
+			ConsentTracing.end(ConsentTracer.SPAN_PERSIST);
+		}
+	}
+
+	/**
+	 * Parses the persisted consents of each layer, if not already done.
+	 */
+	private void ensureLoaded() {
+		if (isLoaded) {
+			return;
+		}
+
+		isLoaded = true;
+		ConsentTracing.begin(ConsentTracer.SPAN_LOAD);
+
+		try {
+			loadPersistedConsents();
+		} finally {
+			ConsentTracing.end(ConsentTracer.SPAN_LOAD);
+		}
+	}
+
+	/**
+	 * Discards the current consents and their XDM and JSON forms, after a layer changed.
+	 */
+	private void invalidateCurrentConsents() {
+		currentConsentsView = null;
+		currentConsents = null;
+		currentXDMConsents = null;
+		currentConsentsJson = null;
+		currentConsentsFingerprint = null;
+	}
+
+	/**
+	 * @return the fingerprint of the current consents without their timestamp, computed once per
+	 *     change
+	 * @see Consents#fingerprintIgnoreTimestamp()
+	 */
+	private String getCurrentConsentsFingerprint() {
+		if (currentConsentsFingerprint == null) {
+			currentConsentsFingerprint = getCurrentConsents().fingerprintIgnoreTimestamp();
+		}
+
+		return currentConsentsFingerprint;
+	}
+
+	/**
+	 * Notifies the {@link ConsentChangeListener}s of the changes of the current consents since they
+	 * were last notified. Called once the current consents are shared, so listeners reading the
+	 * shared state or calling the Consent APIs get the new consents.
+	 */
+	void notifyChangeListeners() {
+		if (unnotifiedConsents == null) {
+			return;
+		}
+
+		final LayeredConsents previousConsents = unnotifiedConsents;
+		final Set<String> updatedKeys = new HashSet<>(unnotifiedKeys);
+		unnotifiedConsents = null;
+		unnotifiedKeys.clear();
+		changeListeners.notifyChanges(updatedKeys, previousConsents, getCurrentConsentsView());
+	}
+
+	/**
+	 * Holds the keys which changed for {@link #notifyChangeListeners()}, along with the view of
+	 * the consents before the first change not notified yet, so successive changes are notified
+	 * as one.
+	 *
+	 * @param updatedKeys the top level consent keys which may have changed
+	 * @param previousConsents the view of the consents before the change
+	 */
+	private void queueChangeNotification(final Set<String> updatedKeys, final LayeredConsents previousConsents) {
+		if (unnotifiedConsents == null) {
+			unnotifiedConsents = previousConsents;
+		}
+
+		unnotifiedKeys.addAll(updatedKeys);
+	}
+
+	/**
+	 * Resolves the values of the provided top level consent keys.
+	 *
+	 * @param consents the view to resolve the values from
+	 * @param keys the top level consent keys
+	 * @return the resolved value of each key held by {@code consents}
+	 */
+	private static Map<String, Object> resolveValues(final LayeredConsents consents, final Set<String> keys) {
+		final Map<String, Object> values = new HashMap<>();
+
+		for (final String key : keys) {
+			if (consents.containsKey(key)) {
+				values.put(key, consents.getValue(key));
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Records the provided top level consent keys which resolve to a different value in the
+	 * history. Only the changed leaf values are recorded, not the complete current consents.
+	 *
+	 * @param source the source of the change, one of the {@code ConsentHistory.SOURCE_} constants
+	 * @param keys the top level consent keys that may have changed
+	 * @param previousValues the values resolved before the change, see {@link
+	 *     #resolveValues(LayeredConsents, Set)}
+	 * @param ignoreTimestamp true to ignore the timestamp field of the metadata
+	 * @param timestamp the time of the change in milliseconds since epoch
+	 * @return true if the value of at least one key changed
+	 */
+	private boolean recordChanges(
+		final String source,
+		final Set<String> keys,
+		final Map<String, Object> previousValues,
+		final boolean ignoreTimestamp,
+		final long timestamp
+	) {
+		final Map<String, Object> changes = getChanges(keys, previousValues, getCurrentConsentsView(), ignoreTimestamp);
+
+		if (changes.isEmpty()) {
+			return false;
+		}
+
+		history.record(source, changes, timestamp);
+		return true;
+	}
+
+	/**
+	 * Retrieves the provided top level consent keys which resolve to a different value, with only
+	 * their changed leaf values, see {@link #getDelta(Object, Object)}.
+	 *
+	 * @param keys the top level consent keys that may have changed
+	 * @param previousValues the values resolved before the change, see {@link
+	 *     #resolveValues(LayeredConsents, Set)}
+	 * @param consents the view after the change
+	 * @param ignoreTimestamp true to ignore the timestamp field of the metadata
+	 * @return the changed keys with their new value, null if removed; empty if no key changed
+	 */
+	private static Map<String, Object> getChanges(
+		final Set<String> keys,
+		final Map<String, Object> previousValues,
+		final LayeredConsents consents,
+		final boolean ignoreTimestamp
+	) {
+		Map<String, Object> changes = null;
+
+		for (final String key : keys) {
+			final boolean isMetadata = ConsentConstants.EventDataKey.METADATA.equals(key);
+			final Object value = consents.getValue(key);
+			final boolean isEqual = ignoreTimestamp
+				? equalsIgnoreTimestamp(key, previousValues.get(key), value)
+				: equals(previousValues.get(key), value);
+
+			if (
+				!isEqual ||
+				((!ignoreTimestamp || !isMetadata) && previousValues.containsKey(key) != consents.containsKey(key))
+			) {
+				if (changes == null) {
+					changes = new HashMap<>();
+				}
+
+				changes.put(key, getDelta(previousValues.get(key), value));
+			}
+		}
+
+		return changes != null ? changes : Collections.<String, Object>emptyMap();
+	}
+
+	/**
+	 * Retrieves the changed leaf values of a consent value, so a change of a single vendor under a
+	 * large key does not record all its vendors. The delta is applied as a JSON merge patch.
+	 *
+	 * <p>Example: the delta from {"vendors": {"a": {"val": "y"}, "b": {"val": "y"}}} to {"vendors":
+	 * {"a": {"val": "n"}, "b": {"val": "y"}}} is {"vendors": {"a": {"val": "n"}}}.
+	 *
+	 * @param previousValue the value before the change, can be null
+	 * @param value the value after the change, can be null
+	 * @return {@code value} unless both values are maps, otherwise the keys which changed with
+	 *     their delta, null for removed keys
+	 */
+	private static Object getDelta(final Object previousValue, final Object value) {
+		if (!(previousValue instanceof Map) || !(value instanceof Map)) {
+			return value;
+		}
+
+		final Map<?, ?> previousMap = (Map<?, ?>) previousValue;
+		final Map<?, ?> map = (Map<?, ?>) value;
+		final Map<String, Object> delta = new HashMap<>();
+
+		for (final Map.Entry<?, ?> entry : map.entrySet()) {
+			final Object previousEntryValue = previousMap.get(entry.getKey());
+
+			if (!previousMap.containsKey(entry.getKey())) {
+				delta.put(String.valueOf(entry.getKey()), entry.getValue());
+			} else if (!equals(previousEntryValue, entry.getValue())) {
+				delta.put(String.valueOf(entry.getKey()), getDelta(previousEntryValue, entry.getValue()));
+			}
+		}
+
+		for (final Object key : previousMap.keySet()) {
+			if (!map.containsKey(key)) {
+				delta.put(String.valueOf(key), null);
+			}
+		}
+
+		return delta;
+	}
+
+	/**
+	 * Adds the top level consent keys of the provided consents.
+	 *
+	 * @param keys the keys to add to
+	 * @param consents the consents, can be null
+	 */
+	private static void addKeys(final Set<String> keys, final Consents consents) {
+		if (consents != null) {
+			keys.addAll(consents.asUnmodifiableMap().keySet());
+		}
+	}
+
+	/**
+	 * Compares two resolved values of the top level consent key, ignoring the timestamp field of
+	 * the metadata.
+	 *
+	 * @param key the top level consent key
+	 * @param value the first resolved value, can be null
+	 * @param otherValue the second resolved value, can be null
+	 * @return true if both values are equal ignoring the timestamp
+	 * @see Consents#equalsIgnoreTimestamp(Consents)
+	 */
+	private static boolean equalsIgnoreTimestamp(final String key, final Object value, final Object otherValue) {
+		if (ConsentConstants.EventDataKey.METADATA.equals(key)) {
+			return equals(removeTimestamp(value), removeTimestamp(otherValue));
+		}
+
+		return equals(value, otherValue);
+	}
+
+	private static boolean equals(final Object value, final Object otherValue) {
+		return value == null ? otherValue == null : value.equals(otherValue);
+	}
+
+	/**
+	 * Removes the timestamp field from the resolved metadata value.
+	 *
+	 * @param metadata the resolved metadata value, can be null
+	 * @return a copy of {@code metadata} without the timestamp field, null if nothing else is left
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object removeTimestamp(final Object metadata) {
+		if (!(metadata instanceof Map)) {
+			return metadata;
+		}
+
+		final Map<String, Object> metadataCopy = new HashMap<>((Map<String, Object>) metadata);
+		metadataCopy.remove(ConsentConstants.EventDataKey.TIME);
+		return metadataCopy.isEmpty() ? null : metadataCopy;
+	}
+
+	/**
+	 * Parses the raw persisted consents read in the constructor.
+	 */
+	private void loadPersistedConsents() {
+		layers[LAYER_USER_OPTED] = journal != null ? journal.replay() : loadUserConsents();
+
+		// Initiate update consent with empty consent object if nothing is loaded from persistence
+		if (layers[LAYER_USER_OPTED] == null) {
+			layers[LAYER_USER_OPTED] = new Consents(new HashMap<>());
+		}
+
+		edgeConsents = parseConsents(persistedEdgeConsents);
+
+		if (edgeConsents == null) {
+			edgeConsents = new Consents(new HashMap<>());
+		}
+
+		pendingEdgeConsents = parseConsents(persistedPendingEdgeConsents);
 
+		if (pendingEdgeConsents == null) {
+			pendingEdgeConsents = new Consents(new HashMap<>());
+		}
+
+		// Apply the last known configured layers so the first shared state already reflects them
+		for (int layer = 0; layer < LAYER_COUNT; layer++) {
+			if (layer == LAYER_USER_OPTED) {
+				continue;
+			}
+
+			layers[layer] = parseConsents(persistedLayers[layer]);
+
+			if (layers[layer] != null) {
+				layerFingerprints[layer] = namedCollection.getString(LAYER_FINGERPRINT_KEYS[layer], null);
+
+				if (layerFingerprints[layer] == null) {
+					layerFingerprints[layer] = layers[layer].fingerprint();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses the persisted user opted consents, falling back to their plain JSON copy then to their
+	 * last known good shadow copy if they are corrupt, in which case the copy is restored. The
+	 * shadow copy is refreshed once the persisted consents are parsed.
+	 *
+	 * @return the persisted user opted consents, or null if none could be read
+	 */
+	private Consents loadUserConsents() {
+		final String persistedConsents = persistedLayers[LAYER_USER_OPTED];
+
+		if (persistedConsents == null) {
+			return null;
+		}
+
+		final String shadowConsents = namedCollection.getString(
+			ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SHADOW,
+			null
+		);
+		Consents consents = parseConsents(persistedConsents);
+
+		if (consents != null) {
+			if (!persistedConsents.equals(shadowConsents)) {
+				writeStringToPersistence(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SHADOW, persistedConsents);
+			}
+
+			return consents;
+		}
+
+		// the plain copy is intact if only the envelope is corrupt
+		final String[] copies = {
+			namedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null),
+			shadowConsents,
+		};
+
+		for (final String copy : copies) {
+			if (copy == null || copy.equals(persistedConsents)) {
+				continue;
+			}
+
+			consents = parseConsents(copy);
+
+			if (consents != null) {
+				Log.warning(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Persisted consents are corrupt, restoring their last known good copy."
+				);
+				writeUserConsentsToPersistence(copy, PersistenceEnvelope.open(copy));
+				return consents;
+			}
+		}
+
+		Log.warning(LOG_TAG, LOG_SOURCE, "Persisted consents are corrupt and no valid copy exists.");
+		return null;
+	}
+
+	/**
+	 * Computes the fingerprint of the persisted consents the shared state is computed from.
+	 *
+	 * <p>The policy and regional default consents are only included when persisted, so the
+	 * fingerprints of shared states cached before these layers existed remain valid.
+	 *
+	 * @return fingerprint of the persisted consents of each layer
+	 */
+	private String sharedStateInputsFingerprint() {
+		final StringBuilder inputs = new StringBuilder();
+		inputs.append(journal != null ? journal.fingerprint() : persistedLayerFingerprint(LAYER_USER_OPTED));
+		inputs.append("\n").append(persistedLayerFingerprint(LAYER_DEFAULTS));
+
+		for (final int layer : new int[] { LAYER_POLICY, LAYER_REGIONAL_DEFAULTS }) {
+			if (persistedLayers[layer] != null) {
+				inputs.append("\n").append(layer).append(':').append(persistedLayerFingerprint(layer));
+			}
+		}
+
+		return Utils.fingerprint(inputs.toString());
+	}
+
+	/**
+	 * Computes the fingerprint of the persisted consents of the provided layer, only hashing them
+	 * again once they are written.
+	 *
+	 * @param layer the layer
+	 * @return the fingerprint of the persisted consents of {@code layer}, null if none are persisted
+	 */
+	private String persistedLayerFingerprint(final int layer) {
+		// every write persists a new string, compared by reference
+		if (fingerprintedLayers[layer] != persistedLayers[layer]) {
+			fingerprintedLayers[layer] = persistedLayers[layer];
+			persistedLayerFingerprints[layer] = Utils.fingerprint(persistedLayers[layer]);
+		}
+
+		return persistedLayerFingerprints[layer];
+	}
+
+	/**
+	 * Parses the consents read from persistence. The jsonString from persistence is validated
+	 * against its {@link PersistenceEnvelope} and serialized into {@link Consents} object and
+	 * returned.
+	 *
+	 * @param persistedString the persisted consents
+	 * @return {@link Consent} the previously persisted consents. Returns null if nothing was
+	 *     persisted, if the persisted consents are truncated or corrupted or if there was any
+	 *     {@link JSONException} while serializing JSONString to {@code Consents} object.
+	 */
+	private Consents parseConsents(final String persistedString) {
+		if (persistedString == null) {
+			Log.trace(LOG_TAG, LOG_SOURCE, "No previous consents were stored in persistence.");
+
+			return null;
+		}
+
+		final String jsonString = PersistenceEnvelope.open(persistedString);
+
+		if (jsonString == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Persisted consents failed validation, unable to load them.");
 			return null;
 		}
 
 		try {
-			final JSONObject jsonObject = new JSONObject(jsonString);
-			final Map<String, Object> consentMap = JSONUtils.toMap(jsonObject);
-			return new Consents(consentMap);
+			return Consents.fromJson(jsonString);
 		} catch (JSONException exception) {
 			Log.debug(
 				LOG_TAG,
@@ -146,12 +1200,46 @@ final class ConsentManager {
 		}
 	}
 
+	/**
+	 * Appends the record of a change of the user opted consents to the journal, and compacts them
+	 * once the journal grows past its threshold.
+	 *
+	 * <p>The consents are also persisted in {@code namedCollection} on each change, so previous
+	 * versions, which do not read the journal, read the current consents after a downgrade. They
+	 * are persisted before the journal is compacted, so they are never older than its snapshot. If
+	 * the journal cannot be compacted, the consents are persisted without journal from then on,
+	 * and the journal is seeded again on the next launch.
+	 *
+	 * @param record the {@link ConsentJournal} record of the change
+	 */
+	private void appendToJournal(final String record) {
+		ConsentTracing.begin(ConsentTracer.SPAN_PERSIST);
+
+		try {
+			final boolean isCompactionDue = journal.append(record);
+			saveConsentsToPersistence(layers[LAYER_USER_OPTED]);
+
+			if (isCompactionDue && !journal.compact(layers[LAYER_USER_OPTED])) {
+				Log.warning(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Unable to compact the consent journal, consents are persisted without journal."
+				);
+				namedCollection.remove(ConsentConstants.DataStoreKey.CONSENT_JOURNAL_DIRECTORY);
+				journal = null;
+			}
+		} finally {
+			ConsentTracing.end(ConsentTracer.SPAN_PERSIST);
+		}
+	}
+
 	/**
 	 * Call this method to save the consents to persistence. The consents are converted to
-	 * jsonString and stored into persistence.
+	 * jsonString and stored into persistence, in their {@link PersistenceEnvelope} under key {@link
+	 * ConsentConstants.DataStoreKey#CONSENT_PREFERENCES_SEALED} and as plain JSON under key {@link
+	 * ConsentConstants.DataStoreKey#CONSENT_PREFERENCES}, which previous versions read.
 	 *
-	 * @param consents the consents that need to be persisted under key {@link
-	 *     ConsentConstants.DataStoreKey#CONSENT_PREFERENCES}
+	 * @param consents the consents that need to be persisted
 	 */
 	private void saveConsentsToPersistence(final Consents consents) {
 		if (namedCollection == null) {
@@ -164,12 +1252,128 @@ final class ConsentManager {
 		}
 
 		if (consents.isEmpty()) {
+			namedCollection.remove(LAYER_KEYS[LAYER_USER_OPTED]);
 			namedCollection.remove(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES);
+			namedCollection.remove(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SHADOW);
+			persistedLayers[LAYER_USER_OPTED] = null;
+			return;
+		}
+
+		ConsentTracing.begin(ConsentTracer.SPAN_PERSIST);
+
+		try {
+			final String jsonString = consents.toJson();
+			writeUserConsentsToPersistence(PersistenceEnvelope.seal(jsonString, compressionThreshold), jsonString);
+		} finally {
+			ConsentTracing.end(ConsentTracer.SPAN_PERSIST);
+		}
+	}
+
+	/**
+	 * Writes the user opted consents to persistence, in their envelope and as plain JSON.
+	 *
+	 * @param persistedString the consents in their {@link PersistenceEnvelope}
+	 * @param jsonString the payload of {@code persistedString}
+	 */
+	private void writeUserConsentsToPersistence(final String persistedString, final String jsonString) {
+		writeStringToPersistence(LAYER_KEYS[LAYER_USER_OPTED], persistedString);
+		writeStringToPersistence(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, jsonString);
+		persistedLayers[LAYER_USER_OPTED] = persistedString;
+	}
+
+	/**
+	 * Writes the consents to persistence under the provided key. Empty consents remove the key.
+	 *
+	 * @param key the persistence key
+	 * @param consents the consents to persist
+	 * @return the persisted jsonString in its {@link PersistenceEnvelope}, or null if nothing is
+	 *     persisted under {@code key}
+	 */
+	private String writeConsentsToPersistence(final String key, final Consents consents) {
+		if (namedCollection == null) {
+			return null;
+		}
+
+		if (consents.isEmpty()) {
+			namedCollection.remove(key);
+			return null;
+		}
+
+		ConsentTracing.begin(ConsentTracer.SPAN_PERSIST);
+
+		try {
+			final String persistedString = PersistenceEnvelope.seal(consents.toJson(), compressionThreshold);
+			writeStringToPersistence(key, persistedString);
+			return persistedString;
+		} finally {
+			ConsentTracing.end(ConsentTracer.SPAN_PERSIST);
+		}
+	}
+
+	/**
+	 * Writes the value to persistence and records the write in the {@link ConsentMetrics}.
+	 *
+	 * @param key the persistence key
+	 * @param value the value to write
+	 */
+	private void writeStringToPersistence(final String key, final String value) {
+		namedCollection.setString(key, value);
+
+		final ConsentMetrics metrics = ConsentMetrics.getInstance();
+		metrics.increment(ConsentMetrics.PERSISTENCE_WRITES);
+		if (value != null) {
+			metrics.add(ConsentMetrics.PERSISTENCE_BYTES_WRITTEN, value.getBytes(StandardCharsets.UTF_8).length);
+		}
+	}
+
+	/**
+	 * Saves the consents of a configured layer to persistence along with their fingerprint, so
+	 * they can be applied on the next launch before the configuration is available.
+	 *
+	 * <p>Persistence is not rewritten if the fingerprint of {@code consents} matches the one
+	 * already stored. Empty consents remove any previously persisted consents of the layer.
+	 *
+	 * @param layer the rank of the configured layer
+	 * @param consents the consents of the layer obtained from the configuration response
+	 */
+	private void saveLayerToPersistence(final int layer, final Consents consents) {
+		if (namedCollection == null) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "saveLayerToPersistence failed due to unexpected null namedCollection.");
+			return;
+		}
+
+		if (consents == null || consents.isEmpty()) {
+			if (layerFingerprints[layer] != null) {
+				namedCollection.remove(LAYER_KEYS[layer]);
+				namedCollection.remove(LAYER_FINGERPRINT_KEYS[layer]);
+				layerFingerprints[layer] = null;
+				persistedLayers[layer] = null;
+			}
+			return;
+		}
+
+		final String fingerprint = consents.fingerprint();
+
+		if (fingerprint != null && fingerprint.equals(layerFingerprints[layer])) {
+			return;
+		}
+
+		persistedLayers[layer] = writeConsentsToPersistence(LAYER_KEYS[layer], consents);
+		writeStringToPersistence(LAYER_FINGERPRINT_KEYS[layer], fingerprint);
+		layerFingerprints[layer] = fingerprint;
+	}
+
+	/**
+	 * Saves a fingerprint to persistence under the provided key.
+	 *
+	 * @param key the persistence key
+	 * @param fingerprint the fingerprint to persist
+	 */
+	private void saveFingerprintToPersistence(final String key, final String fingerprint) {
+		if (namedCollection == null) {
 			return;
 		}
 
-		final JSONObject jsonObject = new JSONObject(consents.asXDMMap());
-		final String jsonString = jsonObject.toString();
-		namedCollection.setString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, jsonString);
+		writeStringToPersistence(key, fingerprint);
 	}
 }
@@ -0,0 +1,233 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import androidx.annotation.VisibleForTesting;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process metrics registry of the Consent extension, holding counters and per handler latency
+ * histograms.
+ *
+ * <p>Metrics are recorded on the extension thread and can be read from any thread through {@link
+ * #snapshot()}.
+ */
+final class ConsentMetrics {
+
+	// counter names
+	static final String UPDATES_RECEIVED = "updatesReceived";
+	static final String UPDATES_MERGED = "updatesMerged";
+	static final String UPDATES_DROPPED_DUPLICATE = "updatesDroppedDuplicate";
+	static final String UPDATES_THROTTLED = "updatesThrottled";
+	static final String EDGE_HANDLES_IGNORED = "edgeHandlesIgnored";
+	static final String SHARED_STATES_CREATED = "sharedStatesCreated";
+	static final String PERSISTENCE_WRITES = "persistenceWrites";
+	static final String PERSISTENCE_BYTES_WRITTEN = "persistenceBytesWritten";
+
+	// handler names
+	static final String HANDLE_CONSENT_UPDATE = "handleConsentUpdate";
+	static final String HANDLE_EDGE_CONSENT_PREFERENCE_HANDLE = "handleEdgeConsentPreferenceHandle";
+	static final String HANDLE_REQUEST_CONTENT = "handleRequestContent";
+	static final String HANDLE_CONFIGURATION_RESPONSE = "handleConfigurationResponse";
+
+	// snapshot keys
+	static final String COUNTERS = "counters";
+	static final String LATENCIES = "latencies";
+	static final String COUNT = "count";
+	static final String TOTAL_MICROS = "totalMicros";
+	static final String MAX_MICROS = "maxMicros";
+	static final String BUCKETS = "buckets";
+	static final String OVERFLOW_BUCKET = "inf";
+
+	private static final String[] COUNTER_NAMES = {
+		UPDATES_RECEIVED,
+		UPDATES_MERGED,
+		UPDATES_DROPPED_DUPLICATE,
+		UPDATES_THROTTLED,
+		EDGE_HANDLES_IGNORED,
+		SHARED_STATES_CREATED,
+		PERSISTENCE_WRITES,
+		PERSISTENCE_BYTES_WRITTEN,
+	};
+
+	private static final String[] HANDLER_NAMES = {
+		HANDLE_CONSENT_UPDATE,
+		HANDLE_EDGE_CONSENT_PREFERENCE_HANDLE,
+		HANDLE_REQUEST_CONTENT,
+		HANDLE_CONFIGURATION_RESPONSE,
+	};
+
+	// inclusive upper bounds of the latency histogram buckets, the last bucket holds the rest
+	private static final long[] BUCKET_BOUNDS_MICROS = { 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000 };
+
+	private static final ConsentMetrics INSTANCE = new ConsentMetrics();
+
+	private final Map<String, AtomicLong> counters = new HashMap<>();
+	private final Map<String, LatencyHistogram> latencies = new HashMap<>();
+
+	@VisibleForTesting
+	ConsentMetrics() {
+		for (final String name : COUNTER_NAMES) {
+			counters.put(name, new AtomicLong());
+		}
+
+		for (final String name : HANDLER_NAMES) {
+			latencies.put(name, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * @return the metrics registry shared by the Consent extension and the public API
+	 */
+	static ConsentMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Increments the given counter by one.
+	 *
+	 * @param counter one of the counter names defined in this class; unknown names are ignored
+	 */
+	void increment(final String counter) {
+		add(counter, 1);
+	}
+
+	/**
+	 * Adds the given value to the given counter.
+	 *
+	 * @param counter one of the counter names defined in this class; unknown names are ignored
+	 * @param value the value to add
+	 */
+	void add(final String counter, final long value) {
+		final AtomicLong count = counters.get(counter);
+
+		if (count != null) {
+			count.addAndGet(value);
+		}
+	}
+
+	/**
+	 * Records the time spent processing an event in the given handler.
+	 *
+	 * @param handler one of the handler names defined in this class; unknown names are ignored
+	 * @param elapsedNanos the processing time in nanoseconds
+	 */
+	void recordLatency(final String handler, final long elapsedNanos) {
+		final LatencyHistogram histogram = latencies.get(handler);
+
+		if (histogram != null) {
+			histogram.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+		}
+	}
+
+	/**
+	 * Returns a copy of the current metrics.
+	 *
+	 * <p>Output example: {"counters": {"updatesReceived": 3, ...}, "latencies":
+	 * {"handleConsentUpdate": {"count": 3, "totalMicros": 840, "maxMicros": 510, "buckets":
+	 * {"100": 0, "250": 1, "500": 1, "1000": 1, ..., "inf": 0}}, ...}}
+	 *
+	 * @return the counters and latency histograms recorded since the application started
+	 */
+	Map<String, Object> snapshot() {
+		final Map<String, Object> counterValues = new HashMap<>();
+
+		for (final Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+			counterValues.put(counter.getKey(), counter.getValue().get());
+		}
+
+		final Map<String, Object> latencyValues = new HashMap<>();
+
+		for (final Map.Entry<String, LatencyHistogram> latency : latencies.entrySet()) {
+			latencyValues.put(latency.getKey(), latency.getValue().snapshot());
+		}
+
+		final Map<String, Object> metrics = new HashMap<>();
+		metrics.put(COUNTERS, counterValues);
+		metrics.put(LATENCIES, latencyValues);
+		return metrics;
+	}
+
+	/**
+	 * Resets all the counters and latency histograms.
+	 */
+	@VisibleForTesting
+	void reset() {
+		for (final AtomicLong counter : counters.values()) {
+			counter.set(0);
+		}
+
+		for (final LatencyHistogram histogram : latencies.values()) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Fixed bucket latency histogram, in microseconds.
+	 */
+	private static final class LatencyHistogram {
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MICROS.length + 1);
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalMicros = new AtomicLong();
+		private final AtomicLong maxMicros = new AtomicLong();
+
+		void record(final long micros) {
+			int bucket = 0;
+
+			while (bucket < BUCKET_BOUNDS_MICROS.length && micros > BUCKET_BOUNDS_MICROS[bucket]) {
+				bucket++;
+			}
+
+			buckets.incrementAndGet(bucket);
+			count.incrementAndGet();
+			totalMicros.addAndGet(micros);
+
+			long max = maxMicros.get();
+
+			while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+				max = maxMicros.get();
+			}
+		}
+
+		Map<String, Object> snapshot() {
+			final Map<String, Object> bucketValues = new HashMap<>();
+
+			for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+				bucketValues.put(String.valueOf(BUCKET_BOUNDS_MICROS[i]), buckets.get(i));
+			}
+
+			bucketValues.put(OVERFLOW_BUCKET, buckets.get(BUCKET_BOUNDS_MICROS.length));
+
+			final Map<String, Object> histogram = new HashMap<>();
+			histogram.put(COUNT, count.get());
+			histogram.put(TOTAL_MICROS, totalMicros.get());
+			histogram.put(MAX_MICROS, maxMicros.get());
+			histogram.put(BUCKETS, bucketValues);
+			return histogram;
+		}
+
+		void reset() {
+			for (int i = 0; i < buckets.length(); i++) {
+				buckets.set(i, 0);
+			}
+
+			count.set(0);
+			totalMicros.set(0);
+			maxMicros.set(0);
+		}
+	}
+}
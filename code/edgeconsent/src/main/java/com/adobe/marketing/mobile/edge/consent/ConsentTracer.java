@@ -0,0 +1,59 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Tracing hooks called by the Consent extension around its hot paths, to attribute the time spent
+ * processing consents.
+ *
+ * <p>Set an implementation with {@link Consent#setTracer(ConsentTracer)}. Spans are begun and
+ * ended on the thread processing the consents and are properly nested; the span names are the
+ * constants defined in this interface. Implementations should return quickly and must not call
+ * the Consent APIs.
+ *
+ * @see RingBufferConsentTracer
+ */
+public interface ConsentTracer {
+	/** Loading the persisted consents in {@code ConsentManager}. */
+	String SPAN_LOAD = "ConsentManager.load";
+
+	/** Merging a consents update with the current consents in {@code ConsentManager}. */
+	String SPAN_MERGE = "ConsentManager.merge";
+
+	/** Serializing and persisting consents in {@code ConsentManager}. */
+	String SPAN_PERSIST = "ConsentManager.persist";
+
+	/** Converting consents to their XDM format in {@code Consents.asXDMMap}. */
+	String SPAN_AS_XDM_MAP = "Consents.asXDMMap";
+
+	/** Creating the XDM shared state in {@code ConsentExtension}. */
+	String SPAN_CREATE_SHARED_STATE = "ConsentExtension.createSharedState";
+
+	/** Dispatching a consent event in {@code ConsentExtension}. */
+	String SPAN_DISPATCH = "ConsentExtension.dispatch";
+
+	/**
+	 * Called when the span with the given name begins.
+	 *
+	 * @param name the span name, one of the constants of {@link ConsentTracer}
+	 */
+	void beginSpan(@NonNull String name);
+
+	/**
+	 * Called when the span with the given name, the last one begun and not ended, ends.
+	 *
+	 * @param name the span name, one of the constants of {@link ConsentTracer}
+	 */
+	void endSpan(@NonNull String name);
+}
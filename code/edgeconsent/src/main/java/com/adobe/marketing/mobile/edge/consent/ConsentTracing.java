@@ -0,0 +1,60 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+/**
+ * Holds the {@link ConsentTracer} set through {@link Consent#setTracer(ConsentTracer)}.
+ *
+ * <p>Tracing is disabled by default, in which case {@link #begin(String)} and {@link #end(String)}
+ * only read a field and do not allocate.
+ */
+final class ConsentTracing {
+
+	private static volatile ConsentTracer tracer;
+
+	private ConsentTracing() {}
+
+	/**
+	 * Sets the tracer called around the consent hot paths.
+	 *
+	 * @param consentTracer the {@link ConsentTracer} to use, or null to disable tracing
+	 */
+	static void setTracer(final ConsentTracer consentTracer) {
+		tracer = consentTracer;
+	}
+
+	/**
+	 * Begins the span with the given name, if tracing is enabled.
+	 *
+	 * @param name the span name, one of the constants of {@link ConsentTracer}
+	 */
+	static void begin(final String name) {
+		final ConsentTracer currentTracer = tracer;
+
+		if (currentTracer != null) {
+			currentTracer.beginSpan(name);
+		}
+	}
+
+	/**
+	 * Ends the span with the given name, if tracing is enabled.
+	 *
+	 * @param name the span name, one of the constants of {@link ConsentTracer}
+	 */
+	static void end(final String name) {
+		final ConsentTracer currentTracer = tracer;
+
+		if (currentTracer != null) {
+			currentTracer.endSpan(name);
+		}
+	}
+}
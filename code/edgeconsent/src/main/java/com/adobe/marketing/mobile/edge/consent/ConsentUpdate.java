@@ -0,0 +1,298 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A typed consents update, applied with {@link Consent#update(ConsentUpdate)}.
+ *
+ * <p>The update is built and validated by its {@link Builder}, so the Consent extension ingests it
+ * without validating or copying it again. The events dispatched for validated updates are tracked
+ * by their unique identifier, outside of the event data, so event data from other sources is
+ * always validated.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * Consent.update(new ConsentUpdate.Builder().setCollect("y").setMarketing("email", "n").build());
+ * }</pre>
+ */
+public final class ConsentUpdate {
+
+	private static final String LOG_SOURCE = "ConsentUpdate";
+	private static final String VALUE = "val";
+	private static final String ADID = "adID";
+	private static final String COLLECT = "collect";
+	private static final String SHARE = "share";
+	private static final String PERSONALIZE = "personalize";
+	private static final String CONTENT = "content";
+	private static final String MARKETING = "marketing";
+
+	// unique identifiers of the dispatched events of validated updates, not yet handled by the extension
+	private static final int MAX_VALIDATED_EVENTS = 100;
+	private static final Map<String, Boolean> validatedEvents = new LinkedHashMap<String, Boolean>() {
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_VALIDATED_EVENTS;
+		}
+	};
+
+	private final Map<String, Object> eventData;
+
+	private ConsentUpdate(final Map<String, Object> consents, final Object expiry) {
+		final Map<String, Object> data = new HashMap<>(2);
+		data.put(ConsentConstants.EventDataKey.CONSENTS, Collections.unmodifiableMap(consents));
+
+		if (expiry != null) {
+			data.put(ConsentConstants.EventDataKey.EXPIRY, expiry);
+		}
+
+		this.eventData = Collections.unmodifiableMap(data);
+	}
+
+	/**
+	 * @return true if the update does not hold any consent
+	 */
+	public boolean isEmpty() {
+		return ((Map<?, ?>) eventData.get(ConsentConstants.EventDataKey.CONSENTS)).isEmpty();
+	}
+
+	/**
+	 * @return the update in XDM format, as the data of a consent update event
+	 */
+	@NonNull Map<String, Object> toEventData() {
+		return eventData;
+	}
+
+	/**
+	 * Records that the event with the given unique identifier was dispatched with the data of a
+	 * validated update.
+	 *
+	 * @param eventId the unique identifier of the consent update event
+	 */
+	static void markValidatedEvent(final String eventId) {
+		synchronized (validatedEvents) {
+			validatedEvents.put(eventId, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Checks if the event with the given unique identifier was dispatched with the data of a
+	 * validated update, and forgets it.
+	 *
+	 * @param eventId the unique identifier of the consent update event
+	 * @return true if the event data was built by a {@link Builder} and does not need to be
+	 *     validated again
+	 */
+	static boolean consumeValidatedEvent(final String eventId) {
+		synchronized (validatedEvents) {
+			return eventId != null && validatedEvents.remove(eventId) != null;
+		}
+	}
+
+	/**
+	 * Builder of {@link ConsentUpdate}. Values which are null or empty are ignored.
+	 */
+	public static final class Builder {
+
+		private final Map<String, Object> consents = new HashMap<>();
+		private final Map<String, Object> expiries = new HashMap<>();
+		private Long expiry;
+		private boolean isBuilt = false;
+
+		/**
+		 * Sets the collect consent, {@code "y"} or {@code "n"}.
+		 *
+		 * @param value the consent value
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setCollect(@NonNull final String value) {
+			return setConsent(COLLECT, value);
+		}
+
+		/**
+		 * Sets the advertiser identifier consent, {@code "y"} or {@code "n"}.
+		 *
+		 * @param value the consent value
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setAdId(@NonNull final String value) {
+			return setConsent(ADID, value);
+		}
+
+		/**
+		 * Sets the share consent, {@code "y"} or {@code "n"}.
+		 *
+		 * @param value the consent value
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setShare(@NonNull final String value) {
+			return setConsent(SHARE, value);
+		}
+
+		/**
+		 * Sets the content personalization consent, for example {@code "y"}, {@code "n"} or
+		 * {@code "vi"}.
+		 *
+		 * @param value the consent value
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setPersonalize(@NonNull final String value) {
+			return setNestedConsent(PERSONALIZE, CONTENT, value);
+		}
+
+		/**
+		 * Sets the marketing consent of a channel.
+		 *
+		 * @param channel the marketing channel, for example {@code "email"}, {@code "push"} or
+		 *     {@code "any"}
+		 * @param value the consent value
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setMarketing(@NonNull final String channel, @NonNull final String value) {
+			return setNestedConsent(MARKETING, channel, value);
+		}
+
+		/**
+		 * Sets a consent by key, as {@code {"<key>": {"val": "<value>"}}}.
+		 *
+		 * @param key the consent key, for example {@code "collect"}; {@code "metadata"} is
+		 *     reserved and ignored
+		 * @param value the consent value
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setConsent(@NonNull final String key, @NonNull final String value) {
+			if (isValid(key, value) && canModify()) {
+				consents.put(key, Collections.singletonMap(VALUE, value));
+			}
+
+			return this;
+		}
+
+		/**
+		 * Sets when all the consents of this update expire, in milliseconds since epoch. An expiry
+		 * of 0 removes the current expiry of the consents.
+		 *
+		 * @param expiryMillis the expiry of the consents
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setExpiry(final long expiryMillis) {
+			if (canModify()) {
+				expiry = Math.max(expiryMillis, 0L);
+			}
+
+			return this;
+		}
+
+		/**
+		 * Sets when a top level consent of this update expires, in milliseconds since epoch, taking
+		 * precedence over {@link #setExpiry(long)}. An expiry of 0 removes the current expiry of
+		 * the consent.
+		 *
+		 * @param key the top level consent key, for example {@code "collect"} or {@code
+		 *     "marketing"}
+		 * @param expiryMillis the expiry of the consent
+		 * @return this {@link Builder}
+		 */
+		@NonNull public Builder setExpiry(@NonNull final String key, final long expiryMillis) {
+			if (key == null || key.isEmpty() || ConsentConstants.EventDataKey.METADATA.equals(key)) {
+				Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring expiry of invalid consent key '%s'.", key);
+				return this;
+			}
+
+			if (canModify()) {
+				expiries.put(key, Math.max(expiryMillis, 0L));
+			}
+
+			return this;
+		}
+
+		/**
+		 * Builds the {@link ConsentUpdate}. Changes made to the builder after this call are
+		 * ignored.
+		 *
+		 * @return the {@link ConsentUpdate}
+		 */
+		@NonNull public ConsentUpdate build() {
+			isBuilt = true;
+			return new ConsentUpdate(consents, buildExpiry());
+		}
+
+		private Object buildExpiry() {
+			if (expiries.isEmpty()) {
+				return expiry;
+			}
+
+			final Map<String, Object> keyExpiries = new HashMap<>();
+
+			for (final String key : consents.keySet()) {
+				final Object keyExpiry = expiries.get(key);
+
+				if (keyExpiry != null) {
+					keyExpiries.put(key, keyExpiry);
+				} else if (expiry != null) {
+					keyExpiries.put(key, expiry);
+				}
+			}
+
+			return keyExpiries.isEmpty() ? null : Collections.unmodifiableMap(keyExpiries);
+		}
+
+		@SuppressWarnings("unchecked")
+		private Builder setNestedConsent(final String key, final String subKey, final String value) {
+			if (isValid(key, value) && isValid(subKey, value) && canModify()) {
+				final Object existing = consents.get(key);
+				final Map<String, Object> nested = existing instanceof HashMap
+					? (Map<String, Object>) existing
+					: new HashMap<String, Object>();
+				nested.put(subKey, Collections.singletonMap(VALUE, value));
+				consents.put(key, nested);
+			}
+
+			return this;
+		}
+
+		private static boolean isValid(final String key, final String value) {
+			if (key == null || key.isEmpty() || ConsentConstants.EventDataKey.METADATA.equals(key)) {
+				Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring consent with invalid key '%s'.", key);
+				return false;
+			}
+
+			if (value == null || value.isEmpty()) {
+				Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring consent '%s' with null or empty value.", key);
+				return false;
+			}
+
+			return true;
+		}
+
+		private boolean canModify() {
+			if (isBuilt) {
+				Log.warning(
+					LOG_TAG,
+					LOG_SOURCE,
+					"ConsentUpdate.Builder cannot be modified after build() was called, ignoring the change."
+				);
+				return false;
+			}
+
+			return true;
+		}
+	}
+}
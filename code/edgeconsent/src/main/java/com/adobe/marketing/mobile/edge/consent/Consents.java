@@ -14,19 +14,27 @@ package com.adobe.marketing.mobile.edge.consent;
 import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.MapUtils;
 import com.adobe.marketing.mobile.util.TimeUtils;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import org.json.JSONException;
 
 final class Consents {
 
 	private Map<String, Object> consentsMap = new HashMap<>();
 
+	// expiry time of the top level consent keys in milliseconds since epoch, null if none expire
+	private Map<String, Long> expiries;
+
 	// Suppresses default constructor.
 	private Consents() {}
 
 	/**
-	 * Copy Constructor.
+	 * Copy Constructor. The consents and their expiries are copied.
 	 *
 	 * @param newConsents the consents values
 	 */
@@ -36,11 +44,19 @@ final class Consents {
 		}
 
 		this.consentsMap = Utils.optDeepCopy(newConsents.consentsMap, new HashMap<>());
+
+		if (newConsents.expiries != null) {
+			this.expiries = new HashMap<>(newConsents.expiries);
+		}
 	}
 
 	/**
 	 * Constructor.
 	 *
+	 * <p>The optional {@code expiry} of {@code xdmMap} sets when the consents expire, in
+	 * milliseconds since epoch: either a number for all the consents, or a map of the top level
+	 * consent keys to their expiry. An expiry which is not positive clears the expiry of the key.
+	 *
 	 * @param xdmMap a {@link Map} in consents XDMFormat
 	 */
 	Consents(final Map<String, Object> xdmMap) {
@@ -56,6 +72,45 @@ final class Consents {
 		);
 
 		consentsMap = Utils.optDeepCopy(allConsents, new HashMap<>());
+		readExpiries(xdmMap.get(ConsentConstants.EventDataKey.EXPIRY));
+	}
+
+	/**
+	 * Creates the {@link Consents} of a consent update event built by {@link ConsentUpdate}.
+	 *
+	 * <p>The consents were validated by {@link ConsentUpdate.Builder} and the event data is an
+	 * immutable copy, so only the top level map is copied, without reading or deep copying the
+	 * nested consents. Nested maps are shared read-only and must not be modified.
+	 *
+	 * @param eventData the data of a consent update event, for which {@link
+	 *     ConsentUpdate#consumeValidatedEvent(String)} returned true
+	 * @return new {@link Consents} holding the consents of {@code eventData}
+	 */
+	@SuppressWarnings("unchecked")
+	static Consents fromValidatedEventData(final Map<String, Object> eventData) {
+		final Consents consents = new Consents();
+		final Object allConsents = eventData != null ? eventData.get(ConsentConstants.EventDataKey.CONSENTS) : null;
+
+		if (allConsents instanceof Map) {
+			consents.consentsMap = new HashMap<>((Map<String, Object>) allConsents);
+			consents.readExpiries(eventData.get(ConsentConstants.EventDataKey.EXPIRY));
+		}
+
+		return consents;
+	}
+
+	/**
+	 * Creates the {@link Consents} holding the provided consents map, without copying it. Used for
+	 * the merged consents built by {@link LayeredConsents}, whose nested maps are shared read-only
+	 * with the layers.
+	 *
+	 * @param consentsMap the consents, without the XDM {@code consents} wrapper
+	 * @return new {@link Consents} holding {@code consentsMap}, without expiries
+	 */
+	static Consents fromConsentsMap(final Map<String, Object> consentsMap) {
+		final Consents consents = new Consents();
+		consents.consentsMap = consentsMap;
+		return consents;
 	}
 
 	/**
@@ -101,14 +156,15 @@ final class Consents {
 			null
 		);
 
-		if (MapUtils.isNullOrEmpty(metaDataContents)) {
-			metaDataContents = new HashMap<>();
-		}
-
+		// the metadata map may be shared read-only, so it is copied before being updated, and the
+		// consents map is replaced so the views created with asUnmodifiableMap() are not affected
+		metaDataContents =
+			MapUtils.isNullOrEmpty(metaDataContents) ? new HashMap<>() : new HashMap<>(metaDataContents);
 		metaDataContents.put(
 			ConsentConstants.EventDataKey.TIME,
 			TimeUtils.getISO8601UTCDateWithMilliseconds(new Date(timeStamp))
 		);
+		consentsMap = new HashMap<>(consentsMap);
 		consentsMap.put(ConsentConstants.EventDataKey.METADATA, metaDataContents);
 	}
 
@@ -147,13 +203,13 @@ final class Consents {
 	/**
 	 * Recursively merges two maps, handling nested maps properly.
 	 * If both maps contain the same key and both values are maps, they are merged recursively.
-	 * Otherwise, the value from the new map overwrites the existing value.
+	 * Otherwise, the value from the new map overwrites the existing value. Neither map is modified.
 	 *
 	 * @param existingMap the existing map to merge into
 	 * @param newMap the new map to merge from
 	 * @return the merged map
 	 */
-	private Map<String, Object> deepMergeMaps(final Map<String, Object> existingMap, final Map<String, Object> newMap) {
+	static Map<String, Object> deepMergeMaps(final Map<String, Object> existingMap, final Map<String, Object> newMap) {
 		if (existingMap == null) {
 			return newMap;
 		}
@@ -184,22 +240,351 @@ final class Consents {
 		return result;
 	}
 
+	/**
+	 * Computes the consents of this object which differ from the provided baseline consents.
+	 *
+	 * <p>Consents are compared per top level consent key, ignoring metadata. A key is included with
+	 * its complete value if any of its nested values differ from the baseline. The metadata of this
+	 * object is included when at least one consent differs.
+	 *
+	 * @param baseline the consents to compare against, can be null
+	 * @return a new {@link Consents} with the differing consents, empty if there are none
+	 */
+	Consents delta(final Consents baseline) {
+		final Consents delta = new Consents();
+
+		if (isEmpty()) {
+			return delta;
+		}
+
+		final Map<String, Object> baselineMap = baseline != null ? baseline.consentsMap : null;
+
+		for (final Map.Entry<String, Object> entry : consentsMap.entrySet()) {
+			if (ConsentConstants.EventDataKey.METADATA.equals(entry.getKey())) {
+				continue;
+			}
+
+			final Object baselineValue = baselineMap != null ? baselineMap.get(entry.getKey()) : null;
+
+			if (entry.getValue() == null ? baselineValue != null : !entry.getValue().equals(baselineValue)) {
+				delta.consentsMap.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		if (!delta.consentsMap.isEmpty() && consentsMap.containsKey(ConsentConstants.EventDataKey.METADATA)) {
+			delta.consentsMap.put(
+				ConsentConstants.EventDataKey.METADATA,
+				consentsMap.get(ConsentConstants.EventDataKey.METADATA)
+			);
+		}
+
+		return new Consents(delta);
+	}
+
 	/**
 	 * XDMMap representation of the available consents associated with this {@link Consents} object.
 	 *
-	 * <p>Will make a deep copy of the available consents map before sharing. An empty XDMFormatted
+	 * <p>Will make a deep copy of the available consents map, only use it when a mutable map is
+	 * needed; use {@link #asUnmodifiableXDMMap()} to share the consents. An empty XDMFormatted
 	 * consent Map is returned if there are no consents present in this object.
 	 *
 	 * @return {@link Map} representing the Consents in XDM format
 	 */
 	Map<String, Object> asXDMMap() {
+		ConsentTracing.begin(ConsentTracer.SPAN_AS_XDM_MAP);
 		Map<String, Object> internalConsentMap = Utils.optDeepCopy(consentsMap, new HashMap<>());
 		final Map<String, Object> xdmFormattedMap = new HashMap<>();
 
 		xdmFormattedMap.put(ConsentConstants.EventDataKey.CONSENTS, internalConsentMap);
+		ConsentTracing.end(ConsentTracer.SPAN_AS_XDM_MAP);
 		return xdmFormattedMap;
 	}
 
+	/**
+	 * XDMMap representation of the available consents associated with this {@link Consents}
+	 * object, along with their expiries if any, as the data of a consent update event.
+	 *
+	 * <p>Will make a deep copy of the available consents map, see {@link #asXDMMap()}.
+	 *
+	 * @return {@link Map} representing the Consents in XDM format, with their expiries under the
+	 *     {@code expiry} key: {"consents": {...}, "expiry": {"collect": 1767225600000}}
+	 */
+	Map<String, Object> asUpdateEventData() {
+		final Map<String, Object> eventData = asXDMMap();
+
+		if (hasExpiries()) {
+			eventData.put(ConsentConstants.EventDataKey.EXPIRY, new HashMap<String, Object>(expiries));
+		}
+
+		return eventData;
+	}
+
+	/**
+	 * Unmodifiable XDMMap representation of the available consents associated with this {@link
+	 * Consents} object.
+	 *
+	 * <p>Unlike {@link #asXDMMap()}, the consents are not copied: the returned map is a read-only
+	 * view that reflects later changes to this object. Only the top level maps are read-only, the
+	 * nested consents are shared and must not be modified. Use it internally to pass consents to
+	 * APIs which copy them, such as {@code Event.Builder#setEventData}, never to hand them to
+	 * public callers.
+	 *
+	 * @return unmodifiable {@link Map} representing the Consents in XDM format
+	 */
+	Map<String, Object> asUnmodifiableXDMMap() {
+		return Collections.<String, Object>singletonMap(ConsentConstants.EventDataKey.CONSENTS, asUnmodifiableMap());
+	}
+
+	/**
+	 * Unmodifiable view of the consents associated with this {@link Consents} object, without the
+	 * XDM {@code consents} wrapper.
+	 *
+	 * @return unmodifiable {@link Map} of the consents, not copied
+	 * @see #asUnmodifiableXDMMap()
+	 */
+	Map<String, Object> asUnmodifiableMap() {
+		return Collections.unmodifiableMap(consentsMap);
+	}
+
+	/**
+	 * JSON representation of the consents in XDM format, as persisted. The consents are written
+	 * directly, without copying them first.
+	 *
+	 * @return JSON string of the consents in XDM format: {"consents": {...}}, along with their
+	 *     expiries if any: {"consents": {...}, "expiry": {"collect": 1767225600000}}
+	 * @see ConsentsJson#write(Map)
+	 */
+	String toJson() {
+		if (expiries == null || expiries.isEmpty()) {
+			return ConsentsJson.write(
+				Collections.<String, Object>singletonMap(ConsentConstants.EventDataKey.CONSENTS, consentsMap)
+			);
+		}
+
+		final Map<String, Object> persistedMap = new HashMap<>(2);
+		persistedMap.put(ConsentConstants.EventDataKey.CONSENTS, consentsMap);
+		persistedMap.put(ConsentConstants.EventDataKey.EXPIRY, expiries);
+		return ConsentsJson.write(persistedMap);
+	}
+
+	/**
+	 * Reads consents from their JSON representation in XDM format. The parsed consents are used
+	 * as is, without copying them.
+	 *
+	 * @param json JSON string of consents in XDM format, as returned by {@link #toJson()}
+	 * @return the parsed {@link Consents}, empty if {@code json} has no consents
+	 * @throws JSONException if {@code json} is not a valid JSON object
+	 */
+	@SuppressWarnings("unchecked")
+	static Consents fromJson(final String json) throws JSONException {
+		final Map<String, Object> persistedMap = ConsentsJson.read(json);
+		final Object consentsMap = persistedMap.get(ConsentConstants.EventDataKey.CONSENTS);
+		final Consents consents = new Consents();
+
+		if (consentsMap instanceof Map) {
+			consents.consentsMap = (Map<String, Object>) consentsMap;
+			consents.readExpiries(persistedMap.get(ConsentConstants.EventDataKey.EXPIRY));
+		}
+
+		return consents;
+	}
+
+	/**
+	 * Applies the expiries of the provided consents to the keys they set. Keys without an expiry
+	 * in {@code newConsents} keep their current expiry, so the same consents echoed back by Edge do
+	 * not clear it.
+	 *
+	 * @param newConsents the consents merged with {@link #merge(Consents)}
+	 */
+	void mergeExpiries(final Consents newConsents) {
+		if (newConsents == null || newConsents.expiries == null) {
+			return;
+		}
+
+		final Map<String, Long> mergedExpiries = expiries != null
+			? new HashMap<>(expiries)
+			: new HashMap<String, Long>();
+
+		for (final Map.Entry<String, Long> entry : newConsents.expiries.entrySet()) {
+			if (entry.getValue() > 0 && consentsMap.containsKey(entry.getKey())) {
+				mergedExpiries.put(entry.getKey(), entry.getValue());
+			} else {
+				mergedExpiries.remove(entry.getKey());
+			}
+		}
+
+		expiries = mergedExpiries.isEmpty() ? null : mergedExpiries;
+	}
+
+	/**
+	 * Overrides the expiries of this object with the expiries of the provided consents, including
+	 * the expiries which clear the expiry of a key. Used to combine consent updates before they are
+	 * merged, so the last expiry set for each key applies, as if the updates were merged in turn.
+	 *
+	 * @param newConsents the consents combined with {@link #merge(Consents)}
+	 */
+	void overrideExpiries(final Consents newConsents) {
+		if (newConsents == null || newConsents.expiries == null) {
+			return;
+		}
+
+		final Map<String, Long> combinedExpiries = expiries != null
+			? new HashMap<>(expiries)
+			: new HashMap<String, Long>();
+		combinedExpiries.putAll(newConsents.expiries);
+		expiries = combinedExpiries;
+	}
+
+	/**
+	 * @return true if any consent key has an expiry, or an expiry clearing the expiry of the key
+	 */
+	boolean hasExpiries() {
+		return expiries != null && !expiries.isEmpty();
+	}
+
+	/**
+	 * @return the earliest expiry of the consents in milliseconds since epoch, 0 if none expire
+	 */
+	long getNextExpiry() {
+		long nextExpiry = 0;
+
+		if (expiries != null) {
+			for (final long expiry : expiries.values()) {
+				nextExpiry = nextExpiry == 0 ? expiry : Math.min(nextExpiry, expiry);
+			}
+		}
+
+		return nextExpiry;
+	}
+
+	/**
+	 * Removes the consents which expired at the provided time, along with their expiry.
+	 *
+	 * <p>The consents map is replaced rather than modified, so the views already created with
+	 * {@link #asUnmodifiableMap()} are not affected.
+	 *
+	 * @param timestamp the current time in milliseconds since epoch
+	 * @return the top level keys of the removed consents, empty if none expired
+	 */
+	Set<String> removeExpired(final long timestamp) {
+		final long nextExpiry = getNextExpiry();
+
+		if (nextExpiry == 0 || nextExpiry > timestamp) {
+			return Collections.emptySet();
+		}
+
+		final Set<String> expiredKeys = new HashSet<>();
+
+		for (final Map.Entry<String, Long> entry : expiries.entrySet()) {
+			if (entry.getValue() <= timestamp) {
+				expiredKeys.add(entry.getKey());
+			}
+		}
+
+		remove(expiredKeys);
+		return expiredKeys;
+	}
+
+	/**
+	 * Removes the provided top level consent keys, along with their expiry.
+	 *
+	 * <p>The consents map is replaced rather than modified, so the views already created with
+	 * {@link #asUnmodifiableMap()} are not affected.
+	 *
+	 * @param keys the top level keys of the consents to remove
+	 */
+	void remove(final Collection<String> keys) {
+		final Map<String, Object> remainingConsents = new HashMap<>(consentsMap);
+		remainingConsents.keySet().removeAll(keys);
+		consentsMap = remainingConsents;
+
+		if (expiries != null) {
+			final Map<String, Long> remainingExpiries = new HashMap<>(expiries);
+			remainingExpiries.keySet().removeAll(keys);
+			expiries = remainingExpiries.isEmpty() ? null : remainingExpiries;
+		}
+	}
+
+	/**
+	 * Reads the expiries of the consents, see {@link #Consents(Map)}.
+	 *
+	 * @param expiry a number applying to all the consents, or a map of the top level consent keys
+	 *     to their expiry; ignored if it is neither
+	 */
+	private void readExpiries(final Object expiry) {
+		if (expiry instanceof Number) {
+			for (final String key : consentsMap.keySet()) {
+				if (!ConsentConstants.EventDataKey.METADATA.equals(key)) {
+					putExpiry(key, expiry);
+				}
+			}
+		} else if (expiry instanceof Map) {
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) expiry).entrySet()) {
+				if (consentsMap.containsKey(entry.getKey())) {
+					putExpiry((String) entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
+	private void putExpiry(final String key, final Object expiry) {
+		if (!(expiry instanceof Number) || ConsentConstants.EventDataKey.METADATA.equals(key)) {
+			return;
+		}
+
+		if (expiries == null) {
+			expiries = new HashMap<>();
+		}
+
+		// expiries which are not positive are kept to clear the expiry of the key when merged
+		expiries.put(key, Math.max(((Number) expiry).longValue(), 0));
+	}
+
+	/**
+	 * Computes a stable fingerprint of the consents associated with this {@link Consents} object.
+	 *
+	 * @return fingerprint of the consents, never null for a valid consents object
+	 * @see Utils#fingerprint(Map)
+	 */
+	String fingerprint() {
+		return Utils.fingerprint(consentsMap != null ? consentsMap : new HashMap<String, Object>());
+	}
+
+	/**
+	 * Computes a stable fingerprint of the consents associated with this {@link Consents} object,
+	 * ignoring the timestamp field in metadata.
+	 *
+	 * @return fingerprint of the consents without their timestamp
+	 * @see #fingerprint()
+	 */
+	String fingerprintIgnoreTimestamp() {
+		if (consentsMap == null) {
+			return fingerprint();
+		}
+
+		// shallow copy, only the metadata is replaced by a copy without timestamp
+		final Map<String, Object> consentsWithoutTimestamp = new HashMap<>(consentsMap);
+		final Map<String, Object> metadata = DataReader.optTypedMap(
+			Object.class,
+			consentsMap,
+			ConsentConstants.EventDataKey.METADATA,
+			null
+		);
+
+		if (metadata != null && metadata.containsKey(ConsentConstants.EventDataKey.TIME)) {
+			final Map<String, Object> metadataWithoutTimestamp = new HashMap<>(metadata);
+			metadataWithoutTimestamp.remove(ConsentConstants.EventDataKey.TIME);
+
+			if (metadataWithoutTimestamp.isEmpty()) {
+				consentsWithoutTimestamp.remove(ConsentConstants.EventDataKey.METADATA);
+			} else {
+				consentsWithoutTimestamp.put(ConsentConstants.EventDataKey.METADATA, metadataWithoutTimestamp);
+			}
+		}
+
+		return Utils.fingerprint(consentsWithoutTimestamp);
+	}
+
 	/**
 	 * Compares the current consent instance the with the passed object
 	 *
@@ -0,0 +1,120 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import android.util.Base64;
+import com.adobe.marketing.mobile.services.Log;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression of persisted consents, encoded in Base64 so it can be persisted as a string.
+ *
+ * <p>Compression uses a preset dictionary of the keys and values of the consents XDM format, so
+ * even the first occurrences of the consent keys are back-references. The dictionary is part of
+ * the persisted format: changing it requires a new {@link PersistenceEnvelope} header.
+ */
+final class ConsentsCompression {
+
+	private static final String LOG_SOURCE = "ConsentsCompression";
+
+	// least frequent strings first, deflate encodes the most recent ones with the shortest distances
+	private static final byte[] DICTIONARY = (
+		"{\"consents\":{\"idSpecific\":{},\"share\":{\"val\":\"n\"},\"marketing\":{\"preferred\":\"email\"," +
+		"\"any\":{\"val\":\"y\"},\"call\":{\"val\":\"n\"},\"commercialEmail\":{\"val\":\"n\"},\"email\":" +
+		"{\"val\":\"y\"},\"fax\":{\"val\":\"n\"},\"letter\":{\"val\":\"n\"},\"postalMail\":{\"val\":\"n\"}," +
+		"\"push\":{\"val\":\"y\"},\"sms\":{\"val\":\"n\"}},\"metadata\":{\"time\":\"2023-09-23T18:15:45.000Z\"}," +
+		"\"personalize\":{\"content\":{\"val\":\"y\"}},\"adID\":{\"val\":\"n\"},\"collect\":{\"val\":\"y\"}"
+	).getBytes(StandardCharsets.UTF_8);
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private ConsentsCompression() {}
+
+	/**
+	 * Compresses the provided payload.
+	 *
+	 * @param payload the payload to compress
+	 * @return the Base64 encoded compressed payload
+	 */
+	static String deflate(final String payload) {
+		final byte[] input = payload.getBytes(StandardCharsets.UTF_8);
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+		try {
+			deflater.setDictionary(DICTIONARY);
+			deflater.setInput(input);
+			deflater.finish();
+
+			final ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4 + 16);
+			final byte[] buffer = new byte[BUFFER_SIZE];
+
+			while (!deflater.finished()) {
+				output.write(buffer, 0, deflater.deflate(buffer));
+			}
+
+			return Base64.encodeToString(output.toByteArray(), Base64.NO_WRAP);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Decompresses a payload compressed with {@link #deflate(String)}.
+	 *
+	 * @param compressed the Base64 encoded compressed payload
+	 * @return the payload, or null if {@code compressed} is not a valid compressed payload
+	 */
+	static String inflate(final String compressed) {
+		final byte[] input;
+
+		try {
+			input = Base64.decode(compressed, Base64.NO_WRAP);
+		} catch (final IllegalArgumentException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to decode the compressed consents: %s", e.getLocalizedMessage());
+			return null;
+		}
+
+		final Inflater inflater = new Inflater();
+
+		try {
+			inflater.setInput(input);
+			final ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 4);
+			final byte[] buffer = new byte[BUFFER_SIZE];
+
+			while (!inflater.finished()) {
+				final int count = inflater.inflate(buffer);
+
+				if (count == 0 && inflater.needsDictionary()) {
+					inflater.setDictionary(DICTIONARY);
+				} else if (count == 0 && !inflater.finished()) {
+					Log.debug(LOG_TAG, LOG_SOURCE, "Unable to inflate the truncated compressed consents.");
+					return null;
+				}
+
+				output.write(buffer, 0, count);
+			}
+
+			return new String(output.toByteArray(), StandardCharsets.UTF_8);
+		} catch (final DataFormatException | IllegalArgumentException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to inflate the compressed consents: %s", e.getLocalizedMessage());
+			return null;
+		} finally {
+			inflater.end();
+		}
+	}
+}
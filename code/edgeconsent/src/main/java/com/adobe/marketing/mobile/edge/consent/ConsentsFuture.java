@@ -0,0 +1,283 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.adobe.marketing.mobile.AdobeCallback;
+import com.adobe.marketing.mobile.AdobeCallbackWithError;
+import com.adobe.marketing.mobile.AdobeError;
+import com.adobe.marketing.mobile.Event;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link Future} of the current consents, returned by {@link Consent#getConsentsAsync(long)}.
+ *
+ * <p>The result is the consents map, which the caller may modify; it is only copied when modified.
+ * Use {@link #whenComplete(AdobeCallback)} to be called back instead of blocking a thread on {@link
+ * #get()}.
+ *
+ * <p>When the future completes or is cancelled, it is released by the response listener of the
+ * request, so the future and its callbacks are not held until the request times out.
+ */
+public final class ConsentsFuture implements Future<Map<String, Object>> {
+
+	private static final int PENDING = 0;
+	private static final int COMPLETED = 1;
+	private static final int FAILED = 2;
+	private static final int CANCELLED = 3;
+
+	private final CountDownLatch done = new CountDownLatch(1);
+	private final ResponseCallback responseCallback = new ResponseCallback(this);
+
+	// guarded by this
+	private int state = PENDING;
+	private Map<String, Object> result;
+	private AdobeError error;
+	private List<AdobeCallback<Map<String, Object>>> callbacks = new ArrayList<>(1);
+
+	ConsentsFuture() {}
+
+	/**
+	 * Calls the callback with the consents once they are retrieved, immediately if they already
+	 * are. If an {@link AdobeCallbackWithError} is provided, an {@link AdobeError} is returned when
+	 * an unexpected error occurs or the request timed out. The callback is not called if the future
+	 * is cancelled.
+	 *
+	 * @param callback the {@link AdobeCallback} to call with a copy of the consents
+	 * @return this {@link ConsentsFuture}
+	 */
+	@NonNull public ConsentsFuture whenComplete(@NonNull final AdobeCallback<Map<String, Object>> callback) {
+		if (callback == null) {
+			return this;
+		}
+
+		synchronized (this) {
+			if (state == PENDING) {
+				callbacks.add(callback);
+				return this;
+			}
+		}
+
+		notifyCallback(callback);
+		return this;
+	}
+
+	/**
+	 * Cancels the request. The future no longer waits for the response and its callbacks are
+	 * released without being called.
+	 *
+	 * @param mayInterruptIfRunning ignored, the request does not run on a thread of its own
+	 * @return true if the future was cancelled, false if it was already done
+	 */
+	@Override
+	public boolean cancel(final boolean mayInterruptIfRunning) {
+		synchronized (this) {
+			if (state != PENDING) {
+				return false;
+			}
+
+			state = CANCELLED;
+			callbacks = null;
+		}
+
+		responseCallback.release();
+		done.countDown();
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return state == CANCELLED;
+	}
+
+	@Override
+	public synchronized boolean isDone() {
+		return state != PENDING;
+	}
+
+	/**
+	 * Waits for the consents.
+	 *
+	 * @return a copy of the consents
+	 * @throws CancellationException if the future was cancelled
+	 * @throws ExecutionException if the consents could not be retrieved, see {@link #getError()}
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	@Override
+	public Map<String, Object> get() throws InterruptedException, ExecutionException {
+		done.await();
+		return report();
+	}
+
+	/**
+	 * Waits at most the given time for the consents. The request is not cancelled when the wait
+	 * times out.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the {@link TimeUnit} of {@code timeout}
+	 * @return a copy of the consents
+	 * @throws CancellationException if the future was cancelled
+	 * @throws ExecutionException if the consents could not be retrieved, see {@link #getError()}
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 * @throws TimeoutException if the wait timed out
+	 */
+	@Override
+	public Map<String, Object> get(final long timeout, @NonNull final TimeUnit unit)
+		throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException("Timed out waiting for the consents.");
+		}
+
+		return report();
+	}
+
+	/**
+	 * @return the {@link AdobeError} returned when the consents could not be retrieved, null if
+	 *     they were retrieved or the future is not done
+	 */
+	@Nullable public synchronized AdobeError getError() {
+		return error;
+	}
+
+	/**
+	 * @return the response listener to dispatch the get consents request event with
+	 */
+	AdobeCallbackWithError<Event> getResponseCallback() {
+		return responseCallback;
+	}
+
+	/**
+	 * Completes the future with the consents of the get consents response event.
+	 *
+	 * @param consents the consents, not null
+	 */
+	void complete(final Map<String, Object> consents) {
+		finish(COMPLETED, Collections.unmodifiableMap(consents), null);
+	}
+
+	/**
+	 * Completes the future with an error.
+	 *
+	 * @param adobeError the {@link AdobeError} returned to the callbacks
+	 */
+	void fail(final AdobeError adobeError) {
+		finish(FAILED, null, adobeError);
+	}
+
+	private void finish(final int newState, final Map<String, Object> consents, final AdobeError adobeError) {
+		final List<AdobeCallback<Map<String, Object>>> pendingCallbacks;
+
+		synchronized (this) {
+			if (state != PENDING) {
+				return;
+			}
+
+			state = newState;
+			result = consents;
+			error = adobeError;
+			pendingCallbacks = callbacks;
+			callbacks = null;
+		}
+
+		responseCallback.release();
+		done.countDown();
+
+		for (final AdobeCallback<Map<String, Object>> callback : pendingCallbacks) {
+			notifyCallback(callback);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void notifyCallback(final AdobeCallback<Map<String, Object>> callback) {
+		final int currentState;
+		final Map<String, Object> currentResult;
+		final AdobeError currentError;
+
+		synchronized (this) {
+			currentState = state;
+			currentResult = result;
+			currentError = error;
+		}
+
+		if (currentState == COMPLETED) {
+			callback.call(new CopyOnWriteMap(currentResult));
+		} else if (currentState == FAILED && callback instanceof AdobeCallbackWithError) {
+			((AdobeCallbackWithError<Map<String, Object>>) callback).fail(currentError);
+		}
+	}
+
+	private synchronized Map<String, Object> report() throws ExecutionException {
+		if (state == CANCELLED) {
+			throw new CancellationException("The consents request was cancelled.");
+		}
+
+		if (state == FAILED) {
+			throw new ExecutionException(
+				"Failed to retrieve the consents, error: " + (error != null ? error.getErrorName() : null),
+				null
+			);
+		}
+
+		return new CopyOnWriteMap(result);
+	}
+
+	/**
+	 * Response listener of the get consents request, which only holds the future until it is done.
+	 */
+	private static final class ResponseCallback implements AdobeCallbackWithError<Event> {
+
+		private volatile ConsentsFuture future;
+
+		ResponseCallback(final ConsentsFuture future) {
+			this.future = future;
+		}
+
+		@Override
+		public void call(final Event event) {
+			final ConsentsFuture currentFuture = future;
+
+			if (currentFuture == null) {
+				return;
+			}
+
+			if (event == null || event.getEventData() == null) {
+				currentFuture.fail(AdobeError.UNEXPECTED_ERROR);
+				return;
+			}
+
+			currentFuture.complete(event.getEventData());
+		}
+
+		@Override
+		public void fail(final AdobeError adobeError) {
+			final ConsentsFuture currentFuture = future;
+
+			if (currentFuture != null) {
+				currentFuture.fail(adobeError);
+			}
+		}
+
+		void release() {
+			future = null;
+		}
+	}
+}
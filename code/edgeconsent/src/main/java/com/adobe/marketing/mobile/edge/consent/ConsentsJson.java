@@ -0,0 +1,441 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+
+/**
+ * Streaming JSON reader and writer for the persisted consents.
+ *
+ * <p>Converts directly between JSON strings and the {@link Map} and {@link List} trees used by
+ * {@link Consents}, without building intermediate {@code JSONObject} trees. Values are read as
+ * {@link String}, {@link Boolean}, {@link Integer}, {@link Long}, {@link Double}, {@link Map},
+ * {@link List} or null, the same types returned by {@code JSONUtils.toMap}.
+ *
+ * <p>Map keys are written in sorted order, so equal trees are always persisted as the same string.
+ */
+final class ConsentsJson {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private ConsentsJson() {}
+
+	/**
+	 * Writes the provided {@link Map} as a JSON object.
+	 *
+	 * @param map the map to write
+	 * @return the JSON string, "null" if {@code map} is null
+	 */
+	static String write(final Map<String, Object> map) {
+		final StringBuilder builder = new StringBuilder();
+		writeValue(builder, map);
+		return builder.toString();
+	}
+
+	/**
+	 * Reads the provided JSON object.
+	 *
+	 * @param json the JSON string to read
+	 * @return a mutable {@link Map} with the contents of the JSON object
+	 * @throws JSONException if {@code json} is null or not a valid JSON object
+	 */
+	static Map<String, Object> read(final String json) throws JSONException {
+		if (json == null) {
+			throw new JSONException("Unable to read null JSON string");
+		}
+
+		final Parser parser = new Parser(json);
+		parser.skipWhitespace();
+
+		if (parser.peek() != '{') {
+			throw parser.error("Expected a JSON object");
+		}
+
+		final Map<String, Object> map = parser.readObject();
+		parser.skipWhitespace();
+
+		if (parser.position < json.length()) {
+			throw parser.error("Unexpected content after the JSON object");
+		}
+
+		return map;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void writeValue(final StringBuilder builder, final Object value) {
+		if (value == null) {
+			builder.append("null");
+		} else if (value instanceof String) {
+			writeString(builder, (String) value);
+		} else if (value instanceof Map) {
+			final Map<String, Object> map = (Map<String, Object>) value;
+			final String[] keys = map.keySet().toArray(new String[0]);
+			Arrays.sort(keys);
+			builder.append('{');
+
+			for (int i = 0; i < keys.length; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+
+				writeString(builder, keys[i]);
+				builder.append(':');
+				writeValue(builder, map.get(keys[i]));
+			}
+
+			builder.append('}');
+		} else if (value instanceof Collection) {
+			builder.append('[');
+			boolean first = true;
+
+			for (final Object element : (Collection<Object>) value) {
+				if (!first) {
+					builder.append(',');
+				}
+
+				writeValue(builder, element);
+				first = false;
+			}
+
+			builder.append(']');
+		} else if (value instanceof Double || value instanceof Float) {
+			writeDouble(builder, ((Number) value).doubleValue());
+		} else if (value instanceof Number || value instanceof Boolean) {
+			builder.append(value);
+		} else {
+			writeString(builder, value.toString());
+		}
+	}
+
+	private static void writeDouble(final StringBuilder builder, final double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			// not representable in JSON
+			builder.append("null");
+		} else if (value == (long) value) {
+			// same as JSONObject, whole numbers are written without fraction
+			builder.append((long) value);
+		} else {
+			builder.append(value);
+		}
+	}
+
+	private static void writeString(final StringBuilder builder, final String value) {
+		builder.append('"');
+
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+
+			switch (c) {
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\b':
+					builder.append("\\b");
+					break;
+				case '\f':
+					builder.append("\\f");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						builder
+							.append("\\u00")
+							.append(HEX_DIGITS[(c >> 4) & 0x0F])
+							.append(HEX_DIGITS[c & 0x0F]);
+					} else {
+						builder.append(c);
+					}
+			}
+		}
+
+		builder.append('"');
+	}
+
+	/**
+	 * Recursive descent parser reading the JSON string in a single pass.
+	 */
+	private static final class Parser {
+
+		private final String json;
+		private int position = 0;
+
+		Parser(final String json) {
+			this.json = json;
+		}
+
+		Object readValue() throws JSONException {
+			skipWhitespace();
+
+			switch (peek()) {
+				case '{':
+					return readObject();
+				case '[':
+					return readArray();
+				case '"':
+					return readString();
+				case 't':
+					expectLiteral("true");
+					return Boolean.TRUE;
+				case 'f':
+					expectLiteral("false");
+					return Boolean.FALSE;
+				case 'n':
+					expectLiteral("null");
+					return null;
+				default:
+					return readNumber();
+			}
+		}
+
+		Map<String, Object> readObject() throws JSONException {
+			final Map<String, Object> map = new HashMap<>();
+			position++; // '{'
+			skipWhitespace();
+
+			if (peek() == '}') {
+				position++;
+				return map;
+			}
+
+			while (true) {
+				skipWhitespace();
+
+				if (peek() != '"') {
+					throw error("Expected a key");
+				}
+
+				final String key = readString();
+				skipWhitespace();
+
+				if (next() != ':') {
+					throw error("Expected ':' after key");
+				}
+
+				map.put(key, readValue());
+				skipWhitespace();
+				final char c = next();
+
+				if (c == '}') {
+					return map;
+				}
+
+				if (c != ',') {
+					throw error("Expected ',' or '}'");
+				}
+			}
+		}
+
+		List<Object> readArray() throws JSONException {
+			final List<Object> list = new ArrayList<>();
+			position++; // '['
+			skipWhitespace();
+
+			if (peek() == ']') {
+				position++;
+				return list;
+			}
+
+			while (true) {
+				list.add(readValue());
+				skipWhitespace();
+				final char c = next();
+
+				if (c == ']') {
+					return list;
+				}
+
+				if (c != ',') {
+					throw error("Expected ',' or ']'");
+				}
+			}
+		}
+
+		String readString() throws JSONException {
+			position++; // '"'
+			final int start = position;
+
+			// fast path for strings without escapes
+			while (position < json.length()) {
+				final char c = json.charAt(position);
+
+				if (c == '"') {
+					return json.substring(start, position++);
+				}
+
+				if (c == '\\') {
+					break;
+				}
+
+				position++;
+			}
+
+			final StringBuilder builder = new StringBuilder(json.substring(start, position));
+
+			while (true) {
+				final char c = next();
+
+				if (c == '"') {
+					return builder.toString();
+				}
+
+				if (c != '\\') {
+					builder.append(c);
+					continue;
+				}
+
+				final char escaped = next();
+
+				switch (escaped) {
+					case '"':
+					case '\\':
+					case '/':
+						builder.append(escaped);
+						break;
+					case 'b':
+						builder.append('\b');
+						break;
+					case 'f':
+						builder.append('\f');
+						break;
+					case 'n':
+						builder.append('\n');
+						break;
+					case 'r':
+						builder.append('\r');
+						break;
+					case 't':
+						builder.append('\t');
+						break;
+					case 'u':
+						builder.append(readUnicodeEscape());
+						break;
+					default:
+						throw error("Invalid escape sequence");
+				}
+			}
+		}
+
+		char readUnicodeEscape() throws JSONException {
+			int value = 0;
+
+			for (int i = 0; i < 4; i++) {
+				final int digit = Character.digit(next(), 16);
+
+				if (digit < 0) {
+					throw error("Invalid escape sequence");
+				}
+
+				value = (value << 4) | digit;
+			}
+
+			return (char) value;
+		}
+
+		Object readNumber() throws JSONException {
+			final int start = position;
+			boolean isDecimal = false;
+
+			while (position < json.length()) {
+				final char c = json.charAt(position);
+
+				if (c == '.' || c == 'e' || c == 'E') {
+					isDecimal = true;
+				} else if ((c < '0' || c > '9') && c != '-' && c != '+') {
+					break;
+				}
+
+				position++;
+			}
+
+			if (start == position) {
+				throw error("Unexpected character");
+			}
+
+			final String number = json.substring(start, position);
+
+			try {
+				if (!isDecimal) {
+					final long value = Long.parseLong(number);
+
+					if (value == (int) value) {
+						return Integer.valueOf((int) value);
+					}
+
+					return Long.valueOf(value);
+				}
+			} catch (final NumberFormatException e) {
+				// too large for a long, read as a double like JSONObject
+			}
+
+			try {
+				return Double.valueOf(number);
+			} catch (final NumberFormatException e) {
+				throw error("Invalid number " + number);
+			}
+		}
+
+		void expectLiteral(final String literal) throws JSONException {
+			if (!json.startsWith(literal, position)) {
+				throw error("Unexpected character");
+			}
+
+			position += literal.length();
+		}
+
+		void skipWhitespace() {
+			while (position < json.length()) {
+				final char c = json.charAt(position);
+
+				if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+					return;
+				}
+
+				position++;
+			}
+		}
+
+		char peek() throws JSONException {
+			if (position >= json.length()) {
+				throw error("Unexpected end of JSON string");
+			}
+
+			return json.charAt(position);
+		}
+
+		char next() throws JSONException {
+			final char c = peek();
+			position++;
+			return c;
+		}
+
+		JSONException error(final String message) {
+			return new JSONException(message + " at character " + position);
+		}
+	}
+}
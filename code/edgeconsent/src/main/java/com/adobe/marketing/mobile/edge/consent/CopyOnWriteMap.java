@@ -0,0 +1,255 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Mutable {@link Map} which reads through a shared map until it is first modified.
+ *
+ * <p>Used to hand the consents to public callers without copying them for each caller: reads are
+ * served from the shared map, and the first modification of this map, or of a nested map read from
+ * it, deep copies the shared map once. Nested maps read before the copy are moved to the copy, so
+ * they reflect later modifications. A nested collection other than a map is only read from the
+ * copy.
+ *
+ * <p>The shared map must not be modified once wrapped. Not thread safe, like {@link HashMap}.
+ */
+final class CopyOnWriteMap extends AbstractMap<String, Object> {
+
+	// the top level map, which holds the copy state of all its nested maps
+	private final CopyOnWriteMap root;
+
+	// the shared map until the root is copied, then the copy owned by this map
+	private Map<String, Object> map;
+	private boolean isCopied;
+
+	// nested maps read from this map before the root is copied, by key, null if there are none
+	private Map<Object, CopyOnWriteMap> nestedMaps;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param sharedMap the map to read through, not modified
+	 */
+	CopyOnWriteMap(final Map<String, Object> sharedMap) {
+		this.map = sharedMap;
+		this.root = this;
+	}
+
+	private CopyOnWriteMap(final Map<String, Object> sharedMap, final CopyOnWriteMap root) {
+		this.map = sharedMap;
+		this.root = root;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Object get(final Object key) {
+		final Object value = map.get(key);
+
+		if (root.isCopied || !(value instanceof Collection || value instanceof Map)) {
+			return value;
+		}
+
+		if (!(value instanceof Map)) {
+			root.copy();
+			return map.get(key);
+		}
+
+		if (nestedMaps == null) {
+			nestedMaps = new HashMap<>();
+		}
+
+		CopyOnWriteMap nestedMap = nestedMaps.get(key);
+
+		if (nestedMap == null) {
+			nestedMap = new CopyOnWriteMap((Map<String, Object>) value, root);
+			nestedMaps.put(key, nestedMap);
+		}
+
+		return nestedMap;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public Object put(final String key, final Object value) {
+		root.copy();
+		return map.put(key, value);
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		root.copy();
+		return map.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		root.copy();
+		map.clear();
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return map.size();
+			}
+
+			@Override
+			public void clear() {
+				CopyOnWriteMap.this.clear();
+			}
+		};
+	}
+
+	/**
+	 * Deep copies the shared map of the root, and moves the nested maps already read to the copy.
+	 */
+	private void copy() {
+		if (isCopied) {
+			return;
+		}
+
+		map = Utils.optDeepCopy(map, new HashMap<>());
+		isCopied = true;
+		moveNestedMaps();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void moveNestedMaps() {
+		if (nestedMaps == null) {
+			return;
+		}
+
+		for (final Map.Entry<Object, CopyOnWriteMap> entry : nestedMaps.entrySet()) {
+			final Object value = map.get(entry.getKey());
+			final CopyOnWriteMap nestedMap = entry.getValue();
+			nestedMap.map = value instanceof Map ? (Map<String, Object>) value : new HashMap<>();
+			nestedMap.moveNestedMaps();
+		}
+
+		nestedMaps = null;
+	}
+
+	/**
+	 * Iterates over the keys of the map at the time the iterator is created; the iterated map is
+	 * not modified if the root is copied during the iteration.
+	 */
+	private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+		private final Map<String, Object> iteratedMap = map;
+		private final Iterator<String> keys = iteratedMap.keySet().iterator();
+		private String lastKey;
+		private boolean canRemove;
+
+		@Override
+		public boolean hasNext() {
+			return keys.hasNext();
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (!keys.hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = keys.next();
+			canRemove = true;
+			return new CopyOnWriteEntry(lastKey);
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+
+			if (root.isCopied && iteratedMap == map) {
+				keys.remove();
+			} else {
+				CopyOnWriteMap.this.remove(lastKey);
+			}
+		}
+	}
+
+	/**
+	 * Entry which reads and writes its value through the map.
+	 */
+	private final class CopyOnWriteEntry implements Entry<String, Object> {
+
+		private final String key;
+
+		CopyOnWriteEntry(final String key) {
+			this.key = key;
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public Object getValue() {
+			return get(key);
+		}
+
+		@Override
+		public Object setValue(final Object value) {
+			return put(key, value);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+
+			final Entry<?, ?> entry = (Entry<?, ?>) o;
+			final Object value = getValue();
+			return (
+				key.equals(entry.getKey()) &&
+				(value == null ? entry.getValue() == null : value.equals(entry.getValue()))
+			);
+		}
+
+		@Override
+		public int hashCode() {
+			final Object value = getValue();
+			return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+	}
+}
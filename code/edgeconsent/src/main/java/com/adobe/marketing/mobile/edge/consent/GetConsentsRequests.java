@@ -0,0 +1,183 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.AdobeCallback;
+import com.adobe.marketing.mobile.AdobeCallbackWithError;
+import com.adobe.marketing.mobile.AdobeError;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the {@link Consent#getConsents(AdobeCallback)} requests in flight at the same time
+ * into a single get consents event round trip, and holds the last retrieved consents as a
+ * snapshot.
+ *
+ * <p>The consents may change while a request is in flight, after a consents update or when the
+ * extension shares new consents. Each change starts a new generation: requests made after it
+ * start a new round trip instead of joining the one in flight, and the snapshot is discarded.
+ */
+final class GetConsentsRequests {
+
+	private static final GetConsentsRequests INSTANCE = new GetConsentsRequests();
+
+	private final Object lock = new Object();
+
+	// requests waiting for the round trip in flight, null if there is none
+	private Batch inFlight;
+
+	// incremented on each change of the consents
+	private long generation;
+
+	// the consents retrieved by the last round trip of the current generation, null if there are none
+	private Map<String, Object> snapshot;
+	private long snapshotNanos;
+
+	@VisibleForTesting
+	GetConsentsRequests() {}
+
+	/**
+	 * @return the registry shared by the Consent APIs and the Consent extension
+	 */
+	static GetConsentsRequests getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Retrieves the snapshot of the consents, if they did not change since they were retrieved.
+	 *
+	 * @param maxAgeMillis the maximum age of the snapshot, in milliseconds
+	 * @return the read-only consents, to be wrapped in a {@link CopyOnWriteMap} before they are
+	 *     passed to a caller, null if there is no snapshot or it is older than {@code maxAgeMillis}
+	 */
+	Map<String, Object> getSnapshot(final long maxAgeMillis) {
+		synchronized (lock) {
+			if (snapshot == null || System.nanoTime() - snapshotNanos > TimeUnit.MILLISECONDS.toNanos(maxAgeMillis)) {
+				return null;
+			}
+
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Adds the callback to the round trip in flight, or starts a new round trip if there is none
+	 * for the current generation.
+	 *
+	 * @param callback the callback to call with the consents
+	 * @return the new {@link Batch} to dispatch the get consents event for, null if the callback
+	 *     joined the round trip in flight
+	 */
+	Batch enqueue(final AdobeCallback<Map<String, Object>> callback) {
+		synchronized (lock) {
+			if (inFlight != null && inFlight.generation == generation) {
+				inFlight.callbacks.add(callback);
+				return null;
+			}
+
+			inFlight = new Batch(generation);
+			inFlight.callbacks.add(callback);
+			return inFlight;
+		}
+	}
+
+	/**
+	 * Completes the round trip of the batch, calling each of its callbacks with its own {@link
+	 * CopyOnWriteMap} of the consents.
+	 *
+	 * @param batch the {@link Batch} returned by {@link #enqueue(AdobeCallback)}
+	 * @param consents the consents of the get consents response event
+	 */
+	void complete(final Batch batch, final Map<String, Object> consents) {
+		final Map<String, Object> result = Collections.unmodifiableMap(consents);
+
+		synchronized (lock) {
+			finish(batch);
+
+			if (batch.generation == generation) {
+				snapshot = result;
+				snapshotNanos = System.nanoTime();
+			}
+		}
+
+		for (final AdobeCallback<Map<String, Object>> callback : batch.callbacks) {
+			callback.call(new CopyOnWriteMap(result));
+		}
+	}
+
+	/**
+	 * Fails the round trip of the batch, calling all its callbacks which handle errors.
+	 *
+	 * @param batch the {@link Batch} returned by {@link #enqueue(AdobeCallback)}
+	 * @param error the {@link AdobeError} to return
+	 */
+	@SuppressWarnings("unchecked")
+	void fail(final Batch batch, final AdobeError error) {
+		synchronized (lock) {
+			finish(batch);
+		}
+
+		for (final AdobeCallback<Map<String, Object>> callback : batch.callbacks) {
+			if (callback instanceof AdobeCallbackWithError) {
+				((AdobeCallbackWithError<Map<String, Object>>) callback).fail(error);
+			}
+		}
+	}
+
+	/**
+	 * Starts a new generation after the consents changed or may change, so the snapshot and the
+	 * round trip in flight are not used for later requests.
+	 */
+	void invalidate() {
+		synchronized (lock) {
+			generation++;
+			snapshot = null;
+		}
+	}
+
+	/**
+	 * Drops the round trip in flight and the snapshot.
+	 */
+	@VisibleForTesting
+	void reset() {
+		synchronized (lock) {
+			inFlight = null;
+			generation++;
+			snapshot = null;
+		}
+	}
+
+	private void finish(final Batch batch) {
+		if (inFlight == batch) {
+			inFlight = null;
+		}
+	}
+
+	/**
+	 * The callbacks waiting for one get consents event round trip.
+	 */
+	static final class Batch {
+
+		private final long generation;
+
+		// only modified under the lock while the batch is in flight
+		private final List<AdobeCallback<Map<String, Object>>> callbacks = new ArrayList<>(1);
+
+		private Batch(final long generation) {
+			this.generation = generation;
+		}
+	}
+}
@@ -0,0 +1,285 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of ranked consent layers, for example the user opted consents over the default
+ * consents.
+ *
+ * <p>Values are resolved against the layers in order of precedence, following the same rules as
+ * merging each layer with {@link Consents#merge(Consents)} over the layers below it, without
+ * building the merged consents. Looking up a key path costs O(depth x layers) instead of the
+ * O(size) copy and merge; the merged {@link Consents} are only built by {@link
+ * #materialize(LayeredConsents, Consents)}, to serialize or fingerprint them.
+ *
+ * <p>The view reads the consents maps held when it is created, so it must be recreated after any
+ * layer changes. {@link Consents} replace their maps rather than modify them, so a view is not
+ * affected by later changes of its layers, and the top level values of a layer which did not
+ * change are the same objects in the views created before and after the change.
+ */
+final class LayeredConsents {
+
+	private final Map<String, Object>[] layerMaps;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param layers the consent layers, from the highest to the lowest precedence; null or empty
+	 *     layers are skipped
+	 */
+	@SuppressWarnings("unchecked")
+	LayeredConsents(final Consents... layers) {
+		this.layerMaps = new Map[layers.length];
+
+		for (int i = 0; i < layers.length; i++) {
+			if (layers[i] != null && !layers[i].isEmpty()) {
+				layerMaps[i] = layers[i].asUnmodifiableMap();
+			}
+		}
+	}
+
+	/**
+	 * @return true if none of the layers have any consent
+	 */
+	boolean isEmpty() {
+		for (final Map<String, Object> layerMap : layerMaps) {
+			if (layerMap != null) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param key the top level consent key
+	 * @return true if any of the layers hold {@code key}, even with a null value
+	 */
+	boolean containsKey(final String key) {
+		for (final Map<String, Object> layerMap : layerMaps) {
+			if (layerMap != null && layerMap.containsKey(key)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Resolves the value at the provided key path, as it would be found in the merged consents.
+	 *
+	 * <p>When several layers hold a map at the key path, only that sub tree is merged. The returned
+	 * value must not be modified.
+	 *
+	 * @param keyPath the keys to follow from the root of the consents, for example {@code
+	 *     "collect", "val"}
+	 * @return the resolved value, or null if there is no value at {@code keyPath}
+	 */
+	@SuppressWarnings("unchecked")
+	Object getValue(final String... keyPath) {
+		final Object[] nodes = new Object[layerMaps.length];
+		final boolean[] hasNode = new boolean[layerMaps.length];
+
+		for (int i = 0; i < layerMaps.length; i++) {
+			nodes[i] = layerMaps[i];
+			hasNode[i] = layerMaps[i] != null;
+		}
+
+		for (final String key : keyPath) {
+			if (!selectContributingNodes(nodes, hasNode) || !(nodes[firstNode(hasNode)] instanceof Map)) {
+				// there is no value at this key path, or the resolved value is not a map
+				return null;
+			}
+
+			for (int i = 0; i < nodes.length; i++) {
+				if (hasNode[i]) {
+					final Map<String, Object> nodeMap = (Map<String, Object>) nodes[i];
+					hasNode[i] = nodeMap.containsKey(key);
+					nodes[i] = nodeMap.get(key);
+				}
+			}
+		}
+
+		if (!selectContributingNodes(nodes, hasNode)) {
+			return null;
+		}
+
+		// merge the contributing maps from the lowest to the highest precedence
+		Object value = null;
+		boolean hasValue = false;
+
+		for (int i = nodes.length - 1; i >= 0; i--) {
+			if (!hasNode[i]) {
+				continue;
+			}
+
+			value =
+				hasValue
+					? Consents.deepMergeMaps((Map<String, Object>) value, (Map<String, Object>) nodes[i])
+					: nodes[i];
+			hasValue = true;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Retrieves the timestamp of the layered consents.
+	 *
+	 * @return timestamp in ISO 8601 date-time string, null if the consents do not have timestamp in
+	 *     their metadata
+	 * @see Consents#getTimestamp()
+	 */
+	String getTimestamp() {
+		final Object timestamp = getValue(ConsentConstants.EventDataKey.METADATA, ConsentConstants.EventDataKey.TIME);
+		return timestamp instanceof String ? (String) timestamp : null;
+	}
+
+	/**
+	 * Builds the merged consents, by resolving each top level key against the layers.
+	 *
+	 * @return new {@link Consents} holding the merged consents, never null; nested maps are shared
+	 *     read-only with the layers
+	 * @see #materialize(LayeredConsents, Consents)
+	 */
+	Consents materialize() {
+		final Map<String, Object> mergedMap = new HashMap<>();
+
+		for (final Map<String, Object> layerMap : layerMaps) {
+			if (layerMap == null) {
+				continue;
+			}
+
+			for (final String key : layerMap.keySet()) {
+				if (!mergedMap.containsKey(key)) {
+					mergedMap.put(key, getValue(key));
+				}
+			}
+		}
+
+		return Consents.fromConsentsMap(mergedMap);
+	}
+
+	/**
+	 * Builds the merged consents from the merged consents of a previous view, only resolving again
+	 * the top level keys whose value changed in any layer since that view was created.
+	 *
+	 * @param previousView a previous view of the same layers, can be null
+	 * @param previousConsents the consents materialized from {@code previousView}, can be null
+	 * @return the merged consents, {@code previousConsents} if no top level value changed; never
+	 *     null
+	 */
+	Consents materialize(final LayeredConsents previousView, final Consents previousConsents) {
+		if (previousView == null || previousConsents == null || previousView.layerMaps.length != layerMaps.length) {
+			return materialize();
+		}
+
+		final Set<String> changedKeys = new HashSet<>();
+
+		for (int i = 0; i < layerMaps.length; i++) {
+			addChangedKeys(changedKeys, previousView.layerMaps[i], layerMaps[i]);
+		}
+
+		if (changedKeys.isEmpty()) {
+			return previousConsents;
+		}
+
+		final Map<String, Object> mergedMap = new HashMap<>(previousConsents.asUnmodifiableMap());
+
+		for (final String key : changedKeys) {
+			if (containsKey(key)) {
+				mergedMap.put(key, getValue(key));
+			} else {
+				mergedMap.remove(key);
+			}
+		}
+
+		return Consents.fromConsentsMap(mergedMap);
+	}
+
+	/**
+	 * Adds the top level keys whose value changed between two versions of a layer. Values are
+	 * compared by reference, as the values of a layer are replaced rather than modified.
+	 *
+	 * @param changedKeys the keys to add to
+	 * @param previousMap the previous consents map of the layer, can be null
+	 * @param map the current consents map of the layer, can be null
+	 */
+	private static void addChangedKeys(
+		final Set<String> changedKeys,
+		final Map<String, Object> previousMap,
+		final Map<String, Object> map
+	) {
+		if (previousMap != null) {
+			for (final Map.Entry<String, Object> entry : previousMap.entrySet()) {
+				if (map == null || !map.containsKey(entry.getKey()) || map.get(entry.getKey()) != entry.getValue()) {
+					changedKeys.add(entry.getKey());
+				}
+			}
+		}
+
+		if (map != null) {
+			for (final String key : map.keySet()) {
+				if (previousMap == null || !previousMap.containsKey(key)) {
+					changedKeys.add(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps the nodes which contribute to the resolved value: the node of the highest precedence
+	 * and, if it is a map, the maps below it up to the first node which is not a map.
+	 *
+	 * @param nodes the nodes of each layer at the same key path
+	 * @param hasNode whether each layer has a node at the key path, updated in place
+	 * @return true if at least one layer has a node at the key path
+	 */
+	private static boolean selectContributingNodes(final Object[] nodes, final boolean[] hasNode) {
+		final int first = firstNode(hasNode);
+
+		if (first < 0) {
+			return false;
+		}
+
+		boolean isMerged = nodes[first] instanceof Map;
+
+		for (int i = first + 1; i < nodes.length; i++) {
+			if (hasNode[i]) {
+				// a value which is not a map replaces the layers below it, and is replaced by the map above it
+				isMerged = isMerged && nodes[i] instanceof Map;
+				hasNode[i] = isMerged;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param hasNode whether each layer has a node at the key path
+	 * @return the index of the first layer with a node, -1 if there is none
+	 */
+	private static int firstNode(final boolean[] hasNode) {
+		for (int i = 0; i < hasNode.length; i++) {
+			if (hasNode[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,212 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.services.Log;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Envelope of the consents persisted by the Consent extension, so a truncated or corrupted
+ * payload is rejected before it is parsed.
+ *
+ * <p>The payload is prefixed with a header holding the format version, the length of the payload
+ * and its CRC32 checksum. A truncated payload fails the length check without being read, other
+ * corruptions fail the checksum, which is a single pass over the payload. Payloads persisted
+ * before the envelope are plain JSON objects and are returned as is.
+ *
+ * <p>Payloads above the compression threshold are stored deflated, see {@link ConsentsCompression},
+ * with a distinct header. Length and checksum cover the stored body, so a corrupted body is
+ * rejected before it is inflated.
+ *
+ * <p>Example: #1:33:5d1c0b2a\n{"consents":{"collect":{"val":"y"}}}
+ */
+final class PersistenceEnvelope {
+
+	private static final String LOG_SOURCE = "PersistenceEnvelope";
+
+	static final int VERSION = 1;
+	private static final String HEADER_PREFIX = "#" + VERSION + ":";
+	private static final String COMPRESSED_HEADER_PREFIX = "#" + VERSION + "d:";
+	private static final char SEPARATOR = ':';
+	private static final char HEADER_END = '\n';
+
+	// longest header: prefix, 10 digits of length, separator, 8 hex digits of checksum, header end
+	private static final int MAX_HEADER_LENGTH = COMPRESSED_HEADER_PREFIX.length() + 20;
+
+	private PersistenceEnvelope() {}
+
+	/**
+	 * Wraps the payload in an envelope.
+	 *
+	 * @param payload the payload to persist
+	 * @return the persisted form of {@code payload}
+	 */
+	static String seal(final String payload) {
+		return seal(HEADER_PREFIX, payload);
+	}
+
+	/**
+	 * Wraps the payload in an envelope, compressing it if it is longer than {@code
+	 * compressionThreshold} characters and compression makes it shorter.
+	 *
+	 * @param payload the payload to persist
+	 * @param compressionThreshold the length above which the payload is compressed, compression is
+	 *     disabled if not positive
+	 * @return the persisted form of {@code payload}
+	 */
+	static String seal(final String payload, final int compressionThreshold) {
+		if (compressionThreshold <= 0 || payload.length() <= compressionThreshold) {
+			return seal(payload);
+		}
+
+		final String compressed = ConsentsCompression.deflate(payload);
+
+		if (compressed.length() >= payload.length()) {
+			return seal(payload);
+		}
+
+		return seal(COMPRESSED_HEADER_PREFIX, compressed);
+	}
+
+	/**
+	 * Checks whether the persisted payload may contain the provided text, without validating a
+	 * payload that is not compressed.
+	 *
+	 * @param persisted the persisted form of a payload, see {@link #seal(String, int)}
+	 * @param text the text to look for
+	 * @return false if the payload does not contain {@code text}; true if it does, or if it is
+	 *     compressed and cannot be opened
+	 */
+	static boolean mayContain(final String persisted, final String text) {
+		if (!persisted.startsWith(COMPRESSED_HEADER_PREFIX)) {
+			return persisted.contains(text);
+		}
+
+		final String payload = open(persisted);
+		return payload == null || payload.contains(text);
+	}
+
+	/**
+	 * Checks whether the persisted envelope holds the provided payload, without validating a
+	 * payload that is not compressed.
+	 *
+	 * @param persisted the persisted form of a payload, see {@link #seal(String, int)}; can be null
+	 * @param payload the payload
+	 * @return true if {@code persisted} is the sealed form of {@code payload}, or {@code payload}
+	 *     persisted without envelope
+	 */
+	static boolean holds(final String persisted, final String payload) {
+		if (persisted == null || payload == null) {
+			return false;
+		}
+
+		if (persisted.startsWith(COMPRESSED_HEADER_PREFIX)) {
+			return payload.equals(open(persisted));
+		}
+
+		final int bodyStart = persisted.length() - payload.length();
+		return (
+			bodyStart >= 0 &&
+			(bodyStart == 0 || persisted.charAt(bodyStart - 1) == HEADER_END) &&
+			persisted.startsWith(payload, bodyStart)
+		);
+	}
+
+	private static String seal(final String headerPrefix, final String body) {
+		return (
+			headerPrefix +
+			body.length() +
+			SEPARATOR +
+			Long.toHexString(checksum(body)) +
+			HEADER_END +
+			body
+		);
+	}
+
+	/**
+	 * Validates the persisted envelope and returns its payload.
+	 *
+	 * @param persisted the persisted form of a payload, see {@link #seal(String, int)}; or a
+	 *     payload persisted without envelope
+	 * @return the payload, inflated if it was compressed; or null if {@code persisted} is null,
+	 *     truncated, corrupted or of an unsupported version
+	 */
+	static String open(final String persisted) {
+		if (persisted == null) {
+			return null;
+		}
+
+		if (persisted.startsWith("{")) {
+			return persisted;
+		}
+
+		final boolean compressed = persisted.startsWith(COMPRESSED_HEADER_PREFIX);
+
+		if (!compressed && !persisted.startsWith(HEADER_PREFIX)) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Rejecting persisted consents with an unsupported header.");
+			return null;
+		}
+
+		final int lengthStart = compressed ? COMPRESSED_HEADER_PREFIX.length() : HEADER_PREFIX.length();
+		final int headerEnd = persisted.indexOf(HEADER_END, lengthStart);
+		final int separator = persisted.indexOf(SEPARATOR, lengthStart);
+
+		if (headerEnd < 0 || headerEnd > MAX_HEADER_LENGTH || separator < 0 || separator > headerEnd) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Rejecting persisted consents with a malformed header.");
+			return null;
+		}
+
+		final long length;
+		final long checksum;
+
+		try {
+			length = Long.parseLong(persisted.substring(lengthStart, separator));
+			checksum = Long.parseLong(persisted.substring(separator + 1, headerEnd), 16);
+		} catch (final NumberFormatException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Rejecting persisted consents with a malformed header.");
+			return null;
+		}
+
+		if (persisted.length() - headerEnd - 1 != length) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Rejecting truncated persisted consents, expected %d characters but found %d.",
+				length,
+				persisted.length() - headerEnd - 1
+			);
+			return null;
+		}
+
+		final String body = persisted.substring(headerEnd + 1);
+
+		if (checksum(body) != checksum) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Rejecting persisted consents with a checksum mismatch.");
+			return null;
+		}
+
+		return compressed ? ConsentsCompression.inflate(body) : body;
+	}
+
+	/**
+	 * @param body the text to checksum
+	 * @return the CRC32 checksum of the UTF-8 bytes of {@code body}
+	 */
+	static long checksum(final String body) {
+		final CRC32 crc = new CRC32();
+		crc.update(body.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+}
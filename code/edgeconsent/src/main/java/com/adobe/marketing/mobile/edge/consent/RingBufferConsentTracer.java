@@ -0,0 +1,144 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ConsentTracer} recording the last completed spans into a fixed size ring buffer, for
+ * export with {@link #getSpans()}.
+ *
+ * <p>Recording a span does not allocate; when the buffer is full, the oldest spans are
+ * overwritten.
+ */
+public final class RingBufferConsentTracer implements ConsentTracer {
+
+	// keys of the exported spans
+	public static final String NAME = "name";
+	public static final String START_NANOS = "startNanos";
+	public static final String DURATION_NANOS = "durationNanos";
+	public static final String DEPTH = "depth";
+
+	private static final int MAX_DEPTH = 16;
+
+	// completed spans
+	private final String[] names;
+	private final long[] startNanos;
+	private final long[] durationNanos;
+	private final int[] depths;
+	private int next = 0;
+	private int size = 0;
+
+	// spans begun and not ended yet
+	private final String[] openNames = new String[MAX_DEPTH];
+	private final long[] openStartNanos = new long[MAX_DEPTH];
+	private int openCount = 0;
+	private int skippedDepth = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity the maximum number of spans kept
+	 * @throws IllegalArgumentException if {@code capacity} is not positive
+	 */
+	public RingBufferConsentTracer(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+
+		names = new String[capacity];
+		startNanos = new long[capacity];
+		durationNanos = new long[capacity];
+		depths = new int[capacity];
+	}
+
+	@Override
+	public synchronized void beginSpan(@NonNull final String name) {
+		if (openCount == MAX_DEPTH) {
+			// too deeply nested, the span and its nested spans are not recorded
+			skippedDepth++;
+			return;
+		}
+
+		openNames[openCount] = name;
+		openStartNanos[openCount] = System.nanoTime();
+		openCount++;
+	}
+
+	@Override
+	public synchronized void endSpan(@NonNull final String name) {
+		if (skippedDepth > 0) {
+			skippedDepth--;
+			return;
+		}
+
+		if (openCount == 0 || !openNames[openCount - 1].equals(name)) {
+			// unbalanced span, ignore it
+			return;
+		}
+
+		openCount--;
+		names[next] = name;
+		startNanos[next] = openStartNanos[openCount];
+		durationNanos[next] = System.nanoTime() - openStartNanos[openCount];
+		depths[next] = openCount;
+		openNames[openCount] = null;
+
+		next = (next + 1) % names.length;
+
+		if (size < names.length) {
+			size++;
+		}
+	}
+
+	/**
+	 * Returns the recorded spans, from the oldest to the most recently completed.
+	 *
+	 * <p>Each span is a {@link Map} with its {@link #NAME}, {@link #START_NANOS} as returned by
+	 * {@link System#nanoTime()}, {@link #DURATION_NANOS} and nesting {@link #DEPTH}, 0 for top
+	 * level spans. Nested spans complete, and are therefore listed, before their parent span.
+	 *
+	 * @return a copy of the recorded spans
+	 */
+	@NonNull public synchronized List<Map<String, Object>> getSpans() {
+		final List<Map<String, Object>> spans = new ArrayList<>(size);
+		final int first = (next - size + names.length) % names.length;
+
+		for (int i = 0; i < size; i++) {
+			final int index = (first + i) % names.length;
+			final Map<String, Object> span = new HashMap<>();
+			span.put(NAME, names[index]);
+			span.put(START_NANOS, startNanos[index]);
+			span.put(DURATION_NANOS, durationNanos[index]);
+			span.put(DEPTH, depths[index]);
+			spans.add(span);
+		}
+
+		return spans;
+	}
+
+	/**
+	 * Removes all the recorded spans.
+	 */
+	public synchronized void clear() {
+		for (int i = 0; i < names.length; i++) {
+			names[i] = null;
+		}
+
+		next = 0;
+		size = 0;
+	}
+}
@@ -16,11 +16,16 @@ import static com.adobe.marketing.mobile.edge.consent.ConsentConstants.LOG_TAG;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.CloneFailedException;
 import com.adobe.marketing.mobile.util.EventDataUtils;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 
 final class Utils {
 
 	private static final String LOG_SOURCE = "Utils";
+	private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
 	private Utils() {}
 
@@ -49,4 +54,53 @@ final class Utils {
 		Map<String, Object> ret = deepCopy(map);
 		return ret != null ? ret : fallback;
 	}
+
+	/**
+	 * Computes a stable fingerprint of the provided {@link Map}.
+	 *
+	 * <p>The map is written by {@link ConsentsJson}, which sorts the keys at every nesting level,
+	 * so two maps with equal contents always produce the same fingerprint regardless of their
+	 * iteration order.
+	 *
+	 * @param map the map to fingerprint
+	 * @return hex encoded SHA-256 digest of the canonical form of {@code map}, or null if {@code
+	 *     map} is null or the digest algorithm is unavailable
+	 */
+	static String fingerprint(final Map<String, Object> map) {
+		if (map == null) {
+			return null;
+		}
+
+		return fingerprint(ConsentsJson.write(map));
+	}
+
+	/**
+	 * Computes the fingerprint of the provided {@link String}.
+	 *
+	 * @param value the string to fingerprint
+	 * @return hex encoded SHA-256 digest of {@code value}, or null if {@code value} is null or the
+	 *     digest algorithm is unavailable
+	 */
+	static String fingerprint(final String value) {
+		if (value == null) {
+			return null;
+		}
+
+		try {
+			final byte[] digest = MessageDigest
+				.getInstance(FINGERPRINT_ALGORITHM)
+				.digest(value.getBytes(StandardCharsets.UTF_8));
+			final char[] hex = new char[digest.length * 2];
+
+			for (int i = 0; i < digest.length; i++) {
+				hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+				hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0x0F];
+			}
+
+			return new String(hex);
+		} catch (NoSuchAlgorithmException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to compute fingerprint: %s", e.getLocalizedMessage());
+			return null;
+		}
+	}
 }
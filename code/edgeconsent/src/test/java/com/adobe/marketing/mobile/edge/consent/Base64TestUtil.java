@@ -0,0 +1,45 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import android.util.Base64;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+/**
+ * Mocks {@link Base64}, which is not implemented in unit tests, with the {@code java.util.Base64}
+ * codec, for the tests persisting compressed consents.
+ */
+final class Base64TestUtil {
+
+	private Base64TestUtil() {}
+
+	/**
+	 * Mocks {@link Base64#encodeToString(byte[], int)} and {@link Base64#decode(String, int)}.
+	 *
+	 * @return the static mock, to close at the end of the test
+	 */
+	static MockedStatic<Base64> mockBase64() {
+		final MockedStatic<Base64> base64 = Mockito.mockStatic(Base64.class);
+		base64
+			.when(() -> Base64.encodeToString(any(byte[].class), anyInt()))
+			.thenAnswer(invocation -> java.util.Base64.getEncoder().encodeToString(invocation.getArgument(0)));
+		base64
+			.when(() -> Base64.decode(anyString(), anyInt()))
+			.thenAnswer(invocation -> java.util.Base64.getDecoder().decode((String) invocation.getArgument(0)));
+		return base64;
+	}
+}
@@ -0,0 +1,230 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertTrue;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventSource;
+import com.adobe.marketing.mobile.EventType;
+import com.adobe.marketing.mobile.ExtensionApi;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Allocation budget tests for the Consent extension hot paths.
+ *
+ * <p>Measures the bytes allocated per operation on the current thread using the JVM thread
+ * allocation counters. Budgets are expressed in units of the bytes allocated by one deep copy of
+ * the user consents, so they do not depend on the JVM object layout, and each operation is also
+ * verified to allocate linearly with the consents size.
+ */
+public class ConsentAllocationTest {
+
+	private static final int VENDOR_COUNT = 250;
+	private static final long SEED = 250;
+	private static final int LARGE_VENDOR_COUNT = VENDOR_COUNT * 4;
+	private static final int WARMUP_ITERATIONS = 50;
+	private static final int MEASURED_ITERATIONS = 100;
+
+	// budgets, in deep copies of the user consents
+	// unchanged current consents are cached, so reading them again must not copy them
+	private static final double GET_CURRENT_CONSENTS_BUDGET = 0.1;
+	// the measured allocations plus about 3 deep copies: request content 1.1, consent update 13.0 and
+	// Edge consent preference handle 14.5
+	private static final double HANDLE_REQUEST_CONTENT_BUDGET = 4;
+	private static final double HANDLE_CONSENT_UPDATE_BUDGET = 16;
+	private static final double HANDLE_EDGE_CONSENT_PREFERENCE_HANDLE_BUDGET = 17;
+
+	// maximum growth of the allocations, in deep copies, when the consents are 4 times larger; measured
+	// at 1.0, the allocations are linear with the consents size
+	private static final double MAX_GROWTH = 1.1;
+
+	private com.sun.management.ThreadMXBean threadMXBean;
+	private ExtensionApi extensionApi;
+
+	// keeps the results of the measured operations reachable, so their allocations are not optimized away
+	private Object sink;
+
+	@Before
+	public void setup() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(
+			"Thread allocation counters are not supported by this JVM",
+			bean instanceof com.sun.management.ThreadMXBean &&
+			((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+		);
+		threadMXBean = (com.sun.management.ThreadMXBean) bean;
+		threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+		// stub only mock, so invocations are not recorded
+		extensionApi = Mockito.mock(ExtensionApi.class, Mockito.withSettings().stubOnly());
+	}
+
+	@Test
+	public void test_getCurrentConsents_allocationBudget() {
+		final double copies = measureGetCurrentConsents(VENDOR_COUNT);
+
+		assertWithinBudget("ConsentManager.getCurrentConsents", copies, GET_CURRENT_CONSENTS_BUDGET);
+		assertWithinBudget(
+			"ConsentManager.getCurrentConsents",
+			measureGetCurrentConsents(LARGE_VENDOR_COUNT),
+			GET_CURRENT_CONSENTS_BUDGET
+		);
+	}
+
+	@Test
+	public void test_handleRequestContent_allocationBudget() {
+		final double copies = measureHandleRequestContent(VENDOR_COUNT);
+
+		assertWithinBudget("handleRequestContent", copies, HANDLE_REQUEST_CONTENT_BUDGET);
+		assertLinearGrowth("handleRequestContent", copies, measureHandleRequestContent(LARGE_VENDOR_COUNT));
+	}
+
+	@Test
+	public void test_handleConsentUpdate_allocationBudget() {
+		final double copies = measureHandleConsentUpdate(VENDOR_COUNT);
+
+		assertWithinBudget("handleConsentUpdate", copies, HANDLE_CONSENT_UPDATE_BUDGET);
+		assertLinearGrowth("handleConsentUpdate", copies, measureHandleConsentUpdate(LARGE_VENDOR_COUNT));
+	}
+
+	@Test
+	public void test_handleEdgeConsentPreferenceHandle_allocationBudget() {
+		final double copies = measureHandleEdgeConsentPreferenceHandle(VENDOR_COUNT);
+
+		assertWithinBudget(
+			"handleEdgeConsentPreferenceHandle",
+			copies,
+			HANDLE_EDGE_CONSENT_PREFERENCE_HANDLE_BUDGET
+		);
+		assertLinearGrowth(
+			"handleEdgeConsentPreferenceHandle",
+			copies,
+			measureHandleEdgeConsentPreferenceHandle(LARGE_VENDOR_COUNT)
+		);
+	}
+
+	private double measureGetCurrentConsents(final int vendorCount) {
+		final ConsentManager consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateDefaultConsents(
+			new Consents(new ConsentTestUtil.ConsentsBuilder().setCollect("y").buildToMap())
+		);
+		consentManager.mergeAndPersist(new Consents(generator(true, vendorCount).buildToMap()));
+
+		return inDeepCopies(vendorCount, allocatedBytesPerOperation(() -> sink = consentManager.getCurrentConsents()));
+	}
+
+	private double measureHandleRequestContent(final int vendorCount) {
+		final ConsentExtension extension = new ConsentExtension(extensionApi, new FakeNamedCollection());
+		extension.handleConsentUpdate(generator(true, vendorCount).buildConsentUpdateEvent());
+		final Event event = new Event.Builder("Get Consents Request", EventType.CONSENT, EventSource.REQUEST_CONTENT)
+			.build();
+
+		return inDeepCopies(vendorCount, allocatedBytesPerOperation(() -> extension.handleRequestContent(event)));
+	}
+
+	private double measureHandleConsentUpdate(final int vendorCount) {
+		final ConsentExtension extension = new ConsentExtension(extensionApi, new FakeNamedCollection());
+		final Event[] events = {
+			generator(true, vendorCount).buildConsentUpdateEvent(),
+			generator(false, vendorCount).buildConsentUpdateEvent(),
+		};
+		final int[] next = { 0 };
+
+		// alternate the consent values, so every update changes the consents
+		return inDeepCopies(
+			vendorCount,
+			allocatedBytesPerOperation(() -> extension.handleConsentUpdate(events[next[0]++ % events.length]))
+		);
+	}
+
+	private double measureHandleEdgeConsentPreferenceHandle(final int vendorCount) {
+		final ConsentExtension extension = new ConsentExtension(extensionApi, new FakeNamedCollection());
+		final Event[] events = {
+			generator(true, vendorCount).buildEdgeConsentPreferenceEvent(),
+			generator(false, vendorCount).buildEdgeConsentPreferenceEvent(),
+		};
+		final int[] next = { 0 };
+
+		// alternate the consent values, so every handle changes the consents
+		return inDeepCopies(
+			vendorCount,
+			allocatedBytesPerOperation(() ->
+				extension.handleEdgeConsentPreferenceHandle(events[next[0]++ % events.length])
+			)
+		);
+	}
+
+	/**
+	 * Converts the allocated bytes in deep copies of the user consents with the given vendor count.
+	 */
+	private double inDeepCopies(final int vendorCount, final long allocatedBytes) {
+		final Map<String, Object> consents = generator(true, vendorCount).buildToMap();
+		final long deepCopyBytes = allocatedBytesPerOperation(() -> sink = Utils.optDeepCopy(consents, null));
+
+		return (double) allocatedBytes / deepCopyBytes;
+	}
+
+	private long allocatedBytesPerOperation(final Runnable operation) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			operation.run();
+		}
+
+		final long threadId = Thread.currentThread().getId();
+		final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			operation.run();
+		}
+
+		return (threadMXBean.getThreadAllocatedBytes(threadId) - start) / MEASURED_ITERATIONS;
+	}
+
+	private static void assertWithinBudget(final String operation, final double copies, final double budget) {
+		assertTrue(
+			String.format("%s allocated %.1f deep copies per operation, budget is %.1f", operation, copies, budget),
+			copies <= budget
+		);
+	}
+
+	private static void assertLinearGrowth(final String operation, final double copies, final double largeCopies) {
+		assertTrue(
+			String.format(
+				"%s allocated %.1f deep copies per operation with %d vendors and %.1f with %d vendors",
+				operation,
+				copies,
+				VENDOR_COUNT,
+				largeCopies,
+				LARGE_VENDOR_COUNT
+			),
+			largeCopies <= copies * MAX_GROWTH
+		);
+	}
+
+	/**
+	 * Generates consents with the given number of vendors, with the same value for all consents.
+	 *
+	 * @param yes true for "y" consents, false for "n" consents
+	 * @param vendorCount the number of vendors
+	 * @return a {@link ConsentPayloadGenerator} for the consents
+	 */
+	private static ConsentPayloadGenerator generator(final boolean yes, final int vendorCount) {
+		return new ConsentPayloadGenerator(SEED)
+			.setVendorCount(vendorCount)
+			.setValueWeights(yes ? 1 : 0, yes ? 0 : 1, 0);
+	}
+}
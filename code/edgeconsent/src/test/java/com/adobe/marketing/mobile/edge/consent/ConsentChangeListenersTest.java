@@ -0,0 +1,166 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.ConsentsBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ConsentChangeListenersTest {
+
+	private final ConsentChangeListeners changeListeners = new ConsentChangeListeners();
+
+	@Test
+	public void test_notifyChanges_onlyNotifiesChangedKeyPaths() {
+		// setup
+		final RecordingListener listener = new RecordingListener();
+		changeListeners.register(Arrays.asList("collect.val", "adID.val", "marketing.email.val"), listener);
+		final LayeredConsents previous = view(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap());
+		final LayeredConsents current = view(new ConsentsBuilder().setCollect("n").setAdId("y").buildToMap());
+
+		// test
+		changeListeners.notifyChanges(Arrays.asList("collect", "adID"), previous, current);
+
+		// verify
+		assertEquals(1, listener.changes.size());
+		assertEquals("collect.val", listener.changes.get(0)[0]);
+		assertEquals("y", listener.changes.get(0)[1]);
+		assertEquals("n", listener.changes.get(0)[2]);
+	}
+
+	@Test
+	public void test_notifyChanges_ignoresKeysWhichWereNotUpdated() {
+		// setup
+		final RecordingListener listener = new RecordingListener();
+		changeListeners.register(Collections.singletonList("collect.val"), listener);
+		final LayeredConsents previous = view(new ConsentsBuilder().setCollect("y").buildToMap());
+		final LayeredConsents current = view(new ConsentsBuilder().setCollect("n").buildToMap());
+
+		// test
+		changeListeners.notifyChanges(Collections.singletonList("adID"), previous, current);
+
+		// verify
+		assertTrue(listener.changes.isEmpty());
+	}
+
+	@Test
+	public void test_notifyChanges_addedAndRemovedValues() {
+		// setup
+		final RecordingListener listener = new RecordingListener();
+		changeListeners.register(Collections.singletonList("marketing"), listener);
+		final LayeredConsents empty = view(null);
+		final LayeredConsents withMarketing = view(
+			new ConsentsBuilder().setMarketing("email", "y", "true").buildToMap()
+		);
+
+		// test
+		changeListeners.notifyChanges(Collections.singletonList("marketing"), empty, withMarketing);
+		changeListeners.notifyChanges(Collections.singletonList("marketing"), withMarketing, empty);
+
+		// verify
+		assertEquals(2, listener.changes.size());
+		assertNull(listener.changes.get(0)[1]);
+		assertEquals("y", ((Map) ((Map) listener.changes.get(0)[2]).get("email")).get("val"));
+		assertEquals("y", ((Map) ((Map) listener.changes.get(1)[1]).get("email")).get("val"));
+		assertNull(listener.changes.get(1)[2]);
+	}
+
+	@Test
+	public void test_register_ignoresInvalidAndDuplicateKeyPaths() {
+		// setup
+		final RecordingListener listener = new RecordingListener();
+
+		// test
+		final int registered = changeListeners.register(
+			Arrays.asList("collect.val", "collect.val", "", "adID..val", ".collect", null),
+			listener
+		);
+
+		// verify
+		assertEquals(1, registered);
+		changeListeners.notifyChanges(
+			Collections.singletonList("collect"),
+			view(null),
+			view(new ConsentsBuilder().setCollect("y").buildToMap())
+		);
+		assertEquals(1, listener.changes.size());
+	}
+
+	@Test
+	public void test_unregister() {
+		// setup
+		final RecordingListener listener = new RecordingListener();
+		final RecordingListener otherListener = new RecordingListener();
+		changeListeners.register(Arrays.asList("collect.val", "adID.val"), listener);
+		changeListeners.register(Collections.singletonList("collect.val"), otherListener);
+
+		// test
+		assertTrue(changeListeners.unregister(listener));
+		assertFalse(changeListeners.unregister(listener));
+		changeListeners.notifyChanges(
+			Arrays.asList("collect", "adID"),
+			view(null),
+			view(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap())
+		);
+
+		// verify
+		assertTrue(listener.changes.isEmpty());
+		assertEquals(1, otherListener.changes.size());
+	}
+
+	@Test
+	public void test_notifyChanges_listenerThrows_otherListenersAreNotified() {
+		// setup
+		final RecordingListener listener = new RecordingListener();
+		changeListeners.register(
+			Collections.singletonList("collect.val"),
+			(keyPath, oldValue, newValue) -> {
+				throw new IllegalStateException("listener failure");
+			}
+		);
+		changeListeners.register(Collections.singletonList("collect.val"), listener);
+
+		// test
+		changeListeners.notifyChanges(
+			Collections.singletonList("collect"),
+			view(null),
+			view(new ConsentsBuilder().setCollect("y").buildToMap())
+		);
+
+		// verify
+		assertEquals(1, listener.changes.size());
+		assertEquals("y", listener.changes.get(0)[2]);
+	}
+
+	private static LayeredConsents view(final Map<String, Object> xdmMap) {
+		return new LayeredConsents(new Consents(xdmMap));
+	}
+
+	private static class RecordingListener implements ConsentChangeListener {
+
+		final List<Object[]> changes = new ArrayList<>();
+
+		@Override
+		public void onConsentChanged(final String keyPath, final Object oldValue, final Object newValue) {
+			changes.add(new Object[] { keyPath, oldValue, newValue });
+		}
+	}
+}
@@ -0,0 +1,257 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventSource;
+import com.adobe.marketing.mobile.EventType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConsentEventRecorderTest {
+
+	private static final long TIMESTAMP = 1695492945000L;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@After
+	public void teardown() {
+		ConsentEventRecorder.stop();
+	}
+
+	// ========================================================================================
+	// log lines
+	// ========================================================================================
+
+	@Test
+	public void test_toLogLine_parseEvent_roundTrip() throws Exception {
+		// setup
+		final Event event = buildConsentUpdateEvent("y");
+
+		// test
+		final Event parsedEvent = ConsentEventReplay.parseEvent(ConsentEventRecorder.toLogLine(event));
+
+		// verify
+		assertEquals(event.getTimestamp(), parsedEvent.getTimestamp());
+		assertEquals(event.getUniqueIdentifier(), parsedEvent.getUniqueIdentifier());
+		assertEquals(event.getName(), parsedEvent.getName());
+		assertEquals(EventType.CONSENT, parsedEvent.getType());
+		assertEquals(EventSource.UPDATE_CONSENT, parsedEvent.getSource());
+		assertEquals(event.getEventData(), parsedEvent.getEventData());
+	}
+
+	@Test
+	public void test_toLogLine_eventWithoutData() throws Exception {
+		// setup
+		final Event event = new Event.Builder("Get Consents Request", EventType.CONSENT, EventSource.REQUEST_CONTENT)
+			.build();
+
+		// test
+		final JSONObject line = new JSONObject(ConsentEventRecorder.toLogLine(event));
+
+		// verify
+		assertFalse(line.has(ConsentEventRecorder.DATA));
+		assertNull(ConsentEventReplay.parseEvent(line.toString()).getEventData());
+	}
+
+	@Test
+	public void test_parseEvent_invalidLine_returnsNull() {
+		assertNull(ConsentEventReplay.parseEvent(""));
+		assertNull(ConsentEventReplay.parseEvent("not json"));
+		assertNull(ConsentEventReplay.parseEvent("{\"n\":\"missing type and source\"}"));
+	}
+
+	// ========================================================================================
+	// recording
+	// ========================================================================================
+
+	@Test
+	public void test_start_recordsOneLinePerEvent() throws Exception {
+		// setup
+		final File log = temporaryFolder.newFile();
+
+		// test
+		assertTrue(ConsentEventRecorder.start(log));
+		ConsentEventRecorder.recordIfActive(buildConsentUpdateEvent("y"));
+		ConsentEventRecorder.recordIfActive(buildConsentUpdateEvent("n"));
+		ConsentEventRecorder.stop();
+		ConsentEventRecorder.recordIfActive(buildConsentUpdateEvent("y"));
+
+		// verify
+		final List<String> lines = readLines(log);
+		assertEquals(2, lines.size());
+		assertEquals(EventSource.UPDATE_CONSENT, new JSONObject(lines.get(0)).getString(ConsentEventRecorder.SOURCE));
+	}
+
+	@Test
+	public void test_start_appendsToExistingLog() throws Exception {
+		// setup
+		final File log = temporaryFolder.newFile();
+		ConsentEventRecorder.start(log);
+		ConsentEventRecorder.recordIfActive(buildConsentUpdateEvent("y"));
+		ConsentEventRecorder.stop();
+
+		// test
+		ConsentEventRecorder.start(log);
+		ConsentEventRecorder.recordIfActive(buildConsentUpdateEvent("n"));
+		ConsentEventRecorder.stop();
+
+		// verify
+		assertEquals(2, readLines(log).size());
+	}
+
+	@Test
+	public void test_start_whenFileCannotBeOpened_returnsFalse() throws Exception {
+		// test
+		assertFalse(ConsentEventRecorder.start(temporaryFolder.newFolder()));
+	}
+
+	@Test
+	public void test_startEventRecording_nullFile_returnsFalse() {
+		// test
+		assertFalse(Consent.startEventRecording(null));
+	}
+
+	// ========================================================================================
+	// replay
+	// ========================================================================================
+
+	@Test
+	public void test_replay_recordedLog_reproducesSharedStatesAndDispatches() throws Exception {
+		// setup
+		final List<String> lines = new ArrayList<>();
+		lines.add(logLine(buildConfigurationResponseEvent(), TIMESTAMP));
+		lines.add(logLine(buildConsentUpdateEvent("y"), TIMESTAMP + 2000));
+		lines.add(logLine(buildConsentUpdateEvent("n"), TIMESTAMP + 4000));
+		lines.add(
+			logLine(
+				new Event.Builder("Get Consents", EventType.CONSENT, EventSource.REQUEST_CONTENT).build(),
+				TIMESTAMP + 5000
+			)
+		);
+
+		// record the events received by the extension while replaying the lines
+		final File log = temporaryFolder.newFile();
+		Consent.startEventRecording(log);
+		final ConsentEventReplay.Result expected = ConsentEventReplay.replay(lines);
+		Consent.stopEventRecording();
+
+		// test
+		final ConsentEventReplay.Result result = ConsentEventReplay.replay(log);
+
+		// verify
+		assertEquals(4, result.replayedEvents.size());
+		assertEquals(4, result.costNanos.size());
+		assertEquals(0, result.skippedLines);
+		assertEquals(expected.sharedStates, result.sharedStates);
+		assertEquals(expected.dispatchedEvents.size(), result.dispatchedEvents.size());
+
+		for (int i = 0; i < expected.dispatchedEvents.size(); i++) {
+			assertEquals(
+				expected.dispatchedEvents.get(i).getEventData(),
+				result.dispatchedEvents.get(i).getEventData()
+			);
+		}
+
+		final Map<String, Object> lastConsents = (Map<String, Object>) result.lastSharedState().get("consents");
+		assertEquals("n", ((Map<String, Object>) lastConsents.get("collect")).get("val"));
+	}
+
+	@Test
+	public void test_replay_usesRecordedTimestamps() {
+		// setup, the same update twice within the 1 second throttling interval, then after it
+		final Event event = buildConsentUpdateEvent("y");
+		final List<String> lines = Arrays.asList(
+			logLine(event, TIMESTAMP),
+			logLine(event, TIMESTAMP + 500),
+			logLine(event, TIMESTAMP + 3000)
+		);
+
+		// test
+		final ConsentEventReplay.Result result = ConsentEventReplay.replay(lines);
+
+		// verify, the throttled update does not create a shared state
+		assertEquals(3, result.replayedEvents.size());
+		assertEquals(2, result.sharedStates.size());
+		assertTrue(result.summary().contains("3 events replayed, 0 lines skipped, 2 shared states"));
+	}
+
+	@Test
+	public void test_replay_skipsInvalidAndUnknownEvents() {
+		// setup
+		final List<String> lines = Arrays.asList(
+			"",
+			"{",
+			logLine(new Event.Builder("Other", EventType.HUB, EventSource.SHARED_STATE).build(), TIMESTAMP),
+			logLine(buildConsentUpdateEvent("y"), TIMESTAMP)
+		);
+
+		// test
+		final ConsentEventReplay.Result result = ConsentEventReplay.replay(lines);
+
+		// verify
+		assertEquals(1, result.replayedEvents.size());
+		assertEquals(3, result.skippedLines);
+	}
+
+	private static Event buildConsentUpdateEvent(final String collectConsent) {
+		return new Event.Builder("Consent Update", EventType.CONSENT, EventSource.UPDATE_CONSENT)
+			.setEventData(new ConsentTestUtil.ConsentsBuilder().setCollect(collectConsent).buildToMap())
+			.build();
+	}
+
+	private static Event buildConfigurationResponseEvent() {
+		final Map<String, Object> configData = new HashMap<>();
+		configData.put(
+			ConsentConstants.ConfigurationKey.DEFAULT_CONSENT,
+			new ConsentTestUtil.ConsentsBuilder().setCollect("y").buildToMap()
+		);
+		return new Event.Builder("Configuration Response Event", EventType.CONFIGURATION, EventSource.RESPONSE_CONTENT)
+			.setEventData(configData)
+			.build();
+	}
+
+	/**
+	 * Serializes the event as recorded at the given timestamp.
+	 */
+	private static String logLine(final Event event, final long timestamp) {
+		try {
+			final JSONObject line = new JSONObject(ConsentEventRecorder.toLogLine(event));
+			line.put(ConsentEventRecorder.TIMESTAMP, timestamp);
+			return line.toString();
+		} catch (final Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static List<String> readLines(final File file) throws IOException {
+		return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,234 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.ExtensionApi;
+import com.adobe.marketing.mobile.ExtensionEventListener;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.mockito.Mockito;
+
+/**
+ * Replays an event log recorded by the {@link ConsentEventRecorder} through a new {@link
+ * ConsentExtension} with empty persistence and a fake {@link ExtensionApi}.
+ *
+ * <p>Replayed events carry their recorded timestamps, so the extension sees the same virtual clock
+ * as during the recording: throttling and the metrics interval behave as they did on the device.
+ * The replay reports the shared states created, the events dispatched and the processing time of
+ * every replayed event.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * ConsentEventReplay.Result result = ConsentEventReplay.replay(new File("consent-events.log"));
+ * System.out.println(result.summary());
+ * }</pre>
+ */
+class ConsentEventReplay {
+
+	private ConsentEventReplay() {}
+
+	/**
+	 * The outcome of a replay.
+	 */
+	static class Result {
+
+		final List<Event> replayedEvents = new ArrayList<>();
+		final List<Long> costNanos = new ArrayList<>();
+		final List<Map<String, Object>> sharedStates = new ArrayList<>();
+		final List<Event> dispatchedEvents = new ArrayList<>();
+		int skippedLines;
+
+		/**
+		 * @return the last shared state created, or null if none was created
+		 */
+		Map<String, Object> lastSharedState() {
+			return sharedStates.isEmpty() ? null : sharedStates.get(sharedStates.size() - 1);
+		}
+
+		/**
+		 * @return a human readable report of the replay, with one line per replayed event
+		 */
+		String summary() {
+			final StringBuilder summary = new StringBuilder();
+			long totalNanos = 0;
+			long maxNanos = 0;
+
+			for (int i = 0; i < replayedEvents.size(); i++) {
+				final Event event = replayedEvents.get(i);
+				final long nanos = costNanos.get(i);
+				totalNanos += nanos;
+				maxNanos = Math.max(maxNanos, nanos);
+				summary.append(
+					String.format(
+						"%d %s (%s, %s): %d us%n",
+						event.getTimestamp(),
+						event.getName(),
+						event.getType(),
+						event.getSource(),
+						nanos / 1000
+					)
+				);
+			}
+
+			summary.append(
+				String.format(
+					"%d events replayed, %d lines skipped, %d shared states, %d events dispatched, " +
+					"total %d us, max %d us",
+					replayedEvents.size(),
+					skippedLines,
+					sharedStates.size(),
+					dispatchedEvents.size(),
+					totalNanos / 1000,
+					maxNanos / 1000
+				)
+			);
+			return summary.toString();
+		}
+	}
+
+	/**
+	 * Replays the given log file.
+	 *
+	 * @param log the log file recorded by {@link Consent#startEventRecording(File)}
+	 * @return the {@link Result} of the replay
+	 * @throws IOException if the log file cannot be read
+	 */
+	static Result replay(final File log) throws IOException {
+		final List<String> lines = new ArrayList<>();
+
+		try (
+			BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(log), StandardCharsets.UTF_8)
+			)
+		) {
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		}
+
+		return replay(lines);
+	}
+
+	/**
+	 * Replays the given log lines. Lines that are empty or cannot be parsed are skipped.
+	 *
+	 * @param lines the log lines
+	 * @return the {@link Result} of the replay
+	 */
+	static Result replay(final List<String> lines) {
+		final Result result = new Result();
+		final Map<String, ExtensionEventListener> listeners = new HashMap<>();
+		final ConsentExtension extension = new ConsentExtension(
+			fakeExtensionApi(result, listeners),
+			new FakeNamedCollection()
+		);
+		extension.onRegistered();
+
+		for (final String line : lines) {
+			final Event event = parseEvent(line);
+			final ExtensionEventListener listener = event != null
+				? listeners.get(listenerKey(event.getType(), event.getSource()))
+				: null;
+
+			if (listener == null) {
+				result.skippedLines++;
+				continue;
+			}
+
+			final long start = System.nanoTime();
+			listener.hear(event);
+			result.costNanos.add(System.nanoTime() - start);
+			result.replayedEvents.add(event);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Rebuilds the event of a log line with its recorded timestamp and identifier.
+	 * {@code Event.Builder} always uses the current time, so the event is a stub.
+	 *
+	 * @param line the log line
+	 * @return the {@link Event}, or null if the line cannot be parsed
+	 */
+	static Event parseEvent(final String line) {
+		if (line == null || line.trim().isEmpty()) {
+			return null;
+		}
+
+		try {
+			final JSONObject json = new JSONObject(line);
+			final Map<String, Object> eventData = ConsentEventRecorder.parseEventData(json);
+			final Event event = Mockito.mock(Event.class, Mockito.withSettings().stubOnly());
+			when(event.getTimestamp()).thenReturn(json.getLong(ConsentEventRecorder.TIMESTAMP));
+			when(event.getUniqueIdentifier()).thenReturn(json.optString(ConsentEventRecorder.ID));
+			when(event.getName()).thenReturn(json.optString(ConsentEventRecorder.NAME));
+			when(event.getType()).thenReturn(json.getString(ConsentEventRecorder.TYPE));
+			when(event.getSource()).thenReturn(json.getString(ConsentEventRecorder.SOURCE));
+			when(event.getEventData()).thenReturn(eventData);
+			return event;
+		} catch (final JSONException e) {
+			return null;
+		}
+	}
+
+	private static ExtensionApi fakeExtensionApi(
+		final Result result,
+		final Map<String, ExtensionEventListener> listeners
+	) {
+		final ExtensionApi extensionApi = Mockito.mock(ExtensionApi.class, Mockito.withSettings().stubOnly());
+		doAnswer(invocation -> {
+				listeners.put(
+					listenerKey(invocation.getArgument(0), invocation.getArgument(1)),
+					invocation.getArgument(2)
+				);
+				return null;
+			})
+			.when(extensionApi)
+			.registerEventListener(anyString(), anyString(), any(ExtensionEventListener.class));
+		doAnswer(invocation -> {
+				result.sharedStates.add(invocation.getArgument(0));
+				return null;
+			})
+			.when(extensionApi)
+			.createXDMSharedState(any(), any());
+		doAnswer(invocation -> {
+				result.dispatchedEvents.add(invocation.getArgument(0));
+				return null;
+			})
+			.when(extensionApi)
+			.dispatch(any(Event.class));
+		return extensionApi;
+	}
+
+	private static String listenerKey(final String type, final String source) {
+		return type + "/" + source;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class ConsentExpirySchedulerTest {
+
+	private static final long FAR_FUTURE_EXPIRY = 4102444800000L; // 2100-01-01
+
+	private final CountDownLatch expired = new CountDownLatch(1);
+	private final ConsentExpiryScheduler scheduler = new ConsentExpiryScheduler(expired::countDown);
+
+	@After
+	public void teardown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void test_schedule_inThePast_runsImmediately() throws Exception {
+		// test
+		scheduler.schedule(System.currentTimeMillis() - 1000);
+
+		// verify
+		assertTrue(expired.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void test_schedule_replacesScheduledExpiry() throws Exception {
+		// setup
+		scheduler.schedule(FAR_FUTURE_EXPIRY);
+
+		// test
+		scheduler.schedule(System.currentTimeMillis() + 50);
+
+		// verify
+		assertTrue(expired.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void test_schedule_withoutExpiry_cancels() throws Exception {
+		// setup
+		scheduler.schedule(System.currentTimeMillis() + 100);
+		assertTrue(scheduler.getScheduledExpiry() > 0);
+
+		// test
+		scheduler.schedule(0);
+
+		// verify
+		assertEquals(0, scheduler.getScheduledExpiry());
+		assertFalse(expired.await(300, TimeUnit.MILLISECONDS));
+	}
+}
@@ -13,11 +13,14 @@ package com.adobe.marketing.mobile.edge.consent;
 
 import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.*;
 import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -27,20 +30,26 @@ import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.ExtensionApi;
 import com.adobe.marketing.mobile.ExtensionEventListener;
+import com.adobe.marketing.mobile.services.DeviceInforming;
 import com.adobe.marketing.mobile.services.NamedCollection;
+import com.adobe.marketing.mobile.services.ServiceProvider;
 import com.adobe.marketing.mobile.util.JSONUtils;
 import com.adobe.marketing.mobile.util.TimeUtils;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -55,6 +64,12 @@ public class ConsentExtensionTest {
 	@Mock
 	NamedCollection mockNamedCollection;
 
+	@Mock
+	ServiceProvider mockServiceProvider;
+
+	@Mock
+	DeviceInforming mockDeviceInfoService;
+
 	@Before
 	public void setup() {
 		Mockito.reset(mockExtensionApi);
@@ -62,6 +77,11 @@ public class ConsentExtensionTest {
 		extension = new ConsentExtension(mockExtensionApi, mockNamedCollection);
 	}
 
+	@After
+	public void teardown() {
+		Consent.setTracer(null);
+	}
+
 	// ========================================================================================
 	// constructor
 	// ========================================================================================
@@ -74,7 +94,7 @@ public class ConsentExtensionTest {
 		);
 		extension.onRegistered();
 
-		verify(mockExtensionApi, times(4))
+		verify(mockExtensionApi, times(8))
 			.registerEventListener(
 				eventTypeCaptor.capture(),
 				eventSourceCaptor.capture(),
@@ -105,6 +125,26 @@ public class ConsentExtensionTest {
 		assertEquals(EventType.CONFIGURATION, eventTypes.get(3));
 		assertEquals(EventSource.RESPONSE_CONTENT, eventSources.get(3));
 		assertNotNull(extensionEventListenerList.get(3));
+
+		// Verify: 5th Consent event listener
+		assertEquals(EventType.EDGE, eventTypes.get(4));
+		assertEquals(EventSource.ERROR_RESPONSE_CONTENT, eventSources.get(4));
+		assertNotNull(extensionEventListenerList.get(4));
+
+		// Verify: 6th Consent event listener
+		assertEquals(EventType.CONSENT, eventTypes.get(5));
+		assertEquals(ConsentConstants.EventSources.EXPIRY, eventSources.get(5));
+		assertNotNull(extensionEventListenerList.get(5));
+
+		// Verify: 7th Consent event listener
+		assertEquals(EventType.CONSENT, eventTypes.get(6));
+		assertEquals(ConsentConstants.EventSources.HISTORY_REQUEST, eventSources.get(6));
+		assertNotNull(extensionEventListenerList.get(6));
+
+		// Verify: 8th Consent event listener
+		assertEquals(EventType.CONSENT, eventTypes.get(7));
+		assertEquals(ConsentConstants.EventSources.NETWORK_AVAILABLE, eventSources.get(7));
+		assertNotNull(extensionEventListenerList.get(7));
 	}
 
 	@Test
@@ -148,6 +188,75 @@ public class ConsentExtensionTest {
 		verify(mockExtensionApi, never()).dispatch(dispatchedEventCaptor.capture());
 	}
 
+	@Test
+	public void test_OnBootUp_WithPersistedDefaults_SharesDefaultsBeforeConfiguration() {
+		// setup
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS, null))
+			.thenReturn(new ConsentsBuilder().setCollect("n").buildToString());
+		ArgumentCaptor<Map> sharedStateCaptor = ArgumentCaptor.forClass(Map.class);
+
+		// test
+		extension = new ConsentExtension(mockExtensionApi, mockNamedCollection);
+		extension.handleInitialization();
+
+		// verify
+		verify(mockExtensionApi, times(1)).createXDMSharedState(sharedStateCaptor.capture(), any());
+		Map<String, Object> sharedState = sharedStateCaptor.getValue();
+		assertEquals("n", ((Map) ((Map) sharedState.get("consents")).get("collect")).get("val"));
+	}
+
+	@Test
+	public void test_OnBootUp_WithPersistedDefaults_SameConfigurationDefaults_DoesNotShareAgain() throws Exception {
+		// setup
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS, null))
+			.thenReturn(new ConsentsBuilder().setCollect("n").buildToString());
+		extension = new ConsentExtension(mockExtensionApi, mockNamedCollection);
+		extension.handleInitialization();
+
+		// test
+		extension.handleConfigurationResponse(
+			buildConfigurationResponseEvent(new ConsentsBuilder().setCollect("n").buildToString())
+		);
+
+		// verify only the boot shared state is created
+		verify(mockExtensionApi, times(1)).createXDMSharedState(any(), any());
+	}
+
+	@Test
+	public void test_OnBootUp_WithCachedSharedState_SharesCachedState() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+		assertNull(persistence.getString(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE, null));
+		// the next launch caches the stale shared state
+		new ConsentExtension(mockExtensionApi, persistence).handleInitialization();
+		final String cachedSharedState = persistence.getString(
+			ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE,
+			null
+		);
+		assertNotNull(cachedSharedState);
+		Mockito.reset(mockExtensionApi);
+		ArgumentCaptor<Map> sharedStateCaptor = ArgumentCaptor.forClass(Map.class);
+
+		// test
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleInitialization();
+
+		// verify
+		assertSame(
+			cachedSharedState,
+			persistence.getString(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE, null)
+		);
+		verify(mockExtensionApi, times(1)).createXDMSharedState(sharedStateCaptor.capture(), any());
+		Map<String, Object> sharedState = sharedStateCaptor.getValue();
+		assertEquals("y", ((Map) ((Map) sharedState.get("consents")).get("collect")).get("val"));
+		assertEquals("n", ((Map) ((Map) sharedState.get("consents")).get("adID")).get("val"));
+		assertNotNull(((Map) ((Map) sharedState.get("consents")).get("metadata")).get("time"));
+	}
+
 	//
 	// ========================================================================================
 	// getName
@@ -254,6 +363,57 @@ public class ConsentExtensionTest {
 		verify(mockExtensionApi, times(2)).dispatch(eventCaptor.capture());
 	}
 
+	@Test
+	public void test_handleConfigurationResponse_withPolicyAndRegionalDefaults_sharesOnce() throws Exception {
+		// setup
+		final Map<String, Object> configEventData = new HashMap<>();
+		configEventData.put(
+			ConsentConstants.ConfigurationKey.DEFAULT_CONSENT,
+			new ConsentsBuilder().setCollect("y").setAdId("y").setPersonalize("vi").buildToMap()
+		);
+		configEventData.put(
+			ConsentConstants.ConfigurationKey.REGIONAL_DEFAULT_CONSENT,
+			new ConsentsBuilder().setAdId("n").setPersonalize("n").buildToMap()
+		);
+		configEventData.put(
+			ConsentConstants.ConfigurationKey.POLICY_CONSENT,
+			new ConsentsBuilder().setPersonalize("y").buildToMap()
+		);
+		final Event configEvent = new Event.Builder(
+			"Configuration Response Event",
+			EventType.CONFIGURATION,
+			EventSource.RESPONSE_CONTENT
+		)
+			.setEventData(configEventData)
+			.build();
+		ArgumentCaptor<Map> sharedStateCaptor = ArgumentCaptor.forClass(Map.class);
+
+		// test
+		extension.handleConfigurationResponse(configEvent);
+
+		// verify a single XDM shared state is set, with the consents of each layer in order of precedence
+		verify(mockExtensionApi, times(1)).createXDMSharedState(sharedStateCaptor.capture(), eq(configEvent));
+		verify(mockExtensionApi, times(1)).dispatch(any(Event.class));
+		assertEquals(
+			new ConsentsBuilder().setCollect("y").setAdId("n").setPersonalize("y").buildToMap(),
+			sharedStateCaptor.getValue()
+		);
+
+		// test - the user cannot override the policy consents
+		extension.handleConsentUpdate(
+			new Event.Builder("Consent Update", EventType.CONSENT, EventSource.UPDATE_CONSENT)
+				.setEventData(new ConsentsBuilder().setCollect("n").setAdId("y").setPersonalize("n").buildToMap())
+				.build()
+		);
+
+		// verify
+		verify(mockExtensionApi, times(2)).createXDMSharedState(sharedStateCaptor.capture(), any(Event.class));
+		final Map<String, Object> consents = (Map<String, Object>) sharedStateCaptor.getValue().get("consents");
+		assertEquals("n", ((Map) consents.get("collect")).get("val"));
+		assertEquals("y", ((Map) consents.get("adID")).get("val"));
+		assertEquals("y", ((Map) ((Map) consents.get("personalize")).get("content")).get("val"));
+	}
+
 	@Test
 	public void test_handleConfigurationResponse_WhenNoEventData() {
 		// setup
@@ -451,6 +611,168 @@ public class ConsentExtensionTest {
 		assertEquals("y", adID.get("val"));
 	}
 
+	@Test
+	public void test_handleConsentUpdate_withConsentUpdatePayload() {
+		// setup
+		setupExistingConsents(new ConsentsBuilder().setCollect("n").setAdId("n").buildToString());
+		ArgumentCaptor<Map> sharedStateCaptor = ArgumentCaptor.forClass(Map.class);
+		final ConsentUpdate consentUpdate = new ConsentUpdate.Builder()
+			.setCollect("y")
+			.setMarketing("email", "y")
+			.build();
+		Event consentUpdateEvent = new Event.Builder("Consent Update", EventType.CONSENT, EventSource.UPDATE_CONSENT)
+			.setEventData(consentUpdate.toEventData())
+			.build();
+		ConsentUpdate.markValidatedEvent(consentUpdateEvent.getUniqueIdentifier());
+
+		// test
+		extension.handleConsentUpdate(consentUpdateEvent);
+
+		// verify
+		verify(mockExtensionApi, times(1)).createXDMSharedState(sharedStateCaptor.capture(), eq(consentUpdateEvent));
+		Map<String, Object> sharedState = sharedStateCaptor.getValue();
+		assertEquals("y", ((Map) ((Map) sharedState.get("consents")).get("collect")).get("val"));
+		assertEquals("n", ((Map) ((Map) sharedState.get("consents")).get("adID")).get("val"));
+		assertEquals(
+			"y",
+			((Map) ((Map) ((Map) sharedState.get("consents")).get("marketing")).get("email")).get("val")
+		);
+		assertNotNull(((Map) ((Map) sharedState.get("consents")).get("metadata")).get("time"));
+		assertFalse(ConsentUpdate.consumeValidatedEvent(consentUpdateEvent.getUniqueIdentifier()));
+	}
+
+	@Test
+	public void test_handleHistoryRequest_dispatchesPageOfChanges() {
+		// setup
+		extension = new ConsentExtension(mockExtensionApi, new FakeNamedCollection());
+		extension.handleConfigurationResponse(
+			buildConfigurationResponseEvent(new ConsentsBuilder().setCollect("n").buildToString())
+		);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+		Mockito.clearInvocations(mockExtensionApi);
+		final Map<String, Object> requestData = new HashMap<>();
+		requestData.put(ConsentConstants.EventDataKey.FROM_REVISION, 1);
+		requestData.put(ConsentConstants.EventDataKey.LIMIT, 10);
+		Event historyRequestEvent = new Event.Builder(
+			ConsentConstants.EventNames.GET_HISTORY_REQUEST,
+			EventType.CONSENT,
+			ConsentConstants.EventSources.HISTORY_REQUEST
+		)
+			.setEventData(requestData)
+			.build();
+		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+
+		// test
+		extension.handleHistoryRequest(historyRequestEvent);
+
+		// verify only the consent update is returned, after the defaults change
+		verify(mockExtensionApi, times(1)).dispatch(eventCaptor.capture());
+		Event responseEvent = eventCaptor.getValue();
+		assertEquals(ConsentConstants.EventSources.HISTORY_RESPONSE, responseEvent.getSource());
+		assertEquals(historyRequestEvent.getUniqueIdentifier(), responseEvent.getResponseID());
+		List<Map<String, Object>> entries = (List<Map<String, Object>>) responseEvent
+			.getEventData()
+			.get(ConsentConstants.EventDataKey.ENTRIES);
+		assertEquals(1, entries.size());
+		assertEquals(ConsentHistory.SOURCE_API, entries.get(0).get(ConsentHistory.SOURCE));
+		Map<String, Object> changes = (Map<String, Object>) entries.get(0).get(ConsentConstants.EventDataKey.CONSENTS);
+		assertEquals("y", ((Map) changes.get("collect")).get("val"));
+		assertEquals("n", ((Map) changes.get("adID")).get("val"));
+		assertEquals(2L, responseEvent.getEventData().get(ConsentConstants.EventDataKey.NEXT_REVISION));
+	}
+
+	@Test
+	public void test_handleConsentExpiry_fallsBackToDefaults_sharesOnceAndDispatchesDelta() {
+		// setup
+		extension = new ConsentExtension(mockExtensionApi, new FakeNamedCollection());
+		extension.handleConfigurationResponse(
+			buildConfigurationResponseEvent(new ConsentsBuilder().setCollect("n").buildToString())
+		);
+		final Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap();
+		final Map<String, Object> expiry = new HashMap<>();
+		expiry.put("collect", 1000L);
+		expiry.put("adID", 1000L);
+		consentData.put("expiry", expiry);
+		extension.handleConsentUpdate(
+			new Event.Builder("Consent Update", EventType.CONSENT, EventSource.UPDATE_CONSENT)
+				.setEventData(consentData)
+				.build()
+		);
+		Mockito.clearInvocations(mockExtensionApi);
+		ArgumentCaptor<Map> sharedStateCaptor = ArgumentCaptor.forClass(Map.class);
+		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+		Event expiryEvent = new Event.Builder(
+			ConsentConstants.EventNames.CONSENT_EXPIRY,
+			EventType.CONSENT,
+			ConsentConstants.EventSources.EXPIRY
+		)
+			.build();
+
+		try {
+			// test
+			extension.handleConsentExpiry(expiryEvent);
+
+			// verify a single shared state with the default consents
+			verify(mockExtensionApi, times(1)).createXDMSharedState(sharedStateCaptor.capture(), eq(expiryEvent));
+			Map<String, Object> sharedState = sharedStateCaptor.getValue();
+			assertEquals("n", ((Map) ((Map) sharedState.get("consents")).get("collect")).get("val"));
+			assertNull(((Map) sharedState.get("consents")).get("adID"));
+
+			// verify the delta is dispatched to Edge, the expiry event dispatched by the timer is ignored
+			verify(mockExtensionApi, Mockito.atLeastOnce()).dispatch(eventCaptor.capture());
+			List<Event> edgeEvents = new ArrayList<>();
+
+			for (Event event : eventCaptor.getAllValues()) {
+				if (ConsentConstants.EventNames.EDGE_CONSENT_UPDATE.equals(event.getName())) {
+					edgeEvents.add(event);
+				}
+			}
+
+			assertEquals(1, edgeEvents.size());
+			Map<String, Object> edgeConsents = (Map) edgeEvents.get(0).getEventData().get("consents");
+			assertEquals("n", ((Map) edgeConsents.get("collect")).get("val"));
+			assertNull(edgeConsents.get("adID"));
+
+			// verify nothing changes once the consents expired
+			Mockito.clearInvocations(mockExtensionApi);
+			extension.handleConsentExpiry(expiryEvent);
+			verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
+		} finally {
+			extension.onUnregistered();
+		}
+	}
+
+	@Test
+	public void test_OnBootUp_withConsentsExpiredWhileNotRunning_removesThemBeforeSharing() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap();
+		consentData.put("expiry", Collections.singletonMap("collect", 1000L));
+		new ConsentExtension(mockExtensionApi, persistence)
+			.handleConsentUpdate(
+				new Event.Builder("Consent Update", EventType.CONSENT, EventSource.UPDATE_CONSENT)
+					.setEventData(consentData)
+					.build()
+			);
+		Mockito.reset(mockExtensionApi);
+		ArgumentCaptor<Map> sharedStateCaptor = ArgumentCaptor.forClass(Map.class);
+
+		// test
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+
+		try {
+			extension.handleInitialization();
+
+			// verify a single shared state without the expired consents
+			verify(mockExtensionApi, times(1)).createXDMSharedState(sharedStateCaptor.capture(), any());
+			Map<String, Object> sharedState = sharedStateCaptor.getValue();
+			assertNull(((Map) sharedState.get("consents")).get("collect"));
+			assertEquals("y", ((Map) ((Map) sharedState.get("consents")).get("adID")).get("val"));
+		} finally {
+			extension.onUnregistered();
+		}
+	}
+
 	@Test
 	public void test_handleConsentUpdate_doesNotDispatchEdgeEvent_ifConsentUpdateIsWithinIgnoreInterval() {
 		// setup
@@ -517,6 +839,401 @@ public class ConsentExtensionTest {
 		verify(mockExtensionApi, times(4)).dispatch(eventCaptor.capture());
 	}
 
+	@Test
+	public void test_handleConsentUpdate_afterRestart_doesNotDispatchEdgeEvent_ifSameConsentsConfirmedByEdge() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+		extension.handleEdgeConsentPreferenceHandle(
+			buildEdgeConsentPreferenceEventWithConsents(new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap())
+		);
+		Mockito.reset(mockExtensionApi);
+		final String persistedConsents = persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null);
+
+		// test, restart and send the same consent update
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+
+		// verify the dropped update is not persisted either, so persistence matches the shared state
+		verifyNoSharedStateChange();
+		verifyNoEventDispatched();
+		assertSame(persistedConsents, persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null));
+	}
+
+	@Test
+	public void test_handleConsentUpdate_afterRestart_dispatchesEdgeEvent_ifSameConsentsNotConfirmedByEdge() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+		Mockito.reset(mockExtensionApi);
+		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+
+		// test, restart and send the same consent update
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+
+		// verify
+		verify(mockExtensionApi, times(2)).dispatch(eventCaptor.capture());
+		assertEquals(ConsentConstants.EventNames.EDGE_CONSENT_UPDATE, eventCaptor.getAllValues().get(1).getName());
+	}
+
+	@Test
+	public void test_handleConsentUpdate_afterRestart_dispatchesEdgeEvent_ifDifferentConsentsConfirmedByEdge() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+		extension.handleEdgeConsentPreferenceHandle(
+			buildEdgeConsentPreferenceEventWithConsents(new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap())
+		);
+		Mockito.reset(mockExtensionApi);
+		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+
+		// test, restart and send a different consent update
+		extension = new ConsentExtension(mockExtensionApi, persistence);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("n", "n"));
+
+		// verify
+		verify(mockExtensionApi, times(2)).dispatch(eventCaptor.capture());
+		Event edgeConsentUpdateEvent = eventCaptor.getAllValues().get(1);
+		assertEquals(ConsentConstants.EventNames.EDGE_CONSENT_UPDATE, edgeConsentUpdateEvent.getName());
+
+		// verify only the changed consents are sent to Edge
+		Map<String, Object> consents = (Map) edgeConsentUpdateEvent.getEventData().get("consents");
+		assertEquals("n", ((Map) consents.get("collect")).get("val"));
+		assertNull(consents.get("adID"));
+		assertNotNull(((Map) consents.get("metadata")).get("time"));
+	}
+
+	@Test
+	public void test_handleConsentUpdate_dispatchesOnlyConsentsChangedFromLastEdgeUpdate() {
+		// setup
+		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+
+		// test, send the full consents with a single changed value
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "y"));
+
+		// verify
+		verify(mockExtensionApi, times(4)).dispatch(eventCaptor.capture());
+		Event edgeConsentUpdateEvent = eventCaptor.getAllValues().get(3);
+		assertEquals(ConsentConstants.EventNames.EDGE_CONSENT_UPDATE, edgeConsentUpdateEvent.getName());
+		Map<String, Object> consents = (Map) edgeConsentUpdateEvent.getEventData().get("consents");
+		assertEquals(2, consents.size());
+		assertEquals("y", ((Map) consents.get("adID")).get("val"));
+		assertNotNull(((Map) consents.get("metadata")).get("time"));
+	}
+
+	@Test
+	public void test_handleConsentUpdate_whenOffline_queuesUpdatesAndFlushesFinalStateOnEdgeResponse() {
+		try (MockedStatic<ServiceProvider> serviceProviderMockedStatic = mockNetworkConnectionStatus()) {
+			// setup
+			Mockito
+				.when(mockDeviceInfoService.getNetworkConnectionStatus())
+				.thenReturn(DeviceInforming.ConnectionStatus.DISCONNECTED);
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+
+			// test, consents flip while offline
+			extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+			extension.handleConsentUpdate(buildConsentUpdateEvent("n", "n"));
+			extension.handleConsentUpdate(buildConsentUpdateEvent("n", "y"));
+
+			// verify only the shared state updates are dispatched
+			verify(mockExtensionApi, times(3)).dispatch(eventCaptor.capture());
+
+			for (Event event : eventCaptor.getAllValues()) {
+				assertEquals(ConsentConstants.EventNames.CONSENT_PREFERENCES_UPDATED, event.getName());
+			}
+
+			// test, Edge reports connectivity
+			extension.handleEdgeErrorResponse(buildEdgeErrorResponseEvent());
+
+			// verify a single Edge consent update with the final consents is dispatched
+			verify(mockExtensionApi, times(4)).dispatch(eventCaptor.capture());
+			Event edgeConsentUpdateEvent = eventCaptor.getValue();
+			assertEquals(ConsentConstants.EventNames.EDGE_CONSENT_UPDATE, edgeConsentUpdateEvent.getName());
+			Map<String, Object> consents = (Map) edgeConsentUpdateEvent.getEventData().get("consents");
+			assertEquals("n", ((Map) consents.get("collect")).get("val"));
+			assertEquals("y", ((Map) consents.get("adID")).get("val"));
+
+			// test, flushing again does not dispatch anything
+			extension.handleEdgeErrorResponse(buildEdgeErrorResponseEvent());
+
+			// verify
+			verify(mockExtensionApi, times(4)).dispatch(any());
+		}
+	}
+
+	@Test
+	public void test_handleConsentUpdate_whenOffline_queuedUpdateIsFlushedAfterRestart() {
+		try (MockedStatic<ServiceProvider> serviceProviderMockedStatic = mockNetworkConnectionStatus()) {
+			// setup
+			Mockito
+				.when(mockDeviceInfoService.getNetworkConnectionStatus())
+				.thenReturn(DeviceInforming.ConnectionStatus.DISCONNECTED);
+			final FakeNamedCollection persistence = new FakeNamedCollection();
+			extension = new ConsentExtension(mockExtensionApi, persistence);
+			extension.handleConsentUpdate(buildConsentUpdateEvent("n", "n"));
+			Mockito.reset(mockExtensionApi);
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+
+			// test, restart and receive a consent:preferences handle from Edge
+			extension = new ConsentExtension(mockExtensionApi, persistence);
+			extension.handleEdgeConsentPreferenceHandle(
+				buildEdgeConsentPreferenceEventWithConsents(
+					new ConsentsBuilder().setCollect("n").setAdId("n").buildToMap()
+				)
+			);
+
+			// verify the queued consent update is dispatched to Edge
+			verify(mockExtensionApi).dispatch(eventCaptor.capture());
+			Event edgeConsentUpdateEvent = eventCaptor.getValue();
+			assertEquals(ConsentConstants.EventNames.EDGE_CONSENT_UPDATE, edgeConsentUpdateEvent.getName());
+			Map<String, Object> consents = (Map) edgeConsentUpdateEvent.getEventData().get("consents");
+			assertEquals("n", ((Map) consents.get("collect")).get("val"));
+			assertEquals("n", ((Map) consents.get("adID")).get("val"));
+		}
+	}
+
+	@Test
+	public void test_OnBootUp_whenOnline_flushesQueuedUpdate() {
+		try (MockedStatic<ServiceProvider> serviceProviderMockedStatic = mockNetworkConnectionStatus()) {
+			// setup
+			Mockito
+				.when(mockDeviceInfoService.getNetworkConnectionStatus())
+				.thenReturn(DeviceInforming.ConnectionStatus.DISCONNECTED);
+			final FakeNamedCollection persistence = new FakeNamedCollection();
+			extension = new ConsentExtension(mockExtensionApi, persistence);
+			extension.handleConsentUpdate(buildConsentUpdateEvent("n", "y"));
+			Mockito.reset(mockExtensionApi);
+			Mockito
+				.when(mockDeviceInfoService.getNetworkConnectionStatus())
+				.thenReturn(DeviceInforming.ConnectionStatus.CONNECTED);
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+
+			// test, restart while online
+			extension = new ConsentExtension(mockExtensionApi, persistence);
+			extension.handleInitialization();
+
+			// verify the queued consent update is dispatched to Edge
+			verify(mockExtensionApi, atLeastOnce()).dispatch(eventCaptor.capture());
+			Event edgeConsentUpdateEvent = null;
+
+			for (Event event : eventCaptor.getAllValues()) {
+				if (ConsentConstants.EventNames.EDGE_CONSENT_UPDATE.equals(event.getName())) {
+					edgeConsentUpdateEvent = event;
+				}
+			}
+
+			assertNotNull(edgeConsentUpdateEvent);
+			Map<String, Object> consents = (Map) edgeConsentUpdateEvent.getEventData().get("consents");
+			assertEquals("n", ((Map) consents.get("collect")).get("val"));
+			assertEquals("y", ((Map) consents.get("adID")).get("val"));
+		}
+	}
+
+	@Test
+	public void test_handleNetworkAvailable_flushesQueuedUpdate() {
+		try (MockedStatic<ServiceProvider> serviceProviderMockedStatic = mockNetworkConnectionStatus()) {
+			// setup
+			Mockito
+				.when(mockDeviceInfoService.getNetworkConnectionStatus())
+				.thenReturn(DeviceInforming.ConnectionStatus.DISCONNECTED);
+			extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+			Mockito.reset(mockExtensionApi);
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+			final Event networkAvailableEvent = new Event.Builder(
+				ConsentConstants.EventNames.CONSENT_NETWORK_AVAILABLE,
+				EventType.CONSENT,
+				ConsentConstants.EventSources.NETWORK_AVAILABLE
+			)
+				.build();
+
+			// test
+			extension.handleNetworkAvailable(networkAvailableEvent);
+
+			// verify the queued consent update is dispatched to Edge
+			verify(mockExtensionApi).dispatch(eventCaptor.capture());
+			Event edgeConsentUpdateEvent = eventCaptor.getValue();
+			assertEquals(ConsentConstants.EventNames.EDGE_CONSENT_UPDATE, edgeConsentUpdateEvent.getName());
+			Map<String, Object> consents = (Map) edgeConsentUpdateEvent.getEventData().get("consents");
+			assertEquals("y", ((Map) consents.get("collect")).get("val"));
+			assertEquals("n", ((Map) consents.get("adID")).get("val"));
+
+			// test, a second network callback does not dispatch anything
+			extension.handleNetworkAvailable(networkAvailableEvent);
+
+			// verify
+			verify(mockExtensionApi).dispatch(any());
+		}
+	}
+
+	@Test
+	public void test_handleConsentUpdate_whenOnlineAgain_sendsQueuedUpdateWithNewUpdate() {
+		try (MockedStatic<ServiceProvider> serviceProviderMockedStatic = mockNetworkConnectionStatus()) {
+			// setup
+			Mockito
+				.when(mockDeviceInfoService.getNetworkConnectionStatus())
+				.thenReturn(DeviceInforming.ConnectionStatus.DISCONNECTED)
+				.thenReturn(DeviceInforming.ConnectionStatus.CONNECTED);
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+			extension.handleConsentUpdate(buildConsentUpdateEvent("n", null));
+
+			// test
+			extension.handleConsentUpdate(buildConsentUpdateEvent(null, "y"));
+
+			// verify
+			verify(mockExtensionApi, times(3)).dispatch(eventCaptor.capture());
+			Event edgeConsentUpdateEvent = eventCaptor.getValue();
+			assertEquals(ConsentConstants.EventNames.EDGE_CONSENT_UPDATE, edgeConsentUpdateEvent.getName());
+			Map<String, Object> consents = (Map) edgeConsentUpdateEvent.getEventData().get("consents");
+			assertEquals("n", ((Map) consents.get("collect")).get("val"));
+			assertEquals("y", ((Map) consents.get("adID")).get("val"));
+		}
+	}
+
+	@Test
+	public void test_handleConsentUpdate_notifiesChangeListenersAfterSharingConsents() {
+		// setup
+		final List<String> changes = new ArrayList<>();
+		final ConsentChangeListener listener = (keyPath, oldValue, newValue) -> {
+			// the shared state is already created when the listener is notified
+			verify(mockExtensionApi).createXDMSharedState(any(), any());
+			changes.add(keyPath + ":" + oldValue + "->" + newValue);
+		};
+		final ConsentChangeListener throwingListener = (keyPath, oldValue, newValue) -> {
+			throw new IllegalStateException("listener failure");
+		};
+		ConsentChangeListeners.getInstance().register(Collections.singletonList("collect.val"), throwingListener);
+		ConsentChangeListeners.getInstance().register(Collections.singletonList("collect.val"), listener);
+
+		try {
+			// test
+			extension.handleConsentUpdate(buildConsentUpdateEvent("y", null));
+
+			// verify
+			assertEquals(Collections.singletonList("collect.val:null->y"), changes);
+			verify(mockExtensionApi, times(2)).dispatch(any());
+		} finally {
+			ConsentChangeListeners.getInstance().reset();
+		}
+	}
+
+	@Test
+	public void test_handleConsentUpdate_recordsMetrics() {
+		// setup
+		final ConsentMetrics metrics = ConsentMetrics.getInstance();
+		metrics.reset();
+
+		// test
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+
+		// verify
+		Map<String, Object> counters = (Map<String, Object>) metrics.snapshot().get(ConsentMetrics.COUNTERS);
+		assertEquals(2L, counters.get(ConsentMetrics.UPDATES_RECEIVED));
+		assertEquals(1L, counters.get(ConsentMetrics.UPDATES_MERGED));
+		assertEquals(1L, counters.get(ConsentMetrics.UPDATES_THROTTLED));
+		assertEquals(1L, counters.get(ConsentMetrics.SHARED_STATES_CREATED));
+		assertTrue((Long) counters.get(ConsentMetrics.PERSISTENCE_WRITES) > 0);
+		assertTrue((Long) counters.get(ConsentMetrics.PERSISTENCE_BYTES_WRITTEN) > 0);
+	}
+
+	@Test
+	public void test_registeredListener_recordsHandlerLatency() {
+		// setup
+		final ConsentMetrics metrics = ConsentMetrics.getInstance();
+		ArgumentCaptor<ExtensionEventListener> listenerCaptor = ArgumentCaptor.forClass(ExtensionEventListener.class);
+		extension.onRegistered();
+		verify(mockExtensionApi)
+			.registerEventListener(eq(EventType.CONSENT), eq(EventSource.UPDATE_CONSENT), listenerCaptor.capture());
+		metrics.reset();
+
+		// test
+		listenerCaptor.getValue().hear(buildConsentUpdateEvent("y", "n"));
+
+		// verify
+		Map<String, Object> latencies = (Map<String, Object>) metrics.snapshot().get(ConsentMetrics.LATENCIES);
+		Map<String, Object> histogram = (Map<String, Object>) latencies.get(ConsentMetrics.HANDLE_CONSENT_UPDATE);
+		assertEquals(1L, histogram.get(ConsentMetrics.COUNT));
+	}
+
+	@Test
+	public void test_handleConsentUpdate_withTracer_recordsSpans() {
+		// setup
+		RingBufferConsentTracer tracer = new RingBufferConsentTracer(32);
+		Consent.setTracer(tracer);
+
+		// test
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+
+		// verify
+		List<String> spanNames = new ArrayList<>();
+
+		for (Map<String, Object> span : tracer.getSpans()) {
+			spanNames.add((String) span.get(RingBufferConsentTracer.NAME));
+		}
+
+		assertTrue(spanNames.contains(ConsentTracer.SPAN_LOAD));
+		assertTrue(spanNames.contains(ConsentTracer.SPAN_MERGE));
+		assertTrue(spanNames.contains(ConsentTracer.SPAN_PERSIST));
+		assertTrue(spanNames.contains(ConsentTracer.SPAN_AS_XDM_MAP));
+		assertTrue(spanNames.contains(ConsentTracer.SPAN_CREATE_SHARED_STATE));
+		assertTrue(spanNames.contains(ConsentTracer.SPAN_DISPATCH));
+	}
+
+	@Test
+	public void test_handleConsentUpdate_afterTracerRemoved_doesNotRecordSpans() {
+		// setup
+		RingBufferConsentTracer tracer = new RingBufferConsentTracer(32);
+		Consent.setTracer(tracer);
+		Consent.setTracer(null);
+
+		// test
+		extension.handleConsentUpdate(buildConsentUpdateEvent("y", "n"));
+
+		// verify
+		assertTrue(tracer.getSpans().isEmpty());
+	}
+
+	@Test
+	public void test_dispatchMetricsEventIfDue_whenIntervalConfigured_dispatchesOncePerInterval() {
+		// setup
+		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+		Map<String, Object> configData = new HashMap<>();
+		configData.put(ConsentConstants.ConfigurationKey.METRICS_INTERVAL, 60);
+		extension.handleConfigurationResponse(
+			new Event.Builder("Configuration Response Event", EventType.CONFIGURATION, EventSource.RESPONSE_CONTENT)
+				.setEventData(configData)
+				.build()
+		);
+		Event event = buildConsentUpdateEvent("y", "n");
+
+		// test
+		extension.dispatchMetricsEventIfDue(event);
+		extension.dispatchMetricsEventIfDue(event);
+
+		// verify
+		verify(mockExtensionApi).dispatch(eventCaptor.capture());
+		Event metricsEvent = eventCaptor.getValue();
+		assertEquals(ConsentConstants.EventNames.CONSENT_METRICS, metricsEvent.getName());
+		assertEquals(EventType.CONSENT, metricsEvent.getType());
+		assertEquals(ConsentConstants.EventSources.METRICS, metricsEvent.getSource());
+		assertNotNull(metricsEvent.getEventData().get(ConsentMetrics.COUNTERS));
+		assertNotNull(metricsEvent.getEventData().get(ConsentMetrics.LATENCIES));
+	}
+
+	@Test
+	public void test_dispatchMetricsEventIfDue_whenIntervalNotConfigured_doesNotDispatch() {
+		// test
+		extension.dispatchMetricsEventIfDue(buildConsentUpdateEvent("y", "n"));
+
+		// verify
+		verifyNoEventDispatched();
+	}
+
 	// ========================================================================================
 	// handleRequestContent
 	// ========================================================================================
@@ -847,6 +1564,13 @@ public class ConsentExtensionTest {
 		extension = new ConsentExtension(mockExtensionApi, mockNamedCollection);
 	}
 
+	private MockedStatic<ServiceProvider> mockNetworkConnectionStatus() {
+		final MockedStatic<ServiceProvider> serviceProviderMockedStatic = Mockito.mockStatic(ServiceProvider.class);
+		serviceProviderMockedStatic.when(ServiceProvider::getInstance).thenReturn(mockServiceProvider);
+		Mockito.when(mockServiceProvider.getDeviceInfoService()).thenReturn(mockDeviceInfoService);
+		return serviceProviderMockedStatic;
+	}
+
 	private Event buildConsentUpdateEvent(final String collectConsentString, final String adIdConsentString) {
 		Map<String, Object> eventData = new ConsentsBuilder()
 			.setCollect(collectConsentString)
@@ -864,6 +1588,10 @@ public class ConsentExtensionTest {
 			.build();
 	}
 
+	private Event buildEdgeErrorResponseEvent() {
+		return new Event.Builder("AEP Error Response", EventType.EDGE, EventSource.ERROR_RESPONSE_CONTENT).build();
+	}
+
 	private Event buildConfigurationResponseEvent(final String jsonString) throws JSONException {
 		final Map<String, Object> consentMap = JSONUtils.toMap(new JSONObject(jsonString));
 		Map<String, Object> configEventData = new HashMap<String, Object>() {
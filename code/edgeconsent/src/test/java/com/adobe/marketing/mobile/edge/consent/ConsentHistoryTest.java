@@ -0,0 +1,199 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ConsentHistoryTest {
+
+	private static final long SAMPLE_TIMESTAMP = 1695492945000L;
+
+	private final FakeNamedCollection persistence = new FakeNamedCollection();
+	private final ConsentHistory history = new ConsentHistory(persistence);
+
+	@Test
+	public void test_record_readsPages() {
+		// setup
+		for (int i = 0; i < 5; i++) {
+			history.record(ConsentHistory.SOURCE_API, collect(i % 2 == 0 ? "y" : "n"), SAMPLE_TIMESTAMP);
+		}
+
+		// test
+		Map<String, Object> firstPage = history.read(0, 3);
+		Map<String, Object> secondPage = history.read(readNextRevision(firstPage), 3);
+
+		// verify
+		assertEquals(3, readEntries(firstPage).size());
+		assertEquals(3L, readNextRevision(firstPage));
+		assertEquals(2, readEntries(secondPage).size());
+		assertEquals(5L, readNextRevision(secondPage));
+
+		Map<String, Object> entry = readEntries(secondPage).get(1);
+		assertEquals(4, ((Number) entry.get(ConsentHistory.REVISION)).intValue());
+		assertEquals(ConsentHistory.SOURCE_API, entry.get(ConsentHistory.SOURCE));
+		assertEquals(SAMPLE_TIMESTAMP, ((Number) entry.get(ConsentHistory.TIMESTAMP)).longValue());
+		assertEquals(collect("y"), entry.get(ConsentConstants.EventDataKey.CONSENTS));
+		assertTrue(readEntries(history.read(5, 3)).isEmpty());
+		assertEquals(5L, readNextRevision(history.read(5, 3)));
+	}
+
+	@Test
+	public void test_record_removedConsent_recordsNull() {
+		// test
+		history.record(
+			ConsentHistory.SOURCE_EXPIRY,
+			Collections.<String, Object>singletonMap("collect", null),
+			SAMPLE_TIMESTAMP
+		);
+
+		// verify
+		Map<String, Object> entry = readEntries(history.read(0, 1)).get(0);
+		Map<String, Object> consents = (Map<String, Object>) entry.get(ConsentConstants.EventDataKey.CONSENTS);
+		assertTrue(consents.containsKey("collect"));
+		assertNull(consents.get("collect"));
+	}
+
+	@Test
+	public void test_record_whenFull_dropsOldestEntries() {
+		// test
+		for (int i = 0; i < ConsentHistory.CAPACITY + 10; i++) {
+			history.record(ConsentHistory.SOURCE_EDGE, collect("y"), SAMPLE_TIMESTAMP);
+		}
+
+		// verify
+		List<Map<String, Object>> entries = readEntries(history.read(0, ConsentHistory.CAPACITY * 2));
+		assertEquals(ConsentHistory.CAPACITY, entries.size());
+		assertEquals(10, ((Number) entries.get(0).get(ConsentHistory.REVISION)).intValue());
+	}
+
+	@Test
+	public void test_setMaxBytes_dropsOldestEntriesOverBudget() {
+		// setup
+		for (int i = 0; i < 10; i++) {
+			history.record(ConsentHistory.SOURCE_API, collect("y"), SAMPLE_TIMESTAMP);
+		}
+
+		final int entryBytes = ConsentsJson.write(readEntries(history.read(0, 1)).get(0)).length();
+
+		// test
+		history.setMaxBytes(entryBytes * 3);
+
+		// verify
+		List<Map<String, Object>> entries = readEntries(history.read(0, 10));
+		assertEquals(3, entries.size());
+		assertEquals(7, ((Number) entries.get(0).get(ConsentHistory.REVISION)).intValue());
+		String largeValue = new String(new char[entryBytes * 3]).replace('\0', 'y');
+		assertEquals(10L, history.record(ConsentHistory.SOURCE_API, collect(largeValue), SAMPLE_TIMESTAMP));
+	}
+
+	@Test
+	public void test_record_entryOverBudget_recordsTruncatedEntry() {
+		// setup
+		history.record(ConsentHistory.SOURCE_API, collect("y"), SAMPLE_TIMESTAMP);
+		final int entryBytes = ConsentsJson.write(readEntries(history.read(0, 1)).get(0)).length();
+		history.setMaxBytes(entryBytes * 3);
+		final String largeValue = new String(new char[entryBytes * 3]).replace('\0', 'y');
+
+		// test
+		final long revision = history.record(ConsentHistory.SOURCE_EDGE, collect(largeValue), SAMPLE_TIMESTAMP);
+
+		// verify
+		final List<Map<String, Object>> entries = readEntries(history.read(0, 10));
+		assertEquals(1L, revision);
+		assertEquals(2, entries.size());
+		final Map<String, Object> entry = entries.get(1);
+		assertEquals(1, ((Number) entry.get(ConsentHistory.REVISION)).intValue());
+		assertEquals(ConsentHistory.SOURCE_EDGE, entry.get(ConsentHistory.SOURCE));
+		assertEquals(true, entry.get(ConsentHistory.TRUNCATED));
+		assertFalse(entry.containsKey(ConsentConstants.EventDataKey.CONSENTS));
+	}
+
+	@Test
+	public void test_record_persistsEntries() {
+		// setup
+		for (int i = 0; i < ConsentHistory.CAPACITY + 2; i++) {
+			history.record(ConsentHistory.SOURCE_DEFAULTS, collect(String.valueOf(i)), SAMPLE_TIMESTAMP);
+		}
+
+		// test
+		ConsentHistory reloadedHistory = new ConsentHistory(persistence);
+
+		// verify
+		assertEquals(history.read(0, ConsentHistory.CAPACITY), reloadedHistory.read(0, ConsentHistory.CAPACITY));
+		assertEquals(
+			ConsentHistory.CAPACITY + 2L,
+			reloadedHistory.record(ConsentHistory.SOURCE_API, collect("y"), SAMPLE_TIMESTAMP)
+		);
+	}
+
+	@Test
+	public void test_record_afterSetMaxBytes_persistsDroppedEntries() {
+		// setup
+		for (int i = 0; i < 10; i++) {
+			history.record(ConsentHistory.SOURCE_API, collect(String.valueOf(i)), SAMPLE_TIMESTAMP);
+		}
+
+		final int entryBytes = ConsentsJson.write(readEntries(history.read(0, 1)).get(0)).length();
+		history.setMaxBytes(entryBytes * 3);
+		history.record(ConsentHistory.SOURCE_API, collect("y"), SAMPLE_TIMESTAMP);
+
+		// test
+		ConsentHistory reloadedHistory = new ConsentHistory(persistence);
+
+		// verify the entries dropped before the last record are not read back
+		List<Map<String, Object>> entries = readEntries(reloadedHistory.read(0, 20));
+		assertEquals(readEntries(history.read(0, 20)), entries);
+		assertTrue(entries.size() < 4);
+		assertEquals(10, ((Number) entries.get(entries.size() - 1).get(ConsentHistory.REVISION)).intValue());
+	}
+
+	@Test
+	public void test_record_writesSingleSlot() {
+		// setup
+		final NamedCollection mockNamedCollection = Mockito.mock(NamedCollection.class);
+		final ConsentHistory persistedHistory = new ConsentHistory(mockNamedCollection);
+		persistedHistory.read(0, 1);
+		Mockito.clearInvocations(mockNamedCollection);
+
+		// test
+		persistedHistory.record(ConsentHistory.SOURCE_API, collect("y"), SAMPLE_TIMESTAMP);
+
+		// verify
+		Mockito.verify(mockNamedCollection).setString(Mockito.eq("consent:history.0"), Mockito.anyString());
+		Mockito.verifyNoMoreInteractions(mockNamedCollection);
+	}
+
+	private static Map<String, Object> collect(final String value) {
+		return (Map<String, Object>) new ConsentTestUtil.ConsentsBuilder()
+			.setCollect(value)
+			.buildToMap()
+			.get(ConsentConstants.EventDataKey.CONSENTS);
+	}
+
+	private static List<Map<String, Object>> readEntries(final Map<String, Object> page) {
+		return (List<Map<String, Object>>) page.get(ConsentConstants.EventDataKey.ENTRIES);
+	}
+
+	private static long readNextRevision(final Map<String, Object> page) {
+		return ((Number) page.get(ConsentConstants.EventDataKey.NEXT_REVISION)).longValue();
+	}
+}
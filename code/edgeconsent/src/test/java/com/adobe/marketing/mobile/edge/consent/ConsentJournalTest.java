@@ -0,0 +1,165 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.ConsentsBuilder;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConsentJournalTest {
+
+	private static final long FAR_FUTURE_EXPIRY = 4102444800000L; // 2100-01-01
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File directory;
+
+	@Before
+	public void setup() throws Exception {
+		directory = temporaryFolder.newFolder();
+	}
+
+	@Test
+	public void test_append_replaysRecordsOnNextLaunch() {
+		// setup
+		final ConsentJournal journal = new ConsentJournal(directory);
+		final Consents consents = new Consents(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap());
+		journal.compact(consents);
+
+		// test
+		final Map<String, Object> update = new ConsentsBuilder().setCollect("n").buildToMap();
+		update.put(ConsentConstants.EventDataKey.EXPIRY, FAR_FUTURE_EXPIRY);
+		append(journal, consents, new Consents(update));
+		consents.remove(Collections.singleton("adID"));
+		journal.append(ConsentJournal.removalRecord(Collections.singleton("adID"), consents));
+
+		// verify
+		final ConsentJournal reopenedJournal = new ConsentJournal(directory);
+		assertFalse(reopenedJournal.isEmpty());
+		final Consents replayedConsents = reopenedJournal.replay();
+		assertEquals(new ConsentsBuilder().setCollect("n").buildToMap(), replayedConsents.asXDMMap());
+		assertEquals(FAR_FUTURE_EXPIRY, replayedConsents.getNextExpiry());
+		assertTrue(reopenedJournal.contains("\"" + ConsentConstants.EventDataKey.EXPIRY + "\":"));
+	}
+
+	@Test
+	public void test_append_pastThreshold_compactsIntoSnapshot() throws Exception {
+		// setup
+		final ConsentJournal journal = new ConsentJournal(directory);
+		final Consents consents = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+		final String value = new String(new char[1024]).replace('\0', 'y');
+		final int appendCount = ConsentJournal.MIN_COMPACTION_BYTES / 1024;
+
+		// test
+		for (int i = 0; i < appendCount - 1; i++) {
+			assertFalse(append(journal, consents, new Consents(new ConsentsBuilder().setAdId(value + i).buildToMap())));
+		}
+
+		assertTrue(append(journal, consents, new Consents(new ConsentsBuilder().setAdId(value).buildToMap())));
+		assertTrue(journal.compact(consents));
+
+		// verify
+		assertEquals(0, new File(directory, ConsentJournal.JOURNAL_FILE).length());
+		final File snapshotFile = new File(directory, ConsentJournal.SNAPSHOT_FILE);
+		assertEquals(
+			PersistenceEnvelope.seal(consents.toJson()),
+			new String(Files.readAllBytes(snapshotFile.toPath()), StandardCharsets.UTF_8)
+		);
+		assertEquals(consents.asXDMMap(), new ConsentJournal(directory).replay().asXDMMap());
+	}
+
+	@Test
+	public void test_constructor_dropsInterruptedRecord() throws Exception {
+		// setup
+		final ConsentJournal journal = new ConsentJournal(directory);
+		final Consents consents = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+		append(journal, consents, new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+		final File journalFile = new File(directory, ConsentJournal.JOURNAL_FILE);
+		final long journalLength = journalFile.length();
+		Files.write(
+			journalFile.toPath(),
+			"{\"consents\":{\"adID\"".getBytes(StandardCharsets.UTF_8),
+			StandardOpenOption.APPEND
+		);
+
+		// test
+		final ConsentJournal reopenedJournal = new ConsentJournal(directory);
+
+		// verify
+		assertEquals(journalLength, journalFile.length());
+		assertEquals(new ConsentsBuilder().setCollect("n").buildToMap(), reopenedJournal.replay().asXDMMap());
+	}
+
+	@Test
+	public void test_constructor_dropsRecordsFromCorruptRecord() throws Exception {
+		// setup
+		final ConsentJournal journal = new ConsentJournal(directory);
+		final Consents consents = new Consents(new HashMap<String, Object>());
+		append(journal, consents, new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+		final File journalFile = new File(directory, ConsentJournal.JOURNAL_FILE);
+		final long journalLength = journalFile.length();
+		append(journal, consents, new Consents(new ConsentsBuilder().setAdId("y").buildToMap()));
+		append(journal, consents, new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+		final String records = new String(Files.readAllBytes(journalFile.toPath()), StandardCharsets.UTF_8);
+		final int corruptIndex = records.indexOf("\"y\"", (int) journalLength) + 1;
+		final String corruptRecords = records.substring(0, corruptIndex) + 'n' + records.substring(corruptIndex + 1);
+		Files.write(journalFile.toPath(), corruptRecords.getBytes(StandardCharsets.UTF_8));
+
+		// test
+		final ConsentJournal reopenedJournal = new ConsentJournal(directory);
+		reopenedJournal.append(new Consents(new ConsentsBuilder().setPersonalize("y").buildToMap()).toJson());
+
+		// verify the records after the corrupt record are not replayed over it, the new record is
+		assertEquals(
+			new ConsentsBuilder().setCollect("y").setPersonalize("y").buildToMap(),
+			new ConsentJournal(directory).replay().asXDMMap()
+		);
+	}
+
+	@Test
+	public void test_delete_removesFiles() {
+		// setup
+		final ConsentJournal journal = new ConsentJournal(directory);
+		final Consents consents = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+		journal.compact(consents);
+		journal.compact(consents);
+		append(journal, consents, new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+
+		// test
+		assertTrue(journal.delete());
+
+		// verify
+		assertTrue(journal.isEmpty());
+		assertEquals(0, directory.list().length);
+		assertTrue(new ConsentJournal(directory).isEmpty());
+	}
+
+	private static boolean append(final ConsentJournal journal, final Consents consents, final Consents update) {
+		consents.merge(update);
+		consents.mergeExpiries(update);
+		return journal.append(update.toJson());
+	}
+}
@@ -15,19 +15,37 @@ import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.*;
 import static com.adobe.marketing.mobile.util.JSONAsserts.assertExactMatch;
 import static junit.framework.TestCase.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import android.util.Base64;
 import com.adobe.marketing.mobile.services.NamedCollection;
+import com.adobe.marketing.mobile.util.JSONUtils;
+import com.adobe.marketing.mobile.util.TimeUtils;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONObject;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -37,6 +55,9 @@ public class ConsentManagerTest {
 	@Mock
 	NamedCollection mockNamedCollection;
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private ConsentManager consentManager;
 
 	// ========================================================================================
@@ -149,17 +170,20 @@ public class ConsentManagerTest {
 		assertEquals("pi", readPersonalizeConsent(mergedConsent)); // assert PersonalizeConsent value has changed on merge
 		assertEquals(SAMPLE_METADATA_TIMESTAMP_OTHER, ConsentTestUtil.readTimestamp(mergedConsent)); // assert time has changed on merge
 
-		// verify if correct data is written in persistence
+		// verify if correct data is written in persistence, sealed and as plain JSON for previous versions
+		final String expectedPersistedJSON = new ConsentsBuilder()
+			.setCollect("n")
+			.setAdId("n")
+			.setPersonalize("pi")
+			.setTime(SAMPLE_METADATA_TIMESTAMP_OTHER)
+			.buildToString();
 		verify(mockNamedCollection, times(1))
 			.setString(
-				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
-				new ConsentsBuilder()
-					.setCollect("n")
-					.setAdId("n")
-					.setPersonalize("pi")
-					.setTime(SAMPLE_METADATA_TIMESTAMP_OTHER)
-					.buildToString()
+				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+				PersistenceEnvelope.seal(expectedPersistedJSON)
 			);
+		verify(mockNamedCollection, times(1))
+			.setString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, expectedPersistedJSON);
 	}
 
 	@Test
@@ -210,7 +234,7 @@ public class ConsentManagerTest {
 		verify(mockNamedCollection, times(1))
 			.setString(eq(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES), persistedConsents.capture());
 
-		assertExactMatch(expectedResult, persistedConsents.getValue());
+		assertExactMatch(expectedResult, PersistenceEnvelope.open(persistedConsents.getValue()));
 	}
 
 	@Test
@@ -242,7 +266,13 @@ public class ConsentManagerTest {
 		verify(mockNamedCollection, times(1))
 			.setString(
 				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
-				new ConsentsBuilder().setCollect("y").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToString()
+				PersistenceEnvelope.seal(
+					new ConsentsBuilder()
+						.setCollect("y")
+						.setAdId("n")
+						.setTime(SAMPLE_METADATA_TIMESTAMP)
+						.buildToString()
+				)
 			);
 	}
 
@@ -275,7 +305,13 @@ public class ConsentManagerTest {
 		verify(mockNamedCollection, times(1))
 			.setString(
 				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
-				new ConsentsBuilder().setCollect("y").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToString()
+				PersistenceEnvelope.seal(
+					new ConsentsBuilder()
+						.setCollect("y")
+						.setAdId("n")
+						.setTime(SAMPLE_METADATA_TIMESTAMP)
+						.buildToString()
+				)
 			);
 	}
 
@@ -302,7 +338,9 @@ public class ConsentManagerTest {
 		verify(mockNamedCollection, times(1))
 			.setString(
 				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
-				new ConsentsBuilder().setCollect("n").buildToString()
+				PersistenceEnvelope.seal(
+					new ConsentsBuilder().setCollect("n").buildToString()
+				)
 			);
 	}
 
@@ -339,6 +377,45 @@ public class ConsentManagerTest {
 
 		// verify that consents is removed from persistence
 		verify(mockNamedCollection, times(1)).remove(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES);
+		verify(mockNamedCollection, times(1)).remove(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED);
+	}
+
+	@Test
+	public void test_persistedConsents_readableByPreviousVersions() throws Exception {
+		try (MockedStatic<Base64> ignored = Base64TestUtil.mockBase64()) {
+			// setup
+			final FakeNamedCollection persistence = new FakeNamedCollection();
+			consentManager = new ConsentManager(persistence);
+			consentManager.setCompressionThreshold(1);
+
+			// test
+			consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+			// verify the key read by previous versions holds plain JSON
+			final JSONObject persistedJSON = new JSONObject(
+				persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null)
+			);
+			assertEquals("y", readCollectConsent(new Consents(JSONUtils.toMap(persistedJSON))));
+			assertNotNull(persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED, null));
+		}
+	}
+
+	@Test
+	public void test_persistedConsents_updatedByPreviousVersion_areLoaded() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		new ConsentManager(persistence)
+			.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test, a previous version only updates the plain JSON
+		persistence.setString(
+			ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
+			new ConsentsBuilder().setCollect("n").buildToString()
+		);
+		final Consents consents = new ConsentManager(persistence).getCurrentConsents();
+
+		// verify
+		assertEquals("n", readCollectConsent(consents));
 	}
 
 	@Test
@@ -369,7 +446,7 @@ public class ConsentManagerTest {
 		assertNull(readAdIdConsent(currentConsent)); // assert adID consent is null
 
 		// verify defaultConsent
-		Consents defaultConsents = consentManager.defaultConsents;
+		Consents defaultConsents = consentManager.getLayer(ConsentManager.LAYER_DEFAULTS);
 		assertEquals("n", readCollectConsent(defaultConsents));
 		assertNull(readAdIdConsent(defaultConsents)); // assert adID consent is null
 	}
@@ -417,7 +494,7 @@ public class ConsentManagerTest {
 		assertEquals(SAMPLE_METADATA_TIMESTAMP, readTimestamp(currentConsent));
 
 		// verify defaultConsent internal variable
-		Consents defaultConsents = consentManager.defaultConsents;
+		Consents defaultConsents = consentManager.getLayer(ConsentManager.LAYER_DEFAULTS);
 		assertEquals("n", readCollectConsent(defaultConsents));
 		assertEquals("n", readAdIdConsent(defaultConsents));
 	}
@@ -454,7 +531,7 @@ public class ConsentManagerTest {
 		assertEquals("n", readAdIdConsent(currentConsent));
 
 		// verify defaultConsent
-		Consents defaultConsents = consentManager.defaultConsents;
+		Consents defaultConsents = consentManager.getLayer(ConsentManager.LAYER_DEFAULTS);
 		assertEquals("n", readCollectConsent(defaultConsents));
 		assertEquals("n", readAdIdConsent(defaultConsents));
 	}
@@ -500,7 +577,7 @@ public class ConsentManagerTest {
 		assertNull(readAdIdConsent(currentConsent));
 
 		// verify defaultConsent
-		Consents defaultConsents = consentManager.defaultConsents;
+		Consents defaultConsents = consentManager.getLayer(ConsentManager.LAYER_DEFAULTS);
 		assertEquals("n", readCollectConsent(defaultConsents));
 		assertNull(readAdIdConsent(defaultConsents));
 	}
@@ -537,11 +614,13 @@ public class ConsentManagerTest {
 		verify(mockNamedCollection, times(1))
 			.setString(
 				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
-				new ConsentsBuilder()
-					.setCollect("y")
-					.setAdId("n")
-					.setTime(SAMPLE_METADATA_TIMESTAMP_OTHER)
-					.buildToString()
+				PersistenceEnvelope.seal(
+					new ConsentsBuilder()
+						.setCollect("y")
+						.setAdId("n")
+						.setTime(SAMPLE_METADATA_TIMESTAMP_OTHER)
+						.buildToString()
+				)
 			);
 	}
 
@@ -577,7 +656,928 @@ public class ConsentManagerTest {
 		verify(mockNamedCollection, times(1))
 			.setString(
 				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
-				new ConsentsBuilder().setCollect("y").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToString()
+				PersistenceEnvelope.seal(
+					new ConsentsBuilder()
+						.setCollect("y")
+						.setAdId("n")
+						.setTime(SAMPLE_METADATA_TIMESTAMP)
+						.buildToString()
+				)
+			);
+	}
+
+	@Test
+	public void test_MergeAndPersist_sameConsentAsDefault_returnsFalse() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test - user opts into the consent already applied by default
+		final boolean result = consentManager.mergeAndPersist(
+			new Consents(new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap())
+		);
+
+		// verify
+		assertFalse(result);
+		assertEquals("y", consentManager.getCurrentConsentsView().getValue("collect", "val"));
+		assertEquals(SAMPLE_METADATA_TIMESTAMP, consentManager.getCurrentConsentsView().getTimestamp());
+	}
+
+	@Test
+	public void test_MergeAndPersist_nestedConsentOverDefault_returnsTrue() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateDefaultConsents(
+			new Consents(new ConsentsBuilder().setMarketing("email", "y", "true").buildToMap())
+		);
+
+		// test
+		final boolean result = consentManager.mergeAndPersist(
+			new Consents(new ConsentsBuilder().setMarketing("sms", "n", "true").buildToMap())
+		);
+
+		// verify
+		assertTrue(result);
+		final LayeredConsents currentConsents = consentManager.getCurrentConsentsView();
+		assertEquals("y", currentConsents.getValue("marketing", "email", "val"));
+		assertEquals("n", currentConsents.getValue("marketing", "sms", "val"));
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager persists the last known default consents
+	// Test method      : constructor, updateDefaultConsents, saveDefaultConsentsToPersistence
+	// ========================================================================================
+
+	@Test
+	public void test_Constructor_LoadsDefaultConsentsFromPersistence() {
+		// setup
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS, null))
+			.thenReturn(new ConsentsBuilder().setCollect("n").setAdId("y").buildToString());
+
+		// test
+		consentManager = new ConsentManager(mockNamedCollection);
+
+		// verify defaults are applied before any configuration response is received
+		Consents currentConsents = consentManager.getCurrentConsents();
+		assertEquals("n", readCollectConsent(currentConsents));
+		assertEquals("y", readAdIdConsent(currentConsents));
+	}
+
+	@Test
+	public void test_Constructor_LoadsDefaultConsentsFromPersistence_UserConsentsTakePrecedence() {
+		// setup
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null))
+			.thenReturn(new ConsentsBuilder().setCollect("y").buildToString());
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS, null))
+			.thenReturn(new ConsentsBuilder().setCollect("n").setAdId("n").buildToString());
+
+		// test
+		consentManager = new ConsentManager(mockNamedCollection);
+
+		// verify
+		Consents currentConsents = consentManager.getCurrentConsents();
+		assertEquals("y", readCollectConsent(currentConsents));
+		assertEquals("n", readAdIdConsent(currentConsents));
+	}
+
+	@Test
+	public void test_updateDefaultConsents_PersistsDefaultsWithFingerprint() {
+		// setup
+		consentManager = new ConsentManager(mockNamedCollection);
+		Consents defaultConsents = new Consents(new ConsentsBuilder().setCollect("n").buildToMap());
+
+		// test
+		consentManager.updateDefaultConsents(defaultConsents);
+
+		// verify
+		final ArgumentCaptor<String> persistedDefaults = ArgumentCaptor.forClass(String.class);
+		verify(mockNamedCollection, times(1))
+			.setString(eq(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS), persistedDefaults.capture());
+		verify(mockNamedCollection, times(1))
+			.setString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS_FINGERPRINT, defaultConsents.fingerprint());
+		assertExactMatch(
+			new ConsentsBuilder().setCollect("n").buildToString(),
+			PersistenceEnvelope.open(persistedDefaults.getValue())
+		);
+	}
+
+	@Test
+	public void test_updateDefaultConsents_SameDefaultsAsPersisted_DoesNotRewritePersistence() {
+		// setup
+		final Consents persistedDefaults = new Consents(new ConsentsBuilder().setCollect("n").buildToMap());
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS, null))
+			.thenReturn(new ConsentsBuilder().setCollect("n").buildToString());
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS_FINGERPRINT, null))
+			.thenReturn(persistedDefaults.fingerprint());
+		consentManager = new ConsentManager(mockNamedCollection);
+
+		// test
+		boolean isCurrentConsentChanged = consentManager.updateDefaultConsents(
+			new Consents(new ConsentsBuilder().setCollect("n").buildToMap())
+		);
+
+		// verify
+		assertFalse(isCurrentConsentChanged);
+		verify(mockNamedCollection, never()).setString(eq(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS), anyString());
+	}
+
+	@Test
+	public void test_updateDefaultConsents_EmptyDefaults_RemovesPersistedDefaults() {
+		// setup
+		Mockito
+			.when(mockNamedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS, null))
+			.thenReturn(new ConsentsBuilder().setCollect("n").buildToString());
+		consentManager = new ConsentManager(mockNamedCollection);
+
+		// test
+		boolean isCurrentConsentChanged = consentManager.updateDefaultConsents(new Consents(emptyConsentXDMMap()));
+
+		// verify
+		assertTrue(isCurrentConsentChanged);
+		assertTrue(consentManager.getCurrentConsents().isEmpty());
+		verify(mockNamedCollection, times(1)).remove(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS);
+		verify(mockNamedCollection, times(1)).remove(ConsentConstants.DataStoreKey.CONSENT_DEFAULTS_FINGERPRINT);
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager resolves the consent layers in order of precedence
+	// Test method      : updateLayer, getCurrentConsents, constructor
+	// ========================================================================================
+
+	@Test
+	public void test_updateLayer_resolvesLayersInOrderOfPrecedence() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateDefaultConsents(
+			new Consents(new ConsentsBuilder().setCollect("y").setAdId("y").setPersonalize("y").buildToMap())
+		);
+		consentManager.mergeAndPersist(
+			new Consents(new ConsentsBuilder().setAdId("n").setPersonalize("n").buildToMap())
+		);
+
+		// test
+		final boolean regionalChanged = consentManager.updateLayer(
+			ConsentManager.LAYER_REGIONAL_DEFAULTS,
+			new Consents(new ConsentsBuilder().setCollect("n").setAdId("y").buildToMap())
+		);
+		final boolean policyChanged = consentManager.updateLayer(
+			ConsentManager.LAYER_POLICY,
+			new Consents(new ConsentsBuilder().setPersonalize("y").buildToMap())
+		);
+
+		// verify
+		assertTrue(regionalChanged); // collect is overridden, adID is still opted out by the user
+		assertTrue(policyChanged);
+		final Consents currentConsents = consentManager.getCurrentConsents();
+		assertEquals("n", readCollectConsent(currentConsents));
+		assertEquals("n", readAdIdConsent(currentConsents));
+		assertEquals("y", readPersonalizeConsent(currentConsents));
+	}
+
+	@Test
+	public void test_updateLayer_overriddenKeys_returnsFalse() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateLayer(
+			ConsentManager.LAYER_POLICY,
+			new Consents(new ConsentsBuilder().setCollect("n").buildToMap())
+		);
+
+		// test
+		final boolean defaultsChanged = consentManager.updateDefaultConsents(
+			new Consents(new ConsentsBuilder().setCollect("y").buildToMap())
+		);
+		final boolean userChanged = consentManager.mergeAndPersist(
+			new Consents(new ConsentsBuilder().setCollect("y").buildToMap())
+		);
+
+		// verify
+		assertFalse(defaultsChanged);
+		assertFalse(userChanged);
+		assertEquals("n", readCollectConsent(consentManager.getCurrentConsents()));
+	}
+
+	@Test
+	public void test_updateLayer_userOptedLayer_isIgnored() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		final boolean result = consentManager.updateLayer(
+			ConsentManager.LAYER_USER_OPTED,
+			new Consents(new ConsentsBuilder().setCollect("n").buildToMap())
+		);
+
+		// verify
+		assertFalse(result);
+		assertEquals("y", readCollectConsent(consentManager.getCurrentConsents()));
+	}
+
+	@Test
+	public void test_updateLayer_persistsLayersForNextLaunch() {
+		// setup
+		final FakeNamedCollection namedCollection = new FakeNamedCollection();
+		consentManager = new ConsentManager(namedCollection);
+
+		// test
+		consentManager.updateLayer(
+			ConsentManager.LAYER_POLICY,
+			new Consents(new ConsentsBuilder().setCollect("n").buildToMap())
+		);
+		consentManager.updateLayer(
+			ConsentManager.LAYER_REGIONAL_DEFAULTS,
+			new Consents(new ConsentsBuilder().setAdId("n").buildToMap())
+		);
+
+		// verify
+		assertEquals(
+			PersistenceEnvelope.seal(new ConsentsBuilder().setCollect("n").buildToString()),
+			namedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_POLICY, null)
+		);
+		final Consents currentConsents = new ConsentManager(namedCollection).getCurrentConsents();
+		assertEquals("n", readCollectConsent(currentConsents));
+		assertEquals("n", readAdIdConsent(currentConsents));
+
+		// test - clearing a layer removes it from persistence
+		consentManager.updateLayer(ConsentManager.LAYER_POLICY, new Consents(new HashMap<String, Object>()));
+
+		// verify
+		assertNull(namedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_POLICY, null));
+		assertNull(namedCollection.getString(ConsentConstants.DataStoreKey.CONSENT_POLICY_FINGERPRINT, null));
+		assertNull(readCollectConsent(new ConsentManager(namedCollection).getCurrentConsents()));
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager notifies the listeners of the changed consents
+	// Test method      : mergeAndPersist, updateLayer
+	// ========================================================================================
+
+	@Test
+	public void test_mergeAndPersist_notifiesChangeListeners() {
+		// setup
+		final List<String> changes = new ArrayList<>();
+		final ConsentChangeListener listener = (keyPath, oldValue, newValue) ->
+			changes.add(keyPath + ":" + oldValue + "->" + newValue);
+		ConsentChangeListeners.getInstance().register(Arrays.asList("collect.val", "adID.val"), listener);
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setAdId("y").buildToMap()));
+
+		try {
+			// test
+			consentManager.notifyChangeListeners();
+			consentManager.mergeAndPersist(
+				new Consents(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap())
+			);
+
+			// verify the listeners are only notified once the changes are shared
+			assertEquals(Collections.singletonList("adID.val:null->y"), changes);
+			consentManager.notifyChangeListeners();
+			assertEquals(Arrays.asList("adID.val:null->y", "collect.val:null->y"), changes);
+
+			// test
+			consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+			consentManager.notifyChangeListeners();
+			consentManager.updateLayer(
+				ConsentManager.LAYER_POLICY,
+				new Consents(new ConsentsBuilder().setAdId("n").buildToMap())
 			);
+			consentManager.notifyChangeListeners();
+
+			// verify
+			assertEquals(
+				Arrays.asList("adID.val:null->y", "collect.val:null->y", "collect.val:y->n", "adID.val:y->n"),
+				changes
+			);
+		} finally {
+			ConsentChangeListeners.getInstance().reset();
+		}
+	}
+
+	@Test
+	public void test_notifyChangeListeners_coalescesChanges() {
+		// setup
+		final List<String> changes = new ArrayList<>();
+		final ConsentChangeListener listener = (keyPath, oldValue, newValue) ->
+			changes.add(keyPath + ":" + oldValue + "->" + newValue);
+		ConsentChangeListeners.getInstance().register(Arrays.asList("collect.val", "adID.val"), listener);
+		consentManager = new ConsentManager(new FakeNamedCollection());
+
+		try {
+			// test, adID changes twice before the listeners are notified
+			consentManager.mergeAndPersist(
+				new Consents(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap())
+			);
+			consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+			consentManager.notifyChangeListeners();
+			consentManager.notifyChangeListeners();
+
+			// verify only the net change of each key path is notified, once
+			assertTrue(changes.contains("adID.val:null->n"));
+			assertTrue(changes.contains("collect.val:null->y"));
+			assertEquals(2, changes.size());
+		} finally {
+			ConsentChangeListeners.getInstance().reset();
+		}
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager records the changes of the current consents in the history
+	// Test method      : mergeAndPersist, updateLayer, getHistory
+	// ========================================================================================
+
+	@Test
+	public void test_mergeAndPersist_recordsChangedConsentsInHistory() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		consentManager.mergeAndPersist(
+			new Consents(
+				new ConsentsBuilder().setCollect("y").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+			),
+			ConsentHistory.SOURCE_EDGE,
+			1695492945000L
+		);
+		consentManager.mergeAndPersist(
+			new Consents(
+				new ConsentsBuilder().setCollect("y").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP_OTHER).buildToMap()
+			)
+		);
+		consentManager.updateLayer(
+			ConsentManager.LAYER_POLICY,
+			new Consents(new ConsentsBuilder().setCollect("n").buildToMap())
+		);
+
+		// verify
+		final List<Map<String, Object>> entries = (List<Map<String, Object>>) consentManager
+			.getHistory(0, 10)
+			.get(ConsentConstants.EventDataKey.ENTRIES);
+		assertEquals(3, entries.size());
+		assertEquals(ConsentHistory.SOURCE_DEFAULTS, entries.get(0).get(ConsentHistory.SOURCE));
+
+		// only the consents which changed are recorded, the update with a new timestamp only is not
+		final Map<String, Object> edgeChanges = (Map<String, Object>) entries
+			.get(1)
+			.get(ConsentConstants.EventDataKey.CONSENTS);
+		assertEquals(ConsentHistory.SOURCE_EDGE, entries.get(1).get(ConsentHistory.SOURCE));
+		assertEquals(1695492945000L, ((Number) entries.get(1).get(ConsentHistory.TIMESTAMP)).longValue());
+		assertFalse(edgeChanges.containsKey("collect"));
+		assertEquals("n", ((Map) edgeChanges.get("adID")).get("val"));
+
+		assertEquals(ConsentHistory.SOURCE_POLICY, entries.get(2).get(ConsentHistory.SOURCE));
+		assertEquals(
+			Collections.singletonMap("collect", Collections.singletonMap("val", "n")),
+			entries.get(2).get(ConsentConstants.EventDataKey.CONSENTS)
+		);
+	}
+
+	@Test
+	public void test_mergeAndPersist_recordsOnlyChangedNestedConsentsInHistory() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.mergeAndPersist(new Consents(marketingConsents("y", "y")));
+
+		// test
+		consentManager.mergeAndPersist(new Consents(marketingConsents("y", "n")));
+
+		// verify
+		final List<Map<String, Object>> entries = (List<Map<String, Object>>) consentManager
+			.getHistory(0, 10)
+			.get(ConsentConstants.EventDataKey.ENTRIES);
+		assertEquals(2, entries.size());
+		final Map<String, Object> marketingChanges = (Map<String, Object>) (
+			(Map<String, Object>) entries.get(1).get(ConsentConstants.EventDataKey.CONSENTS)
+		).get("marketing");
+		assertEquals(Collections.singletonMap("push", Collections.singletonMap("val", "n")), marketingChanges);
+	}
+
+	private static Map<String, Object> marketingConsents(final String email, final String push) {
+		final Map<String, Object> marketing = new HashMap<>();
+		marketing.put("email", Collections.singletonMap("val", email));
+		marketing.put("push", Collections.singletonMap("val", push));
+		return Collections.<String, Object>singletonMap(
+			ConsentConstants.EventDataKey.CONSENTS,
+			Collections.singletonMap("marketing", marketing)
+		);
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager removes the expired user opted consents
+	// Test method      : mergeAndPersist, expireConsents, getNextExpiry, hasExpiries
+	// ========================================================================================
+
+	@Test
+	public void test_expireConsents_fallsBackToDefaults() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+		final Map<String, Object> consentData = new ConsentsBuilder()
+			.setCollect("y")
+			.setAdId("y")
+			.setTime(SAMPLE_METADATA_TIMESTAMP)
+			.buildToMap();
+		consentData.put("expiry", Collections.singletonMap("collect", 1000L));
+		consentManager.mergeAndPersist(new Consents(consentData));
+		assertEquals(1000L, consentManager.getNextExpiry());
+		assertTrue(consentManager.hasExpiries());
+
+		// test
+		assertTrue(consentManager.expireConsents(999L).isEmpty());
+		final Consents expiredConsents = consentManager.expireConsents(1000L);
+
+		// verify
+		assertEquals("n", readCollectConsent(expiredConsents));
+		assertNull(readAdIdConsent(expiredConsents));
+		assertEquals(TimeUtils.getISO8601UTCDateWithMilliseconds(new Date(1000L)), expiredConsents.getTimestamp());
+		assertEquals("n", readCollectConsent(consentManager.getCurrentConsents()));
+		assertEquals("y", readAdIdConsent(consentManager.getCurrentConsents()));
+		assertEquals(0, consentManager.getNextExpiry());
+		assertFalse(consentManager.hasExpiries());
+
+		// the expiry is persisted with the user opted consents
+		final ConsentManager reloadedManager = new ConsentManager(persistence);
+		assertFalse(reloadedManager.hasExpiries());
+		assertEquals("y", readAdIdConsent(reloadedManager.getCurrentConsents()));
+	}
+
+	@Test
+	public void test_hasExpiries_readsPersistedExpiryWithoutLoading() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").buildToMap();
+		consentData.put("expiry", 1767225600000L);
+		new ConsentManager(persistence).mergeAndPersist(new Consents(consentData));
+
+		// test
+		consentManager = new ConsentManager(persistence);
+
+		// verify
+		assertTrue(consentManager.hasExpiries());
+		assertEquals(1767225600000L, consentManager.getNextExpiry());
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager caches the XDM shared state for the next launch
+	// Test method      : saveSharedStateToPersistence, loadSharedStateFromPersistence
+	// ========================================================================================
+
+	@Test
+	public void test_loadSharedStateFromPersistence_whenPersistedConsentsUnchanged() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+		consentManager.saveSharedStateToPersistence();
+
+		// test
+		final ConsentManager restartedConsentManager = new ConsentManager(persistence);
+
+		// verify
+		assertEquals(
+			new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap(),
+			restartedConsentManager.loadSharedStateFromPersistence()
+		);
+	}
+
+	@Test
+	public void test_loadSharedStateFromPersistence_whenUserConsentsChangedAfterCaching() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+		consentManager.saveSharedStateToPersistence();
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+
+		// test
+		final ConsentManager restartedConsentManager = new ConsentManager(persistence);
+
+		// verify
+		assertNull(restartedConsentManager.loadSharedStateFromPersistence());
+	}
+
+	@Test
+	public void test_loadSharedStateFromPersistence_whenDefaultConsentsChangedAfterCaching() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+		consentManager.saveSharedStateToPersistence();
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+
+		// test
+		final ConsentManager restartedConsentManager = new ConsentManager(persistence);
+
+		// verify
+		assertNull(restartedConsentManager.loadSharedStateFromPersistence());
+	}
+
+	@Test
+	public void test_loadSharedStateFromPersistence_whenNothingCached() {
+		// test
+		consentManager = new ConsentManager(mockNamedCollection);
+
+		// verify
+		assertNull(consentManager.loadSharedStateFromPersistence());
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager computes the current consents once per change
+	// Test method      : getCurrentConsents, getCurrentXDMConsents, saveSharedStateToPersistence
+	// ========================================================================================
+
+	@Test
+	public void test_getCurrentConsents_whenUnchanged_returnsCachedConsents() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		final Consents currentConsents = consentManager.getCurrentConsents();
+		final Map<String, Object> xdmConsents = consentManager.getCurrentXDMConsents();
+
+		// verify
+		assertSame(currentConsents, consentManager.getCurrentConsents());
+		assertSame(xdmConsents, consentManager.getCurrentXDMConsents());
+		assertEquals(new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap(), xdmConsents);
+	}
+
+	@Test
+	public void test_getCurrentConsents_whenConsentsChange_recomputesConsents() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+		final Consents userConsents = consentManager.getCurrentConsents();
+		final Map<String, Object> userXDMConsents = consentManager.getCurrentXDMConsents();
+
+		// test
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+		final Consents mergedConsents = consentManager.getCurrentConsents();
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+
+		// verify
+		assertEquals(new ConsentsBuilder().setCollect("y").buildToMap(), userXDMConsents);
+		assertEquals("y", readCollectConsent(userConsents));
+		assertEquals("y", readCollectConsent(mergedConsents));
+		assertEquals("n", readAdIdConsent(mergedConsents));
+		assertEquals(
+			new ConsentsBuilder().setCollect("n").setAdId("n").buildToMap(),
+			consentManager.getCurrentXDMConsents()
+		);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_getCurrentXDMConsents_isNotModifiable() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		consentManager.getCurrentXDMConsents().put(ConsentConstants.EventDataKey.CONSENTS, new HashMap<>());
+	}
+
+	@Test
+	public void test_saveSharedStateToPersistence_whenUnchanged_serializesOnce() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		consentManager.saveSharedStateToPersistence();
+		final String firstJson = persistence.getString(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE, null);
+		consentManager.saveSharedStateToPersistence();
+
+		// verify
+		assertSame(firstJson, persistence.getString(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE, null));
+		assertEquals(new ConsentsBuilder().setCollect("y").buildToString(), PersistenceEnvelope.open(firstJson));
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager tracks the consents sent to and confirmed by Edge
+	// Test method      : getEdgeConsentsUpdate, isConfirmedByEdge, recordSentToEdge, recordConfirmedByEdge
+	// ========================================================================================
+
+	@Test
+	public void test_getEdgeConsentsUpdate_whenNothingRecorded_returnsFullUpdate() {
+		// setup
+		consentManager = new ConsentManager(mockNamedCollection);
+		final Consents update = new Consents(new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap());
+
+		// verify
+		assertEquals(update, consentManager.getEdgeConsentsUpdate(update));
+		assertFalse(consentManager.isConfirmedByEdge());
+	}
+
+	@Test
+	public void test_getEdgeConsentsUpdate_afterRestart_returnsOnlyChangedConsents() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.recordSentToEdge(new Consents(new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap()));
+
+		// test
+		final ConsentManager restartedConsentManager = new ConsentManager(persistence);
+		final Consents edgeUpdate = restartedConsentManager.getEdgeConsentsUpdate(
+			new Consents(
+				new ConsentsBuilder().setCollect("n").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+			)
+		);
+
+		// verify
+		assertEquals(
+			new Consents(new ConsentsBuilder().setCollect("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()),
+			edgeUpdate
+		);
+	}
+
+	@Test
+	public void test_getEdgeConsentsUpdate_afterConfirmedByEdge_returnsEmptyForKnownConsents() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		final Consents edgeConsents = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+		consentManager.mergeAndPersist(edgeConsents);
+		consentManager.recordConfirmedByEdge(edgeConsents);
+
+		// verify
+		assertTrue(
+			consentManager
+				.getEdgeConsentsUpdate(
+					new Consents(new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap())
+				)
+				.isEmpty()
+		);
+	}
+
+	@Test
+	public void test_isConfirmedByEdge_afterRestart_ignoresTimestamp() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		final Consents edgeConsents = new Consents(
+			new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+		);
+		consentManager.mergeAndPersist(edgeConsents);
+		consentManager.recordConfirmedByEdge(edgeConsents);
+
+		// test
+		final ConsentManager restartedConsentManager = new ConsentManager(persistence);
+		restartedConsentManager.mergeAndPersist(
+			new Consents(new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP_OTHER).buildToMap())
+		);
+
+		// verify
+		assertTrue(restartedConsentManager.isConfirmedByEdge());
+	}
+
+	@Test
+	public void test_isDuplicateOfConfirmedConsents() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		final Consents edgeConsents = new Consents(
+			new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+		);
+		consentManager.mergeAndPersist(edgeConsents);
+		final Consents sameConsents = new Consents(
+			new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP_OTHER).buildToMap()
+		);
+		final Map<String, Object> expiringConsents = new ConsentsBuilder().setCollect("y").buildToMap();
+		expiringConsents.put(ConsentConstants.EventDataKey.EXPIRY, 4102444800000L); // 2100-01-01
+
+		// test
+		final boolean isDuplicateBeforeConfirmation = consentManager.isDuplicateOfConfirmedConsents(sameConsents);
+		consentManager.recordConfirmedByEdge(edgeConsents);
+
+		// verify
+		assertFalse(isDuplicateBeforeConfirmation);
+		assertTrue(consentManager.isDuplicateOfConfirmedConsents(sameConsents));
+		assertFalse(
+			consentManager.isDuplicateOfConfirmedConsents(
+				new Consents(new ConsentsBuilder().setCollect("n").buildToMap())
+			)
+		);
+		assertFalse(consentManager.isDuplicateOfConfirmedConsents(new Consents(expiringConsents)));
+	}
+
+	@Test
+	public void test_isConfirmedByEdge_whenCurrentConsentsChangedSinceConfirmation() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		final Consents edgeConsents = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+		consentManager.mergeAndPersist(edgeConsents);
+		consentManager.recordConfirmedByEdge(edgeConsents);
+		consentManager.updateDefaultConsents(new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+
+		// verify
+		assertFalse(consentManager.isConfirmedByEdge());
+	}
+
+	// ========================================================================================
+	// Test Scenario    : consentManager queues the consent updates made while offline
+	// Test method      : queueEdgeConsentsUpdate, hasPendingEdgeConsents, clearPendingEdgeConsents
+	// ========================================================================================
+
+	@Test
+	public void test_queueEdgeConsentsUpdate_coalescesUpdatesPerKey() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+
+		// test
+		consentManager.queueEdgeConsentsUpdate(
+			new Consents(
+				new ConsentsBuilder().setCollect("y").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+			)
+		);
+		consentManager.queueEdgeConsentsUpdate(
+			new Consents(new ConsentsBuilder().setCollect("n").setTime(SAMPLE_METADATA_TIMESTAMP_OTHER).buildToMap())
+		);
+
+		// verify
+		assertTrue(consentManager.hasPendingEdgeConsents());
+		assertEquals(
+			new Consents(
+				new ConsentsBuilder().setCollect("n").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP_OTHER).buildToMap()
+			),
+			consentManager.getEdgeConsentsUpdate(new Consents(new HashMap<>()))
+		);
+	}
+
+	@Test
+	public void test_queueEdgeConsentsUpdate_persistsAcrossRestart() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.queueEdgeConsentsUpdate(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+
+		// test
+		final ConsentManager restartedConsentManager = new ConsentManager(persistence);
+
+		// verify
+		assertTrue(restartedConsentManager.hasPendingEdgeConsents());
+		assertEquals(
+			new Consents(new ConsentsBuilder().setCollect("n").buildToMap()),
+			restartedConsentManager.getEdgeConsentsUpdate(new Consents(new HashMap<>()))
+		);
+	}
+
+	@Test
+	public void test_recordSentToEdge_clearsQueuedUpdate() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		consentManager = new ConsentManager(persistence);
+		consentManager.queueEdgeConsentsUpdate(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+
+		// test
+		consentManager.recordSentToEdge(consentManager.getEdgeConsentsUpdate(new Consents(new HashMap<>())));
+
+		// verify
+		assertFalse(consentManager.hasPendingEdgeConsents());
+		assertNull(persistence.getString(ConsentConstants.DataStoreKey.EDGE_PENDING_CONSENTS, null));
+		assertTrue(consentManager.getEdgeConsentsUpdate(new Consents(new HashMap<>())).isEmpty());
+	}
+
+	@Test
+	public void test_getEdgeConsentsUpdate_whenQueuedUpdateReverted_returnsEmpty() {
+		// setup
+		consentManager = new ConsentManager(new FakeNamedCollection());
+		consentManager.recordSentToEdge(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+		consentManager.queueEdgeConsentsUpdate(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+
+		// test
+		final Consents edgeUpdate = consentManager.getEdgeConsentsUpdate(
+			new Consents(new ConsentsBuilder().setCollect("y").buildToMap())
+		);
+
+		// verify
+		assertTrue(edgeUpdate.isEmpty());
+	}
+
+	@Test
+	public void test_journal_seededFromPersistedConsentsAndReplaysThemOnNextLaunch() throws Exception {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final File directory = temporaryFolder.newFolder();
+		final ConsentManager previousConsentManager = new ConsentManager(persistence);
+		previousConsentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		consentManager = new ConsentManager(persistence, new ConsentJournal(directory));
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+
+		// verify
+		final Consents reloadedConsents = new ConsentManager(persistence, new ConsentJournal(directory))
+			.getCurrentConsents();
+		assertEquals("y", readCollectConsent(reloadedConsents));
+		assertEquals("n", readAdIdConsent(reloadedConsents));
+	}
+
+	@Test
+	public void test_journal_eachUpdate_updatesConsentsReadByPreviousVersions() throws Exception {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final File directory = temporaryFolder.newFolder();
+		consentManager = new ConsentManager(persistence, new ConsentJournal(directory));
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setAdId("n").buildToMap()));
+
+		// verify
+		assertTrue(new File(directory, ConsentJournal.JOURNAL_FILE).length() > 0);
+		final Consents persistedConsents = Consents.fromJson(
+			persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null)
+		);
+		assertEquals("y", readCollectConsent(persistedConsents));
+		assertEquals("n", readAdIdConsent(persistedConsents));
+	}
+
+	@Test
+	public void test_journal_nullNamedCollection_journalNotAttached() throws Exception {
+		// setup
+		final File directory = temporaryFolder.newFolder();
+		consentManager = new ConsentManager(null, new ConsentJournal(directory));
+		final String value = new String(new char[1024]).replace('\0', 'y');
+
+		// test
+		for (int i = 0; i < ConsentJournal.MIN_COMPACTION_BYTES / 1024; i++) {
+			consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setAdId(value + i).buildToMap()));
+		}
+
+		// verify
+		assertEquals(value + 15, readAdIdConsent(consentManager.getCurrentConsents()));
+		assertFalse(new File(directory, ConsentJournal.JOURNAL_FILE).exists());
+	}
+
+	@Test
+	public void test_journal_compaction_updatesPersistedConsents() throws Exception {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final File directory = temporaryFolder.newFolder();
+		consentManager = new ConsentManager(persistence, new ConsentJournal(directory));
+		final String value = new String(new char[1024]).replace('\0', 'y');
+
+		// test
+		for (int i = 0; i < ConsentJournal.MIN_COMPACTION_BYTES / 1024; i++) {
+			consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setAdId(value + i).buildToMap()));
+		}
+
+		// verify
+		assertEquals(0, new File(directory, ConsentJournal.JOURNAL_FILE).length());
+		final Consents persistedConsents = Consents.fromJson(
+			persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null)
+		);
+		assertEquals(consentManager.getCurrentConsents().asXDMMap(), persistedConsents.asXDMMap());
+	}
+
+	@Test
+	public void test_journal_launchWithoutJournal_movesConsentsBackAndDeletesJournal() throws Exception {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final File directory = temporaryFolder.newFolder();
+		new ConsentManager(persistence, new ConsentJournal(directory))
+			.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+
+		// test
+		consentManager = new ConsentManager(persistence, (ConsentJournal) null);
+
+		// verify
+		assertEquals("y", readCollectConsent(consentManager.getCurrentConsents()));
+		assertEquals(
+			"y",
+			readCollectConsent(
+				Consents.fromJson(persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null))
+			)
+		);
+		assertNull(persistence.getString(ConsentConstants.DataStoreKey.CONSENT_JOURNAL_DIRECTORY, null));
+		assertFalse(new File(directory, ConsentJournal.JOURNAL_FILE).exists());
+	}
+
+	@Test
+	public void test_journal_consentsUpdatedByPreviousVersion_seedJournal() throws Exception {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final File directory = temporaryFolder.newFolder();
+		new ConsentManager(persistence, new ConsentJournal(directory))
+			.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap()));
+
+		// test, a previous version only updates the plain JSON
+		persistence.setString(
+			ConsentConstants.DataStoreKey.CONSENT_PREFERENCES,
+			new ConsentsBuilder().setCollect("n").buildToString()
+		);
+		consentManager = new ConsentManager(persistence, new ConsentJournal(directory));
+
+		// verify
+		assertEquals("n", readCollectConsent(consentManager.getCurrentConsents()));
+		assertNull(readAdIdConsent(consentManager.getCurrentConsents()));
 	}
 }
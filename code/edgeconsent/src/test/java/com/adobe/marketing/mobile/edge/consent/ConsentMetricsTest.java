@@ -0,0 +1,162 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConsentMetricsTest {
+
+	private ConsentMetrics metrics;
+
+	@Before
+	public void setup() {
+		metrics = new ConsentMetrics();
+	}
+
+	// ========================================================================================
+	// counters
+	// ========================================================================================
+
+	@Test
+	public void test_snapshot_whenNothingRecorded_returnsZeroCounters() {
+		// test
+		Map<String, Object> counters = readCounters(metrics.snapshot());
+
+		// verify
+		assertEquals(8, counters.size());
+		assertEquals(0L, counters.get(ConsentMetrics.UPDATES_RECEIVED));
+		assertEquals(0L, counters.get(ConsentMetrics.PERSISTENCE_BYTES_WRITTEN));
+	}
+
+	@Test
+	public void test_incrementAndAdd() {
+		// test
+		metrics.increment(ConsentMetrics.UPDATES_RECEIVED);
+		metrics.increment(ConsentMetrics.UPDATES_RECEIVED);
+		metrics.add(ConsentMetrics.PERSISTENCE_BYTES_WRITTEN, 120);
+		metrics.add(ConsentMetrics.PERSISTENCE_BYTES_WRITTEN, 30);
+
+		// verify
+		Map<String, Object> counters = readCounters(metrics.snapshot());
+		assertEquals(2L, counters.get(ConsentMetrics.UPDATES_RECEIVED));
+		assertEquals(150L, counters.get(ConsentMetrics.PERSISTENCE_BYTES_WRITTEN));
+		assertEquals(0L, counters.get(ConsentMetrics.UPDATES_MERGED));
+	}
+
+	@Test
+	public void test_increment_unknownCounter_isIgnored() {
+		// test
+		metrics.increment("unknown");
+
+		// verify
+		Map<String, Object> counters = readCounters(metrics.snapshot());
+		assertEquals(8, counters.size());
+		assertFalse(counters.containsKey("unknown"));
+	}
+
+	// ========================================================================================
+	// latencies
+	// ========================================================================================
+
+	@Test
+	public void test_recordLatency_updatesHistogram() {
+		// test
+		metrics.recordLatency(ConsentMetrics.HANDLE_CONSENT_UPDATE, TimeUnit.MICROSECONDS.toNanos(50));
+		metrics.recordLatency(ConsentMetrics.HANDLE_CONSENT_UPDATE, TimeUnit.MICROSECONDS.toNanos(100));
+		metrics.recordLatency(ConsentMetrics.HANDLE_CONSENT_UPDATE, TimeUnit.MICROSECONDS.toNanos(300));
+		metrics.recordLatency(ConsentMetrics.HANDLE_CONSENT_UPDATE, TimeUnit.SECONDS.toNanos(1));
+
+		// verify
+		Map<String, Object> histogram = readLatency(metrics.snapshot(), ConsentMetrics.HANDLE_CONSENT_UPDATE);
+		assertEquals(4L, histogram.get(ConsentMetrics.COUNT));
+		assertEquals(1000450L, histogram.get(ConsentMetrics.TOTAL_MICROS));
+		assertEquals(1000000L, histogram.get(ConsentMetrics.MAX_MICROS));
+
+		Map<String, Object> buckets = (Map<String, Object>) histogram.get(ConsentMetrics.BUCKETS);
+		assertEquals(11, buckets.size());
+		assertEquals(2L, buckets.get("100"));
+		assertEquals(0L, buckets.get("250"));
+		assertEquals(1L, buckets.get("500"));
+		assertEquals(1L, buckets.get(ConsentMetrics.OVERFLOW_BUCKET));
+
+		// other handlers are not affected
+		Map<String, Object> otherHistogram = readLatency(metrics.snapshot(), ConsentMetrics.HANDLE_REQUEST_CONTENT);
+		assertEquals(0L, otherHistogram.get(ConsentMetrics.COUNT));
+	}
+
+	@Test
+	public void test_snapshot_containsAllHandlers() {
+		// test
+		Map<String, Object> latencies = (Map<String, Object>) metrics.snapshot().get(ConsentMetrics.LATENCIES);
+
+		// verify
+		assertEquals(4, latencies.size());
+		assertNotNull(latencies.get(ConsentMetrics.HANDLE_CONSENT_UPDATE));
+		assertNotNull(latencies.get(ConsentMetrics.HANDLE_EDGE_CONSENT_PREFERENCE_HANDLE));
+		assertNotNull(latencies.get(ConsentMetrics.HANDLE_REQUEST_CONTENT));
+		assertNotNull(latencies.get(ConsentMetrics.HANDLE_CONFIGURATION_RESPONSE));
+	}
+
+	// ========================================================================================
+	// snapshot and reset
+	// ========================================================================================
+
+	@Test
+	public void test_snapshot_isNotUpdatedAfterwards() {
+		// setup
+		Map<String, Object> snapshot = metrics.snapshot();
+
+		// test
+		metrics.increment(ConsentMetrics.SHARED_STATES_CREATED);
+		metrics.recordLatency(ConsentMetrics.HANDLE_CONSENT_UPDATE, 1000);
+
+		// verify
+		assertEquals(0L, readCounters(snapshot).get(ConsentMetrics.SHARED_STATES_CREATED));
+		assertEquals(0L, readLatency(snapshot, ConsentMetrics.HANDLE_CONSENT_UPDATE).get(ConsentMetrics.COUNT));
+	}
+
+	@Test
+	public void test_reset() {
+		// setup
+		metrics.increment(ConsentMetrics.SHARED_STATES_CREATED);
+		metrics.recordLatency(ConsentMetrics.HANDLE_CONSENT_UPDATE, TimeUnit.MILLISECONDS.toNanos(2));
+
+		// test
+		metrics.reset();
+
+		// verify
+		Map<String, Object> snapshot = metrics.snapshot();
+		assertEquals(0L, readCounters(snapshot).get(ConsentMetrics.SHARED_STATES_CREATED));
+		Map<String, Object> histogram = readLatency(snapshot, ConsentMetrics.HANDLE_CONSENT_UPDATE);
+		assertEquals(0L, histogram.get(ConsentMetrics.COUNT));
+		assertEquals(0L, histogram.get(ConsentMetrics.MAX_MICROS));
+		assertEquals(0L, ((Map<String, Object>) histogram.get(ConsentMetrics.BUCKETS)).get("2500"));
+	}
+
+	private static Map<String, Object> readCounters(final Map<String, Object> snapshot) {
+		return (Map<String, Object>) snapshot.get(ConsentMetrics.COUNTERS);
+	}
+
+	private static Map<String, Object> readLatency(final Map<String, Object> snapshot, final String handler) {
+		return (Map<String, Object>) ((Map<String, Object>) snapshot.get(ConsentMetrics.LATENCIES)).get(handler);
+	}
+}
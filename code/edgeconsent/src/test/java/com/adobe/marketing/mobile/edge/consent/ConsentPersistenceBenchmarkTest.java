@@ -0,0 +1,174 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.util.Base64;
+import com.adobe.marketing.mobile.util.JSONUtils;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.MockedStatic;
+
+/**
+ * Benchmark of the consents persistence round trip with large consent payloads.
+ *
+ * <p>Compares the {@link ConsentsJson} streaming reader and writer against the {@code JSONObject}
+ * round trip it replaced, which deep copied the consents, built a {@code JSONObject} tree to write
+ * them and built a {@code JSONObject} tree then a {@code Map} tree to read them, and verifies that
+ * both round trips read the same consents and that the streaming round trip is faster.
+ *
+ * <p>Also compares the persisted consents deflated by {@link PersistenceEnvelope} against plain
+ * JSON: their size, the CPU cost of sealing and opening them, and the time to write them to a file
+ * synced to the disk, and verifies that the deflated consents are smaller.
+ *
+ * <p>Skipped unless the {@link ConsentPayloadGenerator#BENCHMARKS_PROPERTY} system property is set.
+ */
+public class ConsentPersistenceBenchmarkTest {
+
+	private static final int[] VENDOR_COUNTS = { 500, 2000, 8000 };
+	private static final long SEED = 36;
+	private static final int WARMUP_ITERATIONS = 10;
+	private static final int MEASURED_ITERATIONS = 30;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Before
+	public void setup() {
+		assumeTrue(Boolean.getBoolean(ConsentPayloadGenerator.BENCHMARKS_PROPERTY));
+	}
+
+	@Test
+	public void benchmark_streamingJson_vsJSONObject() throws Exception {
+		for (final int vendorCount : VENDOR_COUNTS) {
+			final Consents consents = new Consents(
+				new ConsentPayloadGenerator(SEED)
+					.setVendorCount(vendorCount)
+					.setNestingDepth(1)
+					.setValueWeights(8, 1, 1)
+					.setTime(ConsentTestUtil.SAMPLE_METADATA_TIMESTAMP)
+					.buildToMap()
+			);
+			final String streamingJson = consents.toJson();
+			final String jsonObjectJson = writeWithJSONObject(consents);
+
+			assertEquals(consents, Consents.fromJson(streamingJson));
+			assertEquals(readWithJSONObject(jsonObjectJson), Consents.fromJson(streamingJson));
+
+			final long streamingWriteNanos = measure(() -> consents.toJson());
+			final long jsonObjectWriteNanos = measure(() -> writeWithJSONObject(consents));
+			final long streamingReadNanos = measure(() -> Consents.fromJson(streamingJson));
+			final long jsonObjectReadNanos = measure(() -> readWithJSONObject(jsonObjectJson));
+
+			final String results = String.format(
+				"Consent persistence with %d vendors (%d chars): write %d us/op streaming, %d us/op " +
+				"JSONObject; read %d us/op streaming, %d us/op JSONObject",
+				vendorCount,
+				streamingJson.length(),
+				streamingWriteNanos / MEASURED_ITERATIONS / 1000,
+				jsonObjectWriteNanos / MEASURED_ITERATIONS / 1000,
+				streamingReadNanos / MEASURED_ITERATIONS / 1000,
+				jsonObjectReadNanos / MEASURED_ITERATIONS / 1000
+			);
+			assertTrue(results, streamingWriteNanos < jsonObjectWriteNanos);
+			assertTrue(results, streamingReadNanos < jsonObjectReadNanos);
+		}
+	}
+
+	@Test
+	public void benchmark_deflate_vsPlainJson() throws Exception {
+		final File file = temporaryFolder.newFile();
+
+		try (MockedStatic<Base64> ignored = Base64TestUtil.mockBase64()) {
+			for (final int vendorCount : VENDOR_COUNTS) {
+				final String json = new Consents(
+					new ConsentPayloadGenerator(SEED)
+						.setVendorCount(vendorCount)
+						.setNestingDepth(1)
+						.setValueWeights(8, 1, 1)
+						.setTime(ConsentTestUtil.SAMPLE_METADATA_TIMESTAMP)
+						.buildToMap()
+				)
+					.toJson();
+				final String plain = PersistenceEnvelope.seal(json);
+				final String deflated = PersistenceEnvelope.seal(json, 1);
+
+				assertEquals(json, PersistenceEnvelope.open(deflated));
+
+				final long plainCpuNanos = measure(() -> PersistenceEnvelope.open(PersistenceEnvelope.seal(json)));
+				final long deflatedCpuNanos = measure(() ->
+					PersistenceEnvelope.open(PersistenceEnvelope.seal(json, 1))
+				);
+				final long plainIoNanos = measure(() -> writeSynced(file, plain));
+				final long deflatedIoNanos = measure(() -> writeSynced(file, deflated));
+
+				final String results = String.format(
+					"Consent compression with %d vendors: %d chars plain, %d chars deflated; seal and open %d " +
+					"us/op plain, %d us/op deflated; synced write %d us/op plain, %d us/op deflated",
+					vendorCount,
+					plain.length(),
+					deflated.length(),
+					plainCpuNanos / MEASURED_ITERATIONS / 1000,
+					deflatedCpuNanos / MEASURED_ITERATIONS / 1000,
+					plainIoNanos / MEASURED_ITERATIONS / 1000,
+					deflatedIoNanos / MEASURED_ITERATIONS / 1000
+				);
+				assertTrue(results, deflated.length() < plain.length());
+			}
+		}
+	}
+
+	private static File writeSynced(final File file, final String persisted) throws Exception {
+		try (FileOutputStream output = new FileOutputStream(file)) {
+			output.write(persisted.getBytes(StandardCharsets.UTF_8));
+			output.getFD().sync();
+		}
+
+		return file;
+	}
+
+	private static String writeWithJSONObject(final Consents consents) {
+		return new JSONObject(consents.asXDMMap()).toString();
+	}
+
+	private static Consents readWithJSONObject(final String json) throws JSONException {
+		return new Consents(JSONUtils.toMap(new JSONObject(json)));
+	}
+
+	private static long measure(final Operation operation) throws Exception {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			operation.run();
+		}
+
+		final long start = System.nanoTime();
+
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			operation.run();
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	private interface Operation {
+		Object run() throws Exception;
+	}
+}
@@ -0,0 +1,339 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.readAdIdConsent;
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.readCollectConsent;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.util.Base64;
+import com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.ConsentsBuilder;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.MockedStatic;
+
+/**
+ * Injects faults in the persisted consents and verifies they are rejected before being parsed,
+ * falling back to the last known good consents.
+ */
+public class ConsentPersistenceFaultInjectionTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	// faults injected in a persisted payload holding "y" values
+	private static final Map<String, UnaryOperator<String>> FAULTS = new LinkedHashMap<>();
+
+	static {
+		FAULTS.put("truncated payload", persisted -> persisted.substring(0, persisted.length() - 1));
+		FAULTS.put("truncated header", persisted -> persisted.substring(0, 4));
+		FAULTS.put("flipped consent value", persisted -> persisted.replace("\"y\"", "\"n\""));
+		FAULTS.put("flipped checksum", persisted -> persisted.replaceFirst(":([0-9a-f])([0-9a-f]*)\n", ":0$2\n"));
+		FAULTS.put("appended bytes", persisted -> persisted + "}");
+		FAULTS.put("unsupported version", persisted -> "#9" + persisted.substring(2));
+		FAULTS.put("garbage", persisted -> "\u0000\u0000\u0000\u0000");
+		FAULTS.put("empty", persisted -> "");
+	}
+
+	private MockedStatic<Base64> base64;
+
+	@Before
+	public void setup() {
+		base64 = Base64TestUtil.mockBase64();
+	}
+
+	@After
+	public void teardown() {
+		base64.close();
+	}
+
+	// ========================================================================================
+	// PersistenceEnvelope
+	// ========================================================================================
+
+	@Test
+	public void test_envelope_roundTrip() {
+		// setup
+		final String json = new ConsentsBuilder().setCollect("y").buildToString();
+
+		// test
+		final String persisted = PersistenceEnvelope.seal(json);
+
+		// verify
+		assertEquals(json, PersistenceEnvelope.open(persisted));
+		assertEquals(json, PersistenceEnvelope.open(json)); // persisted without envelope
+		assertNull(PersistenceEnvelope.open(null));
+	}
+
+	@Test
+	public void test_envelope_holdsPayload() {
+		// setup
+		final String json = new ConsentsBuilder().setCollect("y").buildToString();
+		final String otherJson = new ConsentsBuilder().setCollect("n").buildToString();
+
+		// verify
+		assertTrue(PersistenceEnvelope.holds(PersistenceEnvelope.seal(json), json));
+		assertTrue(PersistenceEnvelope.holds(PersistenceEnvelope.seal(json, 1), json));
+		assertTrue(PersistenceEnvelope.holds(json, json)); // persisted without envelope
+		assertFalse(PersistenceEnvelope.holds(PersistenceEnvelope.seal(otherJson), json));
+		assertFalse(PersistenceEnvelope.holds(PersistenceEnvelope.seal(otherJson, 1), json));
+		assertFalse(PersistenceEnvelope.holds(PersistenceEnvelope.seal(json), json.substring(1)));
+		assertFalse(PersistenceEnvelope.holds(null, json));
+	}
+
+	@Test
+	public void test_envelope_rejectsFaults() {
+		// setup
+		final String persisted = PersistenceEnvelope.seal(new ConsentsBuilder().setCollect("y").buildToString());
+
+		for (final Map.Entry<String, UnaryOperator<String>> fault : FAULTS.entrySet()) {
+			// test
+			final String corrupted = fault.getValue().apply(persisted);
+
+			// verify
+			assertNull(fault.getKey(), PersistenceEnvelope.open(corrupted));
+		}
+	}
+
+	@Test
+	public void test_envelope_compressesAboveThreshold() {
+		// setup
+		final String json = new ConsentsBuilder().setCollect("y").setAdId("n").buildToString();
+
+		// test
+		final String deflated = PersistenceEnvelope.seal(json, json.length() - 1);
+
+		// verify
+		assertEquals(PersistenceEnvelope.seal(json), PersistenceEnvelope.seal(json, json.length()));
+		assertEquals(PersistenceEnvelope.seal(json), PersistenceEnvelope.seal(json, 0));
+		assertTrue(deflated.startsWith("#" + PersistenceEnvelope.VERSION + "d:"));
+		assertFalse(deflated.contains("collect"));
+		assertEquals(json, PersistenceEnvelope.open(deflated));
+		assertTrue(PersistenceEnvelope.mayContain(deflated, "adID"));
+		assertFalse(PersistenceEnvelope.mayContain(deflated, "expiry"));
+	}
+
+	@Test
+	public void test_envelope_rejectsFaultsInCompressedPayload() {
+		// setup
+		final String json = new ConsentsBuilder().setCollect("y").buildToString();
+		final String deflated = PersistenceEnvelope.seal(json, 1);
+		final int headerEnd = deflated.indexOf('\n');
+		final String header = deflated.substring(0, headerEnd + 1);
+		final String body = deflated.substring(headerEnd + 1);
+		final char flippedChar = body.charAt(0) == 'A' ? 'B' : 'A';
+		final Map<String, String> faults = new LinkedHashMap<>();
+		faults.put("truncated payload", deflated.substring(0, deflated.length() - 4));
+		faults.put("flipped byte", header + flippedChar + body.substring(1));
+		faults.put("truncated header", deflated.substring(0, 5));
+		faults.put("not compressed", header + json);
+
+		for (final Map.Entry<String, String> fault : faults.entrySet()) {
+			// verify
+			assertNull(fault.getKey(), PersistenceEnvelope.open(fault.getValue()));
+		}
+	}
+
+	// ========================================================================================
+	// ConsentManager
+	// ========================================================================================
+
+	@Test
+	public void test_corruptedConsents_restoresLastKnownGoodCopy() {
+		for (final Map.Entry<String, UnaryOperator<String>> fault : FAULTS.entrySet()) {
+			// setup - consents validated on a launch are the last known good copy
+			final FakeNamedCollection persistence = new FakeNamedCollection();
+			new ConsentManager(persistence)
+				.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+			final ConsentManager consentManager = new ConsentManager(persistence);
+			consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setAdId("y").buildToMap()));
+			final String persisted = persistence.getString(
+				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+				null
+			);
+
+			// test, the plain JSON copy of previous versions is lost as well
+			persistence.setString(
+				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+				fault.getValue().apply(persisted)
+			);
+			persistence.remove(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES);
+			final Consents consents = new ConsentManager(persistence).getCurrentConsents();
+
+			// verify
+			assertEquals(fault.getKey(), "y", readCollectConsent(consents));
+			assertNull(fault.getKey(), readAdIdConsent(consents));
+			assertEquals(
+				fault.getKey(),
+				persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SHADOW, null),
+				persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED, null)
+			);
+			assertEquals(
+				fault.getKey(),
+				PersistenceEnvelope.open(
+					persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SHADOW, null)
+				),
+				persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES, null)
+			);
+		}
+	}
+
+	@Test
+	public void test_corruptedConsents_withoutCopy_loadsNoConsents() {
+		for (final Map.Entry<String, UnaryOperator<String>> fault : FAULTS.entrySet()) {
+			// setup
+			final FakeNamedCollection persistence = new FakeNamedCollection();
+			new ConsentManager(persistence)
+				.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+			final String persisted = persistence.getString(
+				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+				null
+			);
+
+			// test
+			persistence.setString(
+				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+				fault.getValue().apply(persisted)
+			);
+			persistence.remove(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES);
+			final Consents consents = new ConsentManager(persistence).getCurrentConsents();
+
+			// verify
+			assertNull(fault.getKey(), readCollectConsent(consents));
+		}
+	}
+
+	@Test
+	public void test_corruptedConsents_loadsPlainCopy() {
+		for (final Map.Entry<String, UnaryOperator<String>> fault : FAULTS.entrySet()) {
+			// setup
+			final FakeNamedCollection persistence = new FakeNamedCollection();
+			new ConsentManager(persistence)
+				.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+			final String persisted = persistence.getString(
+				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+				null
+			);
+
+			// test
+			persistence.setString(
+				ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED,
+				fault.getValue().apply(persisted)
+			);
+			final Consents consents = new ConsentManager(persistence).getCurrentConsents();
+
+			// verify
+			assertEquals(fault.getKey(), "y", readCollectConsent(consents));
+		}
+	}
+
+	@Test
+	public void test_compressedConsents_loadedOnNextLaunch() {
+		// setup
+		final FakeNamedCollection persistence = new FakeNamedCollection();
+		final ConsentManager consentManager = new ConsentManager(persistence);
+		consentManager.setCompressionThreshold(1);
+		final Map<String, Object> update = new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap();
+		update.put(ConsentConstants.EventDataKey.EXPIRY, 4102444800000L); // 2100-01-01
+
+		// test
+		consentManager.mergeAndPersist(new Consents(update));
+
+		// verify
+		final String persisted = persistence.getString(ConsentConstants.DataStoreKey.CONSENT_PREFERENCES_SEALED, null);
+		assertFalse(persisted.contains("collect"));
+		final ConsentManager relaunchedConsentManager = new ConsentManager(persistence);
+		assertTrue(relaunchedConsentManager.hasExpiries());
+		final Consents consents = relaunchedConsentManager.getCurrentConsents();
+		assertEquals("y", readCollectConsent(consents));
+		assertEquals("n", readAdIdConsent(consents));
+	}
+
+	@Test
+	public void test_corruptedSharedState_isNotLoaded() {
+		for (final Map.Entry<String, UnaryOperator<String>> fault : FAULTS.entrySet()) {
+			// setup
+			final FakeNamedCollection persistence = new FakeNamedCollection();
+			final ConsentManager consentManager = new ConsentManager(persistence);
+			consentManager.mergeAndPersist(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+			consentManager.saveSharedStateToPersistence();
+			final String persisted = persistence.getString(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE, null);
+
+			// test
+			persistence.setString(
+				ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE,
+				fault.getValue().apply(persisted)
+			);
+
+			// verify
+			assertNull(fault.getKey(), new ConsentManager(persistence).loadSharedStateFromPersistence());
+		}
+	}
+
+	// ========================================================================================
+	// ConsentJournal
+	// ========================================================================================
+
+	@Test
+	public void test_journal_corruptedSnapshot_replaysOverPreviousSnapshot() throws Exception {
+		for (final Map.Entry<String, UnaryOperator<String>> fault : FAULTS.entrySet()) {
+			// setup
+			final File directory = temporaryFolder.newFolder();
+			final ConsentJournal journal = new ConsentJournal(directory);
+			journal.compact(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+			journal.compact(new Consents(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap()));
+			final Consents update = new Consents(new ConsentsBuilder().setAdId("n").buildToMap());
+			journal.append(update.toJson());
+			final File snapshotFile = new File(directory, ConsentJournal.SNAPSHOT_FILE);
+			final String persisted = new String(Files.readAllBytes(snapshotFile.toPath()), StandardCharsets.UTF_8);
+
+			// test
+			Files.write(snapshotFile.toPath(), fault.getValue().apply(persisted).getBytes(StandardCharsets.UTF_8));
+			final Consents consents = new ConsentJournal(directory).replay();
+
+			// verify
+			assertEquals(fault.getKey(), "y", readCollectConsent(consents));
+			assertEquals(fault.getKey(), "n", readAdIdConsent(consents));
+		}
+	}
+
+	@Test
+	public void test_journal_interruptedCompaction_replaysOverPreviousSnapshot() throws Exception {
+		// setup - the compaction was interrupted once the snapshot was renamed to the backup
+		final File directory = temporaryFolder.newFolder();
+		final ConsentJournal journal = new ConsentJournal(directory);
+		journal.compact(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()));
+		final Consents update = new Consents(new ConsentsBuilder().setAdId("n").buildToMap());
+		journal.append(update.toJson());
+
+		// test
+		final File snapshotFile = new File(directory, ConsentJournal.SNAPSHOT_FILE);
+		Files.move(snapshotFile.toPath(), new File(directory, ConsentJournal.SNAPSHOT_BACKUP_FILE).toPath());
+		final Consents consents = new ConsentJournal(directory).replay();
+
+		// verify
+		assertEquals("y", readCollectConsent(consents));
+		assertEquals("n", readAdIdConsent(consents));
+	}
+}
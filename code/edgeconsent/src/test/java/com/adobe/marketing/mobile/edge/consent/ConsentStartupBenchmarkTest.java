@@ -0,0 +1,111 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.adobe.marketing.mobile.ExtensionApi;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Startup benchmark for the Consent extension using large persisted consent payloads.
+ *
+ * <p>Compares the boot path publishing the cached XDM shared state against the boot path loading,
+ * merging and converting the persisted user and default consents, and verifies that both paths
+ * publish the same shared state and that the cached path is faster. Skipped unless the {@link
+ * ConsentPayloadGenerator#BENCHMARKS_PROPERTY} system property is set.
+ */
+public class ConsentStartupBenchmarkTest {
+
+	private static final int VENDOR_COUNT = 2000;
+	private static final long SEED = 2000;
+	private static final int WARMUP_ITERATIONS = 10;
+	private static final int MEASURED_ITERATIONS = 50;
+
+	private final Map<String, Object> lastSharedState = new HashMap<>();
+	private ExtensionApi extensionApi;
+	private FakeNamedCollection persistence;
+
+	@Before
+	public void setup() {
+		assumeTrue(Boolean.getBoolean(ConsentPayloadGenerator.BENCHMARKS_PROPERTY));
+		extensionApi = Mockito.mock(ExtensionApi.class, Mockito.withSettings().stubOnly());
+		doAnswer(invocation -> {
+				lastSharedState.clear();
+				lastSharedState.putAll(invocation.getArgument(0));
+				return null;
+			})
+			.when(extensionApi)
+			.createXDMSharedState(any(), any());
+
+		persistence = new FakeNamedCollection();
+		final ConsentManager consentManager = new ConsentManager(persistence);
+		final ConsentPayloadGenerator generator = new ConsentPayloadGenerator(SEED).setVendorCount(VENDOR_COUNT);
+		consentManager.updateDefaultConsents(new Consents(generator.setValueWeights(0, 1, 0).buildToMap()));
+		consentManager.mergeAndPersist(
+			new Consents(generator.setValueWeights(1, 0, 0).setFirstVendorIndex(VENDOR_COUNT / 2).buildToMap())
+		);
+		consentManager.saveSharedStateToPersistence();
+	}
+
+	@Test
+	public void benchmark_bootWithCachedSharedState_vsMergedConsents() {
+		final long cachedNanos = measureBoot(true);
+		final Map<String, Object> cachedSharedState = new HashMap<>(lastSharedState);
+
+		final long mergedNanos = measureBoot(false);
+
+		assertEquals(lastSharedState, cachedSharedState);
+		assertTrue(
+			String.format(
+				"Consent startup with %d vendors: cached shared state %d us/op, load and merge %d us/op",
+				VENDOR_COUNT,
+				cachedNanos / MEASURED_ITERATIONS / 1000,
+				mergedNanos / MEASURED_ITERATIONS / 1000
+			),
+			cachedNanos < mergedNanos
+		);
+	}
+
+	private long measureBoot(final boolean useCachedSharedState) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			boot(useCachedSharedState);
+		}
+
+		long elapsedNanos = 0;
+
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			elapsedNanos += boot(useCachedSharedState);
+		}
+
+		return elapsedNanos;
+	}
+
+	private long boot(final boolean useCachedSharedState) {
+		if (!useCachedSharedState) {
+			// invalidate the cache written by the previous boot
+			persistence.remove(ConsentConstants.DataStoreKey.CONSENT_SHARED_STATE_FINGERPRINT);
+		}
+
+		final long start = System.nanoTime();
+		new ConsentExtension(extensionApi, persistence).handleInitialization();
+		return System.nanoTime() - start;
+	}
+}
@@ -12,8 +12,11 @@
 package com.adobe.marketing.mobile.edge.consent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import android.app.Application;
 import com.adobe.marketing.mobile.AdobeCallback;
@@ -25,6 +28,8 @@ import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.Extension;
 import com.adobe.marketing.mobile.MobileCore;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +56,7 @@ public class ConsentTest {
 	@Before
 	public void setup() {
 		Mockito.reset(mockApplication);
+		GetConsentsRequests.getInstance().reset();
 	}
 
 	// ========================================================================================
@@ -107,7 +113,118 @@ public class ConsentTest {
 	public void testUpdate_withNull() {
 		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
 			// test
-			Consent.update(null);
+			Consent.update((Map<String, Object>) null);
+
+			// verify
+			mobileCoreMockedStatic.verifyNoInteractions();
+		}
+	}
+
+	@Test
+	public void testUpdate_withConsentUpdate() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+
+			// test
+			Consent.update(new ConsentUpdate.Builder().setCollect("y").setAdId("n").build());
+
+			// verify
+			mobileCoreMockedStatic.verify(() -> MobileCore.dispatchEvent(eventCaptor.capture()));
+			Event dispatchedEvent = eventCaptor.getValue();
+
+			assertNotNull(dispatchedEvent);
+			assertEquals(ConsentConstants.EventNames.CONSENT_UPDATE_REQUEST, dispatchedEvent.getName());
+			assertEquals(EventType.CONSENT, dispatchedEvent.getType());
+			assertEquals(EventSource.UPDATE_CONSENT, dispatchedEvent.getSource());
+			assertEquals(
+				new ConsentTestUtil.ConsentsBuilder().setCollect("y").setAdId("n").buildToMap().get("consents"),
+				dispatchedEvent.getEventData().get("consents")
+			);
+			assertTrue(ConsentUpdate.consumeValidatedEvent(dispatchedEvent.getUniqueIdentifier()));
+		}
+	}
+
+	@Test
+	public void testUpdate_withEmptyConsentUpdate() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Consent.update(new ConsentUpdate.Builder().setCollect("").build());
+			Consent.update((ConsentUpdate) null);
+
+			// verify
+			mobileCoreMockedStatic.verifyNoInteractions();
+		}
+	}
+
+	@Test
+	public void testUpdateAll() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+			final List<Map<String, Object>> consentsList = new ArrayList<>();
+			consentsList.add(new ConsentTestUtil.ConsentsBuilder().setCollect("y").setAdId("y").buildToMap());
+			consentsList.add(null);
+			consentsList.add(new ConsentTestUtil.ConsentsBuilder().setAdId("n").buildToMap());
+			consentsList.add(new ConsentTestUtil.ConsentsBuilder().setPersonalize("vi").buildToMap());
+
+			// test
+			Consent.updateAll(consentsList);
+
+			// verify a single update event with the consents combined in order
+			mobileCoreMockedStatic.verify(() -> MobileCore.dispatchEvent(eventCaptor.capture()));
+			Event dispatchedEvent = eventCaptor.getValue();
+
+			assertEquals(ConsentConstants.EventNames.CONSENT_UPDATE_REQUEST, dispatchedEvent.getName());
+			assertEquals(EventType.CONSENT, dispatchedEvent.getType());
+			assertEquals(EventSource.UPDATE_CONSENT, dispatchedEvent.getSource());
+			assertEquals(
+				new ConsentTestUtil.ConsentsBuilder().setCollect("y").setAdId("n").setPersonalize("vi").buildToMap(),
+				dispatchedEvent.getEventData()
+			);
+		}
+	}
+
+	@Test
+	public void testUpdateAll_withExpiries() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+			final Map<String, Object> collectConsents = new ConsentTestUtil.ConsentsBuilder()
+				.setCollect("y")
+				.buildToMap();
+			collectConsents.put(ConsentConstants.EventDataKey.EXPIRY, 1767225600000L);
+			final Map<String, Object> adIdConsents = new ConsentTestUtil.ConsentsBuilder().setAdId("n").buildToMap();
+			adIdConsents.put(
+				ConsentConstants.EventDataKey.EXPIRY,
+				Collections.singletonMap("adID", 1798761600000L)
+			);
+
+			// test
+			Consent.updateAll(Arrays.asList(collectConsents, adIdConsents));
+
+			// verify the expiries are sent along with the combined consents
+			mobileCoreMockedStatic.verify(() -> MobileCore.dispatchEvent(eventCaptor.capture()));
+			final Map<String, Object> eventData = eventCaptor.getValue().getEventData();
+			final Map<String, Object> expiries = (Map<String, Object>) eventData.get(
+				ConsentConstants.EventDataKey.EXPIRY
+			);
+			assertEquals(1767225600000L, expiries.get("collect"));
+			assertEquals(1798761600000L, expiries.get("adID"));
+
+			// verify the extension reads them
+			final Consents consents = new Consents(eventData);
+			assertEquals(1767225600000L, consents.getNextExpiry());
+		}
+	}
+
+	@Test
+	public void testUpdateAll_withNullOrEmpty() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			final List<Map<String, Object>> emptyConsentsList = new ArrayList<>();
+			emptyConsentsList.add(new HashMap<String, Object>());
+
+			// test
+			Consent.updateAll(null);
+			Consent.updateAll(new ArrayList<Map<String, Object>>());
+			Consent.updateAll(emptyConsentsList);
 
 			// verify
 			mobileCoreMockedStatic.verifyNoInteractions();
@@ -256,6 +373,234 @@ public class ConsentTest {
 		}
 	}
 
+	@Test
+	public void testGetConsents_coalescesConcurrentCalls() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			// setup
+			final ArgumentCaptor<AdobeCallbackWithError<Event>> callbackCaptor = ArgumentCaptor.forClass(
+				AdobeCallbackWithError.class
+			);
+			final List<Map<String, Object>> callbackReturnValues = new ArrayList<>();
+			final AdobeCallback<Map<String, Object>> callback = callbackReturnValues::add;
+
+			// test
+			Consent.getConsents(callback);
+			Consent.getConsents(callback);
+
+			// verify
+			mobileCoreMockedStatic.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(
+					ArgumentMatchers.any(Event.class),
+					ArgumentMatchers.anyLong(),
+					callbackCaptor.capture()
+				)
+			);
+			callbackCaptor.getValue().call(buildConsentResponseEvent(SAMPLE_CONSENTS_MAP));
+			assertEquals(2, callbackReturnValues.size());
+			assertEquals(SAMPLE_CONSENTS_MAP, callbackReturnValues.get(0));
+			assertEquals(SAMPLE_CONSENTS_MAP, callbackReturnValues.get(1));
+			assertNotSame(callbackReturnValues.get(0), callbackReturnValues.get(1));
+		}
+	}
+
+	@Test
+	public void testGetConsents_withMaxAge_servesRetrievedConsentsUntilUpdate() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			// setup
+			final ArgumentCaptor<AdobeCallbackWithError<Event>> callbackCaptor = ArgumentCaptor.forClass(
+				AdobeCallbackWithError.class
+			);
+			final List<Map<String, Object>> callbackReturnValues = new ArrayList<>();
+			final AdobeCallback<Map<String, Object>> callback = callbackReturnValues::add;
+			Consent.getConsents(callback);
+			mobileCoreMockedStatic.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(
+					ArgumentMatchers.any(Event.class),
+					ArgumentMatchers.anyLong(),
+					callbackCaptor.capture()
+				)
+			);
+			callbackCaptor.getValue().call(buildConsentResponseEvent(SAMPLE_CONSENTS_MAP));
+			mobileCoreMockedStatic.clearInvocations();
+
+			// test
+			Consent.getConsents(callback, 60000);
+
+			// verify
+			mobileCoreMockedStatic.verifyNoInteractions();
+			assertEquals(2, callbackReturnValues.size());
+			assertEquals(callbackReturnValues.get(0), callbackReturnValues.get(1));
+			assertNotSame(callbackReturnValues.get(0), callbackReturnValues.get(1));
+
+			// test - an update discards the retrieved consents
+			Consent.update(SAMPLE_CONSENTS_MAP);
+			Consent.getConsents(callback, 60000);
+
+			// verify
+			assertEquals(2, callbackReturnValues.size());
+			mobileCoreMockedStatic.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(
+					ArgumentMatchers.any(Event.class),
+					ArgumentMatchers.anyLong(),
+					ArgumentMatchers.any(AdobeCallbackWithError.class)
+				)
+			);
+		}
+	}
+
+	@Test
+	public void testGetHistory() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			// setup
+			final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+			final ArgumentCaptor<AdobeCallbackWithError<Event>> callbackCaptor = ArgumentCaptor.forClass(
+				AdobeCallbackWithError.class
+			);
+			final List<Map<String, Object>> callbackReturnValues = new ArrayList<>();
+			final List<AdobeError> errors = new ArrayList<>();
+
+			// test
+			Consent.getHistory(
+				5,
+				10,
+				new AdobeCallbackWithError<Map<String, Object>>() {
+					@Override
+					public void call(final Map<String, Object> page) {
+						callbackReturnValues.add(page);
+					}
+
+					@Override
+					public void fail(final AdobeError adobeError) {
+						errors.add(adobeError);
+					}
+				}
+			);
+
+			// verify
+			mobileCoreMockedStatic.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(
+					eventCaptor.capture(),
+					ArgumentMatchers.anyLong(),
+					callbackCaptor.capture()
+				)
+			);
+
+			final Event dispatchedEvent = eventCaptor.getValue();
+			assertEquals(ConsentConstants.EventNames.GET_HISTORY_REQUEST, dispatchedEvent.getName());
+			assertEquals(EventType.CONSENT, dispatchedEvent.getType());
+			assertEquals(ConsentConstants.EventSources.HISTORY_REQUEST, dispatchedEvent.getSource());
+			assertEquals(5L, dispatchedEvent.getEventData().get(ConsentConstants.EventDataKey.FROM_REVISION));
+			assertEquals(10, dispatchedEvent.getEventData().get(ConsentConstants.EventDataKey.LIMIT));
+
+			// verify callback responses
+			final Map<String, Object> page = new HashMap<>();
+			page.put(ConsentConstants.EventDataKey.ENTRIES, new ArrayList<>());
+			page.put(ConsentConstants.EventDataKey.NEXT_REVISION, 5L);
+			callbackCaptor.getValue().call(buildConsentResponseEvent(page));
+			callbackCaptor.getValue().fail(AdobeError.CALLBACK_TIMEOUT);
+			assertEquals(page, callbackReturnValues.get(0));
+			assertEquals(Collections.singletonList(AdobeError.CALLBACK_TIMEOUT), errors);
+		}
+	}
+
+	@Test
+	public void testGetConsentsAsync() throws Exception {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			// setup
+			final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+			final ArgumentCaptor<AdobeCallbackWithError<Event>> callbackCaptor = ArgumentCaptor.forClass(
+				AdobeCallbackWithError.class
+			);
+
+			// test
+			final ConsentsFuture future = Consent.getConsentsAsync(250);
+
+			// verify
+			mobileCoreMockedStatic.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(
+					eventCaptor.capture(),
+					ArgumentMatchers.eq(250L),
+					callbackCaptor.capture()
+				)
+			);
+			assertEquals(ConsentConstants.EventNames.GET_CONSENTS_REQUEST, eventCaptor.getValue().getName());
+			assertFalse(future.isDone());
+
+			callbackCaptor.getValue().call(buildConsentResponseEvent(SAMPLE_CONSENTS_MAP));
+			assertEquals(SAMPLE_CONSENTS_MAP, future.get());
+		}
+	}
+
+	@Test
+	public void testGetConsentsAsync_withoutTimeout_usesDefaultTimeout() {
+		try (MockedStatic<MobileCore> mobileCoreMockedStatic = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Consent.getConsentsAsync(0);
+
+			// verify
+			mobileCoreMockedStatic.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(
+					ArgumentMatchers.any(Event.class),
+					ArgumentMatchers.eq(5000L),
+					ArgumentMatchers.any(AdobeCallbackWithError.class)
+				)
+			);
+		}
+	}
+
+	// ========================================================================================
+	// getMetrics Public API
+	// ========================================================================================
+	@Test
+	public void testGetMetrics() {
+		// setup
+		ConsentMetrics.getInstance().reset();
+		ConsentMetrics.getInstance().increment(ConsentMetrics.UPDATES_RECEIVED);
+
+		// test
+		Map<String, Object> metrics = Consent.getMetrics();
+
+		// verify
+		Map<String, Object> counters = (Map<String, Object>) metrics.get(ConsentMetrics.COUNTERS);
+		assertEquals(1L, counters.get(ConsentMetrics.UPDATES_RECEIVED));
+		assertNotNull(metrics.get(ConsentMetrics.LATENCIES));
+	}
+
+	// ========================================================================================
+	// registerListener/unregisterListener Public API
+	// ========================================================================================
+	@Test
+	public void testRegisterListener() {
+		// setup
+		final ConsentChangeListener listener = (keyPath, oldValue, newValue) -> {};
+
+		try {
+			// test
+			Consent.registerListener(Collections.singletonList("collect.val"), listener);
+			Consent.registerListener(null, listener);
+			Consent.registerListener(Collections.singletonList("adID.val"), null);
+
+			// verify
+			Consent.unregisterListener(null);
+			assertTrue(ConsentChangeListeners.getInstance().unregister(listener));
+		} finally {
+			ConsentChangeListeners.getInstance().reset();
+		}
+	}
+
+	@Test
+	public void testUnregisterListener() {
+		// setup
+		final ConsentChangeListener listener = (keyPath, oldValue, newValue) -> {};
+		Consent.registerListener(Collections.singletonList("collect.val"), listener);
+
+		// test
+		Consent.unregisterListener(listener);
+
+		// verify
+		assertFalse(ConsentChangeListeners.getInstance().unregister(listener));
+	}
+
 	// ========================================================================================
 	// Private method
 	// ========================================================================================
@@ -0,0 +1,159 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.ConsentsBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+
+public class ConsentUpdateTest {
+
+	@Test
+	public void test_build_matchesConsentsMap() {
+		// test
+		final ConsentUpdate consentUpdate = new ConsentUpdate.Builder()
+			.setCollect("y")
+			.setAdId("n")
+			.setPersonalize("vi")
+			.setShare("n")
+			.build();
+
+		// verify
+		final Map<String, Object> expected = new ConsentsBuilder()
+			.setCollect("y")
+			.setAdId("n")
+			.setPersonalize("vi")
+			.buildToMap();
+		((Map<String, Object>) expected.get("consents")).put("share", Collections.singletonMap("val", "n"));
+		assertEquals(expected.get("consents"), consentUpdate.toEventData().get("consents"));
+		assertNull(consentUpdate.toEventData().get(ConsentConstants.EventDataKey.EXPIRY));
+		assertFalse(consentUpdate.isEmpty());
+	}
+
+	@Test
+	public void test_setMarketing_mergesChannels() {
+		// test
+		final ConsentUpdate consentUpdate = new ConsentUpdate.Builder()
+			.setMarketing("email", "y")
+			.setMarketing("sms", "n")
+			.setMarketing("email", "n")
+			.build();
+
+		// verify
+		final Map<String, Object> marketing = (Map<String, Object>) (
+			(Map<String, Object>) consentUpdate.toEventData().get("consents")
+		).get("marketing");
+		assertEquals(2, marketing.size());
+		assertEquals("n", ((Map<String, Object>) marketing.get("email")).get("val"));
+		assertEquals("n", ((Map<String, Object>) marketing.get("sms")).get("val"));
+	}
+
+	@Test
+	public void test_setConsent_arbitraryKey() {
+		// test
+		final ConsentUpdate consentUpdate = new ConsentUpdate.Builder().setConsent("custom", "y").build();
+
+		// verify
+		final Map<String, Object> consents = (Map<String, Object>) consentUpdate.toEventData().get("consents");
+		assertEquals("y", ((Map<String, Object>) consents.get("custom")).get("val"));
+	}
+
+	@Test
+	public void test_invalidValues_areIgnored() {
+		// test
+		final ConsentUpdate consentUpdate = new ConsentUpdate.Builder()
+			.setCollect(null)
+			.setAdId("")
+			.setMarketing("", "y")
+			.setMarketing(null, "y")
+			.setConsent("metadata", "y")
+			.setConsent(null, "y")
+			.build();
+
+		// verify
+		assertTrue(consentUpdate.isEmpty());
+	}
+
+	@Test
+	public void test_setExpiry_appliesToAllConsents() {
+		// test
+		final ConsentUpdate consentUpdate = new ConsentUpdate.Builder()
+			.setCollect("y")
+			.setAdId("n")
+			.setExpiry(1767225600000L)
+			.build();
+
+		// verify
+		assertEquals(1767225600000L, consentUpdate.toEventData().get(ConsentConstants.EventDataKey.EXPIRY));
+	}
+
+	@Test
+	public void test_setExpiry_byKey_takesPrecedence() {
+		// test
+		final ConsentUpdate consentUpdate = new ConsentUpdate.Builder()
+			.setCollect("y")
+			.setAdId("n")
+			.setShare("n")
+			.setExpiry(1767225600000L)
+			.setExpiry("adID", 1798761600000L)
+			.setExpiry("share", 0)
+			.setExpiry("metadata", 1798761600000L)
+			.build();
+
+		// verify
+		final Map<String, Object> expiries = (Map<String, Object>) consentUpdate
+			.toEventData()
+			.get(ConsentConstants.EventDataKey.EXPIRY);
+		assertEquals(3, expiries.size());
+		assertEquals(1767225600000L, expiries.get("collect"));
+		assertEquals(1798761600000L, expiries.get("adID"));
+		assertEquals(0L, expiries.get("share"));
+	}
+
+	@Test
+	public void test_consumeValidatedEvent() {
+		// setup
+		ConsentUpdate.markValidatedEvent("event-1");
+
+		// test & verify
+		assertTrue(ConsentUpdate.consumeValidatedEvent("event-1"));
+		assertFalse(ConsentUpdate.consumeValidatedEvent("event-1"));
+		assertFalse(ConsentUpdate.consumeValidatedEvent("event-2"));
+		assertFalse(ConsentUpdate.consumeValidatedEvent(null));
+	}
+
+	@Test
+	public void test_build_isImmutable() {
+		// setup
+		final ConsentUpdate.Builder builder = new ConsentUpdate.Builder().setCollect("y");
+		final ConsentUpdate consentUpdate = builder.build();
+
+		// test, changes made after build are ignored
+		builder.setCollect("n").setAdId("n").setExpiry(1767225600000L);
+
+		try {
+			consentUpdate.toEventData().put("consents", null);
+			fail("UnsupportedOperationException expected");
+		} catch (UnsupportedOperationException expected) {}
+
+		// verify
+		final Map<String, Object> consents = (Map<String, Object>) consentUpdate.toEventData().get("consents");
+		assertEquals("y", ((Map<String, Object>) consents.get("collect")).get("val"));
+	}
+}
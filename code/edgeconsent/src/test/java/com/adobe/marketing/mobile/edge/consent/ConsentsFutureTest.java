@@ -0,0 +1,172 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.adobe.marketing.mobile.AdobeCallbackWithError;
+import com.adobe.marketing.mobile.AdobeError;
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventSource;
+import com.adobe.marketing.mobile.EventType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+public class ConsentsFutureTest {
+
+	private static final Map<String, Object> SAMPLE_CONSENTS_MAP = new ConsentTestUtil.ConsentsBuilder()
+		.setCollect("y")
+		.buildToMap();
+
+	private final ConsentsFuture future = new ConsentsFuture();
+
+	@Test
+	public void test_complete() throws Exception {
+		// setup
+		final RecordingCallback callback = new RecordingCallback();
+		future.whenComplete(callback);
+
+		// test
+		future.getResponseCallback().call(buildConsentResponseEvent(SAMPLE_CONSENTS_MAP));
+
+		// verify
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+		assertEquals(SAMPLE_CONSENTS_MAP, future.get());
+		assertEquals(SAMPLE_CONSENTS_MAP, future.get(0, TimeUnit.MILLISECONDS));
+		assertEquals(SAMPLE_CONSENTS_MAP, callback.results.get(0));
+		assertNull(future.getError());
+
+		// verify the consents can be modified without affecting the future
+		future.get().put("newkey", "newvalue");
+		callback.results.get(0).put("newkey", "newvalue");
+		assertEquals(SAMPLE_CONSENTS_MAP, future.get());
+	}
+
+	@Test
+	public void test_whenComplete_afterComplete_callsImmediately() {
+		// setup
+		future.complete(SAMPLE_CONSENTS_MAP);
+		final RecordingCallback callback = new RecordingCallback();
+
+		// test
+		future.whenComplete(callback);
+
+		// verify
+		assertEquals(SAMPLE_CONSENTS_MAP, callback.results.get(0));
+	}
+
+	@Test
+	public void test_fail() throws InterruptedException {
+		// setup
+		final RecordingCallback callback = new RecordingCallback();
+		future.whenComplete(callback);
+
+		// test
+		future.getResponseCallback().fail(AdobeError.CALLBACK_TIMEOUT);
+
+		// verify
+		assertTrue(future.isDone());
+		assertEquals(AdobeError.CALLBACK_TIMEOUT, future.getError());
+		assertEquals(AdobeError.CALLBACK_TIMEOUT, callback.errors.get(0));
+
+		try {
+			future.get();
+			fail("ExecutionException expected");
+		} catch (ExecutionException expected) {}
+	}
+
+	@Test
+	public void test_nullResponseEvent_fails() {
+		// test
+		future.getResponseCallback().call(null);
+
+		// verify
+		assertEquals(AdobeError.UNEXPECTED_ERROR, future.getError());
+	}
+
+	@Test
+	public void test_cancel_releasesFuture() throws Exception {
+		// setup
+		final RecordingCallback callback = new RecordingCallback();
+		future.whenComplete(callback);
+
+		// test
+		assertTrue(future.cancel(false));
+		future.getResponseCallback().call(buildConsentResponseEvent(SAMPLE_CONSENTS_MAP));
+
+		// verify
+		assertTrue(future.isCancelled());
+		assertTrue(future.isDone());
+		assertFalse(future.cancel(false));
+		assertTrue(callback.results.isEmpty());
+
+		try {
+			future.get();
+			fail("CancellationException expected");
+		} catch (CancellationException expected) {}
+	}
+
+	@Test
+	public void test_cancel_afterComplete_returnsFalse() throws Exception {
+		// setup
+		future.complete(SAMPLE_CONSENTS_MAP);
+
+		// test
+		assertFalse(future.cancel(true));
+
+		// verify
+		assertFalse(future.isCancelled());
+		assertEquals(SAMPLE_CONSENTS_MAP, future.get());
+	}
+
+	@Test(expected = TimeoutException.class)
+	public void test_get_timesOut() throws Exception {
+		future.get(1, TimeUnit.MILLISECONDS);
+	}
+
+	private static Event buildConsentResponseEvent(final Map<String, Object> eventData) {
+		return new Event.Builder(
+			ConsentConstants.EventNames.GET_CONSENTS_RESPONSE,
+			EventType.CONSENT,
+			EventSource.RESPONSE_CONTENT
+		)
+			.setEventData(eventData)
+			.build();
+	}
+
+	private static class RecordingCallback implements AdobeCallbackWithError<Map<String, Object>> {
+
+		final List<Map<String, Object>> results = new ArrayList<>();
+		final List<AdobeError> errors = new ArrayList<>();
+
+		@Override
+		public void call(final Map<String, Object> consents) {
+			results.add(consents);
+		}
+
+		@Override
+		public void fail(final AdobeError error) {
+			errors.add(error);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.SAMPLE_METADATA_TIMESTAMP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.adobe.marketing.mobile.util.JSONUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class ConsentsJsonTest {
+
+	// ========================================================================================
+	// write
+	// ========================================================================================
+
+	@Test
+	public void test_write_sortsKeys() {
+		// setup
+		final Map<String, Object> map = new HashMap<>();
+		map.put("personalize", "p");
+		map.put("adID", "n");
+		map.put("collect", "y");
+
+		// test
+		final String json = ConsentsJson.write(map);
+
+		// verify
+		assertEquals("{\"adID\":\"n\",\"collect\":\"y\",\"personalize\":\"p\"}", json);
+	}
+
+	@Test
+	public void test_write_valueTypes() {
+		// setup
+		final Map<String, Object> map = new HashMap<>();
+		map.put("int", 1);
+		map.put("long", 9007199254740993L);
+		map.put("double", 1.5);
+		map.put("wholeDouble", 2.0);
+		map.put("bool", true);
+		map.put("null", null);
+		map.put("list", Arrays.asList("a", 1, new HashMap<>()));
+
+		// test
+		final String json = ConsentsJson.write(map);
+
+		// verify
+		assertEquals(
+			"{\"bool\":true,\"double\":1.5,\"int\":1,\"list\":[\"a\",1,{}],\"long\":9007199254740993," +
+			"\"null\":null,\"wholeDouble\":2}",
+			json
+		);
+	}
+
+	@Test
+	public void test_write_escapesStrings() {
+		// setup
+		final Map<String, Object> map = new HashMap<>();
+		map.put("k\"ey", "quote\" backslash\\ newline\n tab\t control\u0001 unicode\u00e9");
+
+		// test
+		final String json = ConsentsJson.write(map);
+
+		// verify
+		assertEquals(
+			"{\"k\\\"ey\":\"quote\\\" backslash\\\\ newline\\n tab\\t control\\u0001 unicode\u00e9\"}",
+			json
+		);
+	}
+
+	@Test
+	public void test_write_isReadByJSONObject() throws Exception {
+		// setup
+		final Map<String, Object> consents = new ConsentPayloadGenerator(7)
+			.setVendorCount(50)
+			.setNestingDepth(2)
+			.setTime(SAMPLE_METADATA_TIMESTAMP)
+			.buildToMap();
+
+		// test
+		final String json = ConsentsJson.write(consents);
+
+		// verify
+		assertEquals(consents, JSONUtils.toMap(new JSONObject(json)));
+	}
+
+	// ========================================================================================
+	// read
+	// ========================================================================================
+
+	@Test
+	public void test_read_matchesJSONObject() throws Exception {
+		// setup
+		final String json =
+			"{ \"consents\" : {\"collect\": {\"val\": \"y\"}, \"count\": 12, \"big\": 9007199254740993," +
+			" \"flags\": [true, false], \"empty\": {}, \"none\": [],\n" +
+			" \"text\": \"a\\\"b\\\\c\\/d\\n\\u00e9\"} }";
+
+		// test
+		final Map<String, Object> map = ConsentsJson.read(json);
+
+		// verify
+		assertEquals(JSONUtils.toMap(new JSONObject(json)), map);
+
+		final Map<String, Object> consents = (Map<String, Object>) map.get("consents");
+		assertEquals(12, consents.get("count"));
+		assertEquals(9007199254740993L, consents.get("big"));
+		assertEquals("a\"b\\c/d\n\u00e9", consents.get("text"));
+
+		final List<Object> flags = new ArrayList<>();
+		flags.add(true);
+		flags.add(false);
+		assertEquals(flags, consents.get("flags"));
+	}
+
+	@Test
+	public void test_read_numbersAndNull() throws Exception {
+		// test
+		final Map<String, Object> map = ConsentsJson.read(
+			"{\"int\":-7,\"long\":-9007199254740993,\"double\":-1.25e2," +
+			"\"huge\":123456789012345678901234567890,\"nothing\":null}"
+		);
+
+		// verify
+		assertEquals(-7, map.get("int"));
+		assertEquals(-9007199254740993L, map.get("long"));
+		assertEquals(-125.0, map.get("double"));
+		assertEquals(1.2345678901234568e29, map.get("huge"));
+		assertTrue(map.containsKey("nothing"));
+		assertNull(map.get("nothing"));
+	}
+
+	@Test
+	public void test_read_roundTrip() throws Exception {
+		// setup
+		final Map<String, Object> consents = new ConsentPayloadGenerator(42)
+			.setVendorCount(200)
+			.setNestingDepth(2)
+			.setValueWeights(8, 1, 1)
+			.setTime(SAMPLE_METADATA_TIMESTAMP)
+			.buildToMap();
+
+		// test
+		final Map<String, Object> map = ConsentsJson.read(ConsentsJson.write(consents));
+
+		// verify
+		assertEquals(consents, map);
+	}
+
+	@Test
+	public void test_read_returnsMutableMaps() throws Exception {
+		// test
+		final Map<String, Object> map = ConsentsJson.read("{\"consents\":{\"collect\":{\"val\":\"y\"}}}");
+		((Map<String, Object>) map.get("consents")).put("adID", "n");
+
+		// verify
+		assertEquals(2, ((Map<String, Object>) map.get("consents")).size());
+	}
+
+	@Test
+	public void test_read_invalidJson_throws() {
+		final String[] invalidJsons = {
+			null,
+			"",
+			"[]",
+			"\"consents\"",
+			"{",
+			"{\"consents\"}",
+			"{\"consents\":}",
+			"{\"consents\":{\"collect\":{\"val\":\"y\"}}",
+			"{\"consents\":tru}",
+			"{\"consents\":\"unterminated}",
+			"{\"consents\":\"\\x\"}",
+			"{\"consents\":\"\\u12\"}",
+			"{\"consents\":1}}",
+			"{consents:1}",
+		};
+
+		for (final String json : invalidJsons) {
+			try {
+				ConsentsJson.read(json);
+				fail("Expected JSONException for " + json);
+			} catch (final JSONException e) {
+				// expected
+			}
+		}
+	}
+
+	// ========================================================================================
+	// Consents
+	// ========================================================================================
+
+	@Test
+	public void test_consentsToJson_fromJson() throws Exception {
+		// setup
+		final Consents consents = new Consents(
+			new ConsentTestUtil.ConsentsBuilder()
+				.setCollect("y")
+				.setAdId("n")
+				.setTime(SAMPLE_METADATA_TIMESTAMP)
+				.buildToMap()
+		);
+
+		// test
+		final String json = consents.toJson();
+
+		// verify
+		assertEquals(
+			new ConsentTestUtil.ConsentsBuilder()
+				.setCollect("y")
+				.setAdId("n")
+				.setTime(SAMPLE_METADATA_TIMESTAMP)
+				.buildToString(),
+			json
+		);
+		assertEquals(consents, Consents.fromJson(json));
+	}
+
+	@Test
+	public void test_consentsFromJson_withoutConsents_returnsEmptyConsents() throws Exception {
+		// test
+		final Consents consents = Consents.fromJson("{\"other\":{}}");
+
+		// verify
+		assertTrue(consents.isEmpty());
+		assertNull(consents.getTimestamp());
+	}
+}
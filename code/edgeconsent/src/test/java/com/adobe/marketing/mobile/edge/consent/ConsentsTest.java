@@ -20,8 +20,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.adobe.marketing.mobile.util.TimeUtils;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -151,6 +153,28 @@ public class ConsentsTest {
 		assertEquals(SAMPLE_METADATA_TIMESTAMP, ConsentTestUtil.readTimestamp(baseConsent));
 	}
 
+	@Test
+	public void test_fromValidatedEventData() {
+		// setup
+		final Map<String, Object> eventData = new ConsentUpdate.Builder()
+			.setCollect("y")
+			.setPersonalize("n")
+			.build()
+			.toEventData();
+
+		// test
+		Consents consents = Consents.fromValidatedEventData(eventData);
+
+		// verify
+		assertEquals(new Consents(new ConsentsBuilder().setCollect("y").setPersonalize("n").buildToMap()), consents);
+	}
+
+	@Test
+	public void test_fromValidatedEventData_withoutConsents() {
+		assertTrue(Consents.fromValidatedEventData(null).isEmpty());
+		assertTrue(Consents.fromValidatedEventData(new HashMap<String, Object>()).isEmpty());
+	}
+
 	// ========================================================================================
 	// Test Scenarios   : All possible Consent object values
 	// Test method      : Copy Constructor, isEmpty
@@ -209,6 +233,29 @@ public class ConsentsTest {
 		assertEquals(ConsentTestUtil.emptyConsentXDMMap(), consents.asXDMMap());
 	}
 
+	@Test
+	public void test_AsUnmodifiableXDMMap() {
+		// setup
+		Map<String, Object> consentData = new ConsentsBuilder()
+			.setCollect("y")
+			.setTime(SAMPLE_METADATA_TIMESTAMP)
+			.buildToMap();
+		Consents consents = new Consents(consentData);
+
+		// test
+		Map<String, Object> xdmMap = consents.asUnmodifiableXDMMap();
+
+		// verify
+		assertEquals(consents.asXDMMap(), xdmMap);
+
+		try {
+			((Map<String, Object>) xdmMap.get(ConsentConstants.EventDataKey.CONSENTS)).remove("collect");
+			fail("Expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
 	// ========================================================================================
 	// Test method : Merge
 	// ========================================================================================
@@ -337,6 +384,23 @@ public class ConsentsTest {
 		assertNull(ConsentTestUtil.readTimestamp(consents));
 	}
 
+	@Test
+	public void test_setTimeStamp_whenMetadataIsImmutable() {
+		// setup
+		Map<String, Object> metadata = Collections.singletonMap("time", (Object) SAMPLE_METADATA_TIMESTAMP);
+		Map<String, Object> consentsMap = new HashMap<>();
+		consentsMap.put("metadata", metadata);
+		consentsMap.put("collect", Collections.singletonMap("val", "y"));
+		Consents consents = Consents.fromValidatedEventData(Collections.singletonMap("consents", (Object) consentsMap));
+
+		// test
+		consents.setTimestamp(1616985318);
+
+		// verify
+		assertEquals(TimeUtils.getISO8601UTCDateWithMilliseconds(new Date(1616985318)), consents.getTimestamp());
+		assertEquals(SAMPLE_METADATA_TIMESTAMP, metadata.get("time"));
+	}
+
 	// ========================================================================================
 	// Test method : isEqual
 	// ========================================================================================
@@ -490,4 +554,230 @@ public class ConsentsTest {
 		assertFalse(first.equalsIgnoreTimestamp(second));
 		assertFalse(second.equalsIgnoreTimestamp(first));
 	}
+
+	// ========================================================================================
+	// Test Scenarios   : Computing the consents which differ from a baseline
+	// Test method      : delta
+	// ========================================================================================
+	@Test
+	public void test_delta_whenNullBaseline_returnsAllConsents() {
+		// setup
+		Consents consents = new Consents(
+			new ConsentsBuilder().setCollect("y").setAdId("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+		);
+
+		// test
+		Consents delta = consents.delta(null);
+
+		// verify
+		assertEquals(consents, delta);
+	}
+
+	@Test
+	public void test_delta_returnsOnlyChangedTopLevelConsentsWithMetadata() {
+		// setup
+		Consents baseline = new Consents(
+			new ConsentsBuilder()
+				.setCollect("y")
+				.setAdId("n")
+				.setMarketing("push", "y", "push")
+				.setTime(SAMPLE_METADATA_TIMESTAMP)
+				.buildToMap()
+		);
+		Consents consents = new Consents(
+			new ConsentsBuilder()
+				.setCollect("y")
+				.setAdId("y")
+				.setMarketing("push", "n", "push")
+				.setTime(SAMPLE_METADATA_TIMESTAMP_OTHER)
+				.buildToMap()
+		);
+
+		// test
+		Consents delta = consents.delta(baseline);
+
+		// verify
+		assertEquals(
+			new Consents(
+				new ConsentsBuilder()
+					.setAdId("y")
+					.setMarketing("push", "n", "push")
+					.setTime(SAMPLE_METADATA_TIMESTAMP_OTHER)
+					.buildToMap()
+			),
+			delta
+		);
+	}
+
+	@Test
+	public void test_delta_whenOnlyTimestampDiffers_returnsEmpty() {
+		// setup
+		Consents baseline = new Consents(
+			new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+		);
+		Consents consents = new Consents(
+			new ConsentsBuilder().setCollect("y").setTime(SAMPLE_METADATA_TIMESTAMP_OTHER).buildToMap()
+		);
+
+		// verify
+		assertTrue(consents.delta(baseline).isEmpty());
+	}
+
+	// ========================================================================================
+	// Test Scenarios   : Consents with expiry
+	// Test method      : Constructor, mergeExpiries, getNextExpiry, removeExpired, toJson, fromJson
+	// ========================================================================================
+
+	@Test
+	public void test_expiry_forAllConsents() {
+		// setup
+		Map<String, Object> consentData = new ConsentsBuilder()
+			.setCollect("y")
+			.setAdId("n")
+			.setTime(SAMPLE_METADATA_TIMESTAMP)
+			.buildToMap();
+		consentData.put("expiry", 1000L);
+
+		// test
+		Consents consents = new Consents(consentData);
+
+		// verify
+		assertEquals(1000L, consents.getNextExpiry());
+		assertEquals(2, consents.removeExpired(1000L).size());
+		assertEquals(0, consents.getNextExpiry());
+		assertNull(ConsentTestUtil.readCollectConsent(consents));
+		assertNull(ConsentTestUtil.readAdIdConsent(consents));
+		assertEquals(SAMPLE_METADATA_TIMESTAMP, consents.getTimestamp());
+	}
+
+	@Test
+	public void test_expiry_perKey() {
+		// setup
+		Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap();
+		Map<String, Object> expiry = new HashMap<>();
+		expiry.put("collect", 2000);
+		expiry.put("adID", "invalid");
+		expiry.put("personalize", 1000);
+		consentData.put("expiry", expiry);
+		Consents consents = new Consents(consentData);
+
+		// test
+		Map<String, Object> view = consents.asUnmodifiableMap();
+
+		// verify
+		assertEquals(2000L, consents.getNextExpiry());
+		assertTrue(consents.removeExpired(1999L).isEmpty());
+		assertEquals(Collections.singleton("collect"), consents.removeExpired(2000L));
+		assertNull(ConsentTestUtil.readCollectConsent(consents));
+		assertEquals("n", ConsentTestUtil.readAdIdConsent(consents));
+		assertEquals(0, consents.getNextExpiry());
+		// the views taken before are not affected
+		assertTrue(view.containsKey("collect"));
+	}
+
+	@Test
+	public void test_mergeExpiries() {
+		// setup
+		Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap();
+		consentData.put("expiry", 1000L);
+		Consents consents = new Consents(new HashMap<>());
+		Consents newConsents = new Consents(consentData);
+		consents.merge(newConsents);
+
+		// test
+		consents.mergeExpiries(newConsents);
+
+		// verify
+		assertEquals(1000L, consents.getNextExpiry());
+
+		// updating without expiry keeps the expiry
+		Consents update = new Consents(new ConsentsBuilder().setCollect("n").buildToMap());
+		consents.merge(update);
+		consents.mergeExpiries(update);
+		assertEquals(1000L, consents.getNextExpiry());
+
+		// expiries which are not positive clear the expiry
+		Map<String, Object> clearData = new ConsentsBuilder().setCollect("n").setAdId("n").buildToMap();
+		clearData.put("expiry", 0);
+		Consents clear = new Consents(clearData);
+		consents.merge(clear);
+		consents.mergeExpiries(clear);
+		assertEquals(0, consents.getNextExpiry());
+	}
+
+	@Test
+	public void test_expiry_copiedButNotMerged() {
+		// setup
+		Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").buildToMap();
+		consentData.put("expiry", 1000L);
+		Consents consents = new Consents(consentData);
+
+		// test
+		Consents copy = new Consents(consents);
+		Consents merged = new Consents(new HashMap<>());
+		merged.merge(consents);
+
+		// verify
+		assertEquals(1000L, copy.getNextExpiry());
+		assertEquals(0, merged.getNextExpiry());
+		assertEquals(consents, copy);
+		assertEquals(consents.toJson(), copy.toJson());
+	}
+
+	@Test
+	public void test_overrideExpiries_keepsLastExpiryOfEachKey() {
+		// setup
+		Map<String, Object> first = new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap();
+		first.put("expiry", 1000L);
+		Map<String, Object> second = new ConsentsBuilder().setAdId("n").buildToMap();
+		second.put("expiry", Collections.singletonMap("adID", 0L));
+		Map<String, Object> third = new ConsentsBuilder().setCollect("n").buildToMap();
+		Consents combined = new Consents(new HashMap<>());
+
+		// test
+		for (Map<String, Object> consents : Arrays.asList(first, second, third)) {
+			combined.merge(new Consents(consents));
+			combined.overrideExpiries(new Consents(consents));
+		}
+
+		// verify
+		Map<String, Object> eventData = combined.asUpdateEventData();
+		assertEquals(
+			new ConsentsBuilder().setCollect("n").setAdId("n").buildToMap().get("consents"),
+			eventData.get("consents")
+		);
+		Map<String, Object> expiries = (Map<String, Object>) eventData.get("expiry");
+		assertEquals(2, expiries.size());
+		assertEquals(1000L, expiries.get("collect"));
+		assertEquals(0L, expiries.get("adID"));
+	}
+
+	@Test
+	public void test_asUpdateEventData_withoutExpiries() {
+		// setup
+		Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").buildToMap();
+
+		// test & verify
+		assertEquals(consentData, new Consents(consentData).asUpdateEventData());
+	}
+
+	@Test
+	public void test_expiry_toJsonAndFromJson() throws Exception {
+		// setup
+		Map<String, Object> consentData = new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap();
+		Map<String, Object> expiry = new HashMap<>();
+		expiry.put("collect", 1767225600000L);
+		consentData.put("expiry", expiry);
+		Consents consents = new Consents(consentData);
+
+		// test
+		String json = consents.toJson();
+		Consents restored = Consents.fromJson(json);
+
+		// verify
+		assertTrue(json.contains("\"expiry\":"));
+		assertEquals(consents, restored);
+		assertEquals(1767225600000L, restored.getNextExpiry());
+		assertFalse(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()).toJson().contains("expiry"));
+	}
 }
@@ -0,0 +1,114 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.Test;
+
+public class CopyOnWriteMapTest {
+
+	@Test
+	public void test_get_readsSharedMapWithoutCopying() {
+		final Map<String, Object> sharedMap = sharedConsents();
+
+		final Map<String, Object> map = new CopyOnWriteMap(sharedMap);
+
+		assertEquals(sharedMap, map);
+		assertEquals(map, sharedMap);
+		assertEquals(sharedMap.hashCode(), map.hashCode());
+		assertSame(map.get("consents"), map.get("consents"));
+	}
+
+	@Test
+	public void test_put_copiesSharedMap() {
+		final Map<String, Object> sharedMap = sharedConsents();
+		final Map<String, Object> map = new CopyOnWriteMap(sharedMap);
+
+		map.put("other", "value");
+
+		assertEquals("value", map.get("other"));
+		assertFalse(sharedMap.containsKey("other"));
+	}
+
+	@Test
+	public void test_putInNestedMap_copiesSharedMapAndKeepsNestedMapsRead() {
+		final Map<String, Object> sharedMap = sharedConsents();
+		final Map<String, Object> map = new CopyOnWriteMap(sharedMap);
+		final Map<String, Object> consents = (Map<String, Object>) map.get("consents");
+		final Map<String, Object> collect = (Map<String, Object>) consents.get("collect");
+
+		collect.put("val", "n");
+		consents.put("adID", Collections.singletonMap("val", "y"));
+
+		assertEquals("n", ((Map) ((Map) map.get("consents")).get("collect")).get("val"));
+		assertEquals("y", ((Map) ((Map) map.get("consents")).get("adID")).get("val"));
+		assertEquals("y", ((Map) sharedConsentsOf(sharedMap).get("collect")).get("val"));
+		assertFalse(sharedConsentsOf(sharedMap).containsKey("adID"));
+	}
+
+	@Test
+	public void test_entrySet_setValueAndRemove_copySharedMap() {
+		final Map<String, Object> sharedMap = new HashMap<>();
+		sharedMap.put("a", "1");
+		sharedMap.put("b", "2");
+		final Map<String, Object> map = new CopyOnWriteMap(Collections.unmodifiableMap(sharedMap));
+
+		final Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			final Map.Entry<String, Object> entry = iterator.next();
+
+			if ("a".equals(entry.getKey())) {
+				entry.setValue("3");
+			} else {
+				iterator.remove();
+			}
+		}
+
+		assertEquals(Collections.singletonMap("a", "3"), map);
+		assertEquals("1", sharedMap.get("a"));
+		assertEquals("2", sharedMap.get("b"));
+	}
+
+	@Test
+	public void test_clear_copiesSharedMap() {
+		final Map<String, Object> sharedMap = sharedConsents();
+		final Map<String, Object> map = new CopyOnWriteMap(sharedMap);
+
+		map.clear();
+
+		assertEquals(0, map.size());
+		assertNull(map.get("consents"));
+		assertEquals(1, sharedMap.size());
+	}
+
+	/**
+	 * @return read-only {"consents": {"collect": {"val": "y"}}}
+	 */
+	private static Map<String, Object> sharedConsents() {
+		final Map<String, Object> collect = Collections.singletonMap("val", (Object) "y");
+		final Map<String, Object> consents = Collections.singletonMap("collect", (Object) collect);
+		return Collections.singletonMap("consents", (Object) consents);
+	}
+
+	private static Map<String, Object> sharedConsentsOf(final Map<String, Object> sharedMap) {
+		return (Map<String, Object>) sharedMap.get("consents");
+	}
+}
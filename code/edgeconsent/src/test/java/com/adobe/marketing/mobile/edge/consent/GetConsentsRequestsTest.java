@@ -0,0 +1,148 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.adobe.marketing.mobile.AdobeCallbackWithError;
+import com.adobe.marketing.mobile.AdobeError;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class GetConsentsRequestsTest {
+
+	private static final Map<String, Object> SAMPLE_CONSENTS_MAP = new ConsentTestUtil.ConsentsBuilder()
+		.setCollect("y")
+		.buildToMap();
+
+	private final GetConsentsRequests requests = new GetConsentsRequests();
+
+	@Test
+	public void test_enqueue_coalescesRequestsInFlight() {
+		// setup
+		final RecordingCallback first = new RecordingCallback();
+		final RecordingCallback second = new RecordingCallback();
+
+		// test
+		final GetConsentsRequests.Batch batch = requests.enqueue(first);
+		final GetConsentsRequests.Batch joined = requests.enqueue(second);
+		requests.complete(batch, SAMPLE_CONSENTS_MAP);
+
+		// verify
+		assertNotNull(batch);
+		assertNull(joined);
+		assertEquals(SAMPLE_CONSENTS_MAP, first.results.get(0));
+		assertEquals(SAMPLE_CONSENTS_MAP, second.results.get(0));
+
+		// verify each callback receives its own copy
+		((Map<String, Object>) first.results.get(0).get("consents")).put("newkey", "newvalue");
+		assertEquals(SAMPLE_CONSENTS_MAP, second.results.get(0));
+	}
+
+	@Test
+	public void test_enqueue_afterComplete_startsNewRoundTrip() {
+		// setup
+		final GetConsentsRequests.Batch batch = requests.enqueue(new RecordingCallback());
+		requests.complete(batch, SAMPLE_CONSENTS_MAP);
+
+		// test
+		final GetConsentsRequests.Batch nextBatch = requests.enqueue(new RecordingCallback());
+
+		// verify
+		assertNotNull(nextBatch);
+	}
+
+	@Test
+	public void test_enqueue_afterInvalidate_doesNotJoinRequestInFlight() {
+		// setup
+		final RecordingCallback first = new RecordingCallback();
+		final RecordingCallback second = new RecordingCallback();
+		final GetConsentsRequests.Batch batch = requests.enqueue(first);
+
+		// test
+		requests.invalidate();
+		final GetConsentsRequests.Batch nextBatch = requests.enqueue(second);
+		requests.complete(batch, SAMPLE_CONSENTS_MAP);
+
+		// verify
+		assertNotNull(nextBatch);
+		assertEquals(1, first.results.size());
+		assertEquals(0, second.results.size());
+		assertNull(requests.getSnapshot(60000)); // the response predates the change
+	}
+
+	@Test
+	public void test_getSnapshot() {
+		// setup
+		assertNull(requests.getSnapshot(60000));
+		requests.complete(requests.enqueue(new RecordingCallback()), SAMPLE_CONSENTS_MAP);
+
+		// verify
+		assertEquals(SAMPLE_CONSENTS_MAP, requests.getSnapshot(60000));
+
+		// test - changes discard the snapshot
+		requests.invalidate();
+
+		// verify
+		assertNull(requests.getSnapshot(60000));
+	}
+
+	@Test
+	public void test_getSnapshot_whenOlderThanMaxAge() throws InterruptedException {
+		// setup
+		requests.complete(requests.enqueue(new RecordingCallback()), SAMPLE_CONSENTS_MAP);
+
+		// test
+		Thread.sleep(5);
+
+		// verify
+		assertNull(requests.getSnapshot(1));
+	}
+
+	@Test
+	public void test_fail_returnsErrorToAllCallbacks() {
+		// setup
+		final RecordingCallback first = new RecordingCallback();
+		final RecordingCallback second = new RecordingCallback();
+		final GetConsentsRequests.Batch batch = requests.enqueue(first);
+		requests.enqueue(second);
+
+		// test
+		requests.fail(batch, AdobeError.CALLBACK_TIMEOUT);
+
+		// verify
+		assertEquals(AdobeError.CALLBACK_TIMEOUT, first.errors.get(0));
+		assertEquals(AdobeError.CALLBACK_TIMEOUT, second.errors.get(0));
+		assertNull(requests.getSnapshot(60000));
+		assertNotNull(requests.enqueue(new RecordingCallback()));
+	}
+
+	private static class RecordingCallback implements AdobeCallbackWithError<Map<String, Object>> {
+
+		final List<Map<String, Object>> results = new ArrayList<>();
+		final List<AdobeError> errors = new ArrayList<>();
+
+		@Override
+		public void call(final Map<String, Object> consents) {
+			results.add(consents);
+		}
+
+		@Override
+		public void fail(final AdobeError error) {
+			errors.add(error);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.ConsentsBuilder;
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.SAMPLE_METADATA_TIMESTAMP;
+import static com.adobe.marketing.mobile.edge.consent.ConsentTestUtil.SAMPLE_METADATA_TIMESTAMP_OTHER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class LayeredConsentsTest {
+
+	@Test
+	public void test_isEmpty() {
+		final Consents empty = new Consents(new HashMap<String, Object>());
+		final Consents consents = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+
+		assertTrue(new LayeredConsents(empty, null).isEmpty());
+		assertTrue(new LayeredConsents(empty, empty).isEmpty());
+		assertFalse(new LayeredConsents(consents, null).isEmpty());
+		assertFalse(new LayeredConsents(empty, consents).isEmpty());
+	}
+
+	@Test
+	public void test_getValue_userOptedOverridesDefault() {
+		// setup
+		final Consents userOpted = new Consents(
+			new ConsentsBuilder().setCollect("n").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+		);
+		final Consents defaults = new Consents(new ConsentsBuilder().setCollect("y").setAdId("y").buildToMap());
+
+		// test
+		final LayeredConsents layeredConsents = new LayeredConsents(userOpted, defaults);
+
+		// verify
+		assertEquals("n", layeredConsents.getValue("collect", "val"));
+		assertEquals("y", layeredConsents.getValue("adID", "val"));
+		assertNull(layeredConsents.getValue("personalize", "content", "val"));
+		assertNull(layeredConsents.getValue("collect", "val", "unknown"));
+		assertEquals(SAMPLE_METADATA_TIMESTAMP, layeredConsents.getTimestamp());
+	}
+
+	@Test
+	public void test_getValue_mergesNestedMaps() {
+		// setup
+		final Consents userOpted = new Consents(new ConsentsBuilder().setMarketing("sms", "n", "false").buildToMap());
+		final Consents defaults = new Consents(new ConsentsBuilder().setMarketing("email", "y", "true").buildToMap());
+
+		// test
+		final LayeredConsents layeredConsents = new LayeredConsents(userOpted, defaults);
+
+		// verify
+		assertEquals("n", layeredConsents.getValue("marketing", "sms", "val"));
+		assertEquals("y", layeredConsents.getValue("marketing", "email", "val"));
+		assertEquals("false", layeredConsents.getValue("marketing", "preferred"));
+
+		final Map<String, Object> marketing = (Map<String, Object>) layeredConsents.getValue("marketing");
+		assertEquals(3, marketing.size());
+	}
+
+	@Test
+	public void test_getValue_userOptedValueReplacesDefaultMap() {
+		// setup
+		final Map<String, Object> userOptedMap = new HashMap<>();
+		final Map<String, Object> userOptedConsents = new HashMap<>();
+		userOptedConsents.put("marketing", "n");
+		userOptedMap.put("consents", userOptedConsents);
+		final Consents defaults = new Consents(new ConsentsBuilder().setMarketing("email", "y", "true").buildToMap());
+
+		// test
+		final LayeredConsents layeredConsents = new LayeredConsents(new Consents(userOptedMap), defaults);
+
+		// verify
+		assertEquals("n", layeredConsents.getValue("marketing"));
+		assertNull(layeredConsents.getValue("marketing", "email", "val"));
+	}
+
+	@Test
+	public void test_getValue_withoutDefaults() {
+		// setup
+		final Consents userOpted = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+
+		// test
+		final LayeredConsents layeredConsents = new LayeredConsents(userOpted, null);
+
+		// verify
+		assertEquals("y", layeredConsents.getValue("collect", "val"));
+		assertTrue(layeredConsents.containsKey("collect"));
+		assertFalse(layeredConsents.containsKey("adID"));
+		assertNull(layeredConsents.getTimestamp());
+	}
+
+	@Test
+	public void test_materialize_matchesMerge() {
+		// setup
+		final Consents userOpted = new Consents(
+			new ConsentsBuilder()
+				.setCollect("n")
+				.setMarketing("sms", "n", "false")
+				.setTime(SAMPLE_METADATA_TIMESTAMP_OTHER)
+				.buildToMap()
+		);
+		final Consents defaults = new Consents(
+			new ConsentsBuilder()
+				.setCollect("y")
+				.setAdId("y")
+				.setMarketing("email", "y", "true")
+				.setTime(SAMPLE_METADATA_TIMESTAMP)
+				.buildToMap()
+		);
+		final Consents expected = new Consents(defaults);
+		expected.merge(userOpted);
+
+		// test
+		final LayeredConsents layeredConsents = new LayeredConsents(userOpted, defaults);
+
+		// verify
+		assertEquals(expected, layeredConsents.materialize());
+		assertEquals(expected.getTimestamp(), layeredConsents.getTimestamp());
+	}
+
+	@Test
+	public void test_materialize_withoutDefaults_returnsCopy() {
+		// setup
+		final Consents userOpted = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+
+		// test
+		final Consents materialized = new LayeredConsents(userOpted, null).materialize();
+		materialized.merge(new Consents(new ConsentsBuilder().setCollect("n").buildToMap()));
+
+		// verify
+		assertEquals("y", ConsentTestUtil.readCollectConsent(userOpted));
+	}
+
+	@Test
+	public void test_materialize_layerChangedAfterView_readsLayersOfView() {
+		// setup
+		final Consents userOpted = new Consents(new ConsentsBuilder().setCollect("y").buildToMap());
+		final LayeredConsents layeredConsents = new LayeredConsents(userOpted, null);
+
+		// test
+		userOpted.merge(new Consents(new ConsentsBuilder().setCollect("n").setAdId("n").buildToMap()));
+		userOpted.setTimestamp(0);
+
+		// verify
+		assertEquals(new Consents(new ConsentsBuilder().setCollect("y").buildToMap()), layeredConsents.materialize());
+	}
+
+	@Test
+	public void test_materialize_fromPreviousView_onlyMergesChangedKeys() {
+		// setup
+		final Consents userOpted = new Consents(new ConsentsBuilder().setCollect("n").buildToMap());
+		final Consents defaults = new Consents(
+			new ConsentsBuilder().setCollect("y").setAdId("y").setTime(SAMPLE_METADATA_TIMESTAMP).buildToMap()
+		);
+		final LayeredConsents previousView = new LayeredConsents(userOpted, defaults);
+		final Consents previousConsents = previousView.materialize();
+
+		// test
+		userOpted.merge(new Consents(new ConsentsBuilder().setCollect("y").setAdId("n").buildToMap()));
+		final LayeredConsents view = new LayeredConsents(userOpted, defaults);
+		final Consents consents = view.materialize(previousView, previousConsents);
+
+		// verify
+		assertEquals(view.materialize(), consents);
+		assertEquals("y", ConsentTestUtil.readCollectConsent(consents));
+		assertEquals("n", ConsentTestUtil.readAdIdConsent(consents));
+		assertSame(
+			previousConsents.asUnmodifiableMap().get(ConsentConstants.EventDataKey.METADATA),
+			consents.asUnmodifiableMap().get(ConsentConstants.EventDataKey.METADATA)
+		);
+		assertSame(consents, new LayeredConsents(userOpted, defaults).materialize(view, consents));
+	}
+}
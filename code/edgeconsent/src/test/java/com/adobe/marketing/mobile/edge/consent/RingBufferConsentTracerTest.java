@@ -0,0 +1,137 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RingBufferConsentTracerTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_constructor_whenCapacityNotPositive_throws() {
+		new RingBufferConsentTracer(0);
+	}
+
+	@Test
+	public void test_getSpans_whenNothingRecorded_returnsEmpty() {
+		assertTrue(new RingBufferConsentTracer(4).getSpans().isEmpty());
+	}
+
+	@Test
+	public void test_getSpans_recordsNestedSpans() {
+		// setup
+		RingBufferConsentTracer tracer = new RingBufferConsentTracer(4);
+
+		// test
+		tracer.beginSpan(ConsentTracer.SPAN_PERSIST);
+		tracer.beginSpan(ConsentTracer.SPAN_AS_XDM_MAP);
+		tracer.endSpan(ConsentTracer.SPAN_AS_XDM_MAP);
+		tracer.endSpan(ConsentTracer.SPAN_PERSIST);
+
+		// verify, nested spans complete first
+		List<Map<String, Object>> spans = tracer.getSpans();
+		assertEquals(2, spans.size());
+		assertEquals(ConsentTracer.SPAN_AS_XDM_MAP, spans.get(0).get(RingBufferConsentTracer.NAME));
+		assertEquals(1, spans.get(0).get(RingBufferConsentTracer.DEPTH));
+		assertEquals(ConsentTracer.SPAN_PERSIST, spans.get(1).get(RingBufferConsentTracer.NAME));
+		assertEquals(0, spans.get(1).get(RingBufferConsentTracer.DEPTH));
+
+		long parentStart = (Long) spans.get(1).get(RingBufferConsentTracer.START_NANOS);
+		long parentDuration = (Long) spans.get(1).get(RingBufferConsentTracer.DURATION_NANOS);
+		long childStart = (Long) spans.get(0).get(RingBufferConsentTracer.START_NANOS);
+		long childDuration = (Long) spans.get(0).get(RingBufferConsentTracer.DURATION_NANOS);
+		assertTrue(childStart >= parentStart);
+		assertTrue(childStart + childDuration <= parentStart + parentDuration);
+	}
+
+	@Test
+	public void test_getSpans_whenFull_keepsMostRecentSpans() {
+		// setup
+		RingBufferConsentTracer tracer = new RingBufferConsentTracer(2);
+
+		// test
+		recordSpan(tracer, ConsentTracer.SPAN_LOAD);
+		recordSpan(tracer, ConsentTracer.SPAN_MERGE);
+		recordSpan(tracer, ConsentTracer.SPAN_PERSIST);
+
+		// verify
+		List<Map<String, Object>> spans = tracer.getSpans();
+		assertEquals(2, spans.size());
+		assertEquals(ConsentTracer.SPAN_MERGE, spans.get(0).get(RingBufferConsentTracer.NAME));
+		assertEquals(ConsentTracer.SPAN_PERSIST, spans.get(1).get(RingBufferConsentTracer.NAME));
+	}
+
+	@Test
+	public void test_endSpan_whenUnbalanced_isIgnored() {
+		// setup
+		RingBufferConsentTracer tracer = new RingBufferConsentTracer(4);
+
+		// test
+		tracer.endSpan(ConsentTracer.SPAN_DISPATCH);
+		tracer.beginSpan(ConsentTracer.SPAN_MERGE);
+		tracer.endSpan(ConsentTracer.SPAN_DISPATCH);
+		tracer.endSpan(ConsentTracer.SPAN_MERGE);
+
+		// verify
+		List<Map<String, Object>> spans = tracer.getSpans();
+		assertEquals(1, spans.size());
+		assertEquals(ConsentTracer.SPAN_MERGE, spans.get(0).get(RingBufferConsentTracer.NAME));
+	}
+
+	@Test
+	public void test_beginSpan_whenTooDeeplyNested_skipsDeeperSpans() {
+		// setup
+		RingBufferConsentTracer tracer = new RingBufferConsentTracer(64);
+
+		// test
+		for (int i = 0; i < 20; i++) {
+			tracer.beginSpan(ConsentTracer.SPAN_MERGE);
+		}
+
+		for (int i = 0; i < 20; i++) {
+			tracer.endSpan(ConsentTracer.SPAN_MERGE);
+		}
+
+		// verify
+		List<Map<String, Object>> spans = tracer.getSpans();
+		assertEquals(16, spans.size());
+		assertEquals(0, spans.get(15).get(RingBufferConsentTracer.DEPTH));
+	}
+
+	@Test
+	public void test_clear() {
+		// setup
+		RingBufferConsentTracer tracer = new RingBufferConsentTracer(4);
+		recordSpan(tracer, ConsentTracer.SPAN_LOAD);
+
+		// test
+		tracer.clear();
+		recordSpan(tracer, ConsentTracer.SPAN_MERGE);
+
+		// verify
+		List<Map<String, Object>> spans = tracer.getSpans();
+		assertEquals(1, spans.size());
+		assertEquals(ConsentTracer.SPAN_MERGE, spans.get(0).get(RingBufferConsentTracer.NAME));
+	}
+
+	private static void recordSpan(final RingBufferConsentTracer tracer, final String name) {
+		tracer.beginSpan(name);
+		tracer.endSpan(name);
+	}
+}
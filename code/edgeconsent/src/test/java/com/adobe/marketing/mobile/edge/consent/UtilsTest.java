@@ -13,11 +13,13 @@ package com.adobe.marketing.mobile.edge.consent;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -136,6 +138,34 @@ public class UtilsTest {
 		assertEquals(emptyMap, copyMap);
 	}
 
+	@Test
+	public void testFingerprint_whenNull() {
+		assertNull(Utils.fingerprint((Map<String, Object>) null));
+	}
+
+	@Test
+	public void testFingerprint_whenSameContentDifferentOrder_sameFingerprint() {
+		Map<String, Object> first = new LinkedHashMap<>();
+		first.put("collect", "y");
+		first.put("adID", "n");
+		Map<String, Object> second = new LinkedHashMap<>();
+		second.put("adID", "n");
+		second.put("collect", "y");
+
+		assertNotNull(Utils.fingerprint(first));
+		assertEquals(Utils.fingerprint(first), Utils.fingerprint(second));
+	}
+
+	@Test
+	public void testFingerprint_whenDifferentContent_differentFingerprint() {
+		Map<String, Object> first = new HashMap<>();
+		first.put("collect", "y");
+		Map<String, Object> second = new HashMap<>();
+		second.put("collect", "n");
+
+		assertNotEquals(Utils.fingerprint(first), Utils.fingerprint(second));
+	}
+
 	private Map<String, Object> createDeeplyNestedMap(int depth) {
 		Map<String, Object> map = new HashMap<>();
 		Map<String, Object> currentLevel = map;
@@ -0,0 +1,308 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventSource;
+import com.adobe.marketing.mobile.EventType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generator of large consent payloads for benchmarks and stress tests.
+ * <p>
+ * Generated consents contain the standard "collect", "adID" and "personalize" consents and a
+ * "vendors" consent with one entry per vendor. Each vendor has a consent value and, depending on
+ * the nesting depth, nested "purposes" with their own consent values.
+ * <p>
+ * Generators created with the same seed and settings produce the same sequence of payloads;
+ * successive payloads of a generator differ in their randomly drawn values.
+ * <p>
+ * Usage example:
+ * <pre>{@code
+ * ConsentPayloadGenerator generator = new ConsentPayloadGenerator(42)
+ *     .setVendorCount(500, 2000)
+ *     .setNestingDepth(2)
+ *     .setValueWeights(8, 1, 1)
+ *     .setTime(ConsentTestUtil.SAMPLE_METADATA_TIMESTAMP);
+ *
+ * Map<String, Object> consents = generator.buildToMap();
+ * Event handleEvent = generator.buildEdgeConsentPreferenceEvent();
+ * Event configurationEvent = generator.buildConfigurationResponseEvent();
+ * }</pre>
+ */
+class ConsentPayloadGenerator {
+
+	/**
+	 * System property enabling the benchmarks built on generated payloads, which the unit test
+	 * suite skips. Set by running the tests with the Gradle property of the same name.
+	 */
+	static final String BENCHMARKS_PROPERTY = "consent.benchmarks";
+
+	private static final String VENDORS = "vendors";
+	private static final String VENDOR_PREFIX = "vendor";
+	private static final String PURPOSES = "purposes";
+	private static final String PURPOSE_PREFIX = "purpose";
+	private static final String VALUE = "val";
+	private static final String YES = "y";
+	private static final String NO = "n";
+	private static final String PENDING = "p";
+
+	private final Random random;
+	private int minVendorCount = 100;
+	private int maxVendorCount = 100;
+	private int firstVendorIndex = 0;
+	private int nestingDepth = 0;
+	private int purposesPerLevel = 2;
+	private int yesWeight = 1;
+	private int noWeight = 1;
+	private int pendingWeight = 0;
+	private String time = null;
+
+	/**
+	 * Creates a generator.
+	 *
+	 * @param seed the seed of the random values, the same seed produces the same payloads
+	 */
+	ConsentPayloadGenerator(final long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * Sets the number of vendors of each payload.
+	 *
+	 * @param count the number of vendors
+	 * @return This generator instance for method chaining
+	 */
+	ConsentPayloadGenerator setVendorCount(final int count) {
+		return setVendorCount(count, count);
+	}
+
+	/**
+	 * Sets the range of the number of vendors of each payload, drawn uniformly for every payload.
+	 *
+	 * @param min the minimum number of vendors, inclusive
+	 * @param max the maximum number of vendors, inclusive
+	 * @return This generator instance for method chaining
+	 */
+	ConsentPayloadGenerator setVendorCount(final int min, final int max) {
+		if (min < 0 || max < min) {
+			throw new IllegalArgumentException("invalid vendor count range");
+		}
+
+		minVendorCount = min;
+		maxVendorCount = max;
+		return this;
+	}
+
+	/**
+	 * Sets the index of the first vendor, so payloads with partially overlapping vendors can be
+	 * generated. Vendors are named "vendor" followed by their index.
+	 *
+	 * @param index the index of the first vendor
+	 * @return This generator instance for method chaining
+	 */
+	ConsentPayloadGenerator setFirstVendorIndex(final int index) {
+		firstVendorIndex = index;
+		return this;
+	}
+
+	/**
+	 * Sets the number of nested "purposes" levels under each vendor.
+	 *
+	 * @param depth the nesting depth, 0 for vendors without purposes
+	 * @param purposesPerLevel the number of purposes at each level
+	 * @return This generator instance for method chaining
+	 * <p>
+	 * Example:
+	 * <pre>{@code
+	 * .setNestingDepth(1, 2)
+	 * // vendor: {"val": "y", "purposes": {"purpose0": {"val": "n"}, "purpose1": {"val": "y"}}}
+	 * }</pre>
+	 */
+	ConsentPayloadGenerator setNestingDepth(final int depth, final int purposesPerLevel) {
+		if (depth < 0 || purposesPerLevel < 1) {
+			throw new IllegalArgumentException("invalid nesting depth");
+		}
+
+		this.nestingDepth = depth;
+		this.purposesPerLevel = purposesPerLevel;
+		return this;
+	}
+
+	/**
+	 * Sets the number of nested "purposes" levels under each vendor, with 2 purposes at each level.
+	 *
+	 * @param depth the nesting depth, 0 for vendors without purposes
+	 * @return This generator instance for method chaining
+	 */
+	ConsentPayloadGenerator setNestingDepth(final int depth) {
+		return setNestingDepth(depth, 2);
+	}
+
+	/**
+	 * Sets the relative weights of the "y", "n" and "p" consent values.
+	 *
+	 * @param yes the weight of "y" values
+	 * @param no the weight of "n" values
+	 * @param pending the weight of "p" values
+	 * @return This generator instance for method chaining
+	 * <p>
+	 * Example:
+	 * <pre>{@code
+	 * .setValueWeights(1, 0, 0) // all values are "y"
+	 * .setValueWeights(8, 1, 1) // 80% "y", 10% "n", 10% "p"
+	 * }</pre>
+	 */
+	ConsentPayloadGenerator setValueWeights(final int yes, final int no, final int pending) {
+		if (yes < 0 || no < 0 || pending < 0 || yes + no + pending == 0) {
+			throw new IllegalArgumentException("invalid value weights");
+		}
+
+		yesWeight = yes;
+		noWeight = no;
+		pendingWeight = pending;
+		return this;
+	}
+
+	/**
+	 * Sets the metadata time of the payloads.
+	 *
+	 * @param time the metadata time, or null to generate payloads without metadata
+	 * @return This generator instance for method chaining
+	 */
+	ConsentPayloadGenerator setTime(final String time) {
+		this.time = time;
+		return this;
+	}
+
+	/**
+	 * Generates the next consents payload in XDM format.
+	 *
+	 * @return A Map in XDM format: {"consents": {...}}
+	 */
+	Map<String, Object> buildToMap() {
+		final Map<String, Object> consents = new HashMap<>();
+		consents.put("collect", valueMap());
+		consents.put("adID", valueMap());
+
+		final Map<String, Object> personalize = new HashMap<>();
+		personalize.put("content", valueMap());
+		consents.put("personalize", personalize);
+
+		final int vendorCount = minVendorCount + random.nextInt(maxVendorCount - minVendorCount + 1);
+		final Map<String, Object> vendors = new HashMap<>();
+
+		for (int i = firstVendorIndex; i < firstVendorIndex + vendorCount; i++) {
+			vendors.put(VENDOR_PREFIX + i, consentWithPurposes(nestingDepth));
+		}
+
+		consents.put(VENDORS, vendors);
+
+		if (time != null) {
+			final Map<String, Object> metadata = new HashMap<>();
+			metadata.put(ConsentConstants.EventDataKey.TIME, time);
+			consents.put(ConsentConstants.EventDataKey.METADATA, metadata);
+		}
+
+		final Map<String, Object> xdm = new HashMap<>();
+		xdm.put(ConsentConstants.EventDataKey.CONSENTS, consents);
+		return xdm;
+	}
+
+	/**
+	 * Generates the next consents payload as a consent update request event, as dispatched by the
+	 * {@code Consent.update} API.
+	 *
+	 * @return An Event of type {@link EventType#CONSENT} and source {@link EventSource#UPDATE_CONSENT}
+	 */
+	Event buildConsentUpdateEvent() {
+		return new Event.Builder("Consent Update", EventType.CONSENT, EventSource.UPDATE_CONSENT)
+			.setEventData(buildToMap())
+			.build();
+	}
+
+	/**
+	 * Generates the next consents payload as an Edge {@code consent:preferences} handle event.
+	 *
+	 * @return An Event of type {@link EventType#EDGE} and source {@link EventSource#CONSENT_PREFERENCE}
+	 * @see ConsentTestUtil#buildEdgeConsentPreferenceEventWithConsents(Map)
+	 */
+	Event buildEdgeConsentPreferenceEvent() {
+		return ConsentTestUtil.buildEdgeConsentPreferenceEventWithConsents(buildToMap());
+	}
+
+	/**
+	 * Generates the next consents payload as the {@code consent.default} of a configuration
+	 * response event.
+	 *
+	 * @return An Event of type {@link EventType#CONFIGURATION} and source {@link EventSource#RESPONSE_CONTENT}
+	 */
+	Event buildConfigurationResponseEvent() {
+		final Map<String, Object> configData = new HashMap<>();
+		configData.put(ConsentConstants.ConfigurationKey.DEFAULT_CONSENT, buildToMap());
+		return new Event.Builder("Configuration Response Event", EventType.CONFIGURATION, EventSource.RESPONSE_CONTENT)
+			.setEventData(configData)
+			.build();
+	}
+
+	/**
+	 * Generates the given number of payloads.
+	 *
+	 * @param count the number of payloads
+	 * @return A List of payloads in XDM format
+	 */
+	List<Map<String, Object>> buildToMaps(final int count) {
+		final List<Map<String, Object>> payloads = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			payloads.add(buildToMap());
+		}
+
+		return payloads;
+	}
+
+	private Map<String, Object> consentWithPurposes(final int depth) {
+		final Map<String, Object> consent = valueMap();
+
+		if (depth > 0) {
+			final Map<String, Object> purposes = new HashMap<>();
+
+			for (int i = 0; i < purposesPerLevel; i++) {
+				purposes.put(PURPOSE_PREFIX + i, consentWithPurposes(depth - 1));
+			}
+
+			consent.put(PURPOSES, purposes);
+		}
+
+		return consent;
+	}
+
+	private Map<String, Object> valueMap() {
+		final Map<String, Object> value = new HashMap<>();
+		value.put(VALUE, nextValue());
+		return value;
+	}
+
+	private String nextValue() {
+		final int draw = random.nextInt(yesWeight + noWeight + pendingWeight);
+
+		if (draw < yesWeight) {
+			return YES;
+		}
+
+		return draw < yesWeight + noWeight ? NO : PENDING;
+	}
+}
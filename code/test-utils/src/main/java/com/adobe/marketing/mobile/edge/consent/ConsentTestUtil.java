@@ -300,9 +300,9 @@ class ConsentTestUtil {
 		}
 
 		/**
-		 * Builds the consent data as a JSON string.
+		 * Builds the consent data as a JSON string, in the format written to persistence.
 		 * 
-		 * @return A JSON string representation of the constructed consent data
+		 * @return A JSON string representation of the constructed consent data, with sorted keys
 		 * <p>
 		 * Example:
 		 * <pre>{@code
@@ -313,9 +313,7 @@ class ConsentTestUtil {
 		 * }</pre>
 		 */
 		public String buildToString() {
-			Map<String, Object> consentDataMap = this.buildToMap();
-			JSONObject jsonObject = new JSONObject(consentDataMap);
-			return jsonObject.toString();
+			return ConsentsJson.write(this.buildToMap());
 		}
 	}
 
@@ -0,0 +1,124 @@
+/*
+  Copyright 2026 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.consent;
+
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link NamedCollection} for tests which need values written to persistence to be read
+ * back, for example to simulate an app restart by creating a new extension on the same collection.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * FakeNamedCollection persistence = new FakeNamedCollection();
+ * new ConsentManager(persistence).mergeAndPersist(consents);
+ * ConsentManager afterRestart = new ConsentManager(persistence);
+ * }</pre>
+ */
+class FakeNamedCollection implements NamedCollection {
+
+	private final Map<String, Object> values = new HashMap<>();
+
+	@Override
+	public void setInt(String key, int value) {
+		values.put(key, value);
+	}
+
+	@Override
+	public int getInt(String key, int defaultValue) {
+		Object value = values.get(key);
+		return value instanceof Integer ? (Integer) value : defaultValue;
+	}
+
+	@Override
+	public void setString(String key, String value) {
+		values.put(key, value);
+	}
+
+	@Override
+	public String getString(String key, String defaultValue) {
+		Object value = values.get(key);
+		return value instanceof String ? (String) value : defaultValue;
+	}
+
+	@Override
+	public void setDouble(String key, double value) {
+		values.put(key, value);
+	}
+
+	@Override
+	public double getDouble(String key, double defaultValue) {
+		Object value = values.get(key);
+		return value instanceof Double ? (Double) value : defaultValue;
+	}
+
+	@Override
+	public void setLong(String key, long value) {
+		values.put(key, value);
+	}
+
+	@Override
+	public long getLong(String key, long defaultValue) {
+		Object value = values.get(key);
+		return value instanceof Long ? (Long) value : defaultValue;
+	}
+
+	@Override
+	public void setFloat(String key, float value) {
+		values.put(key, value);
+	}
+
+	@Override
+	public float getFloat(String key, float defaultValue) {
+		Object value = values.get(key);
+		return value instanceof Float ? (Float) value : defaultValue;
+	}
+
+	@Override
+	public void setBoolean(String key, boolean value) {
+		values.put(key, value);
+	}
+
+	@Override
+	public boolean getBoolean(String key, boolean defaultValue) {
+		Object value = values.get(key);
+		return value instanceof Boolean ? (Boolean) value : defaultValue;
+	}
+
+	@Override
+	public void setMap(String key, Map<String, String> value) {
+		values.put(key, value != null ? new HashMap<>(value) : null);
+	}
+
+	@Override
+	public Map<String, String> getMap(String key) {
+		Object value = values.get(key);
+		return value instanceof Map ? new HashMap<>((Map<String, String>) value) : null;
+	}
+
+	@Override
+	public boolean contains(String key) {
+		return values.containsKey(key);
+	}
+
+	@Override
+	public void remove(String key) {
+		values.remove(key);
+	}
+
+	@Override
+	public void removeAll() {
+		values.clear();
+	}
+}